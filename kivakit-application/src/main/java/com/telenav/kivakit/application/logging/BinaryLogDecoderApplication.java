@@ -0,0 +1,108 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.application.logging;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.application.Application;
+import com.telenav.kivakit.application.internal.lexakai.DiagramApplication;
+import com.telenav.kivakit.commandline.ArgumentParser;
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.logging.logs.binary.BinaryLogReader;
+import com.telenav.kivakit.resource.Resource;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.io.IOException;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
+import static com.telenav.kivakit.core.collections.list.ObjectList.list;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogReader.binaryLogReader;
+import static com.telenav.kivakit.core.logging.logs.text.LogFormatter.logFormatter;
+import static com.telenav.kivakit.core.os.Console.console;
+import static com.telenav.kivakit.resource.Resource.resourceArgumentParser;
+
+/**
+ * Decodes the segments of a binary log to text on the console. Segments are decoded in the order they are given,
+ * and compressed segments are decompressed according to their extension. Entries are formatted with the formatter
+ * specified by KIVAKIT_LOG_FORMATTER, as they would have been by a text log.
+ *
+ * <pre>
+ * java -cp [classpath] com.telenav.kivakit.application.logging.BinaryLogDecoderApplication /var/log/server-*.kvlog</pre>
+ *
+ * @author jonathanl (shibo)
+ * @see BinaryLogReader
+ */
+@UmlClassDiagram(diagram = DiagramApplication.class)
+@TypeQuality(stability = STABLE,
+             testing = UNTESTED,
+             documentation = DOCUMENTED)
+public class BinaryLogDecoderApplication extends Application
+{
+    public static void main(String[] arguments)
+    {
+        run(BinaryLogDecoderApplication.class, arguments);
+    }
+
+    /** The segments to decode */
+    private final ArgumentParser<Resource> SEGMENTS = resourceArgumentParser(this, "Binary log segments to decode")
+            .oneOrMore()
+            .build();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String description()
+    {
+        return "Decodes binary log segments to text";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ObjectList<ArgumentParser<?>> argumentParsers()
+    {
+        return list(SEGMENTS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onRun()
+    {
+        var formatter = logFormatter();
+        var out = console().printWriter();
+        for (var segment : argumentList().arguments(SEGMENTS))
+        {
+            try (var reader = binaryLogReader(segment.openForReading()))
+            {
+                reader.render(formatter, out::println);
+            }
+            catch (IOException e)
+            {
+                problem(e, "Unable to decode binary log segment: $", segment);
+            }
+        }
+        out.flush();
+    }
+}
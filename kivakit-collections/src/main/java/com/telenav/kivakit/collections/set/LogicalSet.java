@@ -25,11 +25,13 @@ import com.telenav.kivakit.collections.set.operations.Union;
 import com.telenav.kivakit.collections.set.operations.Without;
 import com.telenav.kivakit.core.ensure.Ensure;
 import com.telenav.kivakit.core.string.Join;
+import com.telenav.kivakit.interfaces.collection.ModificationCounted;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.function.IntSupplier;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -40,6 +42,15 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
  * logical operation. Logical sets are not modifiable. To change the contents of a logical set, you must modify the
  * underlying sets that are being logically combined.
  *
+ * <p><b>Memoized Size</b></p>
+ *
+ * <p>
+ * Computing the size of most logical sets requires a walk through one of the underlying sets. When all the underlying
+ * sets are {@link ModificationCounted} (as all KivaKit sets and logical sets are), the size is computed once and
+ * remembered until the modification count of one of the underlying sets changes. When any underlying set is not
+ * counted, the size is computed on each call, as before.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see Union
  * @see Intersection
@@ -49,8 +60,29 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 @TypeQuality(stability = STABLE_EXTENSIBLE,
              testing = UNTESTED,
              documentation = DOCUMENTED)
-public abstract class LogicalSet<Element> implements Set<Element>
+public abstract class LogicalSet<Element> implements
+        ModificationCounted,
+        Set<Element>
 {
+    /** A size computed when the underlying sets had the given total modification count */
+    private record MemoizedSize(long modificationCount, int size)
+    {
+    }
+
+    /** The size of this set, as of the last time it was computed */
+    private volatile MemoizedSize memoizedSize;
+
+    /** The sets that this logical set is a view of */
+    private final Set<?>[] sources;
+
+    /**
+     * @param sources The sets that this logical set is a view of
+     */
+    protected LogicalSet(Set<?>... sources)
+    {
+        this.sources = sources;
+    }
+
     @Override
     public boolean add(Element element)
     {
@@ -84,6 +116,33 @@ public abstract class LogicalSet<Element> implements Set<Element>
         return true;
     }
 
+    /**
+     * Returns the total of the modification counts of the underlying sets, or -1 if any of the underlying sets is not
+     * {@link ModificationCounted}
+     */
+    @Override
+    public long modificationCount()
+    {
+        var total = 0L;
+        for (var source : sources)
+        {
+            if (source instanceof ModificationCounted counted)
+            {
+                var count = counted.modificationCount();
+                if (count < 0)
+                {
+                    return -1;
+                }
+                total += count;
+            }
+            else
+            {
+                return -1;
+            }
+        }
+        return total;
+    }
+
     @Override
     public boolean remove(Object o)
     {
@@ -135,6 +194,42 @@ public abstract class LogicalSet<Element> implements Set<Element>
         return Join.join(this, ", ");
     }
 
+    /**
+     * Returns true if the size of this set is remembered between calls to {@link #size()}
+     */
+    protected boolean isSizeMemoized()
+    {
+        return modificationCount() >= 0;
+    }
+
+    /**
+     * Returns the size of this set, computing it with the given supplier only if the underlying sets have changed
+     * since it was last computed
+     *
+     * @param size Computes the size of this set
+     */
+    protected int memoizedSize(IntSupplier size)
+    {
+        // If the underlying sets are not all counted,
+        var modificationCount = modificationCount();
+        if (modificationCount < 0)
+        {
+            // we have to compute the size each time.
+            return size.getAsInt();
+        }
+
+        // If the size has not been computed since the underlying sets last changed,
+        var memoized = memoizedSize;
+        if (memoized == null || memoized.modificationCount() != modificationCount)
+        {
+            // compute it and remember it. A set modified while the size is being computed will have a higher
+            // modification count, so a size computed from partly modified sets is never used again.
+            memoized = new MemoizedSize(modificationCount, size.getAsInt());
+            memoizedSize = memoized;
+        }
+        return memoized.size();
+    }
+
     private void unsupported()
     {
         Ensure.unsupported("A logical set is immutable through the Set interface. To modify a logical set (union, intersection or without), you must change the underlying set(s)");
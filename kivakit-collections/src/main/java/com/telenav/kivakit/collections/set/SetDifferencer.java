@@ -20,11 +20,15 @@ package com.telenav.kivakit.collections.set;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.collections.internal.lexakai.DiagramSet;
-import com.telenav.kivakit.core.collections.set.ConcurrentHashSet;
 import com.telenav.kivakit.interfaces.comparison.Equality;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -38,9 +42,18 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
  * <p><b>Comparison</b></p>
  *
  * <ul>
- *     <li>{@link #compare(Set, Set)}</li>
+ *     <li>{@link #compare(Set, Set)} - Compares two sets on the calling thread</li>
+ *     <li>{@link #compareInParallel(Set, Set)} - Compares two sets using all available processors</li>
  * </ul>
  *
+ * <p><b>Sorted Sets</b></p>
+ *
+ * <p>
+ * When both sets are {@link SortedSet}s with the same ordering, {@link #compare(Set, Set)} walks the two sets
+ * together, in order, as in a merge. This takes time proportional to the total size of the sets and does not do any
+ * lookups or build any temporary collections. Other sets are compared with hash lookups.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @SuppressWarnings({ "SpellCheckingInspection", "unused" })
@@ -64,10 +77,148 @@ public abstract class SetDifferencer<Element>
      * @param beforeSet The set as it used to be
      * @param afterSet The set as it will be
      */
+    @SuppressWarnings("unchecked")
     public void compare(Set<Element> beforeSet, Set<Element> afterSet)
     {
-        // All members of before that are also members of after
-        var beforeUnionAfter = new ConcurrentHashSet<Element>();
+        // If both sets are sorted in the same order,
+        if (beforeSet instanceof SortedSet<Element> sortedBefore
+                && afterSet instanceof SortedSet<Element> sortedAfter
+                && Objects.equals(sortedBefore.comparator(), sortedAfter.comparator()))
+        {
+            // walk through them together,
+            var comparator = sortedBefore.comparator();
+            compareSorted(sortedBefore, sortedAfter, comparator != null
+                    ? comparator
+                    : (Comparator<? super Element>) Comparator.naturalOrder());
+        }
+        else
+        {
+            // otherwise, compare them with lookups.
+            compareUnsorted(beforeSet, afterSet);
+        }
+    }
+
+    /**
+     * Compares beforeSet with afterSet, like {@link #compare(Set, Set)}, but splits the work across all available
+     * processors. Both sets must be safe to read from more than one thread at a time and must not contain null. The
+     * {@link #onAdded(Object)}, {@link #onRemoved(Object)}, {@link #onUpdated(Object)} and
+     * {@link #onNotChanged(Object, Object)} methods are called concurrently, in no particular order, so they must be
+     * thread-safe.
+     *
+     * @param beforeSet The set as it used to be
+     * @param afterSet The set as it will be
+     */
+    public void compareInParallel(Set<Element> beforeSet, Set<Element> afterSet)
+    {
+        // Map from each object held both before and after to its before version
+        var beforeVersions = new ConcurrentHashMap<Element, Element>();
+
+        // Go through all objects held before,
+        beforeSet.parallelStream().forEach(before ->
+        {
+            // and if the after set no longer contains the object,
+            if (!afterSet.contains(before))
+            {
+                // the object was removed,
+                onRemoved(before);
+            }
+            else
+            {
+                // otherwise, save the object, so it can be looked up below.
+                if (updateComparator != null)
+                {
+                    beforeVersions.put(before, before);
+                }
+            }
+        });
+
+        // Go through all objects held after,
+        afterSet.parallelStream().forEach(after ->
+        {
+            // and if the before set didn't have the object,
+            if (!beforeSet.contains(after))
+            {
+                // the object was added,
+                onAdded(after);
+            }
+            else
+            {
+                // otherwise, check if it was updated.
+                if (updateComparator != null)
+                {
+                    compareVersions(beforeVersions.get(after), after);
+                }
+            }
+        });
+    }
+
+    protected abstract void onAdded(Element value);
+
+    @SuppressWarnings({ "EmptyMethod" })
+    protected void onNotChanged(Element oldValue, Element newValue)
+    {
+    }
+
+    protected abstract void onRemoved(Element value);
+
+    protected abstract void onUpdated(Element value);
+
+    /**
+     * Compares two sorted sets in a single pass through both of them
+     */
+    private void compareSorted(SortedSet<Element> beforeSet,
+                               SortedSet<Element> afterSet,
+                               Comparator<? super Element> comparator)
+    {
+        var beforeIterator = beforeSet.iterator();
+        var afterIterator = afterSet.iterator();
+        var hasBefore = beforeIterator.hasNext();
+        var hasAfter = afterIterator.hasNext();
+        var before = hasBefore ? beforeIterator.next() : null;
+        var after = hasAfter ? afterIterator.next() : null;
+
+        // While there are objects left in either set,
+        while (hasBefore || hasAfter)
+        {
+            // if the before object comes first, or there are no after objects left,
+            var order = !hasBefore ? 1 : !hasAfter ? -1 : comparator.compare(before, after);
+            if (order <= 0)
+            {
+                if (order < 0)
+                {
+                    // the before object is not in the after set, so it was removed,
+                    onRemoved(before);
+                }
+                else
+                {
+                    // otherwise, if they are the same object, check if it was updated.
+                    if (updateComparator != null)
+                    {
+                        compareVersions(before, after);
+                    }
+                    hasAfter = afterIterator.hasNext();
+                    after = hasAfter ? afterIterator.next() : null;
+                }
+                hasBefore = beforeIterator.hasNext();
+                before = hasBefore ? beforeIterator.next() : null;
+            }
+            else
+            {
+                // If the after object comes first, it is not in the before set, so it was added.
+                onAdded(after);
+                hasAfter = afterIterator.hasNext();
+                after = hasAfter ? afterIterator.next() : null;
+            }
+        }
+    }
+
+    /**
+     * Compares two sets by looking up each object from one set in the other set
+     */
+    private void compareUnsorted(Set<Element> beforeSet, Set<Element> afterSet)
+    {
+        // Map from each object held both before and after to its before version
+        var beforeVersions = updateComparator == null ? null : new HashMap<Element, Element>();
 
         // Go through all objects held before
         for (var before : beforeSet)
@@ -81,9 +232,9 @@ public abstract class SetDifferencer<Element>
             else
             {
                 // otherwise, save the object, so it can be looked up below
-                if (updateComparator != null)
+                if (beforeVersions != null)
                 {
-                    beforeUnionAfter.add(before);
+                    beforeVersions.put(before, before);
                 }
             }
         }
@@ -99,34 +250,29 @@ public abstract class SetDifferencer<Element>
             }
             else
             {
-                if (updateComparator != null)
+                if (beforeVersions != null)
                 {
-                    // Get the before version of the after object
-                    var before = beforeUnionAfter.get(after);
-
-                    // If they are not identical
-                    if (!updateComparator.isEqual(before, after))
-                    {
-                        // the object was updated
-                        onUpdated(after);
-                    }
-                    else
-                    {
-                        onNotChanged(before, after);
-                    }
+                    compareVersions(beforeVersions.get(after), after);
                 }
             }
         }
     }
 
-    protected abstract void onAdded(Element value);
-
-    @SuppressWarnings({ "EmptyMethod" })
-    protected void onNotChanged(Element oldValue, Element newValue)
+    /**
+     * Calls {@link #onUpdated(Object)} if the before and after versions of an object are not identical, and
+     * {@link #onNotChanged(Object, Object)} if they are
+     */
+    private void compareVersions(Element before, Element after)
     {
+        // If they are not identical
+        if (!updateComparator.isEqual(before, after))
+        {
+            // the object was updated
+            onUpdated(after);
+        }
+        else
+        {
+            onNotChanged(before, after);
+        }
     }
-
-    protected abstract void onRemoved(Element value);
-
-    protected abstract void onUpdated(Element value);
 }
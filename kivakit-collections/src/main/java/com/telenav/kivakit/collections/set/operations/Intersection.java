@@ -50,6 +50,7 @@ public class Intersection<T> extends LogicalSet<T>
 
     public Intersection(Set<T> a, Set<T> b)
     {
+        super(a, b);
         if (a.size() > b.size())
         {
             larger = a;
@@ -71,6 +72,10 @@ public class Intersection<T> extends LogicalSet<T>
     @Override
     public boolean isEmpty()
     {
+        if (isSizeMemoized())
+        {
+            return size() == 0;
+        }
         for (var object : smaller)
         {
             if (larger.contains(object))
@@ -107,14 +112,17 @@ public class Intersection<T> extends LogicalSet<T>
     @Override
     public int size()
     {
-        var size = 0;
-        for (var object : smaller)
+        return memoizedSize(() ->
         {
-            if (larger.contains(object))
+            var size = 0;
+            for (var object : smaller)
             {
-                size++;
+                if (larger.contains(object))
+                {
+                    size++;
+                }
             }
-        }
-        return size;
+            return size;
+        });
     }
 }
@@ -35,7 +35,8 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 /**
  * The logical union of two sets. The two sets are combined without creating any new set.
  * <p>
- * This set is not modifiable. To change the union, you must modify the underlying set(s).
+ * This set is not modifiable. To change the union, you must modify the underlying set(s). Since the size of the subset
+ * is remembered until the underlying set changes, the matcher must always give the same answer for a given value.
  *
  * @author jonathanl (shibo)
  */
@@ -51,6 +52,7 @@ public class Subset<T> extends LogicalSet<T>
 
     public Subset(Set<T> set, Matcher<T> matcher)
     {
+        super(set);
         this.set = set;
         this.matcher = matcher;
     }
@@ -97,6 +99,10 @@ public class Subset<T> extends LogicalSet<T>
         {
             return true;
         }
+        if (isSizeMemoized())
+        {
+            return size() == 0;
+        }
         for (var member : set)
         {
             if (matcher.matches(member))
@@ -133,14 +139,17 @@ public class Subset<T> extends LogicalSet<T>
     @Override
     public int size()
     {
-        var size = 0;
-        for (var member : set)
+        return memoizedSize(() ->
         {
-            if (matcher.matches(member))
+            var size = 0;
+            for (var member : set)
             {
-                size++;
+                if (matcher.matches(member))
+                {
+                    size++;
+                }
             }
-        }
-        return size;
+            return size;
+        });
     }
 }
@@ -51,6 +51,7 @@ public class Union<T> extends LogicalSet<T>
 
     public Union(Set<T> a, Set<T> b)
     {
+        super(a, b);
         if (a.size() > b.size())
         {
             larger = a;
@@ -138,14 +139,17 @@ public class Union<T> extends LogicalSet<T>
     @Override
     public int size()
     {
-        var size = larger.size();
-        for (var object : smaller)
+        return memoizedSize(() ->
         {
-            if (!larger.contains(object))
+            var size = larger.size();
+            for (var object : smaller)
             {
-                size++;
+                if (!larger.contains(object))
+                {
+                    size++;
+                }
             }
-        }
-        return size;
+            return size;
+        });
     }
 }
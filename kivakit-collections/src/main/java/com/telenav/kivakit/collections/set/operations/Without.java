@@ -55,6 +55,7 @@ public class Without<T> extends LogicalSet<T>
      */
     public Without(Set<T> set, Set<T> without)
     {
+        super(set, without);
         this.set = set;
         this.without = without;
     }
@@ -72,6 +73,10 @@ public class Without<T> extends LogicalSet<T>
         {
             return true;
         }
+        if (isSizeMemoized())
+        {
+            return size() == 0;
+        }
         for (var object : set)
         {
             if (!without.contains(object))
@@ -108,14 +113,17 @@ public class Without<T> extends LogicalSet<T>
     @Override
     public int size()
     {
-        var size = set.size();
-        for (var object : without)
+        return memoizedSize(() ->
         {
-            if (set.contains(object))
+            var size = set.size();
+            for (var object : without)
             {
-                size--;
+                if (set.contains(object))
+                {
+                    size--;
+                }
             }
-        }
-        return size;
+            return size;
+        });
     }
 }
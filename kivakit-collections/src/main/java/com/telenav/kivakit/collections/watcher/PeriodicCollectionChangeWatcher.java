@@ -27,7 +27,9 @@ import com.telenav.kivakit.interfaces.lifecycle.Startable;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -129,14 +131,16 @@ public abstract class PeriodicCollectionChangeWatcher<T> extends BaseCollectionC
 
     private void compare()
     {
-        // Get new set of objects
+        // Get new set of objects, and sets of the new and old objects, so membership checks are constant time,
         var newObjects = objects();
+        var newSet = asSet(newObjects);
+        var oldSet = asSet(objects);
 
         // For each old object,
         for (var object : objects)
         {
             // if the new objects don't contain it,
-            if (!newObjects.contains(object))
+            if (!newSet.contains(object))
             {
                 // it has been removed
                 onRemoved(object);
@@ -148,7 +152,7 @@ public abstract class PeriodicCollectionChangeWatcher<T> extends BaseCollectionC
         for (var object : newObjects)
         {
             // if it's not in the current set
-            if (!objects.contains(object))
+            if (!oldSet.contains(object))
             {
                 // it was just added
                 previousLastModified.put(object, lastModified(object));
@@ -172,4 +176,12 @@ public abstract class PeriodicCollectionChangeWatcher<T> extends BaseCollectionC
         // Update current objects
         objects = newObjects;
     }
+
+    /**
+     * Returns the given collection if it is a set, or a hash set of its objects if it is not
+     */
+    private Set<T> asSet(Collection<T> objects)
+    {
+        return objects instanceof Set<T> set ? set : new HashSet<>(objects);
+    }
 }
@@ -22,8 +22,11 @@ import com.telenav.kivakit.core.collections.set.ObjectSet;
 import com.telenav.kivakit.internal.testing.CoreUnitTest;
 import org.junit.Test;
 
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.core.collections.set.ObjectSet.set;
 
@@ -59,6 +62,65 @@ public class SetDifferencerTest extends CoreUnitTest
         String name;
     }
 
+    @Test
+    public void testLarge()
+    {
+        var before = new TreeSet<Integer>();
+        var after = new TreeSet<Integer>();
+        for (var i = 0; i < 100_000; i++)
+        {
+            if (i % 3 != 0)
+            {
+                before.add(i);
+            }
+            if (i % 5 != 0)
+            {
+                after.add(i);
+            }
+        }
+
+        var expectedAdded = new HashSet<>(after);
+        expectedAdded.removeAll(before);
+        var expectedRemoved = new HashSet<>(before);
+        expectedRemoved.removeAll(after);
+
+        for (var mode = 0; mode < 3; mode++)
+        {
+            Set<Integer> added = ConcurrentHashMap.newKeySet();
+            Set<Integer> removed = ConcurrentHashMap.newKeySet();
+            var differencer = new SetDifferencer<Integer>(null)
+            {
+                @Override
+                protected void onAdded(Integer value)
+                {
+                    added.add(value);
+                }
+
+                @Override
+                protected void onRemoved(Integer value)
+                {
+                    removed.add(value);
+                }
+
+                @Override
+                protected void onUpdated(Integer value)
+                {
+                    fail("Unexpected update");
+                }
+            };
+
+            switch (mode)
+            {
+                case 0 -> differencer.compare(before, after);
+                case 1 -> differencer.compare(new HashSet<>(before), new HashSet<>(after));
+                default -> differencer.compareInParallel(new HashSet<>(before), new HashSet<>(after));
+            }
+
+            ensureEqual(expectedAdded, added);
+            ensureEqual(expectedRemoved, removed);
+        }
+    }
+
     @Test
     public void test()
     {
@@ -92,11 +154,24 @@ public class SetDifferencerTest extends CoreUnitTest
     private void check(Set<Value> before, Set<Value> after, Set<Value> expectedAdded,
                        Set<Value> expectedRemoved, Set<Value> expectedUpdated)
     {
-        Set<Value> added = new HashSet<>();
-        Set<Value> removed = new HashSet<>();
-        Set<Value> updated = new HashSet<>();
+        // Compare with hash lookups,
+        check(before, after, expectedAdded, expectedRemoved, expectedUpdated, false);
+
+        // with a merge of sorted sets,
+        check(sorted(before), sorted(after), expectedAdded, expectedRemoved, expectedUpdated, false);
+
+        // and in parallel.
+        check(before, after, expectedAdded, expectedRemoved, expectedUpdated, true);
+    }
+
+    private void check(Set<Value> before, Set<Value> after, Set<Value> expectedAdded,
+                       Set<Value> expectedRemoved, Set<Value> expectedUpdated, boolean parallel)
+    {
+        Set<Value> added = ConcurrentHashMap.newKeySet();
+        Set<Value> removed = ConcurrentHashMap.newKeySet();
+        Set<Value> updated = ConcurrentHashMap.newKeySet();
 
-        new SetDifferencer<Value>((a, b) -> a.equals(b) && a.name.equals(b.name))
+        var differencer = new SetDifferencer<Value>((a, b) -> a.equals(b) && a.name.equals(b.name))
         {
             @Override
             protected void onAdded(Value value)
@@ -118,7 +193,16 @@ public class SetDifferencerTest extends CoreUnitTest
                 updated.add(value);
                 trace("updated " + value);
             }
-        }.compare(before, after);
+        };
+
+        if (parallel)
+        {
+            differencer.compareInParallel(before, after);
+        }
+        else
+        {
+            differencer.compare(before, after);
+        }
 
         ensureEqual(expectedAdded, added);
         ensureEqual(expectedRemoved, removed);
@@ -135,6 +219,13 @@ public class SetDifferencerTest extends CoreUnitTest
         return set;
     }
 
+    private Set<Value> sorted(Set<Value> values)
+    {
+        var sorted = new TreeSet<Value>(Comparator.comparingInt(value -> value.id));
+        sorted.addAll(values);
+        return sorted;
+    }
+
     private Value value(int id)
     {
         return value(id, "" + id);
@@ -21,6 +21,7 @@ package com.telenav.kivakit.collections.set.operations;
 import com.telenav.kivakit.collections.set.SetOperationTest;
 import org.junit.Test;
 
+import java.util.HashSet;
 import java.util.Set;
 
 public class UnionTest extends SetOperationTest
@@ -37,4 +38,34 @@ public class UnionTest extends SetOperationTest
         ensureFalse(union.contains(5));
         ensure(set(1, 2, 3, 4).equals(union));
     }
+
+    @Test
+    public void testModified()
+    {
+        var a = set(1, 2, 3);
+        var b = set(2, 3, 4);
+        var union = new Union<>(a, b);
+        ensureEqual(4, union.size());
+
+        // Changing either set changes the size of the union
+        a.add(5);
+        ensureEqual(5, union.size());
+        b.remove(4);
+        ensureEqual(4, union.size());
+        a.removeIf(value -> value == 1);
+        ensureEqual(3, union.size());
+        b.clear();
+        ensureEqual(3, union.size());
+        ensure(set(2, 3, 5).equals(union));
+
+        // but adding a value that is already in a set does not
+        var count = union.modificationCount();
+        a.add(5);
+        ensureEqual(count, union.modificationCount());
+
+        // and a union of a set that is not counted is not memoized.
+        var uncounted = new Union<>(a, new HashSet<>(b));
+        ensureEqual(-1L, uncounted.modificationCount());
+        ensureEqual(3, uncounted.size());
+    }
 }
@@ -35,4 +35,21 @@ public class WithoutTest extends SetOperationTest
         ensureFalse(without.contains(4));
         ensure(set(1).equals(without));
     }
+
+    @Test
+    public void testModified()
+    {
+        var a = set(1, 2, 3);
+        var b = set(2, 3, 4);
+        var without = new Without<>(a, b);
+        ensureEqual(1, without.size());
+
+        b.add(1);
+        ensureEqual(0, without.size());
+        ensure(without.isEmpty());
+
+        a.add(6);
+        ensureEqual(1, without.size());
+        ensureFalse(without.isEmpty());
+    }
 }
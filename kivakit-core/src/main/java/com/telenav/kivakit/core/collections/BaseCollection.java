@@ -7,9 +7,11 @@ import com.telenav.kivakit.core.collections.list.BaseList;
 import com.telenav.kivakit.core.collections.list.ObjectList;
 import com.telenav.kivakit.core.collections.list.StringList;
 import com.telenav.kivakit.core.string.StringConversions;
+import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.Count;
 import com.telenav.kivakit.core.value.count.Countable;
 import com.telenav.kivakit.core.value.count.Maximum;
+import com.telenav.kivakit.core.vm.JavaVirtualMachine;
 import com.telenav.kivakit.interfaces.collection.Addable;
 import com.telenav.kivakit.interfaces.collection.Appendable;
 import com.telenav.kivakit.interfaces.collection.Joinable;
@@ -20,6 +22,7 @@ import com.telenav.kivakit.interfaces.string.StringFormattable;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -32,9 +35,9 @@ import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMEN
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.TESTING_INSUFFICIENT;
 import static com.telenav.kivakit.core.KivaKit.globalListener;
-import static com.telenav.kivakit.core.collections.list.ObjectList.list;
 import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
 import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 import static com.telenav.kivakit.interfaces.string.StringFormattable.Format.TO_STRING;
 
 /**
@@ -98,6 +101,7 @@ import static com.telenav.kivakit.interfaces.string.StringFormattable.Format.TO_
  *     <li>{@link #count()}</li>
  *     <li>{@link #isEmpty()}</li>
  *     <li>{@link #isNonEmpty()}</li>
+ *     <li>{@link #heapSize()}</li>
  * </ul>
  *
  * <p><b>Bounds</b></p>
@@ -143,9 +147,16 @@ import static com.telenav.kivakit.interfaces.string.StringFormattable.Format.TO_
  *
  * <ul>
  *     <li>{@link #map(Function)}</li>
+ *     <li>{@link #query()}</li>
  *     <li>{@link #with(Object)}</li>
  * </ul>
  *
+ * <p>
+ * Methods like {@link #map(Function)}, {@link #with(Object)} and {@link #without(Collection)} each return a new
+ * collection. When several operations are chained on a large collection, {@link #query()} does them all in one pass,
+ * without creating the intermediate collections.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @author jonathanl (shibo)
  * @see Addable
@@ -358,6 +369,14 @@ public abstract class BaseCollection<Value> implements
         return filtered;
     }
 
+    /**
+     * Returns a lazy query over the values in this collection. See {@link CollectionQuery} for details.
+     */
+    public CollectionQuery<Value> query()
+    {
+        return CollectionQuery.query(backingCollection());
+    }
+
     /**
      * The matching values in this collection as an {@link Iterable}.
      *
@@ -449,6 +468,17 @@ public abstract class BaseCollection<Value> implements
         return separator;
     }
 
+    /**
+     * Returns the number of bytes of heap used by this collection, including the values in it. This is not
+     * <i>sizeInBytes()</i>, which subclasses like resource lists would confuse with the size of the resources.
+     *
+     * @see JavaVirtualMachine#sizeOfGraph(Object)
+     */
+    public Bytes heapSize()
+    {
+        return javaVirtualMachine().sizeOfGraph(this);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -573,9 +603,10 @@ public abstract class BaseCollection<Value> implements
      */
     public BaseCollection<Value> without(Collection<Value> that)
     {
+        // Look up values to remove in a hash set, so this takes O(n + m) time and not O(n * m)
         var copy = newCollection();
         copy.addAll(this);
-        copy.removeAll(that);
+        copy.removeAll(that instanceof Set ? that : new HashSet<>(that));
         return copy;
     }
 
@@ -586,7 +617,7 @@ public abstract class BaseCollection<Value> implements
     {
         var copy = newCollection();
         copy.addAll(this);
-        copy.removeAll(list(that));
+        copy.removeAll(new HashSet<>(Arrays.asList(that)));
         return copy;
     }
 
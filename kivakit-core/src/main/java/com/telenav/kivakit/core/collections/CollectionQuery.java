@@ -0,0 +1,254 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.collections;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.collections.set.ObjectSet;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.core.value.count.Maximum;
+import com.telenav.kivakit.interfaces.comparison.Matcher;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
+
+/**
+ * A lazy query over the values in a collection. Each stage, like {@link #matching(Matcher)} or
+ * {@link #map(Function)}, returns a new query without doing any work. When a terminal method like {@link #asList()}
+ * is called, all stages run together in a single pass over the source collection, so no intermediate collections are
+ * created. A query can be evaluated more than once, and each evaluation sees the current contents of the source.
+ *
+ * <p>
+ * {@link #without(Collection)} removes values by hash lookup, so it takes time proportional to the number of values
+ * and not to the product of the sizes of the two collections. {@link #parallel()} evaluates the query in parallel over
+ * the source collection's {@link java.util.Spliterator}, which can help for large collections with expensive stages.
+ * </p>
+ *
+ * <p><b>Example</b></p>
+ *
+ * <pre>
+ * var names = people.query()
+ *     .matching(person -&gt; person.age() &gt; 21)
+ *     .map(Person::name)
+ *     .distinct()
+ *     .asList();</pre>
+ *
+ * <p><b>Stages</b></p>
+ *
+ * <ul>
+ *     <li>{@link #distinct()}</li>
+ *     <li>{@link #flatMap(Function)}</li>
+ *     <li>{@link #limit(Maximum)}</li>
+ *     <li>{@link #map(Function)}</li>
+ *     <li>{@link #matching(Matcher)}</li>
+ *     <li>{@link #parallel()}</li>
+ *     <li>{@link #without(Collection)}</li>
+ *     <li>{@link #without(Matcher)}</li>
+ * </ul>
+ *
+ * <p><b>Terminal Methods</b></p>
+ *
+ * <ul>
+ *     <li>{@link #anyMatch(Matcher)}</li>
+ *     <li>{@link #asList()}</li>
+ *     <li>{@link #asSet()}</li>
+ *     <li>{@link #count()}</li>
+ *     <li>{@link #first()}</li>
+ *     <li>{@link #forEach(Consumer)}</li>
+ * </ul>
+ *
+ * @param <Value> The type of value produced by this query
+ * @author jonathanl (shibo)
+ * @see BaseCollection#query()
+ */
+@SuppressWarnings("unused")
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class CollectionQuery<Value>
+{
+    /**
+     * Returns a query over the values in the given collection
+     */
+    public static <Value> CollectionQuery<Value> query(Collection<Value> collection)
+    {
+        ensureNotNull(collection);
+        return new CollectionQuery<>(collection::stream, false);
+    }
+
+    /** True if this query should be evaluated in parallel */
+    private final boolean parallel;
+
+    /** Supplies a new stream with all the stages of this query each time the query is evaluated */
+    private final Supplier<Stream<Value>> stages;
+
+    protected CollectionQuery(Supplier<Stream<Value>> stages, boolean parallel)
+    {
+        this.stages = stages;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns true if any value produced by this query matches the given matcher
+     */
+    public boolean anyMatch(Matcher<Value> matcher)
+    {
+        return stream().anyMatch(matcher);
+    }
+
+    /**
+     * Evaluates this query, returning the values it produces as a list
+     */
+    public ObjectList<Value> asList()
+    {
+        return new ObjectList<>(stream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Evaluates this query, returning the values it produces as a set
+     */
+    public ObjectSet<Value> asSet()
+    {
+        return new ObjectSet<>(stream().collect(Collectors.toSet()));
+    }
+
+    /**
+     * Evaluates this query, returning the number of values it produces
+     */
+    public Count count()
+    {
+        return Count.count(stream().count());
+    }
+
+    /**
+     * Returns this query without duplicate values
+     */
+    public CollectionQuery<Value> distinct()
+    {
+        return stage(Stream::distinct);
+    }
+
+    /**
+     * Evaluates this query, returning the first value it produces, or null if it produces none
+     */
+    public Value first()
+    {
+        return stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Returns this query with each value replaced by the values the given function returns for it
+     */
+    public <To> CollectionQuery<To> flatMap(Function<Value, ? extends Iterable<To>> mapper)
+    {
+        return stage(stream -> stream.flatMap(value -> StreamSupport.stream(mapper.apply(value).spliterator(), false)));
+    }
+
+    /**
+     * Evaluates this query, calling the given consumer with each value it produces. If this query is parallel, the
+     * consumer may be called from more than one thread.
+     */
+    public void forEach(Consumer<Value> consumer)
+    {
+        stream().forEach(consumer);
+    }
+
+    /**
+     * Returns this query limited to the given number of values
+     */
+    public CollectionQuery<Value> limit(Maximum maximum)
+    {
+        return stage(stream -> stream.limit(maximum.asLong()));
+    }
+
+    /**
+     * Returns this query with each value mapped by the given function
+     */
+    public <To> CollectionQuery<To> map(Function<Value, To> mapper)
+    {
+        return stage(stream -> stream.map(mapper));
+    }
+
+    /**
+     * Returns this query with only the values that match the given matcher
+     */
+    public CollectionQuery<Value> matching(Matcher<Value> matcher)
+    {
+        return stage(stream -> stream.filter(matcher));
+    }
+
+    /**
+     * Returns this query, evaluated in parallel. The order of values in {@link #asList()} is still the order of the
+     * source collection.
+     */
+    public CollectionQuery<Value> parallel()
+    {
+        return new CollectionQuery<>(stages, true);
+    }
+
+    /**
+     * Returns this query without the values in the given collection. If the collection is not a {@link Set}, its values
+     * are copied into a hash set once each time the query is evaluated.
+     */
+    public CollectionQuery<Value> without(Collection<Value> values)
+    {
+        return stage(stream ->
+        {
+            var excluded = values instanceof Set ? values : new HashSet<>(values);
+            return stream.filter(value -> !excluded.contains(value));
+        });
+    }
+
+    /**
+     * Returns this query without the values that match the given matcher
+     */
+    public CollectionQuery<Value> without(Matcher<Value> matcher)
+    {
+        return stage(stream -> stream.filter(matcher.negate()));
+    }
+
+    /**
+     * Returns a new query with the given stage added to the stages of this query
+     */
+    private <To> CollectionQuery<To> stage(Function<Stream<Value>, Stream<To>> stage)
+    {
+        return new CollectionQuery<>(() -> stage.apply(stages.get()), parallel);
+    }
+
+    /**
+     * Returns a stream with all the stages of this query
+     */
+    private Stream<Value> stream()
+    {
+        var stream = stages.get();
+        return parallel ? stream.parallel() : stream;
+    }
+}
@@ -22,7 +22,9 @@ import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.list.StringList;
 import com.telenav.kivakit.core.internal.lexakai.DiagramCollections;
 import com.telenav.kivakit.core.messaging.broadcasters.GlobalRepeater;
+import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.Maximum;
+import com.telenav.kivakit.core.vm.JavaVirtualMachine;
 import com.telenav.kivakit.interfaces.collection.SpaceLimited;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
@@ -41,6 +43,7 @@ import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTE
 import static com.telenav.kivakit.annotations.code.quality.Testing.TESTING_INSUFFICIENT;
 import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
 import static com.telenav.kivakit.core.value.count.Maximum.MAXIMUM;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 
 /**
  * A base class for bounded maps which wraps a {@link Map} implementation. The following methods are added to the base
@@ -50,6 +53,7 @@ import static com.telenav.kivakit.core.value.count.Maximum.MAXIMUM;
  *     <li>{@link #get(Object, Object)} - Typesafe version of {@link #getOrDefault(Object, Object)}</li>
  *     <li>{@link #getOrCreate(Object)} - Creates missing values using {@link #onCreateValue(Object)}</li>
  *     <li>{@link #put(Object, Object, Object)} - Puts the given value. Uses the default value if the value is null</li>
+ *     <li>{@link #heapSize()} - The number of bytes of heap used by the map, its keys and its values</li>
  * </ul>
  *
  * @author jonathanl (shibo)
@@ -413,6 +417,16 @@ public class BaseMap<Key, Value> implements
         map.replaceAll(function);
     }
 
+    /**
+     * Returns the number of bytes of heap used by this map, including its keys and values
+     *
+     * @see JavaVirtualMachine#sizeOfGraph(Object)
+     */
+    public Bytes heapSize()
+    {
+        return javaVirtualMachine().sizeOfGraph(this);
+    }
+
     /**
      * {@inheritDoc}
      */
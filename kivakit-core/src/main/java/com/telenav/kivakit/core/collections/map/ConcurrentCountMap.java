@@ -0,0 +1,234 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.collections.map;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.internal.lexakai.DiagramCollections;
+import com.telenav.kivakit.core.value.count.ConcurrentMutableCount;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.core.value.count.Maximum;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+
+/**
+ * Keeps a count for each key, for use by many threads at once. Counts are kept in {@link LongAdder}s in a
+ * {@link ConcurrentHashMap}, so threads incrementing counts do not lock and rarely contend, even for the same key.
+ *
+ * <p>
+ * Reading the counts in this map copies them into an ordinary {@link CountMap}. The copy is only weakly consistent:
+ * keys are read one at a time while other threads may be counting, so it is not a picture of the map at a single
+ * instant, and it may or may not include increments made while it is being taken. The views {@link #top(Maximum)},
+ * {@link #bottom(Maximum)} and {@link #descendingEntries(Maximum)} are each computed from one such copy. For keys with
+ * unbounded cardinality, where keeping a count for every key would use too much memory, see {@link HeavyHitters}.
+ * </p>
+ *
+ * <p><b>Counting</b></p>
+ *
+ * <ul>
+ *     <li>{@link #decrement(Object)}</li>
+ *     <li>{@link #increment(Object)}</li>
+ *     <li>{@link #plus(Object, long)}</li>
+ * </ul>
+ *
+ * <p><b>Values</b></p>
+ *
+ * <ul>
+ *     <li>{@link #count(Object)}</li>
+ *     <li>{@link #isEmpty()}</li>
+ *     <li>{@link #keys()}</li>
+ *     <li>{@link #size()}</li>
+ *     <li>{@link #total()}</li>
+ * </ul>
+ *
+ * <p><b>Snapshots</b></p>
+ *
+ * <ul>
+ *     <li>{@link #bottom(Maximum)}</li>
+ *     <li>{@link #descendingEntries(Maximum)}</li>
+ *     <li>{@link #snapshot()}</li>
+ *     <li>{@link #snapshot(Function)}</li>
+ *     <li>{@link #top(Maximum)}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see CountMap
+ * @see HeavyHitters
+ */
+@SuppressWarnings({ "UnusedReturnValue", "unused" })
+@UmlClassDiagram(diagram = DiagramCollections.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class ConcurrentCountMap<Key>
+{
+    /** The count for each key */
+    private final ConcurrentHashMap<Key, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /** The total of all counts */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Returns the bottom entries in a snapshot of this map, up to the maximum
+     */
+    public CountMap<Key> bottom(Maximum maximum)
+    {
+        return snapshot().bottom(maximum);
+    }
+
+    /**
+     * Removes all counts from this map
+     */
+    public void clear()
+    {
+        counts.clear();
+        total.reset();
+    }
+
+    /**
+     * Returns the count for the given key
+     */
+    public Count count(Key key)
+    {
+        var count = counts.get(key);
+        return Count.count(count == null ? 0 : count.sum());
+    }
+
+    /**
+     * Decrements the count for the given key
+     *
+     * @return This object, for chaining
+     */
+    public ConcurrentCountMap<Key> decrement(Key key)
+    {
+        return plus(key, -1);
+    }
+
+    /**
+     * Returns the entries in a snapshot of this map, sorted by descending count, up to the maximum
+     */
+    public ObjectList<Map.Entry<Key, ConcurrentMutableCount>> descendingEntries(Maximum maximum)
+    {
+        return snapshot().descendingEntries(maximum, Map.Entry.comparingByValue());
+    }
+
+    /**
+     * Increments the count for the given key
+     *
+     * @return This object, for chaining
+     */
+    public ConcurrentCountMap<Key> increment(Key key)
+    {
+        return plus(key, 1);
+    }
+
+    /**
+     * Returns true if no keys have been counted
+     */
+    public boolean isEmpty()
+    {
+        return counts.isEmpty();
+    }
+
+    /**
+     * Returns the keys in this map
+     */
+    public Set<Key> keys()
+    {
+        return counts.keySet();
+    }
+
+    /**
+     * Adds the given value to the count for the given key
+     *
+     * @return This object, for chaining
+     */
+    public ConcurrentCountMap<Key> plus(Key key, long value)
+    {
+        // Get the adder for the key, without locking if it already exists,
+        var count = counts.get(key);
+        if (count == null)
+        {
+            count = counts.computeIfAbsent(key, ignored -> new LongAdder());
+        }
+
+        // and add to it.
+        count.add(value);
+        total.add(value);
+        return this;
+    }
+
+    /**
+     * Returns the number of keys in this map
+     */
+    public int size()
+    {
+        return counts.size();
+    }
+
+    /**
+     * Returns a weakly consistent copy of the counts in this map
+     */
+    public CountMap<Key> snapshot()
+    {
+        return snapshot(key -> key);
+    }
+
+    /**
+     * Returns a weakly consistent copy of the counts in this map, with each key converted by the given function. Counts
+     * for keys that convert to the same value are added together.
+     */
+    public <To> CountMap<To> snapshot(Function<Key, To> converter)
+    {
+        var snapshot = new CountMap<To>();
+        counts.forEach((key, count) -> snapshot.plus(converter.apply(key), count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Returns the top entries in a snapshot of this map, up to the maximum
+     */
+    public CountMap<Key> top(Maximum maximum)
+    {
+        return snapshot().top(maximum);
+    }
+
+    @Override
+    public String toString()
+    {
+        return snapshot().toString();
+    }
+
+    /**
+     * Returns the total of all counts in this map
+     */
+    public long total()
+    {
+        return total.sum();
+    }
+}
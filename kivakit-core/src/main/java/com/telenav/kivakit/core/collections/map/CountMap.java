@@ -41,7 +41,8 @@ import static com.telenav.kivakit.core.value.count.Maximum.MAXIMUM;
 import static java.lang.Math.min;
 
 /**
- * Keeps a {@link ConcurrentMutableCount} for each key.
+ * Keeps a {@link ConcurrentMutableCount} for each key. For counting from many threads at once, see
+ * {@link ConcurrentCountMap}.
  *
  * <p><b>Adding</b></p>
  *
@@ -91,7 +92,7 @@ import static java.lang.Math.min;
              documentation = DOCUMENTED)
 public class CountMap<Key> extends ObjectMap<Key, ConcurrentMutableCount>
 {
-    private AtomicLong total = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
 
     public CountMap()
     {
@@ -107,7 +108,6 @@ public class CountMap<Key> extends ObjectMap<Key, ConcurrentMutableCount>
     {
         super(MAXIMUM);
         mergeIn(that);
-        total = that.total;
     }
 
     /**
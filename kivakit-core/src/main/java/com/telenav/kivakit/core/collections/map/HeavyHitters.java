@@ -0,0 +1,262 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.collections.map;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramCollections;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.core.value.count.Maximum;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+
+/**
+ * Finds the most frequent keys in a stream of keys with unbounded cardinality, using a fixed amount of memory. This is
+ * the <i>space-saving</i> algorithm of Metwally, Agrawal and El Abbadi. At most <i>capacity</i> keys are counted. When
+ * a new key arrives and there is no room for it, it takes over the counter of the key with the smallest count, and
+ * inherits that count as its possible overestimate.
+ *
+ * <p>
+ * Any key whose true count is greater than {@link #total()} / <i>capacity</i> is always in the sketch. The count
+ * reported for a key is never less than its true count, and is more than it by at most {@link #error(Object)}.
+ * </p>
+ *
+ * <p>
+ * Counters are kept in buckets ordered by count, so each update takes O(log <i>capacity</i>) time. Updates are
+ * synchronized, since each one is short and the sketch is small.
+ * </p>
+ *
+ * <p><b>Counting</b></p>
+ *
+ * <ul>
+ *     <li>{@link #increment(Object)}</li>
+ *     <li>{@link #plus(Object, long)}</li>
+ * </ul>
+ *
+ * <p><b>Values</b></p>
+ *
+ * <ul>
+ *     <li>{@link #capacity()}</li>
+ *     <li>{@link #count(Object)}</li>
+ *     <li>{@link #error(Object)}</li>
+ *     <li>{@link #size()}</li>
+ *     <li>{@link #top(Maximum)}</li>
+ *     <li>{@link #total()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see ConcurrentCountMap
+ */
+@SuppressWarnings({ "UnusedReturnValue", "unused" })
+@UmlClassDiagram(diagram = DiagramCollections.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class HeavyHitters<Key>
+{
+    /**
+     * Returns a sketch that counts at most the given number of keys
+     */
+    public static <Key> HeavyHitters<Key> heavyHitters(Maximum capacity)
+    {
+        return new HeavyHitters<>(capacity);
+    }
+
+    /**
+     * The count for a key
+     */
+    private static class Counter<Key>
+    {
+        /** The key being counted */
+        Key key;
+
+        /** The estimated count */
+        long count;
+
+        /** The largest amount by which the count may be more than the key's true count */
+        long error;
+    }
+
+    /** The counters, grouped by count */
+    private final TreeMap<Long, LinkedHashSet<Counter<Key>>> buckets = new TreeMap<>();
+
+    /** The maximum number of keys to count */
+    private final int capacity;
+
+    /** The counter for each key */
+    private final Map<Key, Counter<Key>> counters = new HashMap<>();
+
+    /** The total of all counts */
+    private long total;
+
+    protected HeavyHitters(Maximum capacity)
+    {
+        ensure(capacity.asInt() > 0, "Capacity must be positive");
+        this.capacity = capacity.asInt();
+    }
+
+    /**
+     * Returns the maximum number of keys counted by this sketch
+     */
+    public Maximum capacity()
+    {
+        return Maximum.maximum(capacity);
+    }
+
+    /**
+     * Returns the estimated count for the given key, or zero if the key is not in this sketch
+     */
+    public synchronized Count count(Key key)
+    {
+        var counter = counters.get(key);
+        return Count.count(counter == null ? 0 : counter.count);
+    }
+
+    /**
+     * Returns the largest amount by which the count for the given key may be more than its true count
+     */
+    public synchronized Count error(Key key)
+    {
+        var counter = counters.get(key);
+        return Count.count(counter == null ? 0 : counter.error);
+    }
+
+    /**
+     * Increments the count for the given key
+     *
+     * @return This object, for chaining
+     */
+    public HeavyHitters<Key> increment(Key key)
+    {
+        return plus(key, 1);
+    }
+
+    /**
+     * Adds the given positive value to the count for the given key
+     *
+     * @return This object, for chaining
+     */
+    public synchronized HeavyHitters<Key> plus(Key key, long value)
+    {
+        ensure(value > 0, "Value must be positive");
+
+        total += value;
+
+        // If the key is already being counted,
+        var counter = counters.get(key);
+        if (counter != null)
+        {
+            // move its counter up.
+            move(counter, counter.count + value);
+            return this;
+        }
+
+        // If there is room for another key,
+        if (counters.size() < capacity)
+        {
+            // start counting it,
+            counter = new Counter<>();
+            counter.key = key;
+            counters.put(key, counter);
+            move(counter, value);
+        }
+        else
+        {
+            // otherwise, take over the counter with the smallest count,
+            var smallest = buckets.firstEntry().getValue().iterator().next();
+            counters.remove(smallest.key);
+            smallest.key = key;
+            counters.put(key, smallest);
+
+            // and add to its count, which might all belong to the key that was replaced.
+            smallest.error = smallest.count;
+            move(smallest, smallest.count + value);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of keys in this sketch
+     */
+    public synchronized int size()
+    {
+        return counters.size();
+    }
+
+    /**
+     * Returns the keys with the highest estimated counts, up to the maximum
+     */
+    public synchronized CountMap<Key> top(Maximum maximum)
+    {
+        var top = new CountMap<Key>();
+        var remaining = maximum.asInt();
+        for (var bucket : buckets.descendingMap().values())
+        {
+            for (var counter : bucket)
+            {
+                if (remaining-- <= 0)
+                {
+                    return top;
+                }
+                top.plus(counter.key, counter.count);
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public String toString()
+    {
+        return top(Maximum.maximum(capacity)).toString();
+    }
+
+    /**
+     * Returns the total of all counts added to this sketch
+     */
+    public synchronized long total()
+    {
+        return total;
+    }
+
+    /**
+     * Moves the given counter from the bucket for its current count to the bucket for the given count
+     */
+    private void move(Counter<Key> counter, long count)
+    {
+        var bucket = buckets.get(counter.count);
+        if (bucket != null)
+        {
+            bucket.remove(counter);
+            if (bucket.isEmpty())
+            {
+                buckets.remove(counter.count);
+            }
+        }
+        counter.count = count;
+        buckets.computeIfAbsent(count, ignored -> new LinkedHashSet<>()).add(counter);
+    }
+}
@@ -25,14 +25,17 @@ import com.telenav.kivakit.core.value.count.Maximum;
 import com.telenav.kivakit.interfaces.collection.Addable;
 import com.telenav.kivakit.interfaces.collection.Copyable;
 import com.telenav.kivakit.interfaces.collection.Joinable;
+import com.telenav.kivakit.interfaces.collection.ModificationCounted;
 import com.telenav.kivakit.interfaces.collection.Sequence;
 import com.telenav.kivakit.interfaces.comparison.Matcher;
 import com.telenav.kivakit.interfaces.factory.Factory;
 import com.telenav.kivakit.interfaces.string.StringFormattable;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -167,11 +170,15 @@ import static java.util.Collections.emptySet;
              documentation = DOCUMENTED)
 public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         Copyable<Value, BaseSet<Value>>,
+        ModificationCounted,
         Set<Value>
 {
     /** The backing set */
     private final Set<Value> backingSet;
 
+    /** The number of times values have been added to or removed from this set */
+    private final AtomicLong modifications = new AtomicLong();
+
     /**
      * Construct a set with a maximum number of elements
      *
@@ -212,6 +219,19 @@ public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         this(MAXIMUM);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        if (!isEmpty())
+        {
+            super.clear();
+            modified(true);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -221,6 +241,37 @@ public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         return Copyable.super.copy();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Value> iterator()
+    {
+        var iterator = super.iterator();
+        return new Iterator<>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Value next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                // Values removed through the iterator (including by removeIf) are modifications too
+                iterator.remove();
+                modified(true);
+            }
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -239,6 +290,24 @@ public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         return Copyable.super.matching(matcher);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long modificationCount()
+    {
+        return modifications.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean onAdd(Value value)
+    {
+        return modified(super.onAdd(value));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -248,6 +317,33 @@ public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         return (BaseSet<Value>) newCollection();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object value)
+    {
+        return modified(super.remove(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(@NotNull Collection<?> values)
+    {
+        return modified(super.removeAll(values));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(@NotNull Collection<?> values)
+    {
+        return modified(super.retainAll(values));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -266,6 +362,21 @@ public abstract class BaseSet<Value> extends BaseCollection<Value> implements
         return backingSet;
     }
 
+    /**
+     * Increases the modification count of this set if the given value is true
+     *
+     * @param modified True if this set was modified
+     * @return The given value
+     */
+    protected boolean modified(boolean modified)
+    {
+        if (modified)
+        {
+            modifications.incrementAndGet();
+        }
+        return modified;
+    }
+
     /**
      * Returns a new backing set to store values in
      */
@@ -85,7 +85,9 @@ public class ConcurrentHashSet<Value> extends BaseSet<Value>
      */
     public Value take(Value prototype)
     {
-        return map.remove(prototype);
+        var taken = map.remove(prototype);
+        modified(taken != null);
+        return taken;
     }
 
     @Override
@@ -147,8 +149,7 @@ public class ConcurrentHashSet<Value> extends BaseSet<Value>
             @Override
             public boolean add(Value value)
             {
-                map.put(value, value);
-                return true;
+                return map.put(value, value) == null;
             }
 
             @Override
@@ -172,8 +173,7 @@ public class ConcurrentHashSet<Value> extends BaseSet<Value>
             @Override
             public boolean remove(Object value)
             {
-                map.remove(value);
-                return true;
+                return map.remove(value) != null;
             }
 
             @Override
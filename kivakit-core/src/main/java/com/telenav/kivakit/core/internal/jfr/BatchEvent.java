@@ -0,0 +1,51 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for a batch of elements processed by a {@link com.telenav.kivakit.core.thread.Batcher}.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.Batch")
+@Label("Batch")
+@Category({ "KivaKit", "Threading" })
+@Description("A batch of elements processed by a batcher")
+@Enabled(false)
+@StackTrace(false)
+public final class BatchEvent extends Event
+{
+    @Label("Batcher")
+    public String batcher;
+
+    @Label("Batch Size")
+    public int size;
+}
@@ -0,0 +1,61 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for a log entry written by a {@link com.telenav.kivakit.core.logging.logs.BaseLog}. The
+ * duration of the event is the time taken to write the entry, and the queue wait is the time from the creation of the
+ * entry until it was written.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.LogDispatch")
+@Label("Log Dispatch")
+@Category({ "KivaKit", "Logging" })
+@Description("A log entry written by a log")
+@Enabled(false)
+@StackTrace(false)
+public final class LogDispatchEvent extends Event
+{
+    @Label("Log")
+    public String log;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.MILLISECONDS)
+    public long queueWait;
+
+    @Label("Success")
+    public boolean success;
+}
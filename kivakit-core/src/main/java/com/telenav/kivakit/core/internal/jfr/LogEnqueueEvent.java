@@ -0,0 +1,53 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for the time a thread spends adding a log entry to the queue of an asynchronous
+ * {@link com.telenav.kivakit.core.logging.logs.BaseLog}. This is only significant when the queue is full, so the
+ * logging thread is blocked until the log catches up.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.LogEnqueue")
+@Label("Log Enqueue")
+@Category({ "KivaKit", "Logging" })
+@Description("Time spent adding a log entry to the queue of an asynchronous log")
+@Enabled(false)
+@StackTrace(false)
+public final class LogEnqueueEvent extends Event
+{
+    @Label("Log")
+    public String log;
+
+    @Label("Queue Size")
+    public int queueSize;
+}
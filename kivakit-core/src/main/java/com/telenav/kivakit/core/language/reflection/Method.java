@@ -85,6 +85,14 @@ import static com.telenav.kivakit.core.language.reflection.Type.typeForClass;
              documentation = DOCUMENTED)
 public class Method extends Member
 {
+    /**
+     * Returns a {@link Method} instance for the given class and method name
+     */
+    public static Method method(Class<?> type, String name)
+    {
+        return new Method(typeForClass(type), name);
+    }
+
     /**
      * Returns a {@link Method} instance for the given stack frame
      */
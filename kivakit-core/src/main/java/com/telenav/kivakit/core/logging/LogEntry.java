@@ -145,6 +145,33 @@ public class LogEntry implements Triaged
         sequenceNumber = nextSequenceNumber.getAndIncrement();
     }
 
+    /**
+     * Construct a log entry that was recorded earlier, such as one read back from a binary log. The entry's time and
+     * severity are those of the given message.
+     *
+     * @param sequenceNumber The sequence number that the entry had when it was recorded
+     * @param context The code context
+     * @param threadName The name of the thread that created the entry
+     * @param messageType The type of message, which may differ from the type of the given message if the original
+     * type is not available
+     * @param message The message to log
+     */
+    @UmlExcludeMember
+    public LogEntry(int sequenceNumber,
+                    CodeContext context,
+                    String threadName,
+                    String messageType,
+                    Message message)
+    {
+        this.sequenceNumber = sequenceNumber;
+        this.context = ensureNotNull(context);
+        this.threadName = threadName;
+        this.messageType = messageType;
+        this.message = message;
+        created = message.created();
+        severity = message.severity();
+    }
+
     @UmlExcludeMember
     protected LogEntry()
     {
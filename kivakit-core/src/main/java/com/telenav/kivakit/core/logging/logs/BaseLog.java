@@ -20,7 +20,10 @@ package com.telenav.kivakit.core.logging.logs;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.collections.map.ConcurrentCountMap;
 import com.telenav.kivakit.core.collections.map.CountMap;
+import com.telenav.kivakit.core.internal.jfr.LogDispatchEvent;
+import com.telenav.kivakit.core.internal.jfr.LogEnqueueEvent;
 import com.telenav.kivakit.core.internal.lexakai.DiagramLogs;
 import com.telenav.kivakit.core.language.reflection.property.IncludeProperty;
 import com.telenav.kivakit.core.logging.Log;
@@ -28,10 +31,14 @@ import com.telenav.kivakit.core.logging.LogEntry;
 import com.telenav.kivakit.core.logging.filters.LogEntriesWithSeverityGreaterThanOrEqualTo;
 import com.telenav.kivakit.core.messaging.messages.Severity;
 import com.telenav.kivakit.core.messaging.messages.status.Problem;
+import com.telenav.kivakit.core.metrics.Counter;
 import com.telenav.kivakit.core.string.ObjectFormatter;
+import com.telenav.kivakit.core.string.Plural;
 import com.telenav.kivakit.core.thread.RepeatingThread;
 import com.telenav.kivakit.core.thread.StateWatcher;
 import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.time.LatencyHistogram;
+import com.telenav.kivakit.core.time.LatencyRecorder;
 import com.telenav.kivakit.interfaces.comparison.Filter;
 import com.telenav.kivakit.interfaces.lifecycle.Startable;
 import com.telenav.kivakit.interfaces.lifecycle.Stoppable;
@@ -41,6 +48,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
@@ -50,11 +58,12 @@ import static com.telenav.kivakit.core.language.Classes.simpleName;
 import static com.telenav.kivakit.core.messaging.Listener.nullListener;
 import static com.telenav.kivakit.core.messaging.messages.Severity.NONE;
 import static com.telenav.kivakit.core.os.Console.console;
-import static com.telenav.kivakit.core.string.Plural.pluralizeEnglish;
 import static com.telenav.kivakit.core.thread.KivaKitThread.State.STOP_REQUESTED;
 import static com.telenav.kivakit.core.time.Duration.FOREVER;
 import static com.telenav.kivakit.core.time.Duration.ONE_MINUTE;
 import static com.telenav.kivakit.core.time.Frequency.CONTINUOUSLY;
+import static com.telenav.kivakit.core.time.LatencyRecorder.latencyRecorder;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
 import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 import static com.telenav.kivakit.core.vm.Properties.isSystemPropertyOrEnvironmentVariableFalse;
 import static com.telenav.kivakit.core.vm.ShutdownHook.Order.LAST;
@@ -84,6 +93,7 @@ import static com.telenav.kivakit.core.vm.ShutdownHook.registerShutdownHook;
  *     <li>{@link #close()}</li>
  *     <li>{@link #isClosed()}</li>
  *     <li>{@link #messageCounts()}</li>
+ *     <li>{@link #dispatchLatencies()}</li>
  * </ul>
  *
  * <p><b>Filtering</b></p>
@@ -103,6 +113,17 @@ import static com.telenav.kivakit.core.vm.ShutdownHook.registerShutdownHook;
  *     <li>{@link #isRunning()}</li>
  * </ul>
  *
+ * <p><b>Metrics</b></p>
+ *
+ * <p>
+ * Each log registers metrics labeled with its name and an instance number in the registry from
+ * {@link com.telenav.kivakit.core.vm.JavaVirtualMachineHealth#metrics()}: the 50th, 99th and 99.9th percentile time
+ * taken to write an entry (<i>kivakit_log_dispatch_seconds</i>, with a <i>quantile</i> label, read from
+ * {@link #dispatchLatencies()}), the number of entries that could not be written
+ * (<i>kivakit_log_failures_total</i>) and the number of entries waiting to be written (<i>kivakit_log_queue_size</i>).
+ * The instance number keeps the metrics of two logs with the same name, like two file logs, apart.
+ * </p>
+ *
  * <p><b>Logging</b></p>
  *
  * <p>
@@ -128,6 +149,9 @@ public abstract class BaseLog implements
     /** A collection of all logs in use */
     private static final List<BaseLog> logs = new ArrayList<>();
 
+    /** The number of logs that have been created, used to label each log's metrics */
+    private static final AtomicInteger instances = new AtomicInteger();
+
     static
     {
         // Determine if we are asynchronous or not
@@ -164,8 +188,8 @@ public abstract class BaseLog implements
     /** List of log entry filters */
     private final ObjectList<Filter<LogEntry>> filters = new ObjectList<>();
 
-    /** The number of each type of message that has been logged */
-    private final CountMap<String> messageCounts = new CountMap<>();
+    /** The number of each type of message that has been logged, by message type */
+    private final ConcurrentCountMap<String> messageCounts = new ConcurrentCountMap<>();
 
     /** Queue of log entries to write asynchronously */
     private final ArrayBlockingQueue<LogEntry> queue = new ArrayBlockingQueue<>(queueSize());
@@ -179,10 +203,28 @@ public abstract class BaseLog implements
     /** State that indicates the queue is empty */
     final StateWatcher<Boolean> queueEmpty = new StateWatcher<>(true);
 
+    /** The number of log entries that could not be written */
+    private final Counter failures;
+
+    /** The time taken to write each log entry, for percentile queries */
+    private final LatencyRecorder dispatchLatencies = latencyRecorder();
+
     protected BaseLog()
     {
         logs.add(this);
 
+        // Register metrics for this log, labeled with its name and instance number
+        var metrics = javaVirtualMachine().health().metrics();
+        var instance = Integer.toString(instances.incrementAndGet());
+        for (var quantile : new double[] { 0.5, 0.99, 0.999 })
+        {
+            metrics.gauge("kivakit_log_dispatch_seconds", "Time taken to write log entries",
+                () -> dispatchLatencies.histogram().percentile(quantile * 100).asSeconds(),
+                "log", name(), "instance", instance, "quantile", Double.toString(quantile));
+        }
+        failures = metrics.counter("kivakit_log_failures_total", "Log entries that could not be written", "log", name(), "instance", instance);
+        metrics.gauge("kivakit_log_queue_size", "Log entries waiting to be written", queue::size, "log", name(), "instance", instance);
+
         // If we are asynchronous,
         if (isAsynchronous())
         {
@@ -228,6 +270,14 @@ public abstract class BaseLog implements
     {
     }
 
+    /**
+     * Returns the time taken to write each log entry so far
+     */
+    public LatencyHistogram dispatchLatencies()
+    {
+        return dispatchLatencies.histogram();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -322,6 +372,8 @@ public abstract class BaseLog implements
                 {
                     start();
                 }
+                var event = new LogEnqueueEvent();
+                event.begin();
                 try
                 {
                     queue.put(entry);
@@ -329,12 +381,21 @@ public abstract class BaseLog implements
                 catch (InterruptedException ignored)
                 {
                 }
+
+                // Record how long the caller was blocked because the queue was full
+                event.end();
+                if (event.shouldCommit())
+                {
+                    event.log = name();
+                    event.queueSize = queue.size();
+                    event.commit();
+                }
             }
             else
             {
                 if (!dispatch(entry))
                 {
-                    onLogFailure(entry);
+                    failed(entry);
                 }
             }
         }
@@ -354,10 +415,7 @@ public abstract class BaseLog implements
      */
     public CountMap<String> messageCounts()
     {
-        synchronized (messageCounts)
-        {
-            return new CountMap<>(messageCounts);
-        }
+        return messageCounts.snapshot(Plural::pluralizeEnglish);
     }
 
     /**
@@ -415,7 +473,7 @@ public abstract class BaseLog implements
                 if (!success)
                 {
                     // log the entry as a failure
-                    onLogFailure(entry);
+                    failed(entry);
 
                     // and then drain the rest of the queue as failures to
                     // prevent the queue from blocking
@@ -424,7 +482,7 @@ public abstract class BaseLog implements
                     checkForEmptyQueue();
                     for (var failure : failures)
                     {
-                        onLogFailure(failure);
+                        failed(failure);
                     }
                 }
             }
@@ -487,6 +545,15 @@ public abstract class BaseLog implements
         System.out.println("Failed to log: " + entry);
     }
 
+    /**
+     * Reports a problem with this log. Since a log can't log its own problems, they go to stderr.
+     */
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    protected void problem(Throwable e, String message, Object... arguments)
+    {
+        System.err.println(new Problem(e, message, arguments).asString());
+    }
+
     /**
      * The maximum queue size for asynchronous logging
      */
@@ -528,21 +595,46 @@ public abstract class BaseLog implements
     {
         if (entry.severity().isGreaterThan(NONE))
         {
-            synchronized (messageCounts)
-            {
-                messageCounts.increment(pluralizeEnglish(entry.messageType()));
-            }
+            messageCounts.increment(entry.messageType());
         }
         var success = true;
+        var event = new LogDispatchEvent();
+        event.begin();
+        var stopwatch = stopwatch();
         try
         {
             onLog(entry);
         }
         catch (Exception e)
         {
-            System.err.println(new Problem(e, "Failed to write log entry").asString());
+            problem(e, "Failed to write log entry");
             success = false;
         }
+        finally
+        {
+            dispatchLatencies.record(stopwatch.elapsedNanoseconds());
+        }
+
+        // Record whether the entry was written, and how long it sat in the queue before the writer thread took it
+        event.end();
+        if (event.shouldCommit())
+        {
+            var created = entry.created();
+            event.log = name();
+            event.messageType = entry.messageType();
+            event.queueWait = created == null ? 0 : created.elapsedSince().milliseconds();
+            event.success = success;
+            event.commit();
+        }
         return success;
     }
+
+    /**
+     * Counts the given entry as a failure and calls {@link #onLogFailure(LogEntry)}
+     */
+    private void failed(LogEntry entry)
+    {
+        failures.increment();
+        onLogFailure(entry);
+    }
 }
@@ -0,0 +1,86 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.logging.logs.binary;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Constants shared by {@link BinaryLogWriter} and {@link BinaryLogReader}. A binary log starts with the four bytes
+ * {@link #MAGIC} and a {@link #VERSION} byte, followed by a series of records, each starting with a tag byte:
+ * </p>
+ *
+ * <ul>
+ *     <li>{@link #STRING} - Defines the next string in the table of interned strings: the length in bytes of the
+ *     string's UTF-8 encoding as a varint, followed by the encoding</li>
+ *     <li>{@link #ENTRY} - A log entry: the message creation time in milliseconds and the sequence number as zigzag varint deltas from
+ *     the previous entry, the interned string numbers of the message type, thread name, code context and message
+ *     template as varints, and the number of arguments as a varint, followed by the arguments</li>
+ * </ul>
+ *
+ * <p>
+ * Each argument starts with one of the tags {@link #NULL} through {@link #TEXT}. Integral values are zigzag varints,
+ * floating point values are their raw IEEE 754 bits and text is a varint length followed by UTF-8 bytes. Interned
+ * strings are numbered from zero in the order they are defined, and a string is always defined before the first
+ * entry that refers to it, so a log can be decoded in a single pass.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+final class BinaryLogFormat
+{
+    /** The bytes that a binary log starts with */
+    static final byte[] MAGIC = { 'K', 'V', 'K', 'L' };
+
+    /** The version of the format */
+    static final int VERSION = 1;
+
+    /** Record tags */
+    static final int STRING = 1;
+
+    static final int ENTRY = 2;
+
+    /** Argument tags */
+    static final int NULL = 0;
+
+    static final int INTEGER = 1;
+
+    static final int LONG = 2;
+
+    static final int SHORT = 3;
+
+    static final int BYTE = 4;
+
+    static final int FLOAT = 5;
+
+    static final int DOUBLE = 6;
+
+    static final int TRUE = 7;
+
+    static final int FALSE = 8;
+
+    static final int CHARACTER = 9;
+
+    static final int TEXT = 10;
+
+    private BinaryLogFormat()
+    {
+    }
+}
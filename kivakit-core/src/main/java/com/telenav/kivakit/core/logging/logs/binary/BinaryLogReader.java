@@ -0,0 +1,301 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.logging.logs.binary;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramLogs;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.text.LogFormatter;
+import com.telenav.kivakit.core.messaging.Listener;
+import com.telenav.kivakit.core.messaging.Message;
+import com.telenav.kivakit.core.messaging.MessageFormat;
+import com.telenav.kivakit.core.messaging.messages.OperationMessage;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.BYTE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.CHARACTER;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.DOUBLE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.ENTRY;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.FALSE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.FLOAT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.INTEGER;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.LONG;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.MAGIC;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.NULL;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.SHORT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.STRING;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.TEXT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.TRUE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.VERSION;
+import static com.telenav.kivakit.core.messaging.Listener.nullListener;
+import static com.telenav.kivakit.core.messaging.Messages.newMessage;
+import static com.telenav.kivakit.core.messaging.Messages.parseMessageType;
+import static com.telenav.kivakit.core.time.Time.epochMilliseconds;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the {@link LogEntry}s written by a {@link BinaryLogWriter}. Each entry is rebuilt with a message of its
+ * original type (or {@link Information}, if the type is not a built-in KivaKit message), its template and its
+ * arguments, so it can be formatted by any {@link LogFormatter} just as it would have been when it was logged.
+ *
+ * <p><b>Reading</b></p>
+ *
+ * <ul>
+ *     <li>{@link #read()} - Returns the next entry, or null if there are no more</li>
+ *     <li>{@link #forEach(Consumer)} - Calls the given consumer with each remaining entry</li>
+ *     <li>{@link #render(LogFormatter, Consumer)} - Calls the given consumer with the text of each remaining entry</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see BinaryLogWriter
+ */
+@UmlClassDiagram(diagram = DiagramLogs.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class BinaryLogReader implements Closeable
+{
+    /**
+     * Returns a reader for the given stream, after checking that it starts with a binary log header
+     *
+     * @throws IOException Thrown if the stream can't be read or is not a binary log
+     */
+    public static BinaryLogReader binaryLogReader(InputStream in) throws IOException
+    {
+        return new BinaryLogReader(in);
+    }
+
+    /** The code context for each context name */
+    private final Map<String, LoggerCodeContext> contexts = new HashMap<>();
+
+    /** The stream to read from */
+    private final DataInputStream in;
+
+    /** The creation time of the last message read */
+    private long lastCreated;
+
+    /** The sequence number of the last entry read */
+    private long lastSequenceNumber;
+
+    /** The interned strings defined so far, by number */
+    private final List<String> strings = new ArrayList<>();
+
+    /** The message class for each message type name */
+    private final Map<String, Class<? extends Message>> types = new HashMap<>();
+
+    private BinaryLogReader(InputStream in) throws IOException
+    {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+
+        var magic = new byte[MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC))
+        {
+            throw new IOException("Not a binary log");
+        }
+        var version = this.in.readUnsignedByte();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported binary log version: " + version);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * Calls the given consumer with each remaining entry
+     */
+    public void forEach(Consumer<LogEntry> consumer) throws IOException
+    {
+        for (var entry = read(); entry != null; entry = read())
+        {
+            consumer.accept(entry);
+        }
+    }
+
+    /**
+     * Returns the next entry, or null if the end of the log has been reached. A log that ends part way through an
+     * entry, as the last segment of a log might if the process writing it exited abruptly, ends at the last complete
+     * entry.
+     *
+     * @throws IOException Thrown if the log can't be read or is corrupt
+     */
+    public LogEntry read() throws IOException
+    {
+        try
+        {
+            while (true)
+            {
+                var tag = in.read();
+                switch (tag)
+                {
+                    case -1:
+                        return null;
+
+                    case STRING:
+                        strings.add(readText());
+                        break;
+
+                    case ENTRY:
+                        return readEntry();
+
+                    default:
+                        throw new IOException("Invalid binary log record: " + tag);
+                }
+            }
+        }
+        catch (EOFException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Formats each remaining entry with the given formatter and passes the text to the given consumer
+     */
+    public void render(LogFormatter formatter, Consumer<String> consumer) throws IOException
+    {
+        forEach(entry -> consumer.accept(entry.format(formatter, MessageFormat.FORMATTED)));
+    }
+
+    private Object readArgument() throws IOException
+    {
+        var tag = in.readUnsignedByte();
+        return switch (tag)
+            {
+                case NULL -> null;
+                case INTEGER -> (int) readSignedVarint();
+                case LONG -> readSignedVarint();
+                case SHORT -> (short) readSignedVarint();
+                case BYTE -> (byte) readSignedVarint();
+                case FLOAT -> Float.intBitsToFloat(in.readInt());
+                case DOUBLE -> Double.longBitsToDouble(in.readLong());
+                case TRUE -> true;
+                case FALSE -> false;
+                case CHARACTER -> (char) readVarint();
+                case TEXT -> readText();
+                default -> throw new IOException("Invalid binary log argument: " + tag);
+            };
+    }
+
+    @SuppressWarnings("unchecked")
+    private LogEntry readEntry() throws IOException
+    {
+        // Read the entry,
+        var created = lastCreated + readSignedVarint();
+        var sequenceNumber = lastSequenceNumber + readSignedVarint();
+        var type = string(readVarint());
+        var thread = string(readVarint());
+        var context = string(readVarint());
+        var template = string(readVarint());
+        var arguments = new Object[(int) readVarint()];
+        for (var index = 0; index < arguments.length; index++)
+        {
+            arguments[index] = readArgument();
+        }
+        lastCreated = created;
+        lastSequenceNumber = sequenceNumber;
+
+        // then create a message of the same type, if we can,
+        var messageType = types.computeIfAbsent(type, name ->
+        {
+            var prototype = parseMessageType(nullListener(), name);
+            return prototype == null ? Information.class : (Class<? extends Message>) prototype.getClass();
+        });
+        Message message = newMessage(nullListener(), messageType, template, arguments);
+        if (message == null)
+        {
+            message = new Information(template, arguments);
+        }
+        if (message instanceof OperationMessage operationMessage)
+        {
+            operationMessage.created(epochMilliseconds(created));
+        }
+
+        // and return it in an entry.
+        return new LogEntry((int) sequenceNumber,
+                contexts.computeIfAbsent(context, LoggerCodeContext::new),
+                thread,
+                type,
+                message);
+    }
+
+    private long readSignedVarint() throws IOException
+    {
+        var value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String readText() throws IOException
+    {
+        var bytes = new byte[(int) readVarint()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private long readVarint() throws IOException
+    {
+        var value = 0L;
+        for (var shift = 0; shift < 64; shift += 7)
+        {
+            var next = in.readUnsignedByte();
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Invalid binary log varint");
+    }
+
+    private String string(long number) throws IOException
+    {
+        if (number >= strings.size())
+        {
+            throw new IOException("Undefined binary log string: " + number);
+        }
+        return strings.get((int) number);
+    }
+}
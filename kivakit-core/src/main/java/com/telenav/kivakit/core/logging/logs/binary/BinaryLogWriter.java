@@ -0,0 +1,479 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.logging.logs.binary;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.internal.lexakai.DiagramLogs;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.messaging.Message;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.BYTE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.CHARACTER;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.DOUBLE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.ENTRY;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.FALSE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.FLOAT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.INTEGER;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.LONG;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.MAGIC;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.NULL;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.SHORT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.STRING;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.TEXT;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.TRUE;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogFormat.VERSION;
+import static com.telenav.kivakit.core.string.StringConversions.toHumanizedString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes {@link LogEntry}s to a stream in a compact binary form that can be turned back into text later by
+ * {@link BinaryLogReader}. Instead of formatting each entry, the writer records the message template, the message
+ * type, thread and code context and the raw message arguments. Strings that repeat from entry to entry, like
+ * templates and thread names, are interned: each is written once and referred to by number after that. Numbers are
+ * written as variable-length integers, so small values take a single byte.
+ *
+ * <p><b>Arguments</b></p>
+ *
+ * <p>
+ * Primitive wrappers, characters and strings are written as they are. Any other argument is converted to the text
+ * that {@link com.telenav.kivakit.core.string.Formatter} would have produced for it, since objects can't be
+ * recorded in general, and their state may have changed by the time the log is decoded. If a template uses an
+ * interpolation that depends on the type of an argument, like <i>${class}</i> or <i>${debug}</i>, the message is
+ * formatted when it is written instead.
+ * </p>
+ *
+ * <p><b>Segments</b></p>
+ *
+ * <p>
+ * Each writer starts a new table of interned strings, so a log that is split into several files should use a new
+ * writer for each file, allowing each to be decoded separately.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ * @see BinaryLogReader
+ */
+@UmlClassDiagram(diagram = DiagramLogs.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class BinaryLogWriter implements Closeable, Flushable
+{
+    /** The template used for messages that are formatted when they are written */
+    private static final String FORMATTED = "$";
+
+    /** Arguments that are interpolated with humanized text ($, ${string}, ${lower}, ${upper}) */
+    private static final int HUMANIZED = 0;
+
+    /** Arguments that are interpolated with toString() (${integer}, ${long}, ${left}, ${right}, ${hex}, ${binary}) */
+    private static final int TO_STRING = 1;
+
+    /** Arguments that must be floating point values (${float}, ${double}) */
+    private static final int FLOATING_POINT = 2;
+
+    /** A template that can't be deferred, because of the interpolations it uses */
+    private static final Template NOT_DEFERRABLE = new Template(null);
+
+    /**
+     * Returns a writer that writes to the given stream, after writing the binary log header to it
+     */
+    public static BinaryLogWriter binaryLogWriter(OutputStream out) throws IOException
+    {
+        return new BinaryLogWriter(out);
+    }
+
+    /**
+     * The way each argument of a message template is interpolated, or null if the template can't be deferred
+     */
+    private record Template(int[] arguments)
+    {
+    }
+
+    /** The record being written */
+    private byte[] buffer = new byte[256];
+
+    /** The total number of bytes written */
+    private long bytesWritten;
+
+    /** The creation time of the last message written */
+    private long lastCreated;
+
+    /** The sequence number of the last entry written */
+    private int lastSequenceNumber;
+
+    /** The stream to write to */
+    private final OutputStream out;
+
+    /** The number of bytes in the buffer */
+    private int size;
+
+    /** The number of each interned string whose definition has been written */
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    /** The number of each string defined by the entry being written, which are interned once the entry is written */
+    private final Map<String, Integer> staged = new HashMap<>();
+
+    /** The analysis of each message template that has been written */
+    private final Map<String, Template> templates = new HashMap<>();
+
+    private BinaryLogWriter(OutputStream out) throws IOException
+    {
+        this.out = out;
+        out.write(MAGIC);
+        out.write(VERSION);
+        bytesWritten = MAGIC.length + 1;
+    }
+
+    /**
+     * Returns the number of bytes written so far, including the header
+     */
+    public synchronized long bytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+     * Writes the given entry, along with any strings it refers to that have not been written yet
+     */
+    public synchronized void write(LogEntry entry) throws IOException
+    {
+        // Discard any strings staged by an entry that failed to be written,
+        size = 0;
+        staged.clear();
+
+        var message = entry.message();
+        var template = message.text();
+        var arguments = message.arguments() == null ? new Object[0] : message.arguments();
+
+        // and if the message can't be formatted later,
+        if (!isDeferrable(template, arguments))
+        {
+            // format it now, and write it as the only argument to a template that interpolates it.
+            template = FORMATTED;
+            arguments = new Object[] { message.formatted() };
+        }
+        var conversions = template(template).arguments;
+
+        // Define any strings that this entry refers to that are new,
+        var type = intern(entry.messageType());
+        var thread = intern(entry.threadName());
+        var context = intern(entry.context().typeName());
+        var templateNumber = intern(template);
+
+        // then write the entry.
+        var created = message.created().epochMilliseconds();
+        writeByte(ENTRY);
+        writeSignedVarint(created - lastCreated);
+        writeSignedVarint((long) entry.sequenceNumber() - lastSequenceNumber);
+        writeVarint(type);
+        writeVarint(thread);
+        writeVarint(context);
+        writeVarint(templateNumber);
+        writeVarint(arguments.length);
+        for (var index = 0; index < arguments.length; index++)
+        {
+            writeArgument(arguments[index], conversions[index]);
+        }
+        out.write(buffer, 0, size);
+        bytesWritten += size;
+
+        // Only once the entry and its string definitions have been written, intern the new strings and remember the
+        // entry's time and sequence number, so an exception above leaves this writer as it was before the entry.
+        strings.putAll(staged);
+        staged.clear();
+        lastCreated = created;
+        lastSequenceNumber = entry.sequenceNumber();
+    }
+
+    /**
+     * Returns the analysis of the given template, determining how each argument is interpolated by
+     * {@link com.telenav.kivakit.core.string.Formatter}
+     */
+    private Template analyze(String template)
+    {
+        var arguments = new int[8];
+        var count = 0;
+        var at = 0;
+        while (true)
+        {
+            var start = template.indexOf('$', at);
+            if (start < 0)
+            {
+                return new Template(Arrays.copyOf(arguments, count));
+            }
+
+            // If the interpolation is an escaped $,
+            var next = start + 1 < template.length() ? template.charAt(start + 1) : Character.MIN_VALUE;
+            if (next == '$')
+            {
+                // skip it,
+                at = start + 2;
+                continue;
+            }
+
+            // otherwise, get the interpolation command,
+            String command;
+            if (next == '{')
+            {
+                var close = template.indexOf('}', start);
+                if (close < 0)
+                {
+                    return NOT_DEFERRABLE;
+                }
+                command = template.substring(start + 2, close);
+                at = close + 1;
+            }
+            else
+            {
+                command = "string";
+                at = start + 1;
+            }
+
+            // and determine how it converts its argument.
+            int conversion;
+            switch (command)
+            {
+                case "string", "lower", "upper" -> conversion = HUMANIZED;
+                case "integer", "long", "left", "right", "hex", "binary" -> conversion = TO_STRING;
+                case "float", "double" -> conversion = FLOATING_POINT;
+                case "nowrap" ->
+                {
+                    continue;
+                }
+                default ->
+                {
+                    return NOT_DEFERRABLE;
+                }
+            }
+            if (count == arguments.length)
+            {
+                arguments = Arrays.copyOf(arguments, count * 2);
+            }
+            arguments[count++] = conversion;
+        }
+    }
+
+    /**
+     * Ensures that the buffer has room for the given number of bytes
+     */
+    private void ensureCapacity(int bytes)
+    {
+        if (size + bytes > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+
+    /**
+     * Returns the number of the given interned string, staging a definition for it if it is new
+     */
+    private int intern(String string)
+    {
+        var text = string == null ? "" : string;
+        var number = strings.get(text);
+        if (number == null)
+        {
+            number = staged.get(text);
+            if (number == null)
+            {
+                number = strings.size() + staged.size();
+                staged.put(text, number);
+                writeByte(STRING);
+                writeText(text);
+            }
+        }
+        return number;
+    }
+
+    /**
+     * Returns true if the given template and arguments can be formatted later, producing the same text as
+     * {@link Message#formatted()} would now
+     */
+    private boolean isDeferrable(String template, Object[] arguments)
+    {
+        if (template == null || (arguments.length > 0 && arguments[0] instanceof VariableMap))
+        {
+            return false;
+        }
+
+        var conversions = template(template).arguments;
+        if (conversions == null || conversions.length != arguments.length)
+        {
+            return false;
+        }
+        for (var index = 0; index < arguments.length; index++)
+        {
+            if (conversions[index] == FLOATING_POINT && !(arguments[index] instanceof Float || arguments[index] instanceof Double))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the analysis of the given template
+     */
+    private Template template(String template)
+    {
+        return templates.computeIfAbsent(template, this::analyze);
+    }
+
+    /**
+     * Writes the given argument, converting it to text if it is not a primitive wrapper or string
+     */
+    private void writeArgument(Object argument, int conversion)
+    {
+        if (argument == null)
+        {
+            writeByte(NULL);
+        }
+        else if (argument instanceof Integer value)
+        {
+            writeByte(INTEGER);
+            writeSignedVarint(value);
+        }
+        else if (argument instanceof Long value)
+        {
+            writeByte(LONG);
+            writeSignedVarint(value);
+        }
+        else if (argument instanceof Short value)
+        {
+            writeByte(SHORT);
+            writeSignedVarint(value);
+        }
+        else if (argument instanceof Byte value)
+        {
+            writeByte(BYTE);
+            writeSignedVarint(value);
+        }
+        else if (argument instanceof Float value)
+        {
+            writeByte(FLOAT);
+            writeFixed(Float.floatToRawIntBits(value), 4);
+        }
+        else if (argument instanceof Double value)
+        {
+            writeByte(DOUBLE);
+            writeFixed(Double.doubleToRawLongBits(value), 8);
+        }
+        else if (argument instanceof Boolean value)
+        {
+            writeByte(value ? TRUE : FALSE);
+        }
+        else if (argument instanceof Character value)
+        {
+            writeByte(CHARACTER);
+            writeVarint(value);
+        }
+        else
+        {
+            writeByte(TEXT);
+            writeText(argument instanceof String string
+                    ? string
+                    : conversion == HUMANIZED ? toHumanizedString(argument) : argument.toString());
+        }
+    }
+
+    private void writeByte(int value)
+    {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes the given number of low-order bytes of the given value, most significant first
+     */
+    private void writeFixed(long value, int bytes)
+    {
+        ensureCapacity(bytes);
+        for (var shift = (bytes - 1) * 8; shift >= 0; shift -= 8)
+        {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Writes the given value as a zigzag varint, so values near zero are short whether they are positive or negative
+     */
+    private void writeSignedVarint(long value)
+    {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeText(String text)
+    {
+        var bytes = text.getBytes(UTF_8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes the given value seven bits at a time, low-order bits first, setting the high bit of each byte but the
+     * last
+     */
+    private void writeVarint(long value)
+    {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0)
+        {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+}
@@ -29,6 +29,9 @@ import com.telenav.lexakai.annotations.UmlClassDiagram;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.TESTING_NOT_NEEDED;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.NARROW;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.WIDE;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.bufferedLogFormatter;
 import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 
 /**
@@ -43,15 +46,26 @@ import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 public interface LogFormatter
 {
     /**
-     * Returns the log formatter specified by the KIVAKIT_LOG_FORMATTER property or environment variable
+     * Returns the log formatter specified by the KIVAKIT_LOG_FORMATTER property or environment variable, which can be
+     * <i>Narrow</i> (the default), <i>Wide</i>, <i>BufferedNarrow</i> or <i>BufferedWide</i>
      */
     static LogFormatter logFormatter()
     {
         var formatter = javaVirtualMachine().systemPropertiesAndEnvironmentVariables()
                 .get("KIVAKIT_LOG_FORMATTER");
-        return "Wide".equalsIgnoreCase(formatter)
-                ? new WideLogFormatter()
-                : new NarrowLogFormatter();
+        if ("Wide".equalsIgnoreCase(formatter))
+        {
+            return new WideLogFormatter();
+        }
+        if ("BufferedWide".equalsIgnoreCase(formatter))
+        {
+            return bufferedLogFormatter(WIDE);
+        }
+        if ("BufferedNarrow".equalsIgnoreCase(formatter))
+        {
+            return bufferedLogFormatter(NARROW);
+        }
+        return new NarrowLogFormatter();
     }
 
     /**
@@ -0,0 +1,516 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.logging.logs.text.formatters;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramLogs;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.logs.text.LogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.BaseColumnarFormatter.ColumnLayout;
+import com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter.TimeType;
+import com.telenav.kivakit.core.messaging.MessageFormat;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.time.Time;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.Arrays;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BaseColumnarFormatter.ColumnLayout.CLIP_LEFT;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BaseColumnarFormatter.ColumnLayout.CLIP_RIGHT;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BaseColumnarFormatter.ColumnLayout.WRAP;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter.TimeType.ELAPSED;
+import static com.telenav.kivakit.core.string.Strings.replaceAll;
+import static com.telenav.kivakit.core.time.Time.now;
+import static com.telenav.kivakit.interfaces.string.StringFormattable.Format.USER_LABEL;
+import static java.lang.Math.max;
+
+/**
+ * A columnar log formatter that produces the same output as {@link NarrowLogFormatter} or {@link WideLogFormatter},
+ * depending on its {@link Layout}, but without building intermediate lists of strings.
+ *
+ * <p><b>Formatting</b></p>
+ *
+ * <p>
+ * Each column value is laid out in place, as a list of character ranges of the value, each with the number of spaces
+ * needed to pad it to the width of its column. The ranges are then appended row by row directly to a
+ * {@link StringBuilder}. The builder and the arrays that hold the ranges belong to the formatting thread and are
+ * reused for each entry, so the only object created for an entry is the formatted string itself. The time column is
+ * rendered at most once per second, and the elapsed time column at most once per millisecond.
+ * </p>
+ *
+ * <p><b>Creation</b></p>
+ *
+ * <ul>
+ *     <li>{@link #bufferedLogFormatter(Layout)}</li>
+ * </ul>
+ *
+ * <p><b>Options</b></p>
+ *
+ * <ul>
+ *     <li>{@link #timeType(TimeType)} - Sets the type of time shown by the {@link Layout#WIDE} layout</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see NarrowLogFormatter
+ * @see WideLogFormatter
+ */
+@UmlClassDiagram(diagram = DiagramLogs.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class BufferedLogFormatter implements LogFormatter
+{
+    /** Reusable buffers for each formatting thread */
+    private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /** Marker in a column value that keeps it on a single row */
+    private static final String NO_WRAP = "${nowrap}";
+
+    /** Spaces to pad columns with */
+    private static final char[] SPACES = " ".repeat(256).toCharArray();
+
+    /**
+     * Returns a formatter with the given layout
+     */
+    public static BufferedLogFormatter bufferedLogFormatter(Layout layout)
+    {
+        return new BufferedLogFormatter(layout);
+    }
+
+    /**
+     * The columns to show
+     */
+    public enum Layout
+    {
+        /** The columns of {@link NarrowLogFormatter} */
+        NARROW,
+
+        /** The columns of {@link WideLogFormatter} */
+        WIDE
+    }
+
+    /**
+     * A column, which widens as wider values are formatted, up to its maximum width. As with the other columnar
+     * formatters, widths are shared by all threads without locking, since a lost update only affects padding.
+     */
+    private static final class Column
+    {
+        /** The layout of the column */
+        private final ColumnLayout layout;
+
+        /** The maximum width of the column */
+        private final int maximumWidth;
+
+        /** The current width of the column */
+        private int width;
+
+        private Column(int initialWidth, int maximumWidth, ColumnLayout layout)
+        {
+            this.width = initialWidth;
+            this.maximumWidth = maximumWidth;
+            this.layout = layout;
+        }
+    }
+
+    /**
+     * A rendered timestamp and the second or millisecond that it was rendered for
+     */
+    private record RenderedTime(long key, String text)
+    {
+    }
+
+    /**
+     * The buffers used by a thread to format log entries
+     */
+    private static final class Buffers
+    {
+        /** The formatted output */
+        private final StringBuilder builder = new StringBuilder(256);
+
+        /** The number of rows in each column */
+        private int[] count = new int[8];
+
+        /** The end of each row of a column value */
+        private int[] end = new int[64];
+
+        /** The index of the first row of each column */
+        private int[] first = new int[8];
+
+        /** The single row of each column that must not wrap, or null if the column can wrap */
+        private String[] noWrap = new String[8];
+
+        /** The text of the sequence number column */
+        private final StringBuilder number = new StringBuilder(16);
+
+        /** The number of spaces to pad each row of a column with */
+        private int[] padding = new int[64];
+
+        /** The number of rows in all columns */
+        private int rows;
+
+        /** The start of each row of a column value */
+        private int[] start = new int[64];
+
+        /** The value of each column */
+        private CharSequence[] values = new CharSequence[8];
+
+        /**
+         * Sets the value of the given column
+         */
+        private void column(int index, CharSequence value)
+        {
+            if (index == values.length)
+            {
+                values = Arrays.copyOf(values, index * 2);
+                noWrap = Arrays.copyOf(noWrap, index * 2);
+                first = Arrays.copyOf(first, index * 2);
+                count = Arrays.copyOf(count, index * 2);
+            }
+            values[index] = value;
+        }
+
+        /**
+         * Returns the given columns formatted in the same way as {@link BaseColumnarFormatter}
+         */
+        private String format(Column[] columns)
+        {
+            // Lay out the value of each column,
+            rows = 0;
+            var maximumRows = 1;
+            for (var column = 0; column < columns.length; column++)
+            {
+                first[column] = rows;
+                layOut(columns[column], values[column]);
+                count[column] = rows - first[column];
+
+                // and if the column should not wrap,
+                if (values[column] instanceof String value && value.contains(NO_WRAP))
+                {
+                    // join its rows into one and remove the marker.
+                    noWrap[column] = replaceAll(join(column), NO_WRAP, "");
+                }
+                else
+                {
+                    noWrap[column] = null;
+                    maximumRows = max(maximumRows, count[column]);
+                }
+            }
+
+            // Next, go through each row,
+            builder.setLength(0);
+            for (var row = 0; row < maximumRows; row++)
+            {
+                builder.append("┋ ");
+                for (var column = 0; column < columns.length; column++)
+                {
+                    // append the column's text for the row,
+                    if (noWrap[column] != null)
+                    {
+                        if (row == 0)
+                        {
+                            builder.append(noWrap[column]);
+                        }
+                        else
+                        {
+                            spaces(columns[column].width);
+                        }
+                    }
+                    else if (row < count[column])
+                    {
+                        var at = first[column] + row;
+                        builder.append(values[column], start[at], end[at]);
+                        spaces(padding[at]);
+                    }
+                    else
+                    {
+                        // or blank space if the column has no more rows,
+                        spaces(columns[column].width);
+                    }
+
+                    // then add the column separator.
+                    builder.append(" ┋");
+                    if (column < columns.length - 1)
+                    {
+                        builder.append(' ');
+                    }
+                }
+                if (row < maximumRows - 1)
+                {
+                    builder.append('\n');
+                }
+            }
+
+            // Finally, release the values, so the thread doesn't hold on to them.
+            Arrays.fill(values, null);
+            Arrays.fill(noWrap, null);
+            return builder.toString();
+        }
+
+        /**
+         * Returns the rows of the given column joined together
+         */
+        private String join(int column)
+        {
+            var joined = new StringBuilder();
+            for (var at = first[column]; at < first[column] + count[column]; at++)
+            {
+                joined.append(values[column], start[at], end[at]);
+                joined.append(SPACES, 0, padding[at]);
+            }
+            return joined.toString();
+        }
+
+        /**
+         * Splits the given value into rows, one or more for each line in the value, according to the layout of the
+         * given column
+         */
+        private void layOut(Column column, CharSequence value)
+        {
+            var width = column.width;
+            var length = value.length();
+
+            // For each line in the value,
+            for (var lineStart = 0; lineStart <= length; )
+            {
+                var lineEnd = lineStart;
+                while (lineEnd < length && value.charAt(lineEnd) != '\n')
+                {
+                    lineEnd++;
+                }
+
+                // add rows until the line is used up.
+                var at = lineStart;
+                while (at < lineEnd)
+                {
+                    var remaining = lineEnd - at;
+
+                    // If the rest of the line fits in the column,
+                    if (remaining < width)
+                    {
+                        // pad it to the column width,
+                        row(at, lineEnd, width - remaining);
+                        at = lineEnd;
+                    }
+                    else if (remaining < column.maximumWidth)
+                    {
+                        // or widen the column to fit it,
+                        width = remaining;
+                        row(at, lineEnd, 0);
+                        at = lineEnd;
+                    }
+                    else
+                    {
+                        // otherwise, widen the column to its maximum and clip or wrap the line.
+                        width = column.maximumWidth;
+                        switch (column.layout)
+                        {
+                            case CLIP_LEFT ->
+                            {
+                                row(lineEnd - width, lineEnd, 0);
+                                at = lineEnd;
+                            }
+                            case CLIP_RIGHT ->
+                            {
+                                row(at, at + width, 0);
+                                at = lineEnd;
+                            }
+                            case WRAP ->
+                            {
+                                row(at, at + width, 0);
+                                at += width;
+                            }
+                        }
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+
+            column.width = width;
+        }
+
+        /**
+         * Adds a row for the given range of the current value, padded with the given number of spaces
+         */
+        private void row(int start, int end, int padding)
+        {
+            if (rows == this.start.length)
+            {
+                this.start = Arrays.copyOf(this.start, rows * 2);
+                this.end = Arrays.copyOf(this.end, rows * 2);
+                this.padding = Arrays.copyOf(this.padding, rows * 2);
+            }
+            this.start[rows] = start;
+            this.end[rows] = end;
+            this.padding[rows] = padding;
+            rows++;
+        }
+
+        /**
+         * Appends the given number of spaces
+         */
+        private void spaces(int count)
+        {
+            while (count > 0)
+            {
+                var next = Math.min(count, SPACES.length);
+                builder.append(SPACES, 0, next);
+                count -= next;
+            }
+        }
+    }
+
+    /** The code context column, showing class names */
+    private final Column contextColumn;
+
+    /** The elapsed time column */
+    private final Column elapsedColumn = new Column(6, 10, CLIP_RIGHT);
+
+    /** The columns to show */
+    private final Layout layout;
+
+    /** The message text column */
+    private final Column messageColumn;
+
+    /** The elapsed time, rendered for the millisecond it was last rendered for */
+    private volatile RenderedTime renderedElapsed = new RenderedTime(-1, null);
+
+    /** The absolute time, rendered for the second it was last rendered for */
+    private volatile RenderedTime renderedTime = new RenderedTime(Long.MIN_VALUE, null);
+
+    /** The sequence number column */
+    private final Column sequenceNumberColumn = new Column(4, 10, CLIP_RIGHT);
+
+    /** The time this formatter was created */
+    private final Time start = now();
+
+    /** The thread name column */
+    private final Column threadColumn = new Column(8, 24, CLIP_LEFT);
+
+    /** The absolute time column */
+    private final Column timeColumn = new Column(8, 16, CLIP_RIGHT);
+
+    /** The type of time to show */
+    private volatile TimeType timeType = ELAPSED;
+
+    /** The message type column */
+    private final Column typeColumn = new Column(4, 4, CLIP_RIGHT);
+
+    /** The columns shown for elapsed time */
+    private final Column[] elapsedColumns;
+
+    /** The columns shown for absolute time */
+    private final Column[] timeColumns;
+
+    protected BufferedLogFormatter(Layout layout)
+    {
+        this.layout = layout;
+        if (layout == Layout.WIDE)
+        {
+            contextColumn = new Column(12, 20, CLIP_RIGHT);
+            messageColumn = new Column(160, 160, WRAP);
+            elapsedColumns = new Column[] { sequenceNumberColumn, elapsedColumn, threadColumn, contextColumn, typeColumn, messageColumn };
+            timeColumns = new Column[] { sequenceNumberColumn, timeColumn, threadColumn, contextColumn, typeColumn, messageColumn };
+        }
+        else
+        {
+            contextColumn = new Column(12, 12, CLIP_RIGHT);
+            messageColumn = new Column(100, 100, WRAP);
+            elapsedColumns = new Column[] { contextColumn, typeColumn, messageColumn };
+            timeColumns = elapsedColumns;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String format(LogEntry entry, MessageFormat... formats)
+    {
+        // Format the message before using any buffers, in case formatting logs something itself,
+        var message = entry.formattedMessage(formats);
+        var buffers = BufferedLogFormatter.buffers.get();
+
+        // then add each column's value,
+        var column = 0;
+        if (layout == Layout.WIDE)
+        {
+            buffers.number.setLength(0);
+            buffers.number.append(entry.sequenceNumber());
+            buffers.column(column++, buffers.number);
+            buffers.column(column++, timeType == ELAPSED ? elapsed() : time(entry));
+            buffers.column(column++, entry.threadName());
+        }
+        buffers.column(column++, entry.context().typeName());
+        buffers.column(column++, entry.messageType());
+        buffers.column(column, message);
+
+        // and format the columns.
+        return buffers.format(timeType == ELAPSED ? elapsedColumns : timeColumns);
+    }
+
+    @Override
+    public int maximumColumnWidth()
+    {
+        return layout == Layout.WIDE ? 160 : 100;
+    }
+
+    /**
+     * Sets the type of time to show, elapsed or absolute, for the {@link Layout#WIDE} layout
+     */
+    public BufferedLogFormatter timeType(TimeType timeType)
+    {
+        this.timeType = timeType;
+        return this;
+    }
+
+    /**
+     * Returns the time elapsed since this formatter was created, rendering it only if the millisecond has changed
+     */
+    private String elapsed()
+    {
+        var elapsed = max(0, System.currentTimeMillis() - start.epochMilliseconds());
+        var rendered = renderedElapsed;
+        if (rendered.key() != elapsed)
+        {
+            rendered = new RenderedTime(elapsed, Duration.milliseconds(elapsed).asString(USER_LABEL));
+            renderedElapsed = rendered;
+        }
+        return rendered.text();
+    }
+
+    /**
+     * Returns the time the given entry's message was created, rendering it only if the second has changed
+     */
+    private String time(LogEntry entry)
+    {
+        var created = entry.message().created();
+        var second = Math.floorDiv(created.epochMilliseconds(), 1000L);
+        var rendered = renderedTime;
+        if (rendered.key() != second)
+        {
+            rendered = new RenderedTime(second, created.asUtc().toString());
+            renderedTime = rendered;
+        }
+        return rendered.text();
+    }
+}
@@ -138,7 +138,7 @@ public final class Debug implements MessageTransceiver
     public Debug(Transceiver transceiver)
     {
         // The class where debug was constructed is the most immediate caller of the class Debug
-        this(CallStack.callerOf(Proximity.IMMEDIATE, Matching.EXACT, Debug.class).parentType().asJavaType(), transceiver);
+        this(CallStack.callerClassOf(Proximity.IMMEDIATE, Matching.EXACT, Debug.class), transceiver);
     }
 
     private Debug(Class<?> type, Transceiver transceiver)
@@ -20,6 +20,7 @@ package com.telenav.kivakit.core.messaging.broadcasters;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.list.StringList;
+import com.telenav.kivakit.core.internal.jfr.TransmitEvent;
 import com.telenav.kivakit.core.internal.lexakai.DiagramRepeater;
 import com.telenav.kivakit.core.logging.Logger;
 import com.telenav.kivakit.core.logging.loggers.ConsoleLogger;
@@ -376,6 +377,9 @@ public class Multicaster implements Broadcaster
     @Override
     public <M extends Transmittable> M transmit(M message)
     {
+        var event = new TransmitEvent();
+        event.begin();
+
         lock().read(() ->
         {
             // If there is an audience,
@@ -440,6 +444,16 @@ public class Multicaster implements Broadcaster
             }
         });
 
+        // Record the audience size with the transmission, since a large audience makes every message more expensive
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.broadcaster = objectName();
+            event.messageType = message.getClass().getSimpleName();
+            event.audienceSize = audience.size();
+            event.commit();
+        }
+
         return message;
     }
 
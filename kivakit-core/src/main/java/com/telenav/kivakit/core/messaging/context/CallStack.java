@@ -24,14 +24,20 @@ import com.telenav.kivakit.core.language.reflection.Method;
 import com.telenav.kivakit.core.messaging.Debug;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 
+import java.lang.StackWalker.StackFrame;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.language.reflection.Method.method;
 import static com.telenav.kivakit.core.messaging.context.CallStack.Matching.EXACT;
+import static java.lang.StackWalker.Option.RETAIN_CLASS_REFERENCE;
 import static java.lang.Thread.currentThread;
 
 /**
@@ -49,6 +55,16 @@ import static java.lang.Thread.currentThread;
  * caller and the callee. In this case, CallStack.callerOf(..., A.class, B.class) would return the code which is calling
  * method(s) in <b>A</b> whether it called through method(s) in <b>B</b> or not.
  *
+ * <p><b>Performance</b></p>
+ *
+ * <p>
+ * The current thread's stack is walked with a {@link StackWalker}, which materializes frames only as they are needed
+ * and gives direct access to each frame's class, so no classes are looked up by name. The walk stops as soon as the
+ * caller is found. When only the caller's class is needed, {@link #callerClassOf(Proximity, Matching, Class, Matching,
+ * Class[])} avoids creating a {@link Method} at all, and the {@link Method} objects that are created are memoized by
+ * class and method name.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @UmlClassDiagram(diagram = DiagramContext.class)
@@ -57,6 +73,38 @@ import static java.lang.Thread.currentThread;
              documentation = DOCUMENTED)
 public class CallStack
 {
+    /** Walks the stack of the current thread, retaining the class of each frame */
+    private static final StackWalker walker = StackWalker.getInstance(RETAIN_CLASS_REFERENCE);
+
+    /** Memoized methods for each class, by method name */
+    private static final ClassValue<Map<String, Method>> methods = new ClassValue<>()
+    {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type)
+        {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public static Class<?> callerClassOf(Proximity proximity, Matching matching, Class<?> calleeType)
+    {
+        return callerClassOf(proximity, matching, calleeType, EXACT);
+    }
+
+    /**
+     * Returns the class of the method that called the given callee class, as described in
+     * {@link #callerOf(Proximity, Matching, Class, Matching, Class[])}
+     */
+    public static Class<?> callerClassOf(Proximity proximity,
+                                         Matching matching,
+                                         Class<?> calleeType,
+                                         Matching ignoreMatching,
+                                         Class<?>... ignores)
+    {
+        var caller = walker.walk(frames -> findCaller(frames, proximity, matching, calleeType, ignoreMatching, ignores));
+        return caller == null ? null : caller.getDeclaringClass();
+    }
+
     public static Method callerOf(Proximity proximity, Matching matching, Class<?> calleeType)
     {
         return callerOf(proximity, matching, calleeType, EXACT);
@@ -85,39 +133,27 @@ public class CallStack
                                   Matching ignoreMatching,
                                   Class<?>... ignores)
     {
-        // Get call stack
-        var stack = callstack();
-
-        // Find the index of the callee on the stack using the matching rules
-        var callee = calleeType == null ? 0 : findCallee(matching, proximity, stack, calleeType);
-
-        // If we found the callee
-        if (callee != -1)
-        {
-            // the caller is the next index
-            var caller = callee + 1;
-
-            // except that we may need to ignore some methods
-            while (caller < stack.size() && shouldIgnore(stack.get(caller), ignoreMatching, ignores))
-            {
-                caller++;
-            }
-            return caller < stack.size() ? stack.get(caller) : null;
-        }
-
-        return null;
+        var caller = walker.walk(frames -> findCaller(frames, proximity, matching, calleeType, ignoreMatching, ignores));
+        return caller == null ? null : memoizedMethod(caller);
     }
 
     public static List<Method> callstack()
     {
-        return callstack(currentThread());
+        return walker.walk(frames -> frames
+                .map(CallStack::memoizedMethod)
+                .toList());
     }
 
     @SuppressWarnings("unused")
     public static List<Method> callstack(Thread thread)
     {
+        if (thread == currentThread())
+        {
+            return callstack();
+        }
+
         var stack = new ArrayList<Method>();
-        for (var frame : currentThread().getStackTrace())
+        for (var frame : thread.getStackTrace())
         {
             var method = method(frame);
             if (method != null)
@@ -146,65 +182,105 @@ public class CallStack
         IMMEDIATE
     }
 
-    private static int findCallee(Matching matching,
-                                  Proximity proximity,
-                                  List<Method> stack,
-                                  Class<?> calleeType)
+    /**
+     * Walks the given frames until the caller of the callee is found
+     *
+     * @return The frame of the caller, or null if there is no such frame
+     */
+    private static StackFrame findCaller(Stream<StackFrame> frames,
+                                         Proximity proximity,
+                                         Matching matching,
+                                         Class<?> calleeType,
+                                         Matching ignoreMatching,
+                                         Class<?>... ignores)
     {
-        var callee = -1;
+        var iterator = frames.iterator();
+
+        // Find the frame after the callee on the stack using the matching rules,
+        var caller = calleeType == null
+                ? next(iterator)
+                : frameAfterCallee(iterator, matching, proximity, calleeType);
 
-        var index = 0;
-        for (var method : stack)
+        // then skip over any frames we need to ignore.
+        while (caller != null && shouldIgnore(caller.getDeclaringClass(), ignoreMatching, ignores))
+        {
+            caller = next(iterator);
+        }
+        return caller;
+    }
+
+    /**
+     * Walks the given frames to the callee, returning the frame after it, or null if the callee is not found
+     */
+    private static StackFrame frameAfterCallee(Iterator<StackFrame> frames,
+                                               Matching matching,
+                                               Proximity proximity,
+                                               Class<?> calleeType)
+    {
+        var foundCallee = false;
+        while (frames.hasNext())
         {
+            var frame = frames.next();
+            var type = frame.getDeclaringClass();
             var matches = matching == EXACT
-                    ? calleeType.equals(method.parentType().asJavaType())
-                    : calleeType.isAssignableFrom(method.parentType().asJavaType());
+                    ? calleeType.equals(type)
+                    : calleeType.isAssignableFrom(type);
 
             switch (proximity)
             {
                 case DISTANT ->
                 {
+                    // The first matching frame is the callee, so its caller is the next frame
                     if (matches)
                     {
-                        return index;
+                        return next(frames);
                     }
                 }
                 case IMMEDIATE ->
                 {
+                    // The callee is the last of the first run of matching frames, so its caller is the first
+                    // frame that doesn't match after that
                     if (matches)
                     {
-                        callee = index;
+                        foundCallee = true;
                     }
                     else
                     {
-                        if (callee > -1)
+                        if (foundCallee)
                         {
-                            return callee;
+                            return frame;
                         }
                     }
                 }
             }
-
-            index++;
         }
 
-        return callee;
+        return null;
+    }
+
+    /**
+     * Returns the memoized {@link Method} for the given frame
+     */
+    private static Method memoizedMethod(StackFrame frame)
+    {
+        return methods.get(frame.getDeclaringClass()).computeIfAbsent(frame.getMethodName(), name -> method(frame.getDeclaringClass(), name));
+    }
+
+    private static StackFrame next(Iterator<StackFrame> frames)
+    {
+        return frames.hasNext() ? frames.next() : null;
     }
 
-    private static boolean shouldIgnore(Method caller, Matching matching, Class<?>... ignores)
+    private static boolean shouldIgnore(Class<?> caller, Matching matching, Class<?>... ignores)
     {
-        var ignored = false;
         var exact = matching == EXACT;
-        if (caller != null)
+        for (var ignore : ignores)
         {
-            for (var ignore : ignores)
+            if ((exact && ignore == caller) || (!exact && ignore.isAssignableFrom(caller)))
             {
-                if ((exact && ignore == caller.parentType().asJavaType()) || (!exact && ignore.isAssignableFrom(caller.parentType().asJavaType())))
-                {
-                    ignored = true;
-                }
+                return true;
             }
         }
-        return ignored;
+        return false;
     }
 }
@@ -0,0 +1,104 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+
+/**
+ * A count that only goes up. Increments are recorded in a {@link LongAdder}, so many threads can increment the same
+ * counter without contending with each other.
+ *
+ * <p><b>Counting</b></p>
+ *
+ * <ul>
+ *     <li>{@link #increment()}</li>
+ *     <li>{@link #add(long)}</li>
+ *     <li>{@link #value()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see MetricsRegistry#counter(String, String, String...)
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class Counter extends Metric
+{
+    /** The count */
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String help, String... labels)
+    {
+        super(name, help, labels);
+    }
+
+    /**
+     * Adds the given amount, which must not be negative, to this counter
+     */
+    public void add(long amount)
+    {
+        ensure(amount >= 0, "Counters cannot go down: $", this);
+        count.add(amount);
+    }
+
+    /**
+     * Adds one to this counter
+     */
+    public void increment()
+    {
+        count.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Type type()
+    {
+        return Type.COUNTER;
+    }
+
+    /**
+     * Returns the value of this counter
+     */
+    public long value()
+    {
+        return count.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void render(StringBuilder out)
+    {
+        PrometheusText.sample(out, this, "", labelText(), value());
+    }
+}
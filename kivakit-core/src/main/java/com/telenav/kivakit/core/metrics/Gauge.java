@@ -0,0 +1,86 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.function.DoubleSupplier;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+
+/**
+ * A value that can go up and down, like the amount of free memory or the size of a queue. The value is read from a
+ * {@link DoubleSupplier} each time it is requested, so it is always current and costs nothing between requests.
+ *
+ * @author jonathanl (shibo)
+ * @see MetricsRegistry#gauge(String, String, DoubleSupplier, String...)
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class Gauge extends Metric
+{
+    /** Supplies the value of this gauge */
+    private final DoubleSupplier value;
+
+    Gauge(String name, String help, DoubleSupplier value, String... labels)
+    {
+        super(name, help, labels);
+        this.value = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Type type()
+    {
+        return Type.GAUGE;
+    }
+
+    /**
+     * Returns the current value of this gauge, or NaN if it can't be determined
+     */
+    public double value()
+    {
+        try
+        {
+            return value.getAsDouble();
+        }
+        catch (RuntimeException e)
+        {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void render(StringBuilder out)
+    {
+        PrometheusText.sample(out, this, "", labelText(), value());
+    }
+}
@@ -0,0 +1,171 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+
+/**
+ * Counts observed values in buckets with fixed upper bounds, and keeps the number and sum of all values. Each bucket
+ * is a {@link LongAdder}, so observing a value finds its bucket with a binary search and does not contend with other
+ * threads.
+ *
+ * <p><b>Observing</b></p>
+ *
+ * <ul>
+ *     <li>{@link #observe(double)}</li>
+ * </ul>
+ *
+ * <p><b>Values</b></p>
+ *
+ * <ul>
+ *     <li>{@link #bounds()}</li>
+ *     <li>{@link #bucketCount(int)}</li>
+ *     <li>{@link #count()}</li>
+ *     <li>{@link #sum()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see MetricsRegistry#histogram(String, String, double[], String...)
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class Histogram extends Metric
+{
+    /** The upper bound of each bucket, in increasing order */
+    private final double[] bounds;
+
+    /** The number of values in each bucket, with an extra bucket for values above the last bound */
+    private final LongAdder[] buckets;
+
+    /** The number of values observed */
+    private final LongAdder count = new LongAdder();
+
+    /** The sum of the values observed */
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(String name, String help, double[] bounds, String... labels)
+    {
+        super(name, help, labels);
+
+        for (var index = 1; index < bounds.length; index++)
+        {
+            ensure(bounds[index - 1] < bounds[index], "Histogram bounds must increase: $", this);
+        }
+        this.bounds = bounds.clone();
+        buckets = new LongAdder[bounds.length + 1];
+        for (var index = 0; index < buckets.length; index++)
+        {
+            buckets[index] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the upper bounds of the buckets of this histogram, not including the implicit last bucket that holds
+     * values greater than all bounds
+     */
+    public double[] bounds()
+    {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the number of values in the bucket with the given index, which may be the index of the last bucket,
+     * <i>bounds().length</i>
+     */
+    public long bucketCount(int index)
+    {
+        return buckets[index].sum();
+    }
+
+    /**
+     * Returns the number of values observed
+     */
+    public long count()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Records the given value
+     */
+    public void observe(double value)
+    {
+        // Find the first bucket whose upper bound is at least the value,
+        var index = Arrays.binarySearch(bounds, value);
+        if (index < 0)
+        {
+            index = -index - 1;
+        }
+
+        // and count the value there.
+        buckets[index].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the sum of the values observed
+     */
+    public double sum()
+    {
+        return sum.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Type type()
+    {
+        return Type.HISTOGRAM;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void render(StringBuilder out)
+    {
+        // Prometheus buckets are cumulative, so each bucket includes the counts of the buckets below it
+        var cumulative = 0L;
+        for (var index = 0; index < buckets.length; index++)
+        {
+            cumulative += buckets[index].sum();
+            var bound = new StringBuilder();
+            PrometheusText.value(bound, index < bounds.length ? bounds[index] : Double.POSITIVE_INFINITY);
+            PrometheusText.sample(out, this, "_bucket", PrometheusText.labels(labels(), "le", bound.toString()), cumulative);
+        }
+        PrometheusText.sample(out, this, "_sum", labelText(), sum());
+        PrometheusText.sample(out, this, "_count", labelText(), cumulative);
+    }
+}
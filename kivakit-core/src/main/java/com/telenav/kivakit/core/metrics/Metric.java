@@ -0,0 +1,177 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.kivakit.interfaces.naming.Named;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+
+/**
+ * Base class for metrics in a {@link MetricsRegistry}. Each metric has a name, a help string and a set of labels,
+ * which together identify it in the registry. Metrics with the same name and different labels form a family that is
+ * rendered together.
+ *
+ * <p><b>Properties</b></p>
+ *
+ * <ul>
+ *     <li>{@link #name()}</li>
+ *     <li>{@link #help()}</li>
+ *     <li>{@link #labels()}</li>
+ *     <li>{@link #type()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see MetricsRegistry
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public abstract class Metric implements Named
+{
+    /** Valid metric and label names */
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+    /**
+     * The kinds of metrics
+     */
+    public enum Type
+    {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    /**
+     * Returns the key that identifies the metric with the given name and labels in its registry
+     */
+    static String key(String name, String... labels)
+    {
+        var map = new LinkedHashMap<String, String>();
+        for (var index = 0; index + 1 < labels.length; index += 2)
+        {
+            map.put(labels[index], labels[index + 1]);
+        }
+        return name + PrometheusText.labels(map, null, null);
+    }
+
+    /** Description of this metric */
+    private final String help;
+
+    /** The labels of this metric, in the order they were given */
+    private final Map<String, String> labels;
+
+    /** The labels of this metric in Prometheus text format, like {type="Warning"} */
+    private final String labelText;
+
+    /** The name of this metric */
+    private final String name;
+
+    /**
+     * @param name The name of this metric
+     * @param help A description of this metric
+     * @param labels Label names and values, alternating
+     */
+    protected Metric(String name, String help, String... labels)
+    {
+        ensure(NAME.matcher(name).matches(), "Invalid metric name: $", name);
+        ensure(labels.length % 2 == 0, "Labels must be name, value pairs: $", name);
+
+        this.name = name;
+        this.help = help;
+
+        var map = new LinkedHashMap<String, String>();
+        for (var index = 0; index < labels.length; index += 2)
+        {
+            ensure(NAME.matcher(labels[index]).matches(), "Invalid label name: $", labels[index]);
+            map.put(labels[index], labels[index + 1]);
+        }
+        this.labels = Collections.unmodifiableMap(map);
+        this.labelText = PrometheusText.labels(this.labels, null, null);
+    }
+
+    /**
+     * Returns the description of this metric
+     */
+    public String help()
+    {
+        return help;
+    }
+
+    /**
+     * Returns the labels of this metric
+     */
+    public Map<String, String> labels()
+    {
+        return labels;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name()
+    {
+        return name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + labelText;
+    }
+
+    /**
+     * Returns the kind of metric
+     */
+    public abstract Type type();
+
+    /**
+     * Returns the key that identifies this metric in its registry
+     */
+    String key()
+    {
+        return name + labelText;
+    }
+
+    /**
+     * Returns the labels of this metric in Prometheus text format
+     */
+    String labelText()
+    {
+        return labelText;
+    }
+
+    /**
+     * Appends the samples of this metric to the given builder in Prometheus text format
+     */
+    abstract void render(StringBuilder out);
+}
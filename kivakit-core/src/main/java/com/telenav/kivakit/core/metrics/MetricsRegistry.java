@@ -0,0 +1,231 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.fail;
+
+/**
+ * A thread-safe collection of named {@link Metric}s, which can be rendered in the Prometheus text exposition format.
+ * The registry for the running virtual machine is available from
+ * {@link com.telenav.kivakit.core.vm.JavaVirtualMachineHealth#metrics()}.
+ *
+ * <p><b>Metrics</b></p>
+ *
+ * <p>
+ * Metrics are identified by their name and labels, which are given as alternating label names and values. Asking
+ * for a counter, histogram or timer that already exists returns the existing metric, so code can look up its
+ * metrics whenever it needs them, although it is cheaper to keep a reference. Registering a gauge replaces any gauge
+ * with the same name and labels, since the value supplier of the old gauge may refer to an object that is no longer
+ * in use.
+ * </p>
+ *
+ * <ul>
+ *     <li>{@link #counter(String, String, String...)} - A count that only goes up</li>
+ *     <li>{@link #gauge(String, String, DoubleSupplier, String...)} - A value that is read when it is needed</li>
+ *     <li>{@link #histogram(String, String, double[], String...)} - A distribution of values in buckets</li>
+ *     <li>{@link #timer(String, String, String...)} - A distribution of durations in seconds</li>
+ * </ul>
+ *
+ * <p><b>Access</b></p>
+ *
+ * <ul>
+ *     <li>{@link #metric(String, String...)}</li>
+ *     <li>{@link #metrics()}</li>
+ *     <li>{@link #remove(Metric)}</li>
+ * </ul>
+ *
+ * <p><b>Rendering</b></p>
+ *
+ * <ul>
+ *     <li>{@link #asPrometheusText()}</li>
+ *     <li>{@link #prometheusContentType()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class MetricsRegistry
+{
+    /**
+     * Returns a new, empty registry
+     */
+    public static MetricsRegistry metricsRegistry()
+    {
+        return new MetricsRegistry();
+    }
+
+    /**
+     * Returns the content type of {@link #asPrometheusText()}
+     */
+    public static String prometheusContentType()
+    {
+        return PrometheusText.CONTENT_TYPE;
+    }
+
+    /** The metrics in this registry, by name and labels */
+    private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    protected MetricsRegistry()
+    {
+    }
+
+    /**
+     * Returns the metrics in this registry in the Prometheus text exposition format. Metrics with the same name are
+     * grouped together under a single # HELP and # TYPE header.
+     */
+    public String asPrometheusText()
+    {
+        var out = new StringBuilder(4_096);
+        String family = null;
+        for (var metric : metrics())
+        {
+            if (!metric.name().equals(family))
+            {
+                family = metric.name();
+                PrometheusText.header(out, metric);
+            }
+            metric.render(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the counter with the given name and labels, creating it if it doesn't exist
+     *
+     * @param name The name of the counter, which by convention ends in <i>_total</i>
+     * @param help A description of the counter
+     * @param labels Label names and values, alternating
+     */
+    public Counter counter(String name, String help, String... labels)
+    {
+        return lookup(Counter.class, name, labels, () -> new Counter(name, help, labels));
+    }
+
+    /**
+     * Registers a gauge whose value is read from the given supplier, replacing any gauge with the same name and
+     * labels
+     *
+     * @param name The name of the gauge
+     * @param help A description of the gauge
+     * @param value Supplies the value of the gauge when it is read
+     * @param labels Label names and values, alternating
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier value, String... labels)
+    {
+        // Replace any gauge with the same key in one atomic step, leaving any other type of metric in place,
+        var gauge = new Gauge(name, help, value, labels);
+        var registered = metrics.compute(gauge.key(), (key, existing) -> existing == null || existing instanceof Gauge ? gauge : existing);
+
+        // and fail if the key belongs to another type of metric.
+        if (registered != gauge)
+        {
+            fail("Metric $ is a $, not a gauge", registered, registered.type());
+        }
+        return gauge;
+    }
+
+    /**
+     * Returns the histogram with the given name and labels, creating it with the given bucket bounds if it doesn't
+     * exist
+     *
+     * @param name The name of the histogram
+     * @param help A description of the histogram
+     * @param bounds The upper bound of each bucket, in increasing order
+     * @param labels Label names and values, alternating
+     */
+    public Histogram histogram(String name, String help, double[] bounds, String... labels)
+    {
+        return lookup(Histogram.class, name, labels, () -> new Histogram(name, help, bounds, labels));
+    }
+
+    /**
+     * Returns the metric with the given name and labels, or null if there is none
+     */
+    public Metric metric(String name, String... labels)
+    {
+        return metrics.get(Metric.key(name, labels));
+    }
+
+    /**
+     * Returns the metrics in this registry, ordered by name and then by labels
+     */
+    public List<Metric> metrics()
+    {
+        var metrics = new ArrayList<>(this.metrics.values());
+        metrics.sort(Comparator.comparing(Metric::name).thenComparing(Metric::labelText));
+        return metrics;
+    }
+
+    /**
+     * Removes the given metric from this registry
+     */
+    public void remove(Metric metric)
+    {
+        metrics.remove(metric.key(), metric);
+    }
+
+    /**
+     * Returns the timer with the given name and labels, creating it if it doesn't exist
+     *
+     * @param name The name of the timer, which by convention ends in <i>_seconds</i>
+     * @param help A description of the timer
+     * @param labels Label names and values, alternating
+     */
+    public Timer timer(String name, String help, String... labels)
+    {
+        return lookup(Timer.class, name, labels, () -> new Timer(name, help, labels));
+    }
+
+    /**
+     * Returns the registered metric with the given name and labels, registering the metric made by the given factory
+     * if there is none
+     */
+    private <T extends Metric> T lookup(Class<T> type, String name, String[] labels, Supplier<T> factory)
+    {
+        var existing = metrics.get(Metric.key(name, labels));
+        if (existing == null)
+        {
+            var created = factory.get();
+            existing = metrics.computeIfAbsent(created.key(), key -> created);
+        }
+        if (existing.getClass() != type)
+        {
+            return fail("Metric $ is a $, not a $", existing, existing.getClass().getSimpleName(), type.getSimpleName());
+        }
+        return type.cast(existing);
+    }
+}
@@ -0,0 +1,141 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import java.util.Map;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Helpers for rendering metrics in the Prometheus text exposition format (version 0.0.4).
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+final class PrometheusText
+{
+    /** The content type of the Prometheus text format */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Appends the # HELP and # TYPE lines for the given metric family
+     */
+    static void header(StringBuilder out, Metric metric)
+    {
+        out.append("# HELP ").append(metric.name()).append(' ');
+        escape(out, metric.help(), false);
+        out.append('\n');
+        out.append("# TYPE ").append(metric.name()).append(' ').append(metric.type().name().toLowerCase()).append('\n');
+    }
+
+    /**
+     * Returns the given labels, with any extra label, in Prometheus text format, or the empty string if there are no
+     * labels
+     */
+    static String labels(Map<String, String> labels, String extraName, String extraValue)
+    {
+        if (labels.isEmpty() && extraName == null)
+        {
+            return "";
+        }
+        var out = new StringBuilder("{");
+        for (var entry : labels.entrySet())
+        {
+            label(out, entry.getKey(), entry.getValue());
+        }
+        if (extraName != null)
+        {
+            label(out, extraName, extraValue);
+        }
+        out.setLength(out.length() - 1);
+        return out.append('}').toString();
+    }
+
+    /**
+     * Appends a sample line for the given metric, name suffix, labels and value
+     */
+    static void sample(StringBuilder out, Metric metric, String suffix, String labels, double value)
+    {
+        out.append(metric.name()).append(suffix).append(labels).append(' ');
+        value(out, value);
+        out.append('\n');
+    }
+
+    /**
+     * Appends a sample line for the given metric, name suffix, labels and value
+     */
+    static void sample(StringBuilder out, Metric metric, String suffix, String labels, long value)
+    {
+        out.append(metric.name()).append(suffix).append(labels).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Appends the given value, using the special values that Prometheus expects for infinities and NaN
+     */
+    static void value(StringBuilder out, double value)
+    {
+        if (Double.isNaN(value))
+        {
+            out.append("NaN");
+        }
+        else if (Double.isInfinite(value))
+        {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        }
+        else if (value == Math.rint(value) && Math.abs(value) < 1E15)
+        {
+            out.append((long) value);
+        }
+        else
+        {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Appends the given text, escaping backslashes and newlines, and double quotes if the text is a label value
+     */
+    private static void escape(StringBuilder out, String text, boolean quotes)
+    {
+        for (var index = 0; index < text.length(); index++)
+        {
+            var character = text.charAt(index);
+            switch (character)
+            {
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '"' -> out.append(quotes ? "\\\"" : "\"");
+                default -> out.append(character);
+            }
+        }
+    }
+
+    private static void label(StringBuilder out, String name, String value)
+    {
+        out.append(name).append("=\"");
+        escape(out, value == null ? "" : value, true);
+        out.append("\",");
+    }
+
+    private PrometheusText()
+    {
+    }
+}
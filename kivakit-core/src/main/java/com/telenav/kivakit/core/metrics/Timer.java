@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.core.metrics;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramMetrics;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.function.Supplier;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+
+/**
+ * A {@link Histogram} of durations in seconds. By convention, timer names end in <i>_seconds</i>.
+ *
+ * <pre>
+ * var started = timer.start();
+ * [...]
+ * timer.stop(started);</pre>
+ *
+ * <p><b>Timing</b></p>
+ *
+ * <ul>
+ *     <li>{@link #start()}</li>
+ *     <li>{@link #stop(long)}</li>
+ *     <li>{@link #record(Duration)}</li>
+ *     <li>{@link #recordNanoseconds(long)}</li>
+ *     <li>{@link #time(Runnable)}</li>
+ *     <li>{@link #time(Supplier)}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see MetricsRegistry#timer(String, String, String...)
+ */
+@UmlClassDiagram(diagram = DiagramMetrics.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class Timer extends Histogram
+{
+    /** Bucket bounds in seconds, from 100 microseconds to 10 seconds */
+    static final double[] DEFAULT_BOUNDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    Timer(String name, String help, String... labels)
+    {
+        super(name, help, DEFAULT_BOUNDS, labels);
+    }
+
+    /**
+     * Records the given duration
+     */
+    public void record(Duration duration)
+    {
+        observe(duration.asSeconds());
+    }
+
+    /**
+     * Records the given number of nanoseconds
+     */
+    public void recordNanoseconds(long nanoseconds)
+    {
+        observe(nanoseconds / 1E9);
+    }
+
+    /**
+     * Returns a start time to pass to {@link #stop(long)}
+     */
+    public long start()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since the given start time from {@link #start()}
+     */
+    public void stop(long started)
+    {
+        recordNanoseconds(System.nanoTime() - started);
+    }
+
+    /**
+     * Runs the given code, recording how long it took
+     */
+    public void time(Runnable code)
+    {
+        var started = start();
+        try
+        {
+            code.run();
+        }
+        finally
+        {
+            stop(started);
+        }
+    }
+
+    /**
+     * Runs the given code, recording how long it took
+     *
+     * @return The value returned by the code
+     */
+    public <T> T time(Supplier<T> code)
+    {
+        var started = start();
+        try
+        {
+            return code.get();
+        }
+        finally
+        {
+            stop(started);
+        }
+    }
+}
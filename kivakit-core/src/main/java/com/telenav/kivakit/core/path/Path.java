@@ -19,7 +19,6 @@
 package com.telenav.kivakit.core.path;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
-import com.telenav.kivakit.core.collections.list.ObjectList;
 import com.telenav.kivakit.core.internal.lexakai.DiagramPath;
 import com.telenav.kivakit.core.language.Streams;
 import com.telenav.kivakit.interfaces.collection.Sized;
@@ -29,18 +28,19 @@ import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
-import static com.telenav.kivakit.core.collections.list.ObjectList.list;
 import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
 import static com.telenav.kivakit.core.language.Hash.hashMany;
-import static com.telenav.kivakit.core.language.Objects.areEqualPairs;
+import static java.util.Collections.unmodifiableList;
 
 /**
  * Abstraction of an immutable path of elements of a given type with an optional root element. Functional methods in
@@ -125,6 +125,12 @@ import static com.telenav.kivakit.core.language.Objects.areEqualPairs;
  * in instances of the subclass type.
  * </p>
  *
+ * <p>
+ * Elements are stored in an immutable parent-pointer chain (see {@link PathNode}), so a copy shares all of its
+ * elements with the original. Appending an element, removing the last element and taking a prefix do not copy the
+ * elements at all, and the hash code of the chain is computed once when the chain is built.
+ * </p>
+ *
  * <ul>
  *     <li>{@link #copy()} - A copy of this path</li>
  *     <li>{@link #emptyPath()} - The empty path</li>
@@ -160,8 +166,11 @@ public abstract class Path<Element extends Comparable<Element>> implements
     StringFormattable,
     Copyable<Path<Element>>
 {
-    /** The list of elements */
-    private ObjectList<Element> elements = list();
+    /** The last node in the chain of elements, or null if this path has no elements */
+    private PathNode<Element> tail;
+
+    /** The elements of this path as a list, materialized on demand */
+    private List<Element> elements;
 
     /** The path root, if any */
     private Element root;
@@ -172,15 +181,17 @@ public abstract class Path<Element extends Comparable<Element>> implements
     protected Path(Element root, List<Element> elements)
     {
         this.root = root;
-        this.elements.addAll(ensureNotNull(elements));
+        this.tail = PathNode.append(null, ensureNotNull(elements));
     }
 
     /**
-     * Copy constructor
+     * Copy constructor. The copy shares the elements of the given path.
      */
     protected Path(Path<Element> that)
     {
-        this(that.root, that.elements);
+        this.root = that.root;
+        this.tail = that.tail;
+        this.elements = that.elements;
     }
 
     /**
@@ -191,8 +202,8 @@ public abstract class Path<Element extends Comparable<Element>> implements
     {
         return switch (format)
             {
-                case FILESYSTEM -> elements.join(File.separator);
-                default -> elements.join("/");
+                case FILESYSTEM -> join(elements(), File.separator);
+                default -> join(elements(), "/");
             };
     }
 
@@ -222,8 +233,19 @@ public abstract class Path<Element extends Comparable<Element>> implements
     /**
      * Returns the elements in this path as a list
      */
+    @SuppressWarnings("unchecked")
     public List<Element> elements()
     {
+        var elements = this.elements;
+        if (elements == null)
+        {
+            var array = new Object[size()];
+            if (tail != null)
+            {
+                tail.copyInto(array);
+            }
+            this.elements = elements = unmodifiableList((List<Element>) (List<?>) Arrays.asList(array));
+        }
         return elements;
     }
 
@@ -234,7 +256,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
     {
         var copy = copy();
         copy.root = null;
-        copy.elements.clear();
+        copy.tail(null);
         return copy;
     }
 
@@ -243,7 +265,19 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public boolean endsWith(Path<Element> suffix)
     {
-        return elements.endsWith(suffix.elements);
+        if (suffix.size() > size())
+        {
+            return false;
+        }
+        var at = tail;
+        for (var node = suffix.tail; node != null; node = node.parent, at = at.parent)
+        {
+            if (!Objects.equals(node.element, at.element))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -256,7 +290,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
         if (object instanceof Path)
         {
             var that = (Path<Element>) object;
-            return areEqualPairs(root, that.root, elements, that.elements);
+            return Objects.equals(root, that.root) && PathNode.equal(tail, that.tail);
         }
         return false;
     }
@@ -287,9 +321,14 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Element get(int index)
     {
-        if (index >= 0 && index < size())
+        var size = size();
+        if (tail != null && index == size - 1)
+        {
+            return tail.element;
+        }
+        if (index >= 0 && index < size)
         {
-            return elements.get(index);
+            return elements().get(index);
         }
         return null;
     }
@@ -300,7 +339,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
     @Override
     public int hashCode()
     {
-        return hashMany(root, elements);
+        return hashMany(root, PathNode.hash(tail));
     }
 
     /**
@@ -317,13 +356,13 @@ public abstract class Path<Element extends Comparable<Element>> implements
     @Override
     public boolean isEmpty()
     {
-        return elements.isEmpty();
+        return tail == null;
     }
 
     @Override
     public boolean isNonEmpty()
     {
-        return elements.isNonEmpty();
+        return tail != null;
     }
 
     /**
@@ -348,7 +387,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
     @Override
     public @NotNull Iterator<Element> iterator()
     {
-        return elements.iterator();
+        return elements().iterator();
     }
 
     /**
@@ -387,7 +426,13 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Element pop()
     {
-        return elements.pop();
+        if (tail == null)
+        {
+            return null;
+        }
+        var last = tail.element;
+        tail(tail.parent);
+        return last;
     }
 
     /**
@@ -397,7 +442,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public void push(Element element)
     {
-        elements.push(element);
+        tail(PathNode.child(tail, element));
     }
 
     /**
@@ -408,7 +453,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
         if (isAbsolute())
         {
             var copy = copy();
-            copy.elements.clear();
+            copy.tail(null);
             return copy;
         }
         return null;
@@ -428,7 +473,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
     @Override
     public int size()
     {
-        return elements.size();
+        return PathNode.size(tail);
     }
 
     /**
@@ -436,7 +481,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public boolean startsWith(Path<Element> prefix)
     {
-        return elements.startsWith(prefix.elements);
+        return prefix.size() <= size() && PathNode.equal(PathNode.ancestor(tail, prefix.size()), prefix.tail);
     }
 
     /**
@@ -462,7 +507,14 @@ public abstract class Path<Element extends Comparable<Element>> implements
                 return emptyPath();
             }
             var copy = copy();
-            copy.elements = list(elements.subList(start, end));
+            if (start == 0)
+            {
+                copy.tail(PathNode.ancestor(tail, end));
+            }
+            else
+            {
+                copy.tail(PathNode.append(null, elements().subList(start, end)));
+            }
             return copy;
         }
         return null;
@@ -473,14 +525,13 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Path<Element> transformed(Function<Element, Element> function)
     {
-        var elements = new ObjectList<Element>();
+        PathNode<Element> transformed = null;
         for (var element : this)
         {
-            var transformed = function.apply(element);
-            ensureNotNull(transformed != null);
-            elements.add(transformed);
+            transformed = PathNode.child(transformed, ensureNotNull(function.apply(element)));
         }
-        return copy(it -> it.elements = elements);
+        var tail = transformed;
+        return copy(it -> it.tail(tail));
     }
 
     /**
@@ -488,7 +539,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Path<Element> withChild(Path<Element> that)
     {
-        return copy(it -> it.elements.appendAll(that.elements));
+        return copy(it -> it.tail(PathNode.append(tail, that)));
     }
 
     /**
@@ -496,7 +547,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Path<Element> withChild(Element element)
     {
-        return copy(it -> it.elements.append(element));
+        return copy(it -> it.tail(PathNode.child(tail, element)));
     }
 
     /**
@@ -504,7 +555,7 @@ public abstract class Path<Element extends Comparable<Element>> implements
      */
     public Path<Element> withParent(Element element)
     {
-        return copy(it -> it.elements.prepend(element));
+        return copy(it -> it.tail(PathNode.append(PathNode.child(null, element), this)));
     }
 
     /**
@@ -636,4 +687,24 @@ public abstract class Path<Element extends Comparable<Element>> implements
     {
         this.root = rootElement;
     }
+
+    private static String join(List<?> elements, String separator)
+    {
+        var builder = new StringBuilder();
+        for (int i = 0; i < elements.size(); i++)
+        {
+            if (i > 0)
+            {
+                builder.append(separator);
+            }
+            builder.append(elements.get(i));
+        }
+        return builder.toString();
+    }
+
+    private void tail(PathNode<Element> tail)
+    {
+        this.tail = tail;
+        this.elements = null;
+    }
 }
@@ -0,0 +1,130 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.path;
+
+import java.util.Objects;
+
+/**
+ * An immutable node in a parent-pointer chain of path elements. Each node holds one element and a reference to the node
+ * for the elements before it, so paths that share a prefix share the nodes for that prefix. A null node is the empty
+ * chain. Because nodes are never modified, adding or removing a trailing element is O(1) and no elements are copied.
+ * The number of elements and the hash code of the chain are computed once, when the node is created.
+ *
+ * @author jonathanl (shibo)
+ */
+final class PathNode<Element>
+{
+    /**
+     * Returns the chain for the given parent with the given elements appended
+     */
+    static <Element> PathNode<Element> append(PathNode<Element> parent, Iterable<Element> elements)
+    {
+        var node = parent;
+        for (var element : elements)
+        {
+            node = child(node, element);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the prefix of the given chain with the given number of elements, or null for the empty chain
+     */
+    static <Element> PathNode<Element> ancestor(PathNode<Element> node, int size)
+    {
+        while (node != null && node.size > size)
+        {
+            node = node.parent;
+        }
+        return node;
+    }
+
+    /**
+     * Returns a new chain with the given element appended to the given parent chain
+     */
+    static <Element> PathNode<Element> child(PathNode<Element> parent, Element element)
+    {
+        return new PathNode<>(parent, element);
+    }
+
+    /**
+     * Returns true if the two chains contain equal elements in the same order
+     */
+    static <Element> boolean equal(PathNode<Element> a, PathNode<Element> b)
+    {
+        while (a != b)
+        {
+            if (a == null || b == null || a.size != b.size || a.hash != b.hash || !Objects.equals(a.element, b.element))
+            {
+                return false;
+            }
+            a = a.parent;
+            b = b.parent;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the given chain, which is the same as {@link java.util.List#hashCode()} for its
+     * elements
+     */
+    static int hash(PathNode<?> node)
+    {
+        return node == null ? 1 : node.hash;
+    }
+
+    /**
+     * Returns the number of elements in the given chain
+     */
+    static int size(PathNode<?> node)
+    {
+        return node == null ? 0 : node.size;
+    }
+
+    /** The last element in this chain */
+    final Element element;
+
+    /** The chain of elements before this one, or null if this is the first element */
+    final PathNode<Element> parent;
+
+    /** The cached hash code of this chain */
+    private final int hash;
+
+    /** The number of elements in this chain */
+    private final int size;
+
+    private PathNode(PathNode<Element> parent, Element element)
+    {
+        this.parent = parent;
+        this.element = element;
+        this.size = size(parent) + 1;
+        this.hash = 31 * hash(parent) + Objects.hashCode(element);
+    }
+
+    /**
+     * Copies the elements of this chain into the given array, which must have at least {@link #size} elements
+     */
+    void copyInto(Object[] array)
+    {
+        for (var node = this; node != null; node = node.parent)
+        {
+            array[node.size - 1] = node.element;
+        }
+    }
+}
@@ -30,9 +30,10 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -91,7 +92,7 @@ import static com.telenav.kivakit.core.string.Strings.notNull;
 public class StringPath extends Path<String>
 {
     /** Cache of compiled root patterns */
-    private static final Map<String, Pattern> rootPatterns = new HashMap<>();
+    private static final Map<String, Pattern> rootPatterns = new ConcurrentHashMap<>();
 
     /**
      * Returns a string path with no elements
@@ -207,7 +208,7 @@ public class StringPath extends Path<String>
 
     protected StringPath(@NotNull StringPath path)
     {
-        this(path.rootElement(), path.elements());
+        super(path);
         separator = path.separator;
     }
 
@@ -356,10 +357,7 @@ public class StringPath extends Path<String>
      */
     public final String join(String separator)
     {
-        var list = new StringList();
-        list.addAll(elements());
-        var root = rootElement();
-        return notNull(root) + list.join(separator);
+        return notNull(rootElement()) + String.join(separator, elements());
     }
 
     /**
@@ -560,18 +558,23 @@ public class StringPath extends Path<String>
 
     private static Pattern rootPattern(String rootPattern)
     {
-        var pattern = rootPatterns.get(rootPattern);
-        if (pattern == null)
-        {
-            pattern = Pattern.compile("(?<root>" + rootPattern + ")(?<path>.*)");
-            rootPatterns.put(rootPattern, pattern);
-        }
-        return pattern;
+        return rootPatterns.computeIfAbsent(rootPattern, ignored -> Pattern.compile("(?<root>" + rootPattern + ")(?<path>.*)"));
     }
 
+    /**
+     * Returns the given elements with any system variables expanded. The given list is not modified.
+     */
     private static List<String> substituteSystemVariables(List<String> elements)
     {
-        elements.replaceAll(text -> resolveProject(KivaKit.class).properties().expand(text));
-        return elements;
+        var substituted = new ArrayList<String>(elements.size());
+        for (var element : elements)
+        {
+            if (element.contains("${"))
+            {
+                element = resolveProject(KivaKit.class).properties().expand(element);
+            }
+            substituted.add(element);
+        }
+        return substituted;
     }
 }
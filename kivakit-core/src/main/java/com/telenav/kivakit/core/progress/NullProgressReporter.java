@@ -17,6 +17,11 @@ public class NullProgressReporter implements ProgressReporter
     {
     }
 
+    @Override
+    public void next(long steps)
+    {
+    }
+
     @Override
     public void problems(long problems)
     {
@@ -35,7 +35,8 @@ import static com.telenav.kivakit.core.value.count.Count._1;
 /**
  * Reports the progress of some operation to an end-user in some manner. The operation begins when {@link #start()} is
  * called and ends when {@link #end()} is called. During the operation, each increment of progress can be reported with
- * {@link #next()} or {@link #next(Count)}. As the operation progresses, any {@link ProgressListener} that is registered
+ * {@link #next()}, {@link #next(long)} or {@link #next(Count)}. Inner loops that report progress in chunks should use
+ * {@link #next(long)}, which does not allocate. As the operation progresses, any {@link ProgressListener} that is registered
  * via {@link #progressReporter(ProgressListener)} is called with the percent-complete.
  *
  * @author jonathanl (shibo)
@@ -97,13 +98,22 @@ public interface ProgressReporter extends Resettable
      */
     default void next(Count steps)
     {
-        next(steps.asInt());
+        next(steps.asLong());
     }
 
     /**
      * Report progress of the given number of steps towards completion
      */
     default void next(int steps)
+    {
+        next((long) steps);
+    }
+
+    /**
+     * Report progress of the given number of steps towards completion. Implementations should override this method to
+     * advance by the given number of steps at once.
+     */
+    default void next(long steps)
     {
         for (var i = 0L; i < steps; i++)
         {
@@ -25,7 +25,9 @@ import com.telenav.kivakit.core.messaging.broadcasters.Multicaster;
 import com.telenav.kivakit.core.progress.ProgressListener;
 import com.telenav.kivakit.core.progress.ProgressReporter;
 import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.time.LatencyHistogram;
 import com.telenav.kivakit.core.time.Rate;
+import com.telenav.kivakit.core.time.Stopwatch;
 import com.telenav.kivakit.core.time.Time;
 import com.telenav.kivakit.core.value.count.BaseCount;
 import com.telenav.kivakit.core.value.count.Count;
@@ -41,6 +43,8 @@ import static com.telenav.kivakit.core.string.AsciiArt.bottomLine;
 import static com.telenav.kivakit.core.string.AsciiArt.topLine;
 import static com.telenav.kivakit.core.string.Formatter.format;
 import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.core.time.LatencyHistogram.latencyHistogram;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
 import static com.telenav.kivakit.core.time.Time.epochMilliseconds;
 import static com.telenav.kivakit.core.time.Time.now;
 import static com.telenav.kivakit.core.value.count.Count.count;
@@ -69,7 +73,7 @@ import static com.telenav.kivakit.core.value.count.Count.count;
  * progress.listener(percent -&gt; System.out.println("$ complete", percent);
  * </pre>
  * {@link BroadcastingProgressReporter} is not thread-safe. To report progress in a multithreaded operations, use
- * {@link ConcurrentBroadcastingProgressReporter}.
+ * {@link ConcurrentBroadcastingProgressReporter}, or for hot loops on many threads, {@link StripedProgressReporter}.
  *
  * <p><b>Progress</b></p>
  *
@@ -88,10 +92,19 @@ import static com.telenav.kivakit.core.value.count.Count.count;
  *     <li>{@link #steps()} - Returns the number of steps in the operation</li>
  *     <li>{@link #steps(BaseCount)} - Sets the number of steps in the operation</li>
  *     <li>{@link #withPhase(String)} - This reporter with the given phase</li>
+ *     <li>{@link #withRemainingTime()} - This reporter, including the estimated time remaining in progress messages</li>
  *     <li>{@link #withSteps(BaseCount)} - This reporter with the given number of steps</li>
  *     <li>{@link #withUnits(String)} - This reporter with the given item name, specifying the units</li>
  * </ul>
  *
+ * <p><b>Latency</b></p>
+ *
+ * <p>
+ * Each time progress is reported, the average time per step since the last report is recorded. Percentiles of these
+ * times, available from {@link #stepLatencies()}, show how much the speed of the operation varied. Since the time is
+ * only measured when progress is reported, this does not slow down {@link #next()}.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @SuppressWarnings("unused")
@@ -193,6 +206,18 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
     /** The number of problems that have been flagged */
     private long problems;
 
+    /** True if progress messages should include the estimated time remaining */
+    private boolean showRemainingTime;
+
+    /** The step at which we last reported progress */
+    private long reportedAt;
+
+    /** The time since we last reported progress */
+    private final Stopwatch sinceReport = stopwatch();
+
+    /** The average time per step between each report */
+    private final LatencyHistogram stepLatencies = latencyHistogram();
+
     protected BroadcastingProgressReporter(BroadcastingProgressReporter that)
     {
         super(that);
@@ -210,6 +235,9 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         ended = that.ended;
         started = that.started;
         problems = that.problems;
+        showRemainingTime = that.showRemainingTime;
+        reportedAt = that.reportedAt;
+        stepLatencies.add(that.stepLatencies);
     }
 
     protected BroadcastingProgressReporter()
@@ -242,7 +270,7 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         if (!ended)
         {
             ended = true;
-            report(at);
+            report(at().asLong());
             var formatted = format(message, arguments);
             feedback(bottomLine(70, "$ $ in $ ($ problems)", formatted, unitName,
                 epochMilliseconds(start).elapsedSince(), problems()));
@@ -286,6 +314,7 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
     /**
      * Moves ahead by the given number of steps
      */
+    @Override
     public synchronized void next(long increase)
     {
         var count = increase(increase);
@@ -295,12 +324,11 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         }
         else
         {
-            var start = count - increase;
-            var next = ((start / every) + 1) * every;
-            for (var at = next; at <= count; at += every)
+            // If we passed a multiple of every, report the count.
+            var every = this.every;
+            if ((count - increase) / every != count / every)
             {
-                report(at);
-                this.at = at;
+                report(count);
             }
         }
     }
@@ -350,11 +378,14 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         started = false;
         ended = false;
         start = now().milliseconds();
+        reportedAt = 0;
+        sinceReport.restart();
+        stepLatencies.reset();
         if (!fixedEvery)
         {
             every = 10;
         }
-        this.at = 0;
+        at(Count._0);
     }
 
     /**
@@ -366,10 +397,12 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         if (!started)
         {
             started = true;
-            this.at = 0;
+            at(Count._0);
             var formatted = format(message, arguments);
             feedback(topLine(70, formatted + " " + unitName));
             start = now().milliseconds();
+            reportedAt = 0;
+            sinceReport.restart();
             if (listener != null)
             {
                 listener.at(Percent._0);
@@ -391,6 +424,14 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         return this;
     }
 
+    /**
+     * Returns the average time per step between each progress report so far
+     */
+    public synchronized LatencyHistogram stepLatencies()
+    {
+        return stepLatencies.snapshot();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -427,6 +468,17 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         return copy;
     }
 
+    /**
+     * Returns a copy of this reporter that includes the estimated time remaining in progress messages, when the number
+     * of steps is known
+     */
+    public BroadcastingProgressReporter withRemainingTime()
+    {
+        var copy = copy();
+        copy.showRemainingTime = true;
+        return copy;
+    }
+
     /**
      * Returns a copy of this reporter with the given number of steps
      */
@@ -471,7 +523,7 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         return ++at;
     }
 
-    private Percent percentComplete()
+    private Percent percentComplete(long at)
     {
         if (steps() != null && steps().isNonZero())
         {
@@ -509,16 +561,26 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
         builder.append(" (");
         builder.append(rate);
         builder.append(", ");
+        if (showRemainingTime && steps > 0 && count.get() > 0 && count.get() < steps)
+        {
+            // Estimate the time remaining from the average rate so far
+            builder.append(Duration.milliseconds(Math.round((double) elapsed.milliseconds() * (steps - count.get()) / count.get())));
+            builder.append(" remaining, ");
+        }
         builder.append(problems);
         builder.append(" problems)");
         return builder.toString();
     }
 
-    private synchronized void report(long at)
+    /**
+     * Reports that the operation is at the given step, calling any progress listener and broadcasting a progress
+     * message
+     */
+    protected synchronized void report(long at)
     {
         if (!isIndefinite())
         {
-            var percent = percentComplete();
+            var percent = percentComplete(at);
             if (percent != null && lastPercent != percent.asInt())
             {
                 if (listener != null)
@@ -538,6 +600,14 @@ public class BroadcastingProgressReporter extends Multicaster implements Progres
             feedback(progressMessage(count(at)));
         }
 
+        // Record the average time per step since the last report
+        var sinceReport = this.sinceReport.lap();
+        if (at > reportedAt)
+        {
+            stepLatencies.record(sinceReport / (at - reportedAt));
+        }
+        reportedAt = at;
+
         var elapsed = lastReportedAt.elapsedSince().maximum(Duration.milliseconds(1));
 
         if (!fixedEvery)
@@ -116,7 +116,7 @@ public class ProgressiveInputStream extends InputStream
     public int read() throws IOException
     {
         var read = input.read();
-        if (read > 0)
+        if (read >= 0)
         {
             reporter.next();
         }
@@ -87,6 +87,7 @@ public class ProgressiveOutputStream extends OutputStream
     public void write(byte @NotNull [] bytes, int offset, int length) throws IOException
     {
         output.write(bytes, offset, length);
+        reporter.next(length);
     }
 
     /**
@@ -96,6 +97,7 @@ public class ProgressiveOutputStream extends OutputStream
     public void write(byte @NotNull [] bytes) throws IOException
     {
         output.write(bytes);
+        reporter.next(bytes.length);
     }
 
     /**
@@ -0,0 +1,340 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.progress.reporters;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramProgress;
+import com.telenav.kivakit.core.messaging.Listener;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.value.count.BaseCount;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.core.value.count.Count.count;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A thread-safe {@link BroadcastingProgressReporter} for hot loops that run on many threads. {@link #next()} and
+ * {@link #next(long)} only add to a striped {@link LongAdder}, so they don't lock, rarely contend, and don't check
+ * whether it is time to report. Instead, a background timer adds up the counts at a fixed interval and broadcasts the
+ * percent complete and rate if there has been progress. The operation ends on the next tick after the count reaches the
+ * number of steps, or when {@link #end()} is called.
+ *
+ * <p>
+ * All striped reporters share one daemon timer thread. A reporter is ticked from the time {@link #start()} is called
+ * until the operation ends or {@link #reset()} is called, so copies made by methods like {@link #withUnits(String)}
+ * are not ticked until they are started. A reporter that is no longer referenced stops being ticked when it is garbage
+ * collected. The timer reads the reporter's state while holding its lock, as do the methods that change that state.
+ * </p>
+ *
+ * <p><b>Creation</b></p>
+ *
+ * <ul>
+ *     <li>{@link #stripedProgressReporter(Listener)}</li>
+ *     <li>{@link #stripedProgressReporter(Listener, String)}</li>
+ *     <li>{@link #stripedProgressReporter(Listener, String, BaseCount)}</li>
+ *     <li>{@link #withInterval(Duration)}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see ConcurrentBroadcastingProgressReporter
+ */
+@UmlClassDiagram(diagram = DiagramProgress.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class StripedProgressReporter extends BroadcastingProgressReporter
+{
+    /** The default time between reports */
+    private static final Duration DEFAULT_INTERVAL = seconds(1);
+
+    /** The timer that ticks all striped reporters */
+    private static final ScheduledExecutorService timer = newSingleThreadScheduledExecutor(runnable ->
+    {
+        var thread = new Thread(runnable, "KivaKit-ProgressReporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static BroadcastingProgressReporter stripedProgressReporter(Listener listener)
+    {
+        return stripedProgressReporter(listener, "items");
+    }
+
+    public static BroadcastingProgressReporter stripedProgressReporter(Listener listener, String itemName)
+    {
+        return stripedProgressReporter(listener, itemName, null);
+    }
+
+    /**
+     * @param listener The message listener
+     * @param itemName The item that is being processed, like "bytes"
+     * @param steps The number of steps in the operation
+     */
+    public static BroadcastingProgressReporter stripedProgressReporter(Listener listener,
+                                                                       String itemName,
+                                                                       BaseCount<?> steps)
+    {
+        return listener.listenTo(new StripedProgressReporter(DEFAULT_INTERVAL)
+            .withUnits(itemName)
+            .withSteps(steps));
+    }
+
+    /** The current step */
+    private final LongAdder at = new LongAdder();
+
+    /** The time between reports */
+    private final Duration interval;
+
+    /** The step we were at when we last reported, guarded by this reporter's lock */
+    private long lastReported = -1;
+
+    /** The number of problems encountered */
+    private final LongAdder problems = new LongAdder();
+
+    /** The scheduled tick for this reporter, if it is being ticked */
+    private final AtomicReference<ScheduledFuture<?>> tick = new AtomicReference<>();
+
+    protected StripedProgressReporter(StripedProgressReporter that)
+    {
+        this(that, that.interval);
+    }
+
+    protected StripedProgressReporter(Duration interval)
+    {
+        this.interval = interval;
+    }
+
+    private StripedProgressReporter(StripedProgressReporter that, Duration interval)
+    {
+        super(that);
+        this.interval = interval;
+        at.add(that.at.sum());
+        problems.add(that.problems.sum());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Count at()
+    {
+        return count(at.sum());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void at(Count count)
+    {
+        at.reset();
+        at.add(count.longValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void end(String message, Object... arguments)
+    {
+        unschedule();
+        super.end(message, arguments);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void next()
+    {
+        at.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void next(long increase)
+    {
+        at.add(increase);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Count problems()
+    {
+        return count(problems.sum());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void problems(long problems)
+    {
+        this.problems.add(problems);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void reset()
+    {
+        unschedule();
+        lastReported = -1;
+        super.reset();
+    }
+
+    /**
+     * Starts the operation and begins ticking this reporter
+     */
+    @Override
+    public synchronized BroadcastingProgressReporter start(String message, Object... arguments)
+    {
+        super.start(message, arguments);
+        schedule();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized BroadcastingProgressReporter steps(BaseCount<?> steps)
+    {
+        return super.steps(steps);
+    }
+
+    /**
+     * Returns a copy of this reporter that reports at the given interval
+     */
+    public StripedProgressReporter withInterval(Duration interval)
+    {
+        return new StripedProgressReporter(this, interval);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected @NotNull BroadcastingProgressReporter copy()
+    {
+        return new StripedProgressReporter(this);
+    }
+
+    /**
+     * Schedules this reporter to be ticked by the timer, if it isn't already
+     */
+    private void schedule()
+    {
+        // If this reporter is not being ticked,
+        if (tick.get() == null)
+        {
+            // tick it at a fixed rate through a weak reference, so the timer doesn't keep it alive,
+            var reference = new WeakReference<>(this);
+            var scheduled = new AtomicReference<ScheduledFuture<?>>();
+            scheduled.set(timer.scheduleAtFixedRate(() ->
+            {
+                var reporter = reference.get();
+                if (reporter != null)
+                {
+                    // (an exception would stop the timer from ticking this reporter again)
+                    try
+                    {
+                        reporter.tick();
+                    }
+                    catch (Exception e)
+                    {
+                        reporter.problem(e, "Unable to report progress");
+                    }
+                }
+                else
+                {
+                    // and stop ticking when it's garbage collected.
+                    var future = scheduled.get();
+                    if (future != null)
+                    {
+                        future.cancel(false);
+                    }
+                }
+            }, interval.milliseconds(), interval.milliseconds(), MILLISECONDS));
+
+            // If another thread scheduled this reporter first, cancel our tick.
+            if (!tick.compareAndSet(null, scheduled.get()))
+            {
+                scheduled.get().cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stops ticking this reporter, if it is being ticked
+     */
+    private void unschedule()
+    {
+        var tick = this.tick.getAndSet(null);
+        if (tick != null)
+        {
+            tick.cancel(false);
+        }
+    }
+
+    /**
+     * Adds up the count and reports it if it has changed, ending the operation if all steps are complete
+     */
+    private synchronized void tick()
+    {
+        // If the operation ended or was reset while this tick was waiting for the lock, there is nothing to report.
+        if (tick.get() == null)
+        {
+            return;
+        }
+
+        var at = this.at.sum();
+        if (at != lastReported)
+        {
+            lastReported = at;
+            var steps = steps();
+            if (steps != null && at >= steps.asLong())
+            {
+                end();
+            }
+            else
+            {
+                report(at);
+            }
+        }
+    }
+}
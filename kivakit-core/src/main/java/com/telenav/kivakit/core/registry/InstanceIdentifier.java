@@ -19,12 +19,14 @@
 package com.telenav.kivakit.core.registry;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
-import com.telenav.kivakit.core.collections.map.StringMap;
 import com.telenav.kivakit.core.internal.lexakai.DiagramRegistry;
 import com.telenav.kivakit.core.messaging.Listener;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.visibility.UmlExcludeSuperTypes;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.TESTING_NOT_NEEDED;
@@ -56,10 +58,10 @@ import static com.telenav.kivakit.core.string.Paths.pathWithoutSuffix;
 public class InstanceIdentifier
 {
     /** Identifies the one and only instance of a singleton */
-    private static InstanceIdentifier SINGLETON;
+    private static final InstanceIdentifier SINGLETON = new InstanceIdentifier("SINGLETON");
 
     /** Map from enum name (both simple and fully-qualified) to instance identifier */
-    private static final StringMap<InstanceIdentifier> instanceIdentifierForEnumName = new StringMap<>();
+    private static final Map<String, InstanceIdentifier> instanceIdentifierForEnumName = new ConcurrentHashMap<>();
 
     /**
      * Returns an instance identifier for the given enum value
@@ -113,10 +115,6 @@ public class InstanceIdentifier
      */
     public static InstanceIdentifier singleton()
     {
-        if (SINGLETON == null)
-        {
-            SINGLETON = new InstanceIdentifier("SINGLETON");
-        }
         return SINGLETON;
     }
 
@@ -27,9 +27,9 @@ import com.telenav.kivakit.interfaces.naming.Named;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.associations.UmlRelation;
 
-import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
@@ -87,6 +87,14 @@ import static com.telenav.kivakit.core.string.ObjectFormatter.ObjectFormat.MULTI
  * }
  * </pre>
  *
+ * <p><b>Concurrency</b></p>
+ *
+ * <p>
+ * Registrations are held in a concurrent map, so lookups never take a lock, even while other threads are
+ * registering objects. Each key is registered atomically, but registering an object under several supertypes is not a
+ * single atomic operation, so a concurrent lookup may briefly see an object under some of its types and not others.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see RegistryTrait
  * @see InstanceIdentifier
@@ -127,7 +135,7 @@ public class Registry implements RegistryTrait, Named
     private final String name;
 
     /** Map from class and instance to type for multi-instance objects */
-    private final Map<RegistryKey, Object> registered = new HashMap<>();
+    private final Map<RegistryKey, Object> registered = new ConcurrentHashMap<>();
 
     public Registry(String name)
     {
@@ -173,7 +181,7 @@ public class Registry implements RegistryTrait, Named
     }
 
     @Override
-    public synchronized void clearRegistry()
+    public void clearRegistry()
     {
         registered.clear();
     }
@@ -183,7 +191,7 @@ public class Registry implements RegistryTrait, Named
      */
     @Override
     @SuppressWarnings({ "unchecked" })
-    public synchronized <T> T lookup(Class<T> type, InstanceIdentifier instance)
+    public <T> T lookup(Class<T> type, InstanceIdentifier instance)
     {
         return (T) registered.get(instance.key(type));
     }
@@ -206,7 +214,7 @@ public class Registry implements RegistryTrait, Named
      * </p>
      */
     @Override
-    public synchronized <T> T register(T object, InstanceIdentifier instance)
+    public <T> T register(T object, InstanceIdentifier instance)
     {
         ensureNotNull(object);
 
@@ -239,7 +247,7 @@ public class Registry implements RegistryTrait, Named
      * {@inheritDoc}
      */
     @Override
-    public synchronized <T> T require(Class<T> type, InstanceIdentifier instance)
+    public <T> T require(Class<T> type, InstanceIdentifier instance)
     {
         return ensureNotNull(lookup(type, instance), "Unable to find required object: $:$", type, instance);
     }
@@ -254,7 +262,7 @@ public class Registry implements RegistryTrait, Named
      * {@inheritDoc}
      */
     @Override
-    public synchronized void unregister(Object object, InstanceIdentifier instance)
+    public void unregister(Object object, InstanceIdentifier instance)
     {
         registered.remove(instance.key(object.getClass()));
     }
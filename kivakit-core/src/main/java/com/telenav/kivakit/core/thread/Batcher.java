@@ -20,8 +20,11 @@ package com.telenav.kivakit.core.thread;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.iteration.BaseIterator;
+import com.telenav.kivakit.core.internal.jfr.BatchEvent;
 import com.telenav.kivakit.core.internal.lexakai.DiagramThread;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.time.LatencyHistogram;
+import com.telenav.kivakit.core.time.LatencyRecorder;
 import com.telenav.kivakit.core.value.count.BaseCount;
 import com.telenav.kivakit.core.value.count.Count;
 import com.telenav.kivakit.interfaces.collection.Addable;
@@ -47,7 +50,8 @@ import static com.telenav.kivakit.core.code.UncheckedCode.unchecked;
 import static com.telenav.kivakit.core.ensure.Ensure.ensure;
 import static com.telenav.kivakit.core.thread.Threads.awaitTermination;
 import static com.telenav.kivakit.core.thread.Threads.threadPool;
-import static com.telenav.kivakit.core.time.Time.now;
+import static com.telenav.kivakit.core.time.LatencyRecorder.latencyRecorder;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
 
 /**
  * A {@link Batcher} has a queue of element batches which are processed by one or more worker threads.
@@ -100,6 +104,13 @@ import static com.telenav.kivakit.core.time.Time.now;
  *
  * </pre>
  *
+ * <p><b>Latency</b></p>
+ *
+ * <p>
+ * The time taken to process each batch is recorded, and percentiles of it are available from
+ * {@link #batchLatencies()}.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @SuppressWarnings({ "SpellCheckingInspection", "unused" })
@@ -149,10 +160,22 @@ public class Batcher<Value> extends BaseRepeater
             {
                 try
                 {
-                    var start = now();
+                    var event = new BatchEvent();
+                    event.begin();
+                    var stopwatch = stopwatch();
                     trace("$: Processing $ element batch ${hex}", outer.name, size(), hashCode());
                     onBatch(this);
-                    trace("$: Processed $ items in $", outer.name, size(), start.elapsedSince());
+                    var elapsed = stopwatch.elapsedNanoseconds();
+                    batchLatencies.record(elapsed);
+
+                    event.end();
+                    if (event.shouldCommit())
+                    {
+                        event.batcher = outer.name;
+                        event.size = size();
+                        event.commit();
+                    }
+                    trace("$: Processed $ items in $", outer.name, size(), stopwatch.elapsed());
                 }
                 catch (Exception e)
                 {
@@ -249,6 +272,9 @@ public class Batcher<Value> extends BaseRepeater
         }
     }
 
+    /** The time taken to process each batch */
+    private final LatencyRecorder batchLatencies = latencyRecorder();
+
     /** Set of batch adders for clients */
     private final Set<BatchAdder> adders = new HashSet<>();
 
@@ -302,6 +328,14 @@ public class Batcher<Value> extends BaseRepeater
         return adder;
     }
 
+    /**
+     * Returns the time taken to process each batch so far
+     */
+    public LatencyHistogram batchLatencies()
+    {
+        return batchLatencies.histogram();
+    }
+
     /**
      * Starts this batcher with the given number of worker threads
      */
@@ -27,9 +27,11 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.time.Duration.milliseconds;
 
 /**
- * Computes an average duration for a succession of samples.
+ * Computes an average duration for a succession of samples. To find percentiles of durations, such as the 99th
+ * percentile latency, use a {@link LatencyHistogram}.
  *
  * @author jonathanl (shibo)
+ * @see LatencyHistogram
  */
 @SuppressWarnings("unused")
 @TypeQuality(stability = STABLE_EXTENSIBLE,
@@ -0,0 +1,356 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.time;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramTime;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+import static com.telenav.kivakit.core.time.Duration.ZERO_DURATION;
+import static com.telenav.kivakit.core.time.Duration.nanoseconds;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, which can answer percentile queries like the 99th percentile
+ * latency. Values are counted in log-linear buckets: each power of two is divided into 2<sup>precision</sup> buckets
+ * of equal width, so the value reported for a percentile is never more than 1 / 2<sup>precision</sup> larger than
+ * the latency that was recorded. With the default precision of 5 bits, the error is at most about 3%, and values
+ * below 32 nanoseconds are exact. The histogram has a fixed size, which depends only on the precision, and recording
+ * a value does not allocate.
+ *
+ * <p><b>Concurrency</b></p>
+ *
+ * <p>
+ * A histogram can be recorded into by many threads at once, but the threads then contend for the same counters.
+ * Where many threads record the same latency, a {@link LatencyRecorder} spreads them over a fixed set of at most 16
+ * striped histograms, chosen by thread, and merges the stripes when they are read. Queries read the counters without locking, so a query made while values are being
+ * recorded may not include the most recent values.
+ * </p>
+ *
+ * <p><b>Recording</b></p>
+ *
+ * <ul>
+ *     <li>{@link #record(long)}</li>
+ *     <li>{@link #record(Duration)}</li>
+ *     <li>{@link #add(LatencyHistogram)}</li>
+ *     <li>{@link #reset()}</li>
+ * </ul>
+ *
+ * <p><b>Queries</b></p>
+ *
+ * <ul>
+ *     <li>{@link #count()}</li>
+ *     <li>{@link #maximum()}</li>
+ *     <li>{@link #mean()}</li>
+ *     <li>{@link #minimum()}</li>
+ *     <li>{@link #percentile(double)}</li>
+ *     <li>{@link #p50()}</li>
+ *     <li>{@link #p99()}</li>
+ *     <li>{@link #p999()}</li>
+ *     <li>{@link #total()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see Stopwatch
+ * @see LatencyRecorder
+ */
+@UmlClassDiagram(diagram = DiagramTime.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class LatencyHistogram
+{
+    /** The default number of bits of precision */
+    public static final int DEFAULT_PRECISION = 5;
+
+    /**
+     * Returns a histogram with the default precision
+     */
+    public static LatencyHistogram latencyHistogram()
+    {
+        return latencyHistogram(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Returns a histogram that divides each power of two into 2<sup>precision</sup> buckets
+     *
+     * @param precision The number of bits of precision, from 1 to 10
+     */
+    public static LatencyHistogram latencyHistogram(int precision)
+    {
+        return new LatencyHistogram(precision);
+    }
+
+    /** The number of bits of precision */
+    private final int precision;
+
+    /** The number of values recorded in each bucket */
+    private final AtomicLongArray counts;
+
+    /** The sum of all recorded values */
+    private final AtomicLong total = new AtomicLong();
+
+    /** The smallest recorded value */
+    private final AtomicLong minimum = new AtomicLong(Long.MAX_VALUE);
+
+    /** The largest recorded value */
+    private final AtomicLong maximum = new AtomicLong(Long.MIN_VALUE);
+
+    private LatencyHistogram(int precision)
+    {
+        ensure(precision >= 1 && precision <= 10, "Precision must be between 1 and 10 bits: $", precision);
+
+        this.precision = precision;
+
+        // There are 2^precision exact buckets for values below 2^precision, and 2^precision buckets for
+        // each power of two from 2^precision to 2^62
+        this.counts = new AtomicLongArray((64 - precision) << precision);
+    }
+
+    /**
+     * Adds the values recorded in the given histogram to this histogram
+     */
+    public void add(LatencyHistogram that)
+    {
+        ensure(that.precision == precision, "Cannot add histograms with different precisions");
+
+        for (var index = 0; index < counts.length(); index++)
+        {
+            var count = that.counts.get(index);
+            if (count > 0)
+            {
+                counts.addAndGet(index, count);
+            }
+        }
+        total.addAndGet(that.total.get());
+        minimum.accumulateAndGet(that.minimum.get(), Math::min);
+        maximum.accumulateAndGet(that.maximum.get(), Math::max);
+    }
+
+    /**
+     * Returns the number of values recorded
+     */
+    public long count()
+    {
+        var count = 0L;
+        for (var index = 0; index < counts.length(); index++)
+        {
+            count += counts.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest latency recorded, or zero if no values have been recorded
+     */
+    public Duration maximum()
+    {
+        var maximum = this.maximum.get();
+        return maximum == Long.MIN_VALUE ? ZERO_DURATION : nanoseconds(maximum);
+    }
+
+    /**
+     * Returns the mean latency, or zero if no values have been recorded
+     */
+    public Duration mean()
+    {
+        var count = count();
+        return count == 0 ? ZERO_DURATION : nanoseconds((double) total.get() / count);
+    }
+
+    /**
+     * Returns the smallest latency recorded, or zero if no values have been recorded
+     */
+    public Duration minimum()
+    {
+        var minimum = this.minimum.get();
+        return minimum == Long.MAX_VALUE ? ZERO_DURATION : nanoseconds(minimum);
+    }
+
+    /**
+     * Returns the 50th percentile (median) latency
+     */
+    public Duration p50()
+    {
+        return percentile(50);
+    }
+
+    /**
+     * Returns the 99th percentile latency
+     */
+    public Duration p99()
+    {
+        return percentile(99);
+    }
+
+    /**
+     * Returns the 99.9th percentile latency
+     */
+    public Duration p999()
+    {
+        return percentile(99.9);
+    }
+
+    /**
+     * Returns the latency at or below which the given percentage of recorded values fall, or zero if no values have
+     * been recorded
+     *
+     * @param percentile The percentile, from 0 to 100
+     */
+    public Duration percentile(double percentile)
+    {
+        ensure(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100: $", percentile);
+
+        // Find the rank of the value we want,
+        var count = count();
+        if (count == 0)
+        {
+            return ZERO_DURATION;
+        }
+        var rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+
+        // then go through the buckets until we reach that rank,
+        var seen = 0L;
+        for (var index = 0; index < counts.length(); index++)
+        {
+            seen += counts.get(index);
+            if (seen >= rank)
+            {
+                // and return the largest value in the bucket, limited to the range of recorded values.
+                var value = Math.min(highestValueIn(index), maximum.get());
+                return nanoseconds(Math.max(value, minimum.get()));
+            }
+        }
+        return maximum();
+    }
+
+    /**
+     * Returns the number of bits of precision of this histogram
+     */
+    public int precision()
+    {
+        return precision;
+    }
+
+    /**
+     * Records the given latency
+     *
+     * @param nanoseconds The latency in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanoseconds)
+    {
+        var value = Math.max(0, nanoseconds);
+        counts.incrementAndGet(indexOf(value));
+        total.addAndGet(value);
+
+        // Only update the minimum and maximum when they change, to avoid writing to shared memory
+        if (value < minimum.get())
+        {
+            minimum.accumulateAndGet(value, Math::min);
+        }
+        if (value > maximum.get())
+        {
+            maximum.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Records the given latency
+     */
+    public void record(Duration duration)
+    {
+        record((long) duration.nanoseconds().asDouble());
+    }
+
+    /**
+     * Clears all recorded values
+     */
+    public void reset()
+    {
+        for (var index = 0; index < counts.length(); index++)
+        {
+            counts.set(index, 0);
+        }
+        total.set(0);
+        minimum.set(Long.MAX_VALUE);
+        maximum.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns a copy of this histogram
+     */
+    public LatencyHistogram snapshot()
+    {
+        var snapshot = latencyHistogram(precision);
+        snapshot.add(this);
+        return snapshot;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[LatencyHistogram count = " + count()
+                + ", p50 = " + p50()
+                + ", p99 = " + p99()
+                + ", p999 = " + p999()
+                + ", maximum = " + maximum() + "]";
+    }
+
+    /**
+     * Returns the largest value that is counted in the bucket with the given index
+     */
+    long highestValueIn(int index)
+    {
+        var perPowerOfTwo = 1 << precision;
+        if (index < perPowerOfTwo)
+        {
+            return index;
+        }
+        var shift = (index >>> precision) - 1;
+        var bucket = (index & (perPowerOfTwo - 1)) + perPowerOfTwo;
+        var highest = ((long) (bucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * Returns the index of the bucket that counts the given non-negative value
+     */
+    int indexOf(long value)
+    {
+        // If the value is small enough,
+        if (value < (1L << precision))
+        {
+            // it has its own bucket,
+            return (int) value;
+        }
+
+        // otherwise, find the power of two below the value,
+        var exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        // and the linear bucket within that power of two.
+        var shift = exponent - precision;
+        return ((shift + 1) << precision) + (int) ((value >>> shift) - (1L << precision));
+    }
+}
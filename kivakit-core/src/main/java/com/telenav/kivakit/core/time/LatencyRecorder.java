@@ -0,0 +1,187 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.time;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramTime;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+import static com.telenav.kivakit.core.time.LatencyHistogram.DEFAULT_PRECISION;
+import static com.telenav.kivakit.core.time.LatencyHistogram.latencyHistogram;
+
+/**
+ * Records latencies from many threads with little contention. Latencies are recorded into a fixed set of striped
+ * {@link LatencyHistogram}s, one for each thread chosen by its thread id, so threads rarely write to the same
+ * histogram, and {@link #histogram()} merges the stripes into a new histogram that can be queried for percentiles.
+ * Since there is a fixed number of stripes, each created the first time a thread records into it, a recorder used by
+ * many short-lived threads uses no more memory than one used by a few long-lived threads.
+ *
+ * <pre>
+ * private final LatencyRecorder latencies = latencyRecorder();
+ *
+ *     [...]
+ *
+ * var stopwatch = stopwatch();
+ * process(request);
+ * latencies.record(stopwatch.elapsedNanoseconds());
+ *
+ *     [...]
+ *
+ * information("p99 latency: $", latencies.histogram().p99());</pre>
+ *
+ * <p><b>Recording</b></p>
+ *
+ * <ul>
+ *     <li>{@link #latencyRecorder()}</li>
+ *     <li>{@link #latencyRecorder(int)}</li>
+ *     <li>{@link #record(long)}</li>
+ *     <li>{@link #record(Duration)}</li>
+ *     <li>{@link #reset()}</li>
+ * </ul>
+ *
+ * <p><b>Queries</b></p>
+ *
+ * <ul>
+ *     <li>{@link #histogram()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see LatencyHistogram
+ * @see Stopwatch
+ */
+@UmlClassDiagram(diagram = DiagramTime.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class LatencyRecorder
+{
+    /**
+     * Returns a recorder with the default precision
+     */
+    public static LatencyRecorder latencyRecorder()
+    {
+        return latencyRecorder(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Returns a recorder with the given precision
+     *
+     * @see LatencyHistogram#latencyHistogram(int)
+     */
+    public static LatencyRecorder latencyRecorder(int precision)
+    {
+        return new LatencyRecorder(precision);
+    }
+
+    /** The number of stripes, a power of two no larger than 16 that is at least the number of processors */
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    /** The number of bits of precision */
+    private final int precision;
+
+    /** The striped histograms, each created the first time a thread records into it */
+    private final AtomicReferenceArray<LatencyHistogram> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    private LatencyRecorder(int precision)
+    {
+        ensure(precision >= 1 && precision <= 10, "Precision must be between 1 and 10 bits: $", precision);
+
+        this.precision = precision;
+    }
+
+    /**
+     * Returns a new histogram with the latencies recorded by all threads so far
+     */
+    public LatencyHistogram histogram()
+    {
+        var merged = latencyHistogram(precision);
+        for (var index = 0; index < STRIPES; index++)
+        {
+            var stripe = stripes.get(index);
+            if (stripe != null)
+            {
+                merged.add(stripe);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Records the given latency in the histogram for the current thread's stripe
+     *
+     * @param nanoseconds The latency in nanoseconds
+     */
+    public void record(long nanoseconds)
+    {
+        stripe().record(nanoseconds);
+    }
+
+    /**
+     * Records the given latency in the histogram for the current thread's stripe
+     */
+    public void record(Duration duration)
+    {
+        stripe().record(duration);
+    }
+
+    /**
+     * Clears the latencies recorded by all threads
+     */
+    public void reset()
+    {
+        for (var index = 0; index < STRIPES; index++)
+        {
+            var stripe = stripes.get(index);
+            if (stripe != null)
+            {
+                stripe.reset();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return histogram().toString();
+    }
+
+    /**
+     * Returns the histogram for the current thread's stripe, creating it if it doesn't exist yet
+     */
+    private LatencyHistogram stripe()
+    {
+        // Spread sequential thread ids across the stripes,
+        var index = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+
+        // and get the stripe's histogram, creating it if this is the first time it has been used.
+        var stripe = stripes.get(index);
+        if (stripe == null)
+        {
+            stripes.compareAndSet(index, null, latencyHistogram(precision));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+}
@@ -23,11 +23,13 @@ import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
-import static com.telenav.kivakit.core.time.Time.now;
+import static com.telenav.kivakit.core.time.Duration.nanoseconds;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
 
 /**
  * Calculates a {@link Rate} over time as a count is increased by {@link #add(int)} or {@link #increment()}. The rate
- * can be retrieved with {@link #rate()}. The calculator can be reset with {@link #reset()}.
+ * can be retrieved with {@link #rate()}. The calculator can be reset with {@link #reset()}. Elapsed time is measured
+ * with a monotonic {@link Stopwatch}, so rates are not affected by changes to the system clock.
  *
  * @author jonathanl (shibo)
  */
@@ -40,9 +42,11 @@ public class RateCalculator
 
     private double lastCount;
 
-    private Time start;
+    /** The time since the current interval started */
+    private final Stopwatch start = stopwatch();
 
-    private Time lastStart;
+    /** True if an interval has completed */
+    private boolean hasLastInterval;
 
     private final Duration resetInterval;
 
@@ -52,7 +56,7 @@ public class RateCalculator
     public RateCalculator(Duration resetInterval)
     {
         this.resetInterval = resetInterval;
-        reset();
+        count = 0;
     }
 
     /**
@@ -76,9 +80,9 @@ public class RateCalculator
      */
     public Rate rate()
     {
-        var elapsed = start.elapsedSince();
+        var elapsed = nanoseconds(Math.max(1, start.elapsedNanoseconds()));
         Rate rate;
-        if (lastStart != null)
+        if (hasLastInterval)
         {
             rate = new Rate(lastCount, resetInterval);
         }
@@ -99,8 +103,8 @@ public class RateCalculator
     public void reset()
     {
         lastCount = count;
-        lastStart = start;
+        hasLastInterval = true;
         count = 0;
-        start = now();
+        start.restart();
     }
 }
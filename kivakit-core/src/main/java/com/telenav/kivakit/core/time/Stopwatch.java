@@ -0,0 +1,133 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.time;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.internal.lexakai.DiagramTime;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.time.Duration.nanoseconds;
+
+/**
+ * Measures elapsed time in nanoseconds with {@link System#nanoTime()}. Unlike {@link Time#elapsedSince()}, a
+ * stopwatch is monotonic, so it is not affected by changes to the system clock, and it has nanosecond resolution. A
+ * stopwatch does not allocate, so it can be used to time operations on hot paths, usually by recording the elapsed
+ * time in a {@link LatencyHistogram} or {@link LatencyRecorder}.
+ *
+ * <pre>
+ * var stopwatch = stopwatch();
+ *
+ *     [...]
+ *
+ * latencies.record(stopwatch.elapsedNanoseconds());</pre>
+ *
+ * <p>
+ * Elapsed times are returned as a plain <i>long</i> number of nanoseconds, rather than as a
+ * {@link com.telenav.kivakit.interfaces.time.Nanoseconds}, which is an object holding seconds and nanoseconds. Timing a
+ * hot path this way does not allocate. Where an object is wanted, {@link #elapsed()} returns a {@link Duration}, and
+ * {@link Duration#nanoseconds()} converts that to {@link com.telenav.kivakit.interfaces.time.Nanoseconds}.
+ * </p>
+ *
+ * <p>
+ * A stopwatch is not thread-safe.
+ * </p>
+ *
+ * <p><b>Timing</b></p>
+ *
+ * <ul>
+ *     <li>{@link #stopwatch()}</li>
+ *     <li>{@link #elapsed()}</li>
+ *     <li>{@link #elapsedNanoseconds()}</li>
+ *     <li>{@link #lap()}</li>
+ *     <li>{@link #restart()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see LatencyHistogram
+ * @see LatencyRecorder
+ */
+@UmlClassDiagram(diagram = DiagramTime.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public final class Stopwatch
+{
+    /**
+     * Returns a stopwatch that started now
+     */
+    public static Stopwatch stopwatch()
+    {
+        return new Stopwatch();
+    }
+
+    /** The value of {@link System#nanoTime()} when this stopwatch started */
+    private long started;
+
+    private Stopwatch()
+    {
+        restart();
+    }
+
+    /**
+     * Returns the time since this stopwatch started
+     */
+    public Duration elapsed()
+    {
+        return nanoseconds(elapsedNanoseconds());
+    }
+
+    /**
+     * Returns the number of nanoseconds since this stopwatch started
+     */
+    public long elapsedNanoseconds()
+    {
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * Restarts this stopwatch
+     *
+     * @return The number of nanoseconds since this stopwatch last started
+     */
+    public long lap()
+    {
+        var now = System.nanoTime();
+        var elapsed = now - started;
+        started = now;
+        return elapsed;
+    }
+
+    /**
+     * Restarts this stopwatch
+     */
+    public Stopwatch restart()
+    {
+        started = System.nanoTime();
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return elapsed().toString();
+    }
+}
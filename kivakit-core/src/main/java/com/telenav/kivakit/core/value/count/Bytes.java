@@ -81,6 +81,9 @@ import static java.util.regex.Pattern.CASE_INSENSITIVE;
  * <p>
  * The toString() method is smart enough to convert a given value object to the most appropriate
  * units for the given value.
+ * <p>
+ * Like {@link Count}, values up to 65,536 bytes and powers of two are cached, so {@link #bytes(long)} and
+ * arithmetic methods like {@link #plus(long)} do not allocate for these values.
  *
  * @author Jonathan Locke
  * @see Countable
@@ -99,6 +102,27 @@ public final class Bytes extends BaseCount<Bytes> implements
     /** Pattern for string parsing. */
     private static final Pattern PATTERN = Pattern.compile("([0-9]+([.,][0-9]+)?)\\s*(|K|KB|M|MB|G|GB|T|TB|P|PB|bytes)", CASE_INSENSITIVE);
 
+    private static final long CACHE_SIZE = 65_536L;
+
+    private static final Bytes[] CACHED;
+
+    private static final Bytes[] CACHED_POWERS_OF_TWO;
+
+    static
+    {
+        CACHED = new Bytes[(int) CACHE_SIZE];
+        for (var i = 0; i < CACHED.length; i++)
+        {
+            CACHED[i] = new Bytes(i);
+        }
+
+        CACHED_POWERS_OF_TWO = new Bytes[63];
+        for (var i = 0; i < CACHED_POWERS_OF_TWO.length; i++)
+        {
+            CACHED_POWERS_OF_TWO[i] = new Bytes(1L << i);
+        }
+    }
+
     /** No bytes */
     public static final Bytes _0 = bytes(0);
 
@@ -110,7 +134,7 @@ public final class Bytes extends BaseCount<Bytes> implements
      */
     public static Bytes bytes(double bytes)
     {
-        return new Bytes((long) bytes);
+        return bytes((long) bytes);
     }
 
     /**
@@ -118,6 +142,27 @@ public final class Bytes extends BaseCount<Bytes> implements
      */
     public static Bytes bytes(long bytes)
     {
+        // If we have a cached value,
+        if (bytes >= 0 && bytes < CACHE_SIZE)
+        {
+            // return it
+            return CACHED[(int) bytes];
+        }
+
+        // If our value is a power of two,
+        if (bytes > 0 && (bytes & bytes - 1) == 0)
+        {
+            // return the cached value
+            return CACHED_POWERS_OF_TWO[Long.numberOfTrailingZeros(bytes)];
+        }
+
+        // If the value is the maximum value,
+        if (bytes == Long.MAX_VALUE && MAXIMUM_BYTES != null)
+        {
+            // return the constant
+            return MAXIMUM_BYTES;
+        }
+
         return new Bytes(bytes);
     }
 
@@ -126,7 +171,7 @@ public final class Bytes extends BaseCount<Bytes> implements
      */
     public static Bytes bytes(long[] array)
     {
-        return new Bytes(array.length * 8L);
+        return bytes(array.length * 8L);
     }
 
     /**
@@ -134,7 +179,7 @@ public final class Bytes extends BaseCount<Bytes> implements
      */
     public static Bytes bytes(int[] array)
     {
-        return new Bytes(array.length * 4L);
+        return bytes(array.length * 4L);
     }
 
     /**
@@ -142,7 +187,7 @@ public final class Bytes extends BaseCount<Bytes> implements
      */
     public static Bytes bytes(byte[] array)
     {
-        return new Bytes(array.length);
+        return bytes(array.length);
     }
 
     /**
@@ -62,10 +62,11 @@ import static com.telenav.kivakit.core.language.primitive.Longs.parseFastLong;
  * {@link Count} objects are cheaper than they might seem for two reasons:
  * <ul>
  *     <li>(1) low count constants and powers of two can be accessed as constant objects (like {@link #_1024} or
- *          {@link #_15}) and values up to 65,536 are cached so that no new object is created if you call {@link #count(long)}
+ *          {@link #_15}) and values up to 65,536 are cached so that no new object is created if you call {@link #count(long)}.
+ *          Values up to 262,144 are cached the first time they are requested.
  *     </li>
  *
- *     <li>(2) allocation of count objects higher than 65,536 are cheap in Java due to the design of generational garbage
+ *     <li>(2) allocation of count objects higher than 262,144 are cheap in Java due to the design of generational garbage
  *     collectors. This said, there will be occasions where {@link Count} objects are not desirable (for example, inside a
  *     doubly nested loop) and sometimes they may improve a public API method or constructor, while the internal representation
  *     is a primitive value for efficiency.
@@ -341,8 +342,13 @@ public class Count extends BaseCount<Count>
 
     private static final long CACHE_SIZE = 65_536L;
 
+    private static final long LAZY_CACHE_SIZE = 262_144L;
+
     private static final Count[] CACHED;
 
+    /** Counts from CACHE_SIZE to LAZY_CACHE_SIZE, created when first requested */
+    private static final Count[] LAZILY_CACHED = new Count[(int) (LAZY_CACHE_SIZE - CACHE_SIZE)];
+
     private static final Count[] CACHED_POWERS_OF_TWO;
 
     static
@@ -444,7 +450,28 @@ public class Count extends BaseCount<Count>
             return CACHED_POWERS_OF_TWO[Long.numberOfTrailingZeros(value)];
         }
 
-        // If the value isn't < CACHE_SIZE (65,536) and it's not a power of two we have to allocate
+        // If the value is in the range of lazily cached values,
+        if (value < LAZY_CACHE_SIZE)
+        {
+            // return the cached value, creating it if it doesn't exist yet. This is a benign race
+            // because counts are immutable and their value is final.
+            var index = (int) (value - CACHE_SIZE);
+            var count = LAZILY_CACHED[index];
+            if (count == null)
+            {
+                LAZILY_CACHED[index] = count = new Count(value);
+            }
+            return count;
+        }
+
+        // If the value is the maximum value,
+        if (value == Long.MAX_VALUE)
+        {
+            // return the constant
+            return MAXIMUM;
+        }
+
+        // If the value isn't < LAZY_CACHE_SIZE (262,144) and it's not a power of two we have to allocate
         return new Count(value);
     }
 
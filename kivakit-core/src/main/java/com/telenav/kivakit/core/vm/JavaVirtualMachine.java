@@ -24,9 +24,11 @@ import com.telenav.kivakit.core.internal.lexakai.DiagramLanguage;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
 import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.interfaces.comparison.Matcher;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.associations.UmlAggregation;
 
+import java.lang.instrument.Instrumentation;
 import java.nio.file.Path;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
@@ -35,6 +37,7 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.os.OperatingSystem.operatingSystem;
 import static com.telenav.kivakit.core.value.count.Bytes.bytes;
 import static com.telenav.kivakit.core.value.count.Count.count;
+import static com.telenav.kivakit.interfaces.comparison.Matcher.matchAll;
 
 /**
  * An object for working with the Java virtual machine.
@@ -55,6 +58,23 @@ import static com.telenav.kivakit.core.value.count.Count.count;
  *     <li>{@link #usedMemory()}</li>
  * </ul>
  *
+ * <p><b>Object Sizes</b></p>
+ *
+ * <ul>
+ *     <li>{@link #instrumentation(Instrumentation)}</li>
+ *     <li>{@link #sizeOf(Object)}</li>
+ *     <li>{@link #sizeOfGraph(Object)}</li>
+ *     <li>{@link #sizeOfGraph(Object, Matcher)}</li>
+ * </ul>
+ *
+ * <p>
+ * Object sizes are estimated from the field layout of each object's class, using the header size, reference size
+ * and object alignment of the running virtual machine. If an agent supplies an {@link Instrumentation} instance with
+ * {@link #instrumentation(Instrumentation)}, it is used instead. Graph sizes are found by walking every object that
+ * can be reached from a root object once, so shared objects and cycles are only counted once. The contents of JDK
+ * strings and collections, whose fields cannot be read without <i>--add-opens</i>, are estimated from their sizes.
+ * </p>
+ *
  * <p><b>Properties</b></p>
  *
  * <ul>
@@ -90,7 +110,7 @@ public class JavaVirtualMachine extends BaseRepeater
 
     private static boolean ASSERTIONS_ENABLED;
 
-    private static JavaVirtualMachine LOCAL;
+    private static volatile JavaVirtualMachine LOCAL;
 
     static
     {
@@ -101,17 +121,29 @@ public class JavaVirtualMachine extends BaseRepeater
 
     public static JavaVirtualMachine javaVirtualMachine()
     {
-        if (LOCAL == null)
+        var local = LOCAL;
+        if (local == null)
         {
-            LOCAL = new JavaVirtualMachine();
+            synchronized (JavaVirtualMachine.class)
+            {
+                local = LOCAL;
+                if (local == null)
+                {
+                    local = new JavaVirtualMachine();
+                    LOCAL = local;
+                }
+            }
         }
-        return LOCAL;
+        return local;
     }
 
     private VariableMap<String> systemProperties;
 
+    /** Estimates object sizes */
+    private final ObjectSizer sizer = new ObjectSizer();
+
     @UmlAggregation
-    private JavaVirtualMachineHealth health;
+    private volatile JavaVirtualMachineHealth health;
 
     private JavaVirtualMachine()
     {
@@ -153,14 +185,32 @@ public class JavaVirtualMachine extends BaseRepeater
      */
     public JavaVirtualMachineHealth health()
     {
+        var health = this.health;
         if (health == null)
         {
-            health = new JavaVirtualMachineHealth();
-            health.update();
+            synchronized (this)
+            {
+                health = this.health;
+                if (health == null)
+                {
+                    health = new JavaVirtualMachineHealth();
+                    health.update();
+                    this.health = health;
+                }
+            }
         }
         return health;
     }
 
+    /**
+     * Sets the {@link Instrumentation} instance to use when sizing objects. An agent can call this from its
+     * <i>premain</i> or <i>agentmain</i> method to get exact object sizes from the virtual machine.
+     */
+    public void instrumentation(Instrumentation instrumentation)
+    {
+        sizer.instrumentation(instrumentation);
+    }
+
     /**
      * Forces properties to reload when they are accessed again
      */
@@ -185,6 +235,37 @@ public class JavaVirtualMachine extends BaseRepeater
         return count(Runtime.getRuntime().availableProcessors());
     }
 
+    /**
+     * Returns the number of bytes of heap used by the given object, not including any objects that it references
+     */
+    public Bytes sizeOf(Object object)
+    {
+        return bytes(sizer.sizeOf(object));
+    }
+
+    /**
+     * Returns the number of bytes of heap used by the given object and all objects that it owns. Transient fields and
+     * fields declared as listeners or broadcasters are not followed, so the audiences of broadcasters and any
+     * components that are referenced are not counted.
+     */
+    public Bytes sizeOfGraph(Object root)
+    {
+        return sizeOfGraph(root, matchAll());
+    }
+
+    /**
+     * Returns the number of bytes of heap used by the given object and all objects that it owns, as in
+     * {@link #sizeOfGraph(Object)}, that can be reached through objects that match the given matcher. Objects that
+     * don't match are not counted, and neither are the objects that can only be reached through them.
+     *
+     * @param root The object to size
+     * @param matcher Matches the objects to include
+     */
+    public Bytes sizeOfGraph(Object root, Matcher<Object> matcher)
+    {
+        return bytes(sizer.sizeOfGraph(root, matcher));
+    }
+
     /**
      * Returns all system properties
      */
@@ -22,6 +22,8 @@ import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.internal.lexakai.DiagramLanguage;
 import com.telenav.kivakit.core.language.reflection.property.IncludeProperty;
 import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.metrics.Counter;
+import com.telenav.kivakit.core.metrics.MetricsRegistry;
 import com.telenav.kivakit.core.string.FormatProperty;
 import com.telenav.kivakit.core.string.ObjectFormatter;
 import com.telenav.kivakit.core.time.Duration;
@@ -30,21 +32,34 @@ import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.Count;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 
+import java.lang.management.ManagementFactory;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
+import static com.telenav.kivakit.core.metrics.MetricsRegistry.metricsRegistry;
 import static com.telenav.kivakit.core.string.ObjectFormatter.ObjectFormat.MULTILINE;
 import static com.telenav.kivakit.core.time.Duration.ZERO_DURATION;
 import static com.telenav.kivakit.core.time.Time.now;
 import static com.telenav.kivakit.core.value.count.Count.count;
 import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+import static java.time.Duration.ZERO;
 
 /**
  * Information about the Java virtual machine that relates to health and resources
  *
+ * <p><b>Metrics</b></p>
+ *
+ * <p>
+ * The {@link MetricsRegistry} returned by {@link #metrics()} holds metrics for the virtual machine, for logging and
+ * for any other code that registers metrics there. Gauges for memory, processors, threads, CPU time and system load
+ * are read when the registry is rendered, so they are always current without calling {@link #update()}. The number
+ * of log entries of each message type is counted in the <i>kivakit_log_entries_total</i> counter.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @SuppressWarnings("unused")
@@ -78,7 +93,30 @@ public class JavaVirtualMachineHealth
     /**
      * Count of messages that have been received for each message type
      */
-    private final Map<String, Integer> messageType = new ConcurrentHashMap<>();
+    private final Map<String, Counter> messageType = new ConcurrentHashMap<>();
+
+    /** Metrics for this virtual machine */
+    private final MetricsRegistry metrics = metricsRegistry();
+
+    public JavaVirtualMachineHealth()
+    {
+        var runtime = Runtime.getRuntime();
+        var threads = ManagementFactory.getThreadMXBean();
+        var system = ManagementFactory.getOperatingSystemMXBean();
+        metrics.gauge("jvm_memory_free_bytes", "Free memory in bytes", runtime::freeMemory);
+        metrics.gauge("jvm_memory_maximum_bytes", "Maximum memory Java will attempt to use in bytes", runtime::maxMemory);
+        metrics.gauge("jvm_memory_total_bytes", "Total memory available to Java in bytes", runtime::totalMemory);
+        metrics.gauge("jvm_memory_used_bytes", "Memory in use in bytes", () -> runtime.totalMemory() - runtime.freeMemory());
+        metrics.gauge("jvm_processors", "Number of available processors", runtime::availableProcessors);
+        metrics.gauge("jvm_threads", "Number of live threads", threads::getThreadCount);
+        metrics.gauge("jvm_uptime_seconds", "Time since Java started in seconds", () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1_000.0);
+        metrics.gauge("process_cpu_seconds", "CPU time used by this process in seconds", () -> ProcessHandle.current()
+                .info()
+                .totalCpuDuration()
+                .orElse(ZERO)
+                .toNanos() / 1E9);
+        metrics.gauge("system_load_average", "System load average over the last minute", system::getSystemLoadAverage);
+    }
 
     /**
      * Returns the percentage of CPU time consumed by the calling thread
@@ -127,9 +165,14 @@ public class JavaVirtualMachineHealth
      */
     public void logEntry(LogEntry entry)
     {
-        var messageType = entry.messageType();
-        var count = this.messageType.getOrDefault(messageType, 0);
-        this.messageType.put(messageType, count + 1);
+        var type = entry.messageType();
+        var counter = messageType.get(type);
+        if (counter == null)
+        {
+            counter = messageType.computeIfAbsent(type, ignored ->
+                    metrics.counter("kivakit_log_entries_total", "Log entries by message type", "type", type));
+        }
+        counter.increment();
     }
 
     /**
@@ -137,8 +180,8 @@ public class JavaVirtualMachineHealth
      */
     public Count loggedMessageCount(String messageType)
     {
-        var count = this.messageType.get(messageType);
-        return count == null ? Count._0 : count(count);
+        var counter = this.messageType.get(messageType);
+        return counter == null ? Count._0 : count(counter.value());
     }
 
     /**
@@ -159,10 +202,23 @@ public class JavaVirtualMachineHealth
         return usedMemory().percentOf(maximumMemory).asZeroToOne();
     }
 
+    /**
+     * Returns the number of messages of each type that have been logged
+     */
     @FormatProperty
-    public Map<String, Integer> messageType()
+    public Map<String, Long> messageType()
+    {
+        var counts = new TreeMap<String, Long>();
+        messageType.forEach((type, counter) -> counts.put(type, counter.value()));
+        return counts;
+    }
+
+    /**
+     * Returns the metrics for this virtual machine
+     */
+    public MetricsRegistry metrics()
     {
-        return messageType;
+        return metrics;
     }
 
     /**
@@ -0,0 +1,404 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.core.vm;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.telenav.kivakit.core.messaging.Broadcaster;
+import com.telenav.kivakit.core.messaging.Listener;
+import com.telenav.kivakit.interfaces.comparison.Matcher;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Estimates the heap footprint of objects and object graphs for {@link JavaVirtualMachine#sizeOf(Object)} and
+ * {@link JavaVirtualMachine#sizeOfGraph(Object, Matcher)}.
+ * </p>
+ *
+ * <p><b>Shallow Sizes</b></p>
+ *
+ * <p>
+ * If an {@link Instrumentation} instance has been supplied by an agent, it gives the size of each object. Otherwise,
+ * the size is computed from the object's fields, using the object header size, reference size and object alignment
+ * of the running virtual machine. These are read from the HotSpot diagnostic bean, or assumed to be those of a
+ * 64-bit virtual machine with compressed pointers if the bean is not available.
+ * </p>
+ *
+ * <p><b>Graph Walks</b></p>
+ *
+ * <p>
+ * Object graphs are walked iteratively, with an identity set of visited objects, so cycles and shared objects are
+ * counted once, and deep graphs do not overflow the stack. Classes, class loaders, threads and enum constants are
+ * shared by the whole virtual machine, so they are not counted. Transient fields and fields declared as listeners or
+ * broadcasters are not followed, since they refer to runtime state and other components rather than to objects owned
+ * by the object being sized. Fields in JDK classes cannot be read without <i>--add-opens</i>, so the contents of JDK
+ * strings, collections and maps are estimated from their lengths and sizes instead, and their elements are walked by
+ * iterating over them.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+final class ObjectSizer
+{
+    /**
+     * The fields of a class that matter for sizing
+     *
+     * @param size The shallow size of an instance of the class
+     * @param references The reference fields that can be read and that refer to objects owned by the instance
+     * @param opaque True if the class or a superclass has reference fields that cannot be read
+     */
+    private record ClassLayout(long size, Field[] references, boolean opaque)
+    {
+    }
+
+    /** The size of an object header */
+    private final int headerSize;
+
+    /** The size of a reference */
+    private final int referenceSize;
+
+    /** The alignment of objects on the heap */
+    private final int alignment;
+
+    /** Any instrumentation supplied by an agent */
+    private volatile Instrumentation instrumentation;
+
+    /** Layouts of the classes that have been sized, held by each class so they don't keep it from being unloaded */
+    private final ClassValue<ClassLayout> layouts = new ClassValue<>()
+    {
+        @Override
+        protected ClassLayout computeValue(Class<?> type)
+        {
+            return computeLayout(type);
+        }
+    };
+
+    ObjectSizer()
+    {
+        var compressedOops = true;
+        var compressedClassPointers = true;
+        var alignment = 8;
+        try
+        {
+            var diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            compressedOops = Boolean.parseBoolean(diagnostics.getVMOption("UseCompressedOops").getValue());
+            compressedClassPointers = Boolean.parseBoolean(diagnostics.getVMOption("UseCompressedClassPointers").getValue());
+            alignment = Integer.parseInt(diagnostics.getVMOption("ObjectAlignmentInBytes").getValue());
+        }
+        catch (Throwable ignored)
+        {
+            // This is not a HotSpot virtual machine, so use the defaults above
+        }
+        this.headerSize = compressedClassPointers ? 12 : 16;
+        this.referenceSize = compressedOops ? 4 : 8;
+        this.alignment = alignment;
+    }
+
+    /**
+     * Sets the instrumentation to use for shallow sizes
+     */
+    void instrumentation(Instrumentation instrumentation)
+    {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Returns the number of bytes used by the given object, not including any objects it references
+     */
+    long sizeOf(Object object)
+    {
+        if (object == null)
+        {
+            return 0;
+        }
+
+        var instrumentation = this.instrumentation;
+        if (instrumentation != null)
+        {
+            return instrumentation.getObjectSize(object);
+        }
+
+        var type = object.getClass();
+        if (type.isArray())
+        {
+            return arraySize(type.getComponentType(), Array.getLength(object));
+        }
+        return layout(type).size();
+    }
+
+    /**
+     * Returns the number of bytes used by the given object and every object it references that matches the given
+     * matcher
+     */
+    long sizeOfGraph(Object root, Matcher<Object> matcher)
+    {
+        var visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        var stack = new ArrayDeque<Object>();
+        var total = 0L;
+
+        // Start with the root object,
+        if (root != null)
+        {
+            visited.add(root);
+            stack.push(root);
+        }
+
+        while (!stack.isEmpty())
+        {
+            // then for each object that is reachable,
+            var object = stack.pop();
+            var type = object.getClass();
+
+            // add its size,
+            total += sizeOf(object);
+
+            // and push the objects it references.
+            if (type.isArray())
+            {
+                if (!type.getComponentType().isPrimitive())
+                {
+                    for (int index = 0, length = Array.getLength(object); index < length; index++)
+                    {
+                        push(stack, visited, Array.get(object, index), matcher);
+                    }
+                }
+            }
+            else
+            {
+                var layout = layout(type);
+                for (var field : layout.references())
+                {
+                    try
+                    {
+                        push(stack, visited, field.get(object), matcher);
+                    }
+                    catch (IllegalAccessException ignored)
+                    {
+                    }
+                }
+
+                // If some of the object's fields could not be read,
+                if (layout.opaque())
+                {
+                    // estimate the contents of the object.
+                    total += contents(stack, visited, object, matcher);
+                }
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the given size rounded up to the object alignment
+     */
+    private long align(long size)
+    {
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Returns the size of an array with the given component type and length
+     */
+    private long arraySize(Class<?> componentType, long length)
+    {
+        var elementSize = fieldSize(componentType);
+        var base = headerSize + 4L;
+        if (elementSize == 8)
+        {
+            base = (base + 7) / 8 * 8;
+        }
+        return align(base + length * elementSize);
+    }
+
+    /**
+     * Returns the estimated size of the contents of the given object, which has fields that cannot be read, pushing
+     * any elements of the object onto the stack
+     */
+    private long contents(ArrayDeque<Object> stack, Set<Object> visited, Object object, Matcher<Object> matcher)
+    {
+        // If the object is a string,
+        if (object instanceof String string)
+        {
+            // then it has a byte array with one byte per character if all characters are Latin-1, or two bytes if not,
+            var latin1 = string.chars().allMatch(character -> character < 256);
+            return arraySize(byte.class, latin1 ? string.length() : string.length() * 2L);
+        }
+
+        // if the object is a map,
+        if (object instanceof Map<?, ?> map)
+        {
+            // then push its keys and values, and estimate its hash table,
+            for (var entry : map.entrySet())
+            {
+                push(stack, visited, entry.getKey(), matcher);
+                push(stack, visited, entry.getValue(), matcher);
+            }
+            return hashTableSize(map.size());
+        }
+
+        // and if it is a collection,
+        if (object instanceof Collection<?> collection)
+        {
+            // push its elements, and estimate its hash table if it is a set, or its array if it is not.
+            for (var element : collection)
+            {
+                push(stack, visited, element, matcher);
+            }
+            return collection instanceof Set
+                ? hashTableSize(collection.size())
+                : arraySize(Object.class, collection.size());
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the size of a field of the given type
+     */
+    private int fieldSize(Class<?> type)
+    {
+        if (type == long.class || type == double.class)
+        {
+            return 8;
+        }
+        if (type == int.class || type == float.class)
+        {
+            return 4;
+        }
+        if (type == short.class || type == char.class)
+        {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class)
+        {
+            return 1;
+        }
+        return referenceSize;
+    }
+
+    /**
+     * Returns the estimated size of a hash table with the given number of entries, including one node per entry
+     */
+    private long hashTableSize(int entries)
+    {
+        if (entries == 0)
+        {
+            return 0;
+        }
+        var capacity = Math.max(16, Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE / 2, entries * 4L / 3)) << 1);
+        var node = align(headerSize + 4 + 3L * referenceSize);
+        return arraySize(Object.class, capacity) + entries * node;
+    }
+
+    /**
+     * Returns true if the given reference field refers to an object that is owned by the object holding it. Transient
+     * fields hold caches and runtime state, such as the audience of a broadcaster, and fields declared as listeners or
+     * broadcasters refer to other components, so neither is owned.
+     */
+    private boolean isOwned(Field field)
+    {
+        var type = field.getType();
+        return !Modifier.isTransient(field.getModifiers())
+            && !(type.isInterface() && (Listener.class.isAssignableFrom(type) || Broadcaster.class.isAssignableFrom(type)));
+    }
+
+    /**
+     * Returns true if objects of the given type are shared by the whole virtual machine, and shouldn't be counted
+     */
+    private boolean isShared(Object object)
+    {
+        return object instanceof Class
+            || object instanceof ClassLoader
+            || object instanceof Thread
+            || object instanceof Enum;
+    }
+
+    /**
+     * Returns the layout of the given class, with its aligned size and the fields that refer to objects it owns
+     */
+    private ClassLayout computeLayout(Class<?> type)
+    {
+        var size = (long) headerSize;
+        var references = new ArrayList<Field>();
+        var opaque = false;
+
+        // Go through the fields of the class and its superclasses,
+        for (var at = type; at != null; at = at.getSuperclass())
+        {
+            for (var field : at.getDeclaredFields())
+            {
+                // and for each instance field,
+                if (!Modifier.isStatic(field.getModifiers()))
+                {
+                    // add its size,
+                    size += fieldSize(field.getType());
+
+                    // and if it is a reference,
+                    if (!field.getType().isPrimitive())
+                    {
+                        // remember it if we can read it and it refers to an owned object.
+                        if (!field.trySetAccessible())
+                        {
+                            opaque = true;
+                        }
+                        else if (isOwned(field))
+                        {
+                            references.add(field);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new ClassLayout(align(size), references.toArray(new Field[0]), opaque);
+    }
+
+    /**
+     * Returns the layout of the given class, computing it if it hasn't been computed yet
+     */
+    private ClassLayout layout(Class<?> type)
+    {
+        return layouts.get(type);
+    }
+
+    /**
+     * Pushes the given object onto the stack if it should be counted and has not been visited yet
+     */
+    private void push(ArrayDeque<Object> stack, Set<Object> visited, Object object, Matcher<Object> matcher)
+    {
+        if (object != null && !isShared(object) && matcher.matches(object) && visited.add(object))
+        {
+            stack.push(object);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.benchmarks.core.logging;
+
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.binary.BinaryLogWriter;
+import com.telenav.kivakit.core.logging.logs.text.LogFormatter;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogWriter.binaryLogWriter;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.NARROW;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.bufferedLogFormatter;
+
+/**
+ * Compares the cost of formatting a new log entry as text with the cost of writing it with {@link BinaryLogWriter},
+ * which defers formatting. Run with the GC profiler to see the allocation rate of each:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package
+ * java -jar kivakit-internal/benchmarks/target/benchmarks.jar BinaryLogBenchmark -prof gc
+ * </pre>
+ *
+ * @author jonathanl (shibo)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryLogBenchmark
+{
+    private LoggerCodeContext context;
+
+    private LogFormatter formatter;
+
+    private int index;
+
+    private BinaryLogWriter writer;
+
+    @Benchmark
+    public void binary() throws IOException
+    {
+        writer.write(entry());
+    }
+
+    @Setup
+    public void setup() throws IOException
+    {
+        context = new LoggerCodeContext("BinaryLogBenchmark");
+        formatter = bufferedLogFormatter(NARROW);
+        writer = binaryLogWriter(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void text(Blackhole blackhole)
+    {
+        blackhole.consume(formatter.format(entry()));
+    }
+
+    private LogEntry entry()
+    {
+        index++;
+        return new LogEntry(null, context, Thread.currentThread(),
+                new Information("Processed $ of $ records from $ in ${long} ms", index, 1_000_000, "cache", index * 3L));
+    }
+}
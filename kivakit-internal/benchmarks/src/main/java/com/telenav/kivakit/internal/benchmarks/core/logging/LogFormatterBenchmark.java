@@ -0,0 +1,134 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.benchmarks.core.logging;
+
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.text.LogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.NarrowLogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.NARROW;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.WIDE;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.bufferedLogFormatter;
+
+/**
+ * Compares the cost of formatting log entries with {@link NarrowLogFormatter} and {@link WideLogFormatter} with the
+ * cost of formatting them with {@link BufferedLogFormatter}. Run with the GC profiler to see the allocation rate of
+ * each formatter:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package
+ * java -jar kivakit-internal/benchmarks/target/benchmarks.jar LogFormatterBenchmark -prof gc
+ * </pre>
+ *
+ * @author jonathanl (shibo)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogFormatterBenchmark
+{
+    /** A mix of short, multi-line and wrapped log entries */
+    private LogEntry[] entries;
+
+    private LogFormatter bufferedNarrow;
+
+    private LogFormatter bufferedWide;
+
+    private LogFormatter narrow;
+
+    private LogFormatter wide;
+
+    @Benchmark
+    public void bufferedNarrow(Blackhole blackhole)
+    {
+        format(bufferedNarrow, blackhole);
+    }
+
+    @Benchmark
+    public void bufferedWide(Blackhole blackhole)
+    {
+        format(bufferedWide, blackhole);
+    }
+
+    @Benchmark
+    public void narrow(Blackhole blackhole)
+    {
+        format(narrow, blackhole);
+    }
+
+    @Setup
+    public void setup()
+    {
+        narrow = new NarrowLogFormatter();
+        wide = new WideLogFormatter();
+        bufferedNarrow = bufferedLogFormatter(NARROW);
+        bufferedWide = bufferedLogFormatter(WIDE);
+
+        var context = new LoggerCodeContext("LogFormatterBenchmark");
+        var thread = Thread.currentThread();
+        entries = new LogEntry[]
+                {
+                        new LogEntry(null, context, thread, new Information("Loaded 1,024 objects from cache")),
+                        new LogEntry(null, context, thread, new Information("Starting server on port 8080")),
+                        new LogEntry(null, context, thread, new Information("Request failed:\n  at one\n  at two")),
+                        new LogEntry(null, context, thread, new Information("Long message ".repeat(20))),
+                };
+
+        // Format each entry once, so the message text is cached in the entry and only formatting is measured
+        for (var entry : entries)
+        {
+            entry.formattedMessage();
+        }
+    }
+
+    @Benchmark
+    public void wide(Blackhole blackhole)
+    {
+        format(wide, blackhole);
+    }
+
+    private void format(LogFormatter formatter, Blackhole blackhole)
+    {
+        for (var entry : entries)
+        {
+            blackhole.consume(formatter.format(entry));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.benchmarks.core.value.count;
+
+import com.telenav.kivakit.core.progress.ProgressReporter;
+import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.core.value.count.MutableCount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.telenav.kivakit.core.progress.reporters.BroadcastingProgressReporter.progressReporter;
+import static com.telenav.kivakit.core.value.count.Bytes.bytes;
+import static com.telenav.kivakit.core.value.count.Count.count;
+
+/**
+ * Measures the cost of creating and doing arithmetic with {@link Count} and {@link Bytes} objects, and of reporting
+ * progress in chunks. Run with the GC profiler to see the allocation rate of each benchmark:
+ *
+ * <pre>
+ * mvn -Pbenchmarks package
+ * java -jar kivakit-internal/benchmarks/target/benchmarks.jar CountBenchmark -prof gc
+ * </pre>
+ * <p>
+ * The <i>gc.alloc.rate.norm</i> column shows the bytes allocated per operation. Running the same jar against an older
+ * kivakit-core shows the allocation rate before a change.
+ *
+ * @author jonathanl (shibo)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountBenchmark
+{
+    /** Number of values used by each operation */
+    private static final int VALUES = 1_024;
+
+    /** Counts between 65,536 and 262,144, which are cached lazily */
+    private long[] mediumValues;
+
+    /** Byte counts below 65,536, which are cached */
+    private long[] smallValues;
+
+    private ProgressReporter reporter;
+
+    @Benchmark
+    public void bytesPlus(Blackhole blackhole)
+    {
+        var total = Bytes._0;
+        for (var value : smallValues)
+        {
+            total = total.plus(value % 16);
+        }
+        blackhole.consume(total);
+    }
+
+    @Benchmark
+    public void bytesSmall(Blackhole blackhole)
+    {
+        for (var value : smallValues)
+        {
+            blackhole.consume(bytes(value));
+        }
+    }
+
+    @Benchmark
+    public void countIncremented(Blackhole blackhole)
+    {
+        var count = count(100_000);
+        for (var i = 0; i < VALUES; i++)
+        {
+            count = count.incremented();
+        }
+        blackhole.consume(count);
+    }
+
+    @Benchmark
+    public void countMedium(Blackhole blackhole)
+    {
+        for (var value : mediumValues)
+        {
+            blackhole.consume(count(value));
+        }
+    }
+
+    @Benchmark
+    public void mutableCountAccumulate(Blackhole blackhole)
+    {
+        var total = new MutableCount();
+        for (var value : mediumValues)
+        {
+            total.plus(value);
+        }
+        blackhole.consume(total.asLong());
+    }
+
+    @Benchmark
+    public void progressNextCount()
+    {
+        for (var value : smallValues)
+        {
+            reporter.next(count(value));
+        }
+    }
+
+    @Benchmark
+    public void progressNextLong()
+    {
+        for (var value : smallValues)
+        {
+            reporter.next(value);
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        smallValues = new long[VALUES];
+        mediumValues = new long[VALUES];
+        for (var i = 0; i < VALUES; i++)
+        {
+            smallValues[i] = (i * 61L) % 65_536;
+            mediumValues[i] = 65_537 + (i * 173L) % 190_000;
+        }
+        reporter = progressReporter();
+    }
+}
@@ -0,0 +1,82 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.collections;
+
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.telenav.kivakit.core.collections.list.ObjectList.list;
+import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+
+public class CollectionQueryTest extends CoreUnitTest
+{
+    @Test
+    public void testLaziness()
+    {
+        // Build a query,
+        var values = list(1, 2, 3);
+        var query = values.query().map(value -> value * 10);
+
+        // then change the source before evaluating it.
+        values.add(4);
+        ensureEqual(list(10, 20, 30, 40), query.asList());
+        ensureEqual(4, query.count().asInt());
+    }
+
+    @Test
+    public void testParallel()
+    {
+        var values = new ObjectList<Integer>();
+        for (var index = 0; index < 100_000; index++)
+        {
+            values.add(index);
+        }
+        var evens = values.query()
+            .parallel()
+            .matching(value -> value % 2 == 0)
+            .asList();
+        ensureEqual(50_000, evens.size());
+        ensureEqual(0, evens.first());
+        ensureEqual(99_998, evens.last());
+    }
+
+    @Test
+    public void testStages()
+    {
+        var values = list(5, 1, 4, 1, 3, 9, 2, 6);
+        var result = values.query()
+            .matching(value -> value > 1)
+            .without(List.of(4, 9))
+            .map(value -> value * 2)
+            .distinct()
+            .limit(maximum(3))
+            .asList();
+        ensureEqual(list(10, 6, 4), result);
+
+        ensureEqual(list(1, 1, 2, 2), list(1, 2).query().flatMap(value -> List.of(value, value)).asList());
+        ensureEqual(Set.of(1, 2), list(1, 2, 2, 1).query().asSet());
+        ensureEqual(5, values.query().first());
+        ensure(values.query().anyMatch(value -> value == 9));
+        ensureEqual(list(5, 1, 1, 3, 2, 6), values.without(new Integer[] { 4, 9 }));
+    }
+}
@@ -0,0 +1,76 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.collections.map;
+
+import com.telenav.kivakit.core.collections.map.ConcurrentCountMap;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+
+public class ConcurrentCountMapTest extends CoreUnitTest
+{
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException
+    {
+        var counts = new ConcurrentCountMap<String>();
+        var threads = new ArrayList<Thread>();
+        for (var thread = 0; thread < 8; thread++)
+        {
+            var counter = new Thread(() ->
+            {
+                for (var index = 0; index < 10_000; index++)
+                {
+                    counts.increment("key-" + index % 10);
+                }
+            });
+            counter.start();
+            threads.add(counter);
+        }
+        for (var thread : threads)
+        {
+            thread.join();
+        }
+
+        ensureEqual(10, counts.size());
+        ensureEqual(80_000L, counts.total());
+        ensureEqual(8_000, counts.count("key-3").asInt());
+        ensureEqual(80_000L, counts.snapshot().total());
+    }
+
+    @Test
+    public void testViews()
+    {
+        var counts = new ConcurrentCountMap<String>();
+        counts.plus("a", 5);
+        counts.plus("b", 3);
+        counts.plus("c", 1);
+        counts.decrement("a");
+
+        ensureEqual(4, counts.count("a").asInt());
+        ensureEqual(0, counts.count("z").asInt());
+        ensureEqual("a", counts.top(maximum(1)).maximum());
+        ensureEqual("c", counts.bottom(maximum(1)).minimum());
+        ensureEqual("a", counts.descendingEntries(maximum(3)).get(0).getKey());
+        ensureEqual(2, counts.descendingEntries(maximum(2)).size());
+        ensureEqual(8L, counts.snapshot(key -> "all").count("all").asLong());
+    }
+}
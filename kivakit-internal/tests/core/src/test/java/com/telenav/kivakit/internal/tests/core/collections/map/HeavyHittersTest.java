@@ -0,0 +1,74 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.collections.map;
+
+import com.telenav.kivakit.core.collections.map.HeavyHitters;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+
+public class HeavyHittersTest extends CoreUnitTest
+{
+    @Test
+    public void testExact()
+    {
+        // With room for every key, counts are exact
+        var sketch = HeavyHitters.<String>heavyHitters(maximum(10));
+        sketch.plus("a", 3);
+        sketch.increment("b");
+        sketch.increment("a");
+        ensureEqual(4, sketch.count("a").asInt());
+        ensureEqual(1, sketch.count("b").asInt());
+        ensureEqual(0, sketch.error("a").asInt());
+        ensureEqual(5L, sketch.total());
+    }
+
+    @Test
+    public void testHeavyHitters()
+    {
+        // Mix a few frequent keys into many rare keys,
+        var sketch = HeavyHitters.<String>heavyHitters(maximum(20));
+        var random = new Random(7);
+        for (var index = 0; index < 100_000; index++)
+        {
+            if (index % 4 == 0)
+            {
+                sketch.increment("frequent-" + random.nextInt(3));
+            }
+            else
+            {
+                sketch.increment("rare-" + random.nextInt(1_000_000));
+            }
+        }
+
+        // then check that the sketch is bounded and the frequent keys are on top.
+        ensureEqual(20, sketch.size());
+        ensureEqual(100_000L, sketch.total());
+        var top = sketch.top(maximum(3));
+        ensureEqual(3, top.size());
+        for (var key : top.keySet())
+        {
+            ensure(key.startsWith("frequent-"));
+            ensure(sketch.count(key).asLong() >= 8_000);
+        }
+    }
+}
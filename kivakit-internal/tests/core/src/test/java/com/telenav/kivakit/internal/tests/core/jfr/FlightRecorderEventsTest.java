@@ -0,0 +1,134 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.jfr;
+
+import com.telenav.kivakit.core.messaging.broadcasters.Multicaster;
+import com.telenav.kivakit.core.thread.Batcher;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class FlightRecorderEventsTest extends CoreUnitTest
+{
+    @Test
+    public void testBatch() throws IOException
+    {
+        var events = record(() ->
+        {
+            var batcher = Batcher.<Integer>batcher()
+                .withName("FlightRecorderBatcher")
+                .withBatchSize(Count._10)
+                .withQueueSize(Count._100)
+                .withConsumer(batch ->
+                {
+                });
+            batcher.start(Count._1);
+            var adder = batcher.adder();
+            for (var i = 0; i < 25; i++)
+            {
+                adder.add(i);
+            }
+            batcher.stop();
+        }, "kivakit.Batch");
+
+        var batches = events.stream()
+            .filter(event -> "FlightRecorderBatcher".equals(event.getString("batcher")))
+            .toList();
+        ensureEqual(25L, batches.stream().mapToLong(event -> event.getInt("size")).sum());
+    }
+
+    @Test
+    public void testConfiguration() throws IOException, ParseException
+    {
+        var input = getClass().getResourceAsStream("/com/telenav/kivakit/core/internal/jfr/kivakit.jfc");
+        ensure(input != null);
+        try (var reader = new InputStreamReader(Objects.requireNonNull(input), UTF_8))
+        {
+            var settings = Configuration.create(reader).getSettings();
+            for (var name : List.of("kivakit.Transmit", "kivakit.LogEnqueue", "kivakit.LogDispatch", "kivakit.Batch"))
+            {
+                ensureEqual("true", settings.get(name + "#enabled"));
+            }
+        }
+    }
+
+    @Test
+    public void testTransmit() throws IOException
+    {
+        var events = record(() ->
+        {
+            var broadcaster = new Multicaster("FlightRecorderBroadcaster", getClass());
+            broadcaster.addListener(message ->
+            {
+            });
+            broadcaster.addListener(message ->
+            {
+            });
+            broadcaster.information("Test");
+        }, "kivakit.Transmit");
+
+        var transmits = events.stream()
+            .filter(event -> "FlightRecorderBroadcaster".equals(event.getString("broadcaster")))
+            .toList();
+        ensureEqual(1, transmits.size());
+        ensureEqual("Information", transmits.get(0).getString("messageType"));
+        ensureEqual(2, transmits.get(0).getInt("audienceSize"));
+    }
+
+    /**
+     * Runs the given code while recording the given event with no threshold, and returns the events that were recorded
+     */
+    private List<RecordedEvent> record(Runnable code, String eventName) throws IOException
+    {
+        var file = Files.createTempFile("kivakit-", ".jfr");
+        try
+        {
+            try (var recording = new Recording())
+            {
+                recording.enable(eventName).withThreshold(Duration.ZERO);
+                recording.start();
+                code.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file)
+                .stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+        }
+    }
+}
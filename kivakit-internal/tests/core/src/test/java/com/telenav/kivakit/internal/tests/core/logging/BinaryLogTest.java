@@ -0,0 +1,247 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.tests.core.logging;
+
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter;
+import com.telenav.kivakit.core.messaging.Message;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import com.telenav.kivakit.core.messaging.messages.status.Problem;
+import com.telenav.kivakit.core.messaging.messages.status.Warning;
+import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogReader.binaryLogReader;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogWriter.binaryLogWriter;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter.TimeType.ABSOLUTE_TIME;
+import static com.telenav.kivakit.core.value.count.Bytes.megabytes;
+
+public class BinaryLogTest extends CoreUnitTest
+{
+    /**
+     * A stream that throws an exception when it is written to while failing
+     */
+    private static class FailingOutputStream extends OutputStream
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        boolean failing;
+
+        @Override
+        public void write(int value) throws IOException
+        {
+            write(new byte[] { (byte) value }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException
+        {
+            if (failing)
+            {
+                throw new IOException("Failing");
+            }
+            this.bytes.write(bytes, offset, length);
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException
+    {
+        var entries = new ArrayList<LogEntry>();
+        for (var index = 0; index < 1_000; index++)
+        {
+            entries.add(entry(new Information("Processed $ of $ records in ${long} ms", index, 1_000, index * 3L)));
+        }
+        var formatter = formatter();
+        var text = 0;
+        for (var entry : entries)
+        {
+            text += formatter.format(entry).length();
+        }
+        ensure(write(entries).length * 8 < text);
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        ensureEqual(0, read(write(List.of())).size());
+    }
+
+    @Test
+    public void testFailedWrites() throws IOException
+    {
+        var out = new FailingOutputStream();
+        try (var writer = binaryLogWriter(out))
+        {
+            // Fail to write an entry because the stream fails,
+            out.failing = true;
+            try
+            {
+                writer.write(entry(new Information("First $", 1)));
+                fail("Expected an exception");
+            }
+            catch (IOException ignored)
+            {
+            }
+            out.failing = false;
+
+            // and because an argument can't be converted to text,
+            try
+            {
+                writer.write(entry(new Information("Unconvertible $", new Object()
+                {
+                    @Override
+                    public String toString()
+                    {
+                        throw new IllegalStateException("Unconvertible");
+                    }
+                })));
+                fail("Expected an exception");
+            }
+            catch (IllegalStateException ignored)
+            {
+            }
+
+            // then write entries that use the same strings.
+            writer.write(entry(new Information("First $", 2)));
+            writer.write(entry(new Information("Unconvertible $", 3)));
+        }
+
+        // The entries that were written should decode, with the strings they use defined.
+        var decoded = read(out.bytes.toByteArray());
+        ensureEqual(2, decoded.size());
+        ensureEqual("First 2", decoded.get(0).formattedMessage());
+        ensureEqual("Unconvertible 3", decoded.get(1).formattedMessage());
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        try
+        {
+            binaryLogReader(new ByteArrayInputStream(new byte[] { 'N', 'O', 'P', 'E', 1 }));
+            fail("Expected an exception");
+        }
+        catch (IOException ignored)
+        {
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        var variables = new VariableMap<String>();
+        variables.put("name", "value");
+
+        var entries = List.of(
+                entry(new Information("No arguments")),
+                entry(new Information("Integers $ $ $ $", 1, -1_234_567, (short) 7, (byte) -3)),
+                entry(new Information("Longs $ and ${long} and ${hex}", Long.MAX_VALUE, Long.MIN_VALUE, 255L)),
+                entry(new Warning("Floats ${float} and ${double}", 1.5f, -2.25)),
+                entry(new Warning("Flags $ ${string} and character $", true, false, 'x')),
+                entry(new Information("Strings '$', ${lower}, ${upper}, ${left}|${right}|", "plain", "LOWER", "upper", "left", "right")),
+                entry(new Information("Objects $ and ${integer}", megabytes(3), Bytes.bytes(17))),
+                entry(new Information("Null $", (Object) null)),
+                entry(new Problem("Escaped $$ and ${nowrap}unwrapped $", "text")),
+                entry(new Information("Class ${class}", String.class)),
+                entry(new Information("Debug ${debug} and object ${object}", "a", "b")),
+                entry(new Information("Variables ${name}", variables)),
+                entry(new Information("Too many arguments $", 1, 2)),
+                entry(new Information("Unclosed ${string", 1)),
+                entry(new Information("Unicode é世 $", "😀")));
+
+        var decoded = read(write(entries));
+        ensureEqual(entries.size(), decoded.size());
+
+        var formatter = formatter();
+        for (var index = 0; index < entries.size(); index++)
+        {
+            var expected = entries.get(index);
+            var actual = decoded.get(index);
+            ensureEqual(expected.formattedMessage(), actual.formattedMessage());
+            ensureEqual(expected.messageType(), actual.messageType());
+            ensureEqual(expected.threadName(), actual.threadName());
+            ensureEqual(expected.context().typeName(), actual.context().typeName());
+            ensureEqual(expected.sequenceNumber(), actual.sequenceNumber());
+            ensureEqual(expected.message().created().epochMilliseconds(), actual.message().created().epochMilliseconds());
+            ensureEqual(expected.severity(), actual.severity());
+            ensureEqual(formatter.format(expected), formatter.format(actual));
+        }
+    }
+
+    @Test
+    public void testTruncated() throws IOException
+    {
+        var entries = List.of(entry(new Information("First $", 1)), entry(new Information("Second $", 2)));
+        var bytes = write(entries);
+
+        // A log that ends part way through an entry ends at the last complete entry
+        var truncated = new byte[bytes.length - 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        var decoded = read(truncated);
+        ensureEqual(1, decoded.size());
+        ensureEqual("First 1", decoded.get(0).formattedMessage());
+    }
+
+    private LogEntry entry(Message message)
+    {
+        return new LogEntry(null, new LoggerCodeContext("BinaryLogTest"), Thread.currentThread(), message);
+    }
+
+    private WideLogFormatter formatter()
+    {
+        var formatter = new WideLogFormatter();
+        formatter.timeType(ABSOLUTE_TIME);
+        return formatter;
+    }
+
+    private List<LogEntry> read(byte[] bytes) throws IOException
+    {
+        var entries = new ArrayList<LogEntry>();
+        try (var reader = binaryLogReader(new ByteArrayInputStream(bytes)))
+        {
+            reader.forEach(entries::add);
+        }
+        return entries;
+    }
+
+    private byte[] write(List<LogEntry> entries) throws IOException
+    {
+        var out = new ByteArrayOutputStream();
+        try (var writer = binaryLogWriter(out))
+        {
+            for (var entry : entries)
+            {
+                writer.write(entry);
+            }
+        }
+        return out.toByteArray();
+    }
+}
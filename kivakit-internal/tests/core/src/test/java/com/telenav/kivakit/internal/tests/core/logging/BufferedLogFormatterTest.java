@@ -0,0 +1,80 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.tests.core.logging;
+
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.text.LogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.NarrowLogFormatter;
+import com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import com.telenav.kivakit.core.messaging.messages.status.Warning;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.NARROW;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.Layout.WIDE;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.BufferedLogFormatter.bufferedLogFormatter;
+import static com.telenav.kivakit.core.logging.logs.text.formatters.WideLogFormatter.TimeType.ABSOLUTE_TIME;
+
+public class BufferedLogFormatterTest extends CoreUnitTest
+{
+    @Test
+    public void testNarrow()
+    {
+        check(new NarrowLogFormatter(), bufferedLogFormatter(NARROW));
+    }
+
+    @Test
+    public void testWide()
+    {
+        var wide = new WideLogFormatter();
+        wide.timeType(ABSOLUTE_TIME);
+        check(wide, bufferedLogFormatter(WIDE).timeType(ABSOLUTE_TIME));
+    }
+
+    private void check(LogFormatter expected, LogFormatter formatter)
+    {
+        var shortThread = new Thread("main");
+        var longThread = new Thread("a-thread-with-a-name-that-is-longer-than-the-column");
+        var context = new LoggerCodeContext("BufferedLogFormatterTest");
+        var longContext = new LoggerCodeContext("AVeryLongCodeContextNameThatMustBeClipped");
+
+        var entries = new LogEntry[]
+                {
+                        new LogEntry(null, context, shortThread, new Information("Short message")),
+                        new LogEntry(null, context, shortThread, new Information("")),
+                        new LogEntry(null, longContext, longThread, new Warning("First line\nSecond line\n\nFourth line")),
+                        new LogEntry(null, context, longThread, new Information("x".repeat(450))),
+                        new LogEntry(null, context, shortThread, new Information("y".repeat(120) + "\n" + "z".repeat(30))),
+                        new LogEntry(null, longContext, shortThread, new Warning("Message ${nowrap}that is not wrapped " + "w".repeat(200))),
+                        new LogEntry(null, context, shortThread, new Information("After widening")),
+                };
+
+        // Format each entry twice, so column widths have changed the second time
+        for (var pass = 0; pass < 2; pass++)
+        {
+            for (var entry : entries)
+            {
+                ensureEqual(expected.format(entry), formatter.format(entry));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.metrics;
+
+import com.telenav.kivakit.core.metrics.Counter;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static com.telenav.kivakit.core.metrics.MetricsRegistry.metricsRegistry;
+
+public class MetricsRegistryTest extends CoreUnitTest
+{
+    @Test
+    public void testConcurrentCounting() throws Exception
+    {
+        var registry = metricsRegistry();
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 8; i++)
+        {
+            threads.add(new Thread(() ->
+            {
+                for (var j = 0; j < 10_000; j++)
+                {
+                    // Looking up the counter each time also tests concurrent registration
+                    registry.counter("events_total", "Events", "kind", "test").increment();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads)
+        {
+            thread.join();
+        }
+        var counter = (Counter) registry.metric("events_total", "kind", "test");
+        ensureEqual(80_000L, counter.value());
+    }
+
+    @Test
+    public void testCounter()
+    {
+        var registry = metricsRegistry();
+        var counter = registry.counter("requests_total", "Requests");
+        counter.increment();
+        counter.add(4);
+        ensureEqual(5L, counter.value());
+        ensure(counter == registry.counter("requests_total", "Requests"));
+        ensureThrows(() -> counter.add(-1));
+    }
+
+    @Test
+    public void testEscaping()
+    {
+        var registry = metricsRegistry();
+        registry.counter("files_total", "Files in \\ folders\nby path", "path", "C:\\data \"new\"\n").increment();
+        var text = registry.asPrometheusText();
+        ensure(text.contains("# HELP files_total Files in \\\\ folders\\nby path\n"));
+        ensure(text.contains("files_total{path=\"C:\\\\data \\\"new\\\"\\n\"} 1\n"));
+    }
+
+    @Test
+    public void testGauge()
+    {
+        var registry = metricsRegistry();
+        var value = new double[] { 1.5 };
+        registry.gauge("temperature", "Temperature", () -> value[0]);
+        ensure(registry.asPrometheusText().contains("temperature 1.5\n"));
+        value[0] = 2;
+        ensure(registry.asPrometheusText().contains("temperature 2\n"));
+        registry.gauge("broken", "Broken", () ->
+        {
+            throw new IllegalStateException();
+        });
+        ensure(registry.asPrometheusText().contains("broken NaN\n"));
+    }
+
+    @Test
+    public void testHistogram()
+    {
+        var registry = metricsRegistry();
+        var histogram = registry.histogram("size", "Sizes", new double[] { 1, 5 });
+        histogram.observe(0.5);
+        histogram.observe(1);
+        histogram.observe(3);
+        histogram.observe(7);
+        ensureEqual(2L, histogram.bucketCount(0));
+        ensureEqual(1L, histogram.bucketCount(1));
+        ensureEqual(1L, histogram.bucketCount(2));
+        ensureEqual(4L, histogram.count());
+        ensureEqual(11.5, histogram.sum());
+
+        var text = registry.asPrometheusText();
+        ensureEqual("""
+            # HELP size Sizes
+            # TYPE size histogram
+            size_bucket{le="1"} 2
+            size_bucket{le="5"} 3
+            size_bucket{le="+Inf"} 4
+            size_sum 11.5
+            size_count 4
+            """, text);
+    }
+
+    @Test
+    public void testLabels()
+    {
+        var registry = metricsRegistry();
+        registry.counter("hits_total", "Hits", "page", "a").add(2);
+        registry.counter("hits_total", "Hits", "page", "b").add(3);
+        ensureEqual("""
+            # HELP hits_total Hits
+            # TYPE hits_total counter
+            hits_total{page="a"} 2
+            hits_total{page="b"} 3
+            """, registry.asPrometheusText());
+        ensureThrows(() -> registry.counter("bad name", "Bad"));
+        ensureThrows(() -> registry.counter("hits_total", "Hits", "page"));
+    }
+
+    @Test
+    public void testTimer()
+    {
+        var registry = metricsRegistry();
+        var timer = registry.timer("work_seconds", "Work");
+        timer.time(() -> Math.sqrt(2));
+        ensureEqual(1L, timer.count());
+        ensure(timer.sum() >= 0);
+    }
+
+    @Test
+    public void testTypeConflict()
+    {
+        var registry = metricsRegistry();
+        registry.counter("things", "Things");
+        ensureThrows(() -> registry.timer("things", "Things"));
+        ensureThrows(() -> registry.gauge("things", "Things", () -> 1));
+
+        // The counter is still registered after the conflicting gauge is rejected
+        ensure(registry.metric("things") instanceof Counter);
+    }
+}
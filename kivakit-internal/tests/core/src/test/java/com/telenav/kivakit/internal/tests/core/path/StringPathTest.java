@@ -40,6 +40,31 @@ public class StringPathTest extends CoreUnitTest
         ensureEqual(":a:b", StringPath.parseStringPath(this, ":a:b", ":", ":").withSeparator(":").toString());
     }
 
+    @Test
+    public void testStructuralSharing()
+    {
+        var path = slashPath("a/b/c");
+        var child = path.withChild("d");
+        ensureEqual("a/b/c", path.toString());
+        ensureEqual("a/b/c/d", child.toString());
+        ensureEqual(path, child.withoutLast());
+        ensureEqual(path.hashCode(), child.withoutLast().hashCode());
+        ensureEqual(path, child.parent());
+        ensure(child.startsWith(path));
+        ensure(child.endsWith(slashPath("c/d")));
+        ensure(!child.endsWith(slashPath("b/d")));
+        ensureEqual("b/c", child.subpath(1, 3).toString());
+        ensureEqual("x/a/b/c", path.withParent("x").toString());
+        ensureEqual("A/B/C", path.transformed(String::toUpperCase).toString());
+
+        var pushed = path.copy();
+        pushed.push("e");
+        ensureEqual("a/b/c/e", pushed.toString());
+        ensureEqual("a/b/c", path.toString());
+        ensureEqual("e", pushed.pop());
+        ensureEqual(path, pushed);
+    }
+
     private StringPath absoluteSlashPath(String path)
     {
         return StringPath.parseStringPath(this, path, "/", "/");
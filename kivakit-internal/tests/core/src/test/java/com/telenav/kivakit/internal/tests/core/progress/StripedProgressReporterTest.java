@@ -0,0 +1,141 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.progress;
+
+import com.telenav.kivakit.core.progress.ProgressListener;
+import com.telenav.kivakit.core.progress.reporters.ProgressiveOutputStream;
+import com.telenav.kivakit.core.progress.reporters.StripedProgressReporter;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.telenav.kivakit.core.messaging.Listener.nullListener;
+import static com.telenav.kivakit.core.progress.reporters.BroadcastingProgressReporter.progressReporter;
+import static com.telenav.kivakit.core.progress.reporters.StripedProgressReporter.stripedProgressReporter;
+import static com.telenav.kivakit.core.time.Duration.milliseconds;
+import static com.telenav.kivakit.core.value.count.Count.count;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class StripedProgressReporterTest extends CoreUnitTest
+{
+    @Test
+    public void testBulkWrites() throws IOException
+    {
+        var reporter = progressReporter();
+        try (var output = new ProgressiveOutputStream(new ByteArrayOutputStream(), reporter))
+        {
+            output.write(new byte[100]);
+            output.write(new byte[100], 10, 50);
+            output.write(1);
+        }
+        ensureEqual(151L, reporter.at().asLong());
+    }
+
+    @Test
+    public void testConcurrentSteps() throws InterruptedException
+    {
+        // Create a reporter that ticks quickly and signals when it reaches 100%,
+        var done = new CountDownLatch(1);
+        var reporter = ((StripedProgressReporter) stripedProgressReporter(nullListener(), "items", count(80_000)))
+            .withInterval(milliseconds(10));
+        reporter.progressReporter((ProgressListener) percent ->
+        {
+            if (percent.asInt() == 100)
+            {
+                done.countDown();
+            }
+        });
+
+        // start it, step through the operation on several threads,
+        reporter.start();
+        var threads = new ArrayList<Thread>();
+        for (var thread = 0; thread < 8; thread++)
+        {
+            var stepper = new Thread(() ->
+            {
+                for (var index = 0; index < 10_000; index++)
+                {
+                    reporter.next();
+                }
+            });
+            stepper.start();
+            threads.add(stepper);
+        }
+        for (var thread : threads)
+        {
+            thread.join();
+        }
+
+        // and check that every step was counted and the timer ended the operation.
+        ensureEqual(80_000L, reporter.at().asLong());
+        ensure(done.await(10, SECONDS));
+    }
+
+    @Test
+    public void testRemainingTimeIsOptional()
+    {
+        var reporter = progressReporter(nullListener(), "items", count(100));
+        reporter.next(10);
+        ensure(!reporter.toString().contains("remaining"));
+        ensure(reporter.withRemainingTime().toString().contains("remaining"));
+    }
+
+    @Test
+    public void testTicksOnlyWhileStarted() throws InterruptedException
+    {
+        // Create a reporter that ticks quickly and counts its reports of progress,
+        var reports = new AtomicInteger();
+        var reporter = ((StripedProgressReporter) stripedProgressReporter(nullListener(), "items", count(1_000)))
+            .withInterval(milliseconds(5));
+        reporter.progressReporter((ProgressListener) percent ->
+        {
+            if (percent.asInt() > 0)
+            {
+                reports.incrementAndGet();
+            }
+        });
+
+        // check that it doesn't report before it is started,
+        reporter.next(10);
+        Thread.sleep(100);
+        ensureEqual(0, reports.get());
+
+        // that it reports after it is started,
+        reporter.start();
+        reporter.next(10);
+        var waited = 0;
+        while (reports.get() == 0 && waited++ < 200)
+        {
+            Thread.sleep(10);
+        }
+        ensure(reports.get() > 0);
+
+        // and that it stops reporting when it ends.
+        reporter.end();
+        var ended = reports.get();
+        reporter.next(100);
+        Thread.sleep(100);
+        ensureEqual(ended, reports.get());
+    }
+}
@@ -25,6 +25,7 @@ import org.junit.Test;
 
 import static com.telenav.kivakit.core.messaging.context.CallStack.Matching.EXACT;
 import static com.telenav.kivakit.core.messaging.context.CallStack.Matching.SUBCLASS;
+import static com.telenav.kivakit.core.messaging.context.CallStack.Proximity.DISTANT;
 import static com.telenav.kivakit.core.messaging.context.CallStack.Proximity.IMMEDIATE;
 
 public class CallStackTest extends CoreUnitTest
@@ -47,6 +48,24 @@ public class CallStackTest extends CoreUnitTest
         {
             return CallStack.callerOf(IMMEDIATE, SUBCLASS, TestInterface.class).parentType().asJavaType();
         }
+
+        public Class<?> testCallerClass()
+        {
+            return CallStack.callerClassOf(IMMEDIATE, EXACT, Nested.class);
+        }
+
+        public Class<?> testDistant()
+        {
+            return new Inner().caller();
+        }
+    }
+
+    public static class Inner
+    {
+        public Class<?> caller()
+        {
+            return CallStack.callerClassOf(DISTANT, EXACT, Inner.class, EXACT, Nested.class);
+        }
     }
 
     @Test
@@ -54,5 +73,19 @@ public class CallStackTest extends CoreUnitTest
     {
         Assert.assertEquals(CallStackTest.class, new Nested().testSubClass());
         Assert.assertEquals(CallStackTest.class, new Nested().testExact());
+        Assert.assertEquals(CallStackTest.class, new Nested().testCallerClass());
+        Assert.assertEquals(CallStackTest.class, new Nested().testDistant());
+    }
+
+    @Test
+    public void testCallstack()
+    {
+        var stack = CallStack.callstack();
+        Assert.assertEquals(CallStack.class, stack.get(0).parentType().asJavaType());
+        Assert.assertEquals(CallStackTest.class, stack.get(1).parentType().asJavaType());
+        Assert.assertEquals("testCallstack", stack.get(1).name());
+
+        // Methods are memoized by class and name
+        Assert.assertSame(stack.get(1), CallStack.callstack().get(1));
     }
 }
@@ -0,0 +1,176 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.core.time;
+
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.internal.testing.CoreUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static com.telenav.kivakit.core.time.Duration.ZERO_DURATION;
+import static com.telenav.kivakit.core.time.Duration.milliseconds;
+import static com.telenav.kivakit.core.time.LatencyHistogram.latencyHistogram;
+import static com.telenav.kivakit.core.time.LatencyRecorder.latencyRecorder;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
+
+public class LatencyHistogramTest extends CoreUnitTest
+{
+    @Test
+    public void testEmpty()
+    {
+        var histogram = latencyHistogram();
+        ensureEqual(0L, histogram.count());
+        ensureEqual(ZERO_DURATION, histogram.p99());
+        ensureEqual(ZERO_DURATION, histogram.mean());
+        ensureEqual(ZERO_DURATION, histogram.maximum());
+    }
+
+    @Test
+    public void testMerge()
+    {
+        var a = latencyHistogram();
+        var b = latencyHistogram();
+        a.record(100);
+        b.record(1_000_000);
+        a.add(b);
+        ensureEqual(2L, a.count());
+        ensureEqual(100.0, a.minimum().nanoseconds().asDouble());
+        ensureEqual(1_000_000.0, a.maximum().nanoseconds().asDouble());
+        ensureThrows(() -> a.add(latencyHistogram(3)));
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        // Record 1 to 100,000 microseconds
+        var histogram = latencyHistogram();
+        for (var value = 1; value <= 100_000; value++)
+        {
+            histogram.record(value * 1_000L);
+        }
+        ensureEqual(100_000L, histogram.count());
+
+        // Percentiles are never below the true value and never more than 1/32 above it
+        ensureWithin(50_000_000, nanoseconds(histogram.p50()));
+        ensureWithin(99_000_000, nanoseconds(histogram.p99()));
+        ensureWithin(99_900_000, nanoseconds(histogram.p999()));
+        ensureEqual(100_000_000.0, nanoseconds(histogram.percentile(100)));
+        ensureWithin(1_000, nanoseconds(histogram.percentile(0)));
+        ensureThrows(() -> histogram.percentile(101));
+    }
+
+    @Test
+    public void testPrecision()
+    {
+        // Values below 2^precision are exact, and every value lands in a bucket that contains it
+        for (var precision = 1; precision <= 10; precision++)
+        {
+            for (var shift = 0; shift < 63; shift++)
+            {
+                for (var offset = -1; offset <= 1; offset++)
+                {
+                    var value = Math.max(0, (1L << shift) + offset);
+                    var histogram = latencyHistogram(precision);
+                    histogram.record(value);
+                    ensureEqual((double) value, nanoseconds(histogram.p50()));
+                }
+            }
+            var histogram = latencyHistogram(precision);
+            histogram.record(Long.MAX_VALUE);
+            ensureEqual(1L, histogram.count());
+        }
+    }
+
+    @Test
+    public void testRecorder() throws Exception
+    {
+        var recorder = latencyRecorder();
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 8; i++)
+        {
+            threads.add(new Thread(() ->
+            {
+                for (var value = 1; value <= 10_000; value++)
+                {
+                    recorder.record(value);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads)
+        {
+            thread.join();
+        }
+        var histogram = recorder.histogram();
+        ensureEqual(80_000L, histogram.count());
+        ensureWithin(5_000, nanoseconds(histogram.p50()));
+        ensureEqual(10_000.0, nanoseconds(histogram.maximum()));
+
+        recorder.reset();
+        ensureEqual(0L, recorder.histogram().count());
+    }
+
+    @Test
+    public void testRecorderWithTransientThreads() throws Exception
+    {
+        // Record from many short-lived threads, each of which shares a stripe with others,
+        var recorder = latencyRecorder();
+        for (var i = 0; i < 200; i++)
+        {
+            var thread = new Thread(() ->
+            {
+                for (var value = 1; value <= 100; value++)
+                {
+                    recorder.record(value);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+
+        // and check that every latency was recorded.
+        ensureEqual(20_000L, recorder.histogram().count());
+    }
+
+    @Test
+    public void testStopwatch()
+    {
+        var stopwatch = stopwatch();
+        milliseconds(5).sleep();
+        ensure(stopwatch.elapsed().isGreaterThanOrEqualTo(milliseconds(5)));
+        var lap = stopwatch.lap();
+        ensure(lap >= 5_000_000);
+        ensure(stopwatch.elapsedNanoseconds() < lap);
+
+        var histogram = latencyHistogram();
+        histogram.record(stopwatch.elapsed());
+        ensureEqual(1L, histogram.count());
+    }
+
+    private void ensureWithin(long expected, double actual)
+    {
+        ensure(actual >= expected && actual <= expected * (1 + 1 / 32.0), "Expected $ but was $", expected, actual);
+    }
+
+    private double nanoseconds(Duration duration)
+    {
+        return duration.nanoseconds().asDouble();
+    }
+}
@@ -31,6 +31,15 @@ import static com.telenav.kivakit.core.value.count.Bytes.terabytes;
 
 public class BytesTest extends CoreUnitTest
 {
+    @Test
+    public void testCached()
+    {
+        ensure(bytes(4_000) == bytes(4_000));
+        ensure(bytes(1L << 40) == bytes(1L << 40));
+        ensure(bytes(100).plus(1) == bytes(101));
+        ensureEqual(bytes(100_001), bytes(100_001));
+    }
+
     @Test
     public void test()
     {
@@ -24,6 +24,16 @@ import org.junit.Test;
 
 public class CountTest extends CoreUnitTest
 {
+    @Test
+    public void testCached()
+    {
+        ensure(Count.count(1_000) == Count.count(1_000));
+        ensure(Count.count(200_000) == Count.count(200_000));
+        ensure(Count.count(199_999).incremented() == Count.count(200_000));
+        ensure(Count.count(Long.MAX_VALUE) == Count.MAXIMUM);
+        ensureEqual(Count.count(10_000_001), Count.count(10_000_001));
+    }
+
     @Test
     public void test()
     {
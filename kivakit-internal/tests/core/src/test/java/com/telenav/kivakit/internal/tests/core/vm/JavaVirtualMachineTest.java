@@ -18,13 +18,40 @@
 
 package com.telenav.kivakit.internal.tests.core.vm;
 
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.collections.map.MultiMap;
+import com.telenav.kivakit.core.messaging.Listener;
+import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
 import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.vm.JavaVirtualMachine;
 import com.telenav.kivakit.internal.testing.CoreUnitTest;
 import org.junit.Test;
 
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+
 public class JavaVirtualMachineTest extends CoreUnitTest
 {
+    private static class Component extends BaseRepeater
+    {
+        long[] data = new long[10];
+
+        Listener owner;
+    }
+
+    private static class Heavy extends BaseRepeater
+    {
+        long[] data = new long[100_000];
+    }
+
+    private static class Node
+    {
+        Node next;
+
+        long value;
+
+        Object payload;
+    }
+
     @Test
     public void test()
     {
@@ -34,4 +61,75 @@ public class JavaVirtualMachineTest extends CoreUnitTest
         ensure(vm.usedMemory().isGreaterThan(Bytes._0));
         ensure(vm.usedMemory().isLessThan(vm.maximumMemory()));
     }
+
+    @Test
+    public void testCollectionSizes()
+    {
+        var list = new ObjectList<String>();
+        var empty = list.heapSize();
+        for (var i = 0; i < 1_000; i++)
+        {
+            list.add("value-" + i);
+        }
+        ensure(list.heapSize().isGreaterThan(empty.plus(Bytes.bytes(1_000 * 16))));
+
+        var map = new MultiMap<String, Integer>();
+        map.add("a", 1);
+        map.add("a", 2);
+        map.add("b", 3);
+        ensure(map.heapSize().isGreaterThan(javaVirtualMachine().sizeOf(map)));
+    }
+
+    @Test
+    public void testListenersAreNotOwned()
+    {
+        var heavy = new Heavy();
+        var component = new Component();
+        component.addListener(heavy);
+        component.owner = heavy;
+
+        // The listener is not counted, either through the audience of the component or through a listener field,
+        var vm = javaVirtualMachine();
+        ensure(vm.sizeOfGraph(component).isLessThan(Bytes.bytes(10_000)));
+        ensure(vm.sizeOfGraph(component).isGreaterThanOrEqualTo(vm.sizeOf(component.data)));
+
+        // but components in a collection are.
+        var list = new ObjectList<Component>();
+        list.add(component);
+        ensure(list.heapSize().isGreaterThan(vm.sizeOfGraph(component)));
+        ensure(list.heapSize().isLessThan(Bytes.bytes(10_000)));
+    }
+
+    @Test
+    public void testSizeOf()
+    {
+        var vm = javaVirtualMachine();
+        ensure(vm.sizeOf(null).equals(Bytes._0));
+        ensure(vm.sizeOf(new Object()).isGreaterThan(Bytes._0));
+        ensure(vm.sizeOf(new long[100]).isGreaterThanOrEqualTo(Bytes.bytes(800)));
+        ensure(vm.sizeOf(new long[100]).isLessThan(Bytes.bytes(900)));
+        ensureEqual(0L, vm.sizeOf(new Node()).asLong() % 8);
+    }
+
+    @Test
+    public void testSizeOfGraph()
+    {
+        var vm = javaVirtualMachine();
+
+        // A cycle is only counted once
+        var a = new Node();
+        var b = new Node();
+        a.next = b;
+        b.next = a;
+        ensureEqual(vm.sizeOf(a).asLong() * 2, vm.sizeOfGraph(a).asLong());
+
+        // and so is an object that is referenced twice
+        var payload = new byte[1_000];
+        a.payload = payload;
+        b.payload = payload;
+        ensureEqual(vm.sizeOf(a).asLong() * 2 + vm.sizeOf(payload).asLong(), vm.sizeOfGraph(a).asLong());
+
+        // and objects that don't match are not counted.
+        ensureEqual(vm.sizeOf(a).asLong() * 2, vm.sizeOfGraph(a, object -> !(object instanceof byte[])).asLong());
+    }
 }
@@ -1,11 +1,22 @@
 package com.telenav.kivakit.internal.tests.resource;
 
+import com.telenav.kivakit.core.collections.list.ObjectList;
 import com.telenav.kivakit.core.vm.JavaTrait;
+import com.telenav.kivakit.resource.packages.Classpath;
+import com.telenav.kivakit.resource.packages.ClasspathResource;
 import com.telenav.kivakit.resource.packages.PackageTrait;
 import com.telenav.kivakit.testing.UnitTest;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
 import static com.telenav.kivakit.core.collections.set.ObjectSet.set;
+import static com.telenav.kivakit.filesystem.File.temporaryFile;
+import static com.telenav.kivakit.resource.Extension.TXT;
 import static com.telenav.kivakit.resource.packages.Classpath.classpath;
 
 /**
@@ -28,4 +39,87 @@ public class ClasspathTest extends UnitTest implements
             ensure(resources.matching(it -> it.fileName().name().equals(at)).size() == 1);
         }
     }
+
+    @Test
+    public void testLoadIndex() throws IOException
+    {
+        // Save an index of the scanned classpath,
+        var scanned = classpath();
+        var file = temporaryFile(TXT);
+        scanned.saveIndex(this, file);
+
+        // and add a resource to it that isn't on the classpath, so we can tell that the index was loaded.
+        var lines = file.reader().readLines();
+        var line = lines.matching(it -> it.contains("\tResourceTest.properties\t")).get(0);
+        lines.add(line.replace("\tResourceTest.properties\t", "\tindexed.txt\t"));
+        Files.write(file.asJavaPath(), lines);
+
+        System.setProperty("KIVAKIT_CLASSPATH_INDEX", file.path().asAbsolute().toString());
+        try
+        {
+            // Load the index into a new classpath,
+            var loaded = new Classpath();
+            var reference = packageForThis().reference();
+            ensure(loaded.resourcesIn(this, reference).anyMatch(it -> it.fileName().name().equals("indexed.txt")));
+
+            // and check that it has the same resources as the scan, other than those outside classpath entries on disk.
+            ensureEqual(uris(scanned.resourcesIn(this, reference)), uris(loaded.resourcesIn(this, reference)));
+            ensureEqual(uris(scanned.nestedResources(this, reference.parent())),
+                uris(loaded.nestedResources(this, reference.parent())));
+            ensureEqual(uris(scanned.allResources(this)), uris(loaded.allResources(this)));
+        }
+        finally
+        {
+            System.clearProperty("KIVAKIT_CLASSPATH_INDEX");
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNested()
+    {
+        var reference = packageForThis().reference();
+        var parent = reference.parent();
+
+        // The nested resources of the parent package include the resources in this package and its subpackages,
+        var nested = classpath().nestedResources(this, parent);
+        ensure(nested.containsAll(classpath().resourcesIn(this, reference)));
+        ensure(nested.anyMatch(it -> it.fileName().name().equals("test.txt")));
+
+        // and the resource folders in the parent package include the folder for this package.
+        ensure(classpath().resourceFoldersIn(this, parent).anyMatch(it -> it.packageReference().equals(reference)));
+        ensure(classpath().nestedResourceFolders(this, parent).anyMatch(it -> it.packageReference().equals(reference)));
+    }
+
+    @Test
+    public void testSaveIndex()
+    {
+        var file = temporaryFile(TXT);
+        classpath().saveIndex(this, file);
+        var lines = file.reader().readLines();
+        ensure(lines.get(0).startsWith("#"));
+        ensure(lines.get(1).startsWith("entries\t"));
+        ensure(lines.anyMatch(line -> line.contains("ResourceTest.properties")));
+
+        // Resources are saved relative to their classpath entries, so the index can be used on another machine
+        ensure(lines.allMatch(line -> !line.contains("file:")));
+        file.delete();
+    }
+
+    /**
+     * Returns the URIs of the given resources that are in classpath entries on disk, other than the resource added to
+     * the saved index
+     */
+    private Set<URI> uris(ObjectList<ClasspathResource> resources)
+    {
+        var uris = new HashSet<URI>();
+        for (var at : resources)
+        {
+            if ("file".equals(at.parent().classpathRoot().getScheme()) && !at.fileName().name().equals("indexed.txt"))
+            {
+                uris.add(at.asUri());
+            }
+        }
+        return uris;
+    }
 }
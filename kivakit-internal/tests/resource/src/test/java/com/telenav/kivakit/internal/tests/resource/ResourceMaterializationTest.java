@@ -0,0 +1,269 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.resource;
+
+import com.telenav.kivakit.core.time.Time;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.filesystem.Folder;
+import com.telenav.kivakit.resource.Resource;
+import com.telenav.kivakit.resource.resources.StringResource;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.telenav.kivakit.core.progress.ProgressReporter.nullProgressReporter;
+import static com.telenav.kivakit.core.time.Time.epochMilliseconds;
+import static com.telenav.kivakit.filesystem.Folder.FolderType.CLEAN_UP_ON_EXIT;
+import static com.telenav.kivakit.filesystem.Folder.temporaryFolderForProcess;
+import static com.telenav.kivakit.resource.ResourcePath.resourcePath;
+
+public class ResourceMaterializationTest extends UnitTest
+{
+    /**
+     * A pretend remote resource that counts how many times it has been opened
+     */
+    private static class RemoteResource extends StringResource
+    {
+        private final AtomicInteger opened;
+
+        RemoteResource(String name, AtomicInteger opened)
+        {
+            super(resourcePath("remote://test/" + name), "materialized " + name);
+            this.opened = opened;
+            lastModified(epochMilliseconds(1_000));
+        }
+
+        @Override
+        public boolean isRemote()
+        {
+            return true;
+        }
+
+        @Override
+        public InputStream onOpenForReading()
+        {
+            opened.incrementAndGet();
+            try
+            {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException ignored)
+            {
+            }
+            return super.onOpenForReading();
+        }
+    }
+
+    /**
+     * A pretend remote resource that fails with an error when it is copied
+     */
+    private static class BrokenResource extends RemoteResource
+    {
+        BrokenResource(String name, AtomicInteger opened)
+        {
+            super(name, opened);
+        }
+
+        @Override
+        public InputStream onOpenForReading()
+        {
+            super.onOpenForReading();
+            throw new AssertionError("broken");
+        }
+    }
+
+    /**
+     * A pretend remote resource whose last modification time can't be found
+     */
+    private static class UnversionedResource extends RemoteResource
+    {
+        UnversionedResource(String name, AtomicInteger opened)
+        {
+            super(name, opened);
+        }
+
+        @Override
+        public Time lastModified()
+        {
+            throw new UnsupportedOperationException("No Last-Modified header");
+        }
+    }
+
+    @After
+    public void clearSharedFolder()
+    {
+        System.clearProperty("KIVAKIT_MATERIALIZATION_FOLDER");
+    }
+
+    @Test
+    public void testCacheHit()
+    {
+        var opened = new AtomicInteger();
+        var resource = new RemoteResource("hit-" + System.nanoTime() + ".txt", opened);
+        var first = resource.materialized(nullProgressReporter());
+        var second = resource.materialized(nullProgressReporter());
+        ensure(first == second);
+        ensureEqual(1, opened.get());
+
+        // A different resource object for the same resource uses the cached copy
+        var again = new RemoteResource(resource.fileName().name(), opened).materialized(nullProgressReporter());
+        ensureEqual(first.path(), again.path());
+        ensureEqual(1, opened.get());
+        ensureEqual(resource.reader().asString(), again.reader().asString());
+
+        // and the lock file used to make the copy has been removed.
+        ensure(!Files.exists(Path.of(((File) first).path().asAbsolute() + ".lock")));
+    }
+
+    @Test
+    public void testChangedResource()
+    {
+        var shared = sharedFolder();
+        var opened = new AtomicInteger();
+        var name = "changed-" + System.nanoTime() + ".txt";
+        var first = new RemoteResource(name, opened).materialized(nullProgressReporter());
+        ensureEqual(shared, ((File) first).parent());
+
+        // A resource in a shared folder that has been modified since it was copied is copied again.
+        var changed = new RemoteResource(name, opened);
+        changed.lastModified(epochMilliseconds(2_000));
+        var second = changed.materialized(nullProgressReporter());
+        ensure(!first.path().equals(second.path()));
+        ensureEqual(2, opened.get());
+    }
+
+    @Test
+    public void testUnknownVersion()
+    {
+        var shared = sharedFolder();
+        var opened = new AtomicInteger();
+        var name = "unversioned-" + System.nanoTime() + ".txt";
+
+        // A resource with no known last modification time is not copied to the shared folder,
+        var copy = new UnversionedResource(name, opened).materialized(nullProgressReporter());
+        ensure(!((File) copy).parent().equals(shared));
+        ensure(shared.files().isEmpty());
+
+        // but it is still reused by this process.
+        var again = new UnversionedResource(name, opened).materialized(nullProgressReporter());
+        ensureEqual(copy.path(), again.path());
+        ensureEqual(1, opened.get());
+    }
+
+    @Test
+    public void testErrorsReachWaiters() throws Exception
+    {
+        var opened = new AtomicInteger();
+        var name = "broken-" + System.nanoTime() + ".txt";
+        var threads = 4;
+        var executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            // Materialize a resource that fails with an error from several threads at once,
+            var start = new CountDownLatch(1);
+            var results = new ArrayList<Future<Resource>>();
+            for (var i = 0; i < threads; i++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    var resource = new BrokenResource(name, opened);
+                    start.await();
+                    return resource.materialized(nullProgressReporter());
+                }));
+            }
+            start.countDown();
+
+            // and check that every thread fails rather than waiting forever.
+            for (var result : results)
+            {
+                try
+                {
+                    result.get(10, TimeUnit.SECONDS);
+                    fail("Materialization should have failed");
+                }
+                catch (ExecutionException ignored)
+                {
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception
+    {
+        var opened = new AtomicInteger();
+        var name = "single-flight-" + System.nanoTime() + ".txt";
+        var threads = 8;
+        var executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            // Materialize the same resource from several threads at once, each with its own resource object,
+            var start = new CountDownLatch(1);
+            var results = new ArrayList<Future<Resource>>();
+            for (var i = 0; i < threads; i++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    var resource = new RemoteResource(name, opened);
+                    start.await();
+                    return resource.materialized(nullProgressReporter());
+                }));
+            }
+            start.countDown();
+
+            // and check that the resource was only copied once.
+            var first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (var result : results)
+            {
+                ensureEqual(first.path(), result.get(10, TimeUnit.SECONDS).path());
+            }
+            ensureEqual(1, opened.get());
+            ensureEqual("materialized " + name, first.reader().asString());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets up a new materialization folder shared with other processes
+     */
+    private Folder sharedFolder()
+    {
+        var folder = temporaryFolderForProcess(CLEAN_UP_ON_EXIT).folder("shared-" + System.nanoTime()).mkdirs();
+        System.setProperty("KIVAKIT_MATERIALIZATION_FOLDER", folder.path().asAbsolute().toString());
+        return folder;
+    }
+}
@@ -0,0 +1,126 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.resource;
+
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.resource.packages.PackageResource;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+import static com.telenav.kivakit.resource.Resource.resolveResource;
+import static com.telenav.kivakit.resource.spi.ResourceResolverService.resolutionCacheSize;
+
+public class ResourceResolverServiceTest extends UnitTest
+{
+    private static final String IDENTIFIER = "classpath:com/telenav/kivakit/internal/tests/resource/ResourceTest.properties";
+
+    @After
+    public void clearCache()
+    {
+        resolutionCacheSize(maximum(0));
+    }
+
+    @Test
+    public void testCachedResolution()
+    {
+        resolutionCacheSize(maximum(16));
+        var first = resolveResource(this, IDENTIFIER);
+        var second = resolveResource(this, IDENTIFIER);
+        ensure(first instanceof PackageResource);
+        ensure(first == second);
+    }
+
+    @Test
+    public void testConcurrentCachedResolution() throws Exception
+    {
+        resolutionCacheSize(maximum(64));
+        var identifiers = new String[]
+            {
+                IDENTIFIER,
+                "classpath:com/telenav/kivakit/internal/tests/resource/a.txt",
+                "classpath:com/telenav/kivakit/internal/tests/resource/b.txt"
+            };
+        var executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            // Resolve the same identifiers from several threads at once,
+            var results = new ArrayList<Future<Boolean>>();
+            for (var thread = 0; thread < 8; thread++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    for (var i = 0; i < 100; i++)
+                    {
+                        for (var identifier : identifiers)
+                        {
+                            if (!(resolveResource(this, identifier) instanceof PackageResource))
+                            {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            // and check that each resolution succeeded,
+            for (var result : results)
+            {
+                ensure(result.get(10, TimeUnit.SECONDS));
+            }
+
+            // and that the resources are now cached.
+            for (var identifier : identifiers)
+            {
+                ensure(resolveResource(this, identifier) == resolveResource(this, identifier));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFallbackResolution() throws IOException
+    {
+        var temporary = java.io.File.createTempFile("resolver", ".txt");
+        temporary.deleteOnExit();
+        var resource = resolveResource(this, temporary.getAbsolutePath());
+        ensure(resource instanceof File);
+        ensure(resource.exists());
+    }
+
+    @Test
+    public void testUncachedResolution()
+    {
+        var first = resolveResource(this, IDENTIFIER);
+        var second = resolveResource(this, IDENTIFIER);
+        ensure(first instanceof PackageResource);
+        ensure(first != second);
+    }
+}
@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.resource;
+
+import com.telenav.kivakit.core.io.IO;
+import com.telenav.kivakit.resource.resources.ResourceSection;
+import com.telenav.kivakit.resource.resources.StringResource;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.telenav.kivakit.filesystem.File.temporaryFile;
+import static com.telenav.kivakit.resource.Extension.TXT;
+
+public class ResourceSectionTest extends UnitTest
+{
+    @Test
+    public void testFile()
+    {
+        var file = temporaryFile(TXT);
+        file.writer().saveText("0123456789abcdef");
+
+        // Open two sections of the same file at once,
+        var first = new ResourceSection(file, 4, 10).openForReading();
+        var second = new ResourceSection(file, 12, 16).openForReading();
+        try
+        {
+            // and read them in bulk and one byte at a time.
+            var buffer = new byte[32];
+            ensureEqual(6, first.read(buffer, 0, buffer.length));
+            ensureEqual("456789", new String(buffer, 0, 6));
+            ensureEqual(-1, first.read());
+            ensureEqual((int) 'c', second.read());
+            ensureEqual(2L, second.skip(2));
+            ensureEqual((int) 'f', second.read());
+            ensureEqual(-1, second.read());
+        }
+        catch (Exception e)
+        {
+            fail("Unable to read section: $", e.getMessage());
+        }
+        finally
+        {
+            IO.close(this, first);
+            IO.close(this, second);
+        }
+
+        // A section can be read again after the shared channel has been closed.
+        ensureEqual("abc", new ResourceSection(file, 10, 13).reader().asString());
+        file.delete();
+    }
+
+    @Test
+    public void testInterruptedRead()
+    {
+        var file = temporaryFile(TXT);
+        file.writer().saveText("0123456789abcdef");
+
+        var first = new ResourceSection(file, 0, 8).openForReading();
+        var second = new ResourceSection(file, 8, 16).openForReading();
+        try
+        {
+            // Interrupting a read closes the shared channel,
+            Thread.currentThread().interrupt();
+            try
+            {
+                first.read();
+                fail("Interrupted read should fail");
+            }
+            catch (IOException ignored)
+            {
+            }
+            Thread.interrupted();
+
+            // but the other section can still be read.
+            ensureEqual((int) '8', second.read());
+        }
+        catch (Exception e)
+        {
+            fail("Unable to read section: $", e.getMessage());
+        }
+        finally
+        {
+            Thread.interrupted();
+            IO.close(this, first);
+            IO.close(this, second);
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testStream()
+    {
+        var resource = new StringResource("0123456789abcdef");
+        ensureEqual("456789", new ResourceSection(resource, 4, 10).reader().asString());
+        ensureEqual("", new ResourceSection(resource, 16, 16).reader().asString());
+    }
+}
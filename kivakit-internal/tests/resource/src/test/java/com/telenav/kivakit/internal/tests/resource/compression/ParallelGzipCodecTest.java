@@ -0,0 +1,106 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.resource.compression;
+
+import com.telenav.kivakit.resource.compression.codecs.GzipCodec;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.telenav.kivakit.core.value.count.Bytes.bytes;
+import static com.telenav.kivakit.core.value.count.Count.count;
+import static com.telenav.kivakit.resource.compression.codecs.ParallelGzipCodec.parallelGzipCodec;
+
+public class ParallelGzipCodecTest extends UnitTest
+{
+    @Test
+    public void testEmpty() throws IOException
+    {
+        var codec = parallelGzipCodec();
+        var compressed = compress(new byte[0], 1_000);
+        ensureEqual(0, readAll(codec.decompressed(new ByteArrayInputStream(compressed))).length);
+        ensureEqual(0, readAll(new GzipCodec().decompressed(new ByteArrayInputStream(compressed))).length);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        // Create data that is partly random and partly repetitive,
+        var data = new byte[1_000_003];
+        var random = new Random(17);
+        for (var index = 0; index < data.length; index++)
+        {
+            data[index] = (byte) (index % 3 == 0 ? random.nextInt(256) : index % 7);
+        }
+
+        // compress it in blocks much smaller than the data,
+        var compressed = compress(data, 65_536);
+        ensure(compressed.length < data.length);
+
+        // then check that both codecs read it back correctly.
+        ensure(Arrays.equals(data, readAll(parallelGzipCodec().decompressed(new ByteArrayInputStream(compressed)))));
+        ensure(Arrays.equals(data, readAll(new GzipCodec().decompressed(new ByteArrayInputStream(compressed)))));
+    }
+
+    @Test
+    public void testSingleMember() throws IOException
+    {
+        // Check that a stream written by GZIPOutputStream can be read
+        var data = "The quick brown fox jumps over the lazy dog".repeat(1_000).getBytes();
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GzipCodec().compressed(out))
+        {
+            gzip.write(data);
+        }
+        ensure(Arrays.equals(data, readAll(parallelGzipCodec().decompressed(new ByteArrayInputStream(out.toByteArray())))));
+    }
+
+    private byte[] compress(byte[] data, int blockSize) throws IOException
+    {
+        var codec = parallelGzipCodec()
+            .withBlockSize(bytes(blockSize))
+            .withLevel(6)
+            .withThreads(count(4));
+
+        var out = new ByteArrayOutputStream();
+        try (var compressed = codec.compressed(out))
+        {
+            // Write in uneven chunks to cross block boundaries
+            for (var offset = 0; offset < data.length; offset += 9_999)
+            {
+                compressed.write(data, offset, Math.min(9_999, data.length - offset));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] readAll(InputStream in) throws IOException
+    {
+        try (in)
+        {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.tests.resource.compression.archive;
+
+import com.telenav.kivakit.core.path.StringPath;
+import com.telenav.kivakit.core.progress.ProgressReporter;
+import com.telenav.kivakit.core.version.VersionedObject;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.interfaces.naming.NamedObject;
+import com.telenav.kivakit.resource.compression.archive.ArchivedField;
+import com.telenav.kivakit.resource.compression.archive.FieldArchive;
+import com.telenav.kivakit.resource.serialization.ObjectMetadata;
+import com.telenav.kivakit.resource.serialization.ObjectSerializer;
+import com.telenav.kivakit.resource.serialization.SerializableObject;
+import com.telenav.kivakit.testing.UnitTest;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.telenav.kivakit.core.progress.ProgressReporter.nullProgressReporter;
+import static com.telenav.kivakit.core.progress.reporters.BroadcastingProgressReporter.progressReporter;
+import static com.telenav.kivakit.core.version.Version.version;
+import static com.telenav.kivakit.filesystem.File.temporaryFile;
+import static com.telenav.kivakit.resource.Extension.ZIP;
+import static com.telenav.kivakit.resource.compression.archive.ZipArchive.AccessMode.READ;
+import static com.telenav.kivakit.resource.compression.archive.ZipArchive.AccessMode.WRITE;
+
+public class FieldArchiveTest extends UnitTest
+{
+    /**
+     * An object with archived fields, one of which is lazy
+     */
+    public static class Shapes implements NamedObject
+    {
+        @ArchivedField
+        String circle;
+
+        @ArchivedField
+        String square;
+
+        @ArchivedField
+        String pentagon;
+
+        @ArchivedField(lazy = true)
+        String triangle;
+
+        @Override
+        public String objectName()
+        {
+            return "shapes";
+        }
+    }
+
+    /**
+     * A serializer using Java serialization that remembers which threads have used it
+     */
+    private static class JavaSerializer implements ObjectSerializer
+    {
+        private final ProgressReporter reporter;
+
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        JavaSerializer(ProgressReporter reporter)
+        {
+            this.reporter = reporter;
+        }
+
+        @Override
+        public ProgressReporter progressReporter()
+        {
+            return reporter;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> SerializableObject<T> readObject(@NotNull InputStream input,
+                                                    @NotNull StringPath path,
+                                                    Class<T> type,
+                                                    ObjectMetadata @NotNull ... metadata)
+        {
+            threads.add(Thread.currentThread());
+            try
+            {
+                return new SerializableObject<>((T) new ObjectInputStream(input).readObject());
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            catch (ClassNotFoundException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public <T> void writeObject(@NotNull OutputStream output,
+                                    @NotNull StringPath path,
+                                    @NotNull SerializableObject<T> object,
+                                    ObjectMetadata @NotNull ... metadata)
+        {
+            threads.add(Thread.currentThread());
+
+            // Unwrap the value from any versioned objects around it,
+            Object value = object;
+            while (value instanceof VersionedObject<?> versioned)
+            {
+                value = versioned.object();
+            }
+
+            // and write it.
+            try
+            {
+                var out = new ObjectOutputStream(output);
+                out.writeObject(value);
+                out.flush();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Every serializer supplied to a field archive for parallel loading and saving */
+    private final ConcurrentLinkedQueue<JavaSerializer> supplied = new ConcurrentLinkedQueue<>();
+
+    @Test
+    public void testLazyField()
+    {
+        var file = save(false);
+        try (var archive = new FieldArchive(file, READ))
+        {
+            // Load the eager fields,
+            var shapes = new Shapes();
+            var serializer = new JavaSerializer(nullProgressReporter());
+            ensure(archive.loadFieldsOf(serializer, shapes));
+            ensureEqual("round", shapes.circle);
+            ensureEqual(null, shapes.triangle);
+
+            // then load the lazy field on first access,
+            var triangle = archive.<String>lazyFieldOf(serializer, shapes, "triangle");
+            ensureEqual(null, shapes.triangle);
+            ensureEqual("pointy", triangle.get());
+            ensureEqual("pointy", shapes.triangle);
+
+            // and return the same value after that.
+            shapes.triangle = null;
+            ensureEqual("pointy", triangle.get());
+            ensureEqual(null, shapes.triangle);
+        }
+    }
+
+    @Test
+    public void testParallelLoad()
+    {
+        var file = save(false);
+        try (var archive = new FieldArchive(file, READ))
+        {
+            archive.parallel(this::serializer);
+            ensure(archive.isParallel());
+
+            var shapes = new Shapes();
+            ensure(archive.loadFieldsOf(new JavaSerializer(nullProgressReporter()), shapes));
+            ensureLoaded(shapes);
+            ensureEqual(null, shapes.triangle);
+        }
+        ensureThreadConfined();
+    }
+
+    @Test
+    public void testParallelSave()
+    {
+        var file = save(true);
+        ensureThreadConfined();
+
+        try (var archive = new FieldArchive(file, READ))
+        {
+            var shapes = new Shapes();
+            ensure(archive.loadFieldsOf(new JavaSerializer(nullProgressReporter()), shapes));
+            ensureLoaded(shapes);
+            ensureEqual("pointy", archive.loadFieldOf(new JavaSerializer(nullProgressReporter()), shapes, "triangle"));
+        }
+    }
+
+    private void ensureLoaded(Shapes shapes)
+    {
+        ensureEqual("round", shapes.circle);
+        ensureEqual("boxy", shapes.square);
+        ensureEqual("five-sided", shapes.pentagon);
+    }
+
+    /**
+     * Ensures that each serializer supplied for parallel loading or saving was used by only one thread
+     */
+    private void ensureThreadConfined()
+    {
+        ensure(!supplied.isEmpty());
+        for (var serializer : supplied)
+        {
+            ensure(serializer.threads.size() <= 1);
+        }
+    }
+
+    /**
+     * Saves a {@link Shapes} object to a field archive, in parallel if requested
+     */
+    private File save(boolean parallel)
+    {
+        var shapes = new Shapes();
+        shapes.circle = "round";
+        shapes.square = "boxy";
+        shapes.pentagon = "five-sided";
+        shapes.triangle = "pointy";
+
+        var file = temporaryFile(ZIP);
+        file.delete();
+        var reporter = progressReporter();
+        try (var archive = new FieldArchive(file, WRITE))
+        {
+            if (parallel)
+            {
+                archive.parallel(this::serializer);
+            }
+            archive.saveFieldsOf(new JavaSerializer(reporter), shapes, version("1.0"));
+        }
+
+        // Progress is reported to the given writer whether the fields are saved in parallel or not
+        ensure(reporter.at().asLong() > 0);
+        return file;
+    }
+
+    private JavaSerializer serializer()
+    {
+        var serializer = new JavaSerializer(nullProgressReporter());
+        supplied.add(serializer);
+        return serializer;
+    }
+}
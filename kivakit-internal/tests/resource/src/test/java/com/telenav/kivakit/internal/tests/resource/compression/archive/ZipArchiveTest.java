@@ -0,0 +1,118 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.internal.tests.resource.compression.archive;
+
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import static com.telenav.kivakit.core.progress.reporters.BroadcastingProgressReporter.progressReporter;
+import static com.telenav.kivakit.filesystem.File.temporaryFile;
+import static com.telenav.kivakit.filesystem.Folder.FolderType.CLEAN_UP_ON_EXIT;
+import static com.telenav.kivakit.filesystem.Folder.temporaryFolderForProcess;
+import static com.telenav.kivakit.resource.Extension.TXT;
+import static com.telenav.kivakit.resource.Extension.ZIP;
+import static com.telenav.kivakit.resource.compression.archive.ZipArchive.AccessMode.READ;
+import static com.telenav.kivakit.resource.compression.archive.ZipArchive.AccessMode.WRITE;
+import static com.telenav.kivakit.resource.compression.archive.ZipArchive.zipArchive;
+
+public class ZipArchiveTest extends UnitTest
+{
+    private static final int FILES = 16;
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException
+    {
+        try (var archive = zipArchive(this, archive(), READ))
+        {
+            ensureEqual(FILES, archive.entries(Pattern.compile("temp-.*")).size());
+
+            // Read every entry from several threads at once,
+            var problems = new ConcurrentLinkedQueue<String>();
+            var threads = new ArrayList<Thread>();
+            for (var thread = 0; thread < 4; thread++)
+            {
+                var reader = new Thread(() ->
+                {
+                    for (var entry : archive)
+                    {
+                        var expected = "contents of " + entry.fileName().name();
+                        if (!expected.equals(archive.entry(entry.fileName().name()).reader().asString()))
+                        {
+                            problems.add(entry.fileName().name());
+                        }
+                    }
+                });
+                reader.start();
+                threads.add(reader);
+            }
+            for (var thread : threads)
+            {
+                thread.join();
+            }
+
+            // and check that each thread saw the right contents.
+            ensure(problems.isEmpty());
+        }
+    }
+
+    @Test
+    public void testExtract()
+    {
+        var folder = temporaryFolderForProcess(CLEAN_UP_ON_EXIT).folder("zip-archive-test-extract").mkdirs();
+        try (var archive = zipArchive(this, archive(), READ))
+        {
+            archive.extractTo(folder);
+            var count = 0;
+            for (var entry : archive)
+            {
+                var file = folder.file(entry.fileName().name());
+                ensureEqual("contents of " + entry.fileName().name(), file.reader().asString());
+                count++;
+            }
+            ensureEqual(FILES, count);
+        }
+    }
+
+    /**
+     * Returns a zip archive with {@link #FILES} text files in it, added in parallel
+     */
+    private File archive()
+    {
+        var files = new ArrayList<File>();
+        for (var index = 0; index < FILES; index++)
+        {
+            var file = temporaryFile(TXT);
+            file.writer().saveText("contents of " + file.fileName().name());
+            files.add(file);
+        }
+
+        var zip = temporaryFile(ZIP);
+        zip.delete();
+        try (var archive = zipArchive(this, zip, WRITE))
+        {
+            archive.add(files, progressReporter());
+        }
+        return zip;
+    }
+}
@@ -0,0 +1,116 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.tests.resource.logging;
+
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.BaseLog;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import com.telenav.kivakit.resource.logging.BinaryLog;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogReader.binaryLogReader;
+import static com.telenav.kivakit.core.time.Duration.ONE_SECOND;
+
+public class BinaryLogTest extends UnitTest
+{
+    private boolean asynchronous;
+
+    private Path folder;
+
+    @After
+    public void after() throws IOException
+    {
+        BaseLog.asynchronous(asynchronous);
+        try (var files = Files.walk(folder))
+        {
+            for (var path : files.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Before
+    public void before() throws IOException
+    {
+        asynchronous = BaseLog.isAsynchronous();
+        BaseLog.asynchronous(false);
+        folder = Files.createTempDirectory("binary-log-test");
+    }
+
+    @Test
+    public void testSegments() throws IOException
+    {
+        // Log enough entries to fill several small segments,
+        var log = new BinaryLog();
+        var properties = new VariableMap<String>();
+        properties.put("file", folder.resolve("test.kvlog").toString());
+        properties.put("maximum-size", "1K");
+        log.configure(properties);
+
+        var context = new LoggerCodeContext("BinaryLogTest");
+        for (var index = 0; index < 500; index++)
+        {
+            log.log(new LogEntry(null, context, Thread.currentThread(), new Information("Message $ of $", index, 500)));
+        }
+        log.stop(ONE_SECOND);
+
+        // then decode each segment separately, and check that every entry is there in order.
+        var segments = segments();
+        ensure(segments.size() > 1);
+        var messages = new ArrayList<String>();
+        for (var segment : segments)
+        {
+            ensure(Files.size(segment) < 1_100);
+            try (var reader = binaryLogReader(Files.newInputStream(segment)))
+            {
+                reader.forEach(entry -> messages.add(entry.formattedMessage()));
+            }
+        }
+        ensureEqual(500, messages.size());
+        for (var index = 0; index < 500; index++)
+        {
+            ensureEqual("Message " + index + " of 500", messages.get(index));
+        }
+    }
+
+    private List<Path> segments() throws IOException
+    {
+        try (var files = Files.list(folder))
+        {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(".kvlog"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
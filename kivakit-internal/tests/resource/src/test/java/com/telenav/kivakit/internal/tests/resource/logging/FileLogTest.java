@@ -0,0 +1,219 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.internal.tests.resource.logging;
+
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.LoggerCodeContext;
+import com.telenav.kivakit.core.logging.logs.BaseLog;
+import com.telenav.kivakit.core.messaging.messages.status.Information;
+import com.telenav.kivakit.resource.compression.codecs.GzipCodec;
+import com.telenav.kivakit.resource.logging.FileLog;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.telenav.kivakit.core.time.Duration.ONE_SECOND;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class FileLogTest extends UnitTest
+{
+    private boolean asynchronous;
+
+    private Path folder;
+
+    @After
+    public void after() throws IOException
+    {
+        BaseLog.asynchronous(asynchronous);
+        try (var files = Files.walk(folder))
+        {
+            for (var path : files.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Before
+    public void before() throws IOException
+    {
+        asynchronous = BaseLog.isAsynchronous();
+        BaseLog.asynchronous(false);
+        folder = Files.createTempDirectory("file-log-test");
+    }
+
+    @Test
+    public void testCompressed() throws Exception
+    {
+        var log = log("gzip");
+        logMessages(log, 500);
+        log.stop(ONE_SECOND);
+
+        // Wait for the background compressor to finish with every segment,
+        var deadline = System.currentTimeMillis() + 10_000;
+        while (!segments(".txt").isEmpty() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        ensure(segments(".txt").isEmpty());
+        ensure(segments(".gz.tmp").isEmpty());
+
+        // then check that the compressed segments hold every message.
+        var compressed = segments(".txt.gz");
+        ensure(compressed.size() > 1);
+        var text = new StringBuilder();
+        for (var segment : compressed)
+        {
+            try (var in = new GzipCodec().decompressed(Files.newInputStream(segment)))
+            {
+                text.append(new String(in.readAllBytes(), UTF_8));
+            }
+        }
+        ensureMessages(text.toString(), 500);
+    }
+
+    @Test
+    public void testLiveSegmentsAreNotRecovered() throws Exception
+    {
+        // Write some messages to a log that stays open, and to a log whose name starts with the same name,
+        var live = log("test.txt", "none");
+        logMessages(live, 10);
+        live.flush(ONE_SECOND);
+        var other = log("test-errors.txt", "none");
+        logMessages(other, 10);
+        other.flush(ONE_SECOND);
+        var segments = segments(".txt");
+        ensure(segments.size() == 2);
+
+        // then start a new log for the same file, which must leave both segments alone.
+        var log = log("test.txt", "none");
+        logMessages(log, 1);
+        for (var segment : segments)
+        {
+            ensure(Files.size(segment) == 4_096);
+        }
+        log.stop(ONE_SECOND);
+        live.stop(ONE_SECOND);
+        other.stop(ONE_SECOND);
+    }
+
+    @Test
+    public void testRecover() throws Exception
+    {
+        // Write a segment like one left by a process that exited without closing its log,
+        var text = new StringBuilder();
+        for (var index = 0; index < 10; index++)
+        {
+            text.append("Message ").append(index).append('\n');
+        }
+        var contents = new byte[4_096];
+        var bytes = text.toString().getBytes(UTF_8);
+        System.arraycopy(bytes, 0, contents, 0, bytes.length);
+        var segment = folder.resolve("test-2021.06.14_13.05.22-000001.txt");
+        Files.write(segment, contents);
+
+        // then start a new log for the same file, which trims the abandoned segment.
+        var log = log("none");
+        logMessages(log, 1);
+        ensure(Files.size(segment) == bytes.length);
+        ensureMessages(Files.readString(segment), 10);
+        log.stop(ONE_SECOND);
+    }
+
+    @Test
+    public void testUncompressed() throws IOException
+    {
+        var log = log("none");
+        logMessages(log, 500);
+        log.stop(ONE_SECOND);
+
+        var segments = segments(".txt");
+        ensure(segments.size() > 1);
+        var text = new StringBuilder();
+        for (var segment : segments)
+        {
+            ensure(Files.size(segment) <= 4_096);
+            text.append(Files.readString(segment));
+        }
+        ensureMessages(text.toString(), 500);
+    }
+
+    private void ensureMessages(String text, int count)
+    {
+        ensure(!text.contains("\0"));
+        Set<Integer> found = new HashSet<>();
+        var matcher = Pattern.compile("Message (\\d+)").matcher(text);
+        while (matcher.find())
+        {
+            found.add(Integer.parseInt(matcher.group(1)));
+        }
+        for (var index = 0; index < count; index++)
+        {
+            ensure(found.contains(index));
+        }
+    }
+
+    private FileLog log(String compression)
+    {
+        return log("test.txt", compression);
+    }
+
+    private FileLog log(String file, String compression)
+    {
+        var log = new FileLog();
+        var properties = new VariableMap<String>();
+        properties.put("file", folder.resolve(file).toString());
+        properties.put("maximum-size", "4K");
+        properties.put("compression", compression);
+        log.configure(properties);
+        return log;
+    }
+
+    private void logMessages(FileLog log, int count)
+    {
+        var context = new LoggerCodeContext("FileLogTest");
+        for (var index = 0; index < count; index++)
+        {
+            log.log(new LogEntry(null, context, Thread.currentThread(), new Information("Message " + index)));
+        }
+    }
+
+    private List<Path> segments(String suffix) throws IOException
+    {
+        try (var files = Files.list(folder))
+        {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
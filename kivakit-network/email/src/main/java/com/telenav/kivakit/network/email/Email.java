@@ -164,14 +164,20 @@ public class Email implements Validatable
         };
     }
 
+    /**
+     * Waits until the given duration has passed since the last attempt to send this email, then records another
+     * attempt
+     *
+     * @deprecated {@link EmailSender} schedules retries itself and no longer calls this method
+     */
+    @Deprecated
     public void waitForRetry(Duration durationBetweenRetries)
     {
         if (lastRetry != null)
         {
             lastRetry.plus(durationBetweenRetries).untilNow().sleep();
         }
-        lastRetry = now();
-        tries++;
+        tried();
     }
 
     void composeMessage(MimeMessage message) throws Exception
@@ -192,6 +198,15 @@ public class Email implements Validatable
         }
     }
 
+    /**
+     * Records an attempt to send this email
+     */
+    void tried()
+    {
+        lastRetry = now();
+        tries++;
+    }
+
     Count tries()
     {
         return count(tries);
@@ -42,7 +42,9 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
  *     <li>{@link #isClosed()}</li>
  *     <li>{@link #isEmpty()}</li>
  *     <li>{@link #markSent(Email)}</li>
- *     <li>{@link #take()}</li>
+ *     <li>{@link #requeue(Email, Duration)}</li>
+ *     <li>{@link #size()}</li>
+ *     <li>{@link #take(Duration)}</li>
  * </ul>
  *
  * @author jonathanl (shibo)
@@ -96,11 +98,35 @@ class EmailQueue
         email.sentAt = now();
     }
 
-    public Email take()
+    /**
+     * Adds an email that is being retried back to the queue. Unlike {@link #enqueue(Email, Duration)}, this works
+     * after the queue has been closed, so emails that were accepted before the queue was closed can still be sent.
+     */
+    public boolean requeue(Email email, Duration maximumWait)
+    {
+        try
+        {
+            return queue.offer(email, maximumWait.milliseconds(), MILLISECONDS);
+        }
+        catch (InterruptedException ignored)
+        {
+            return false;
+        }
+    }
+
+    public int size()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Returns the next email in the queue, or null if no email arrives within the given time
+     */
+    public Email take(Duration maximumWait)
     {
         try
         {
-            return queue.take();
+            return queue.poll(maximumWait.milliseconds(), MILLISECONDS);
         }
         catch (InterruptedException ignored)
         {
@@ -20,11 +20,14 @@ package com.telenav.kivakit.network.email;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.metrics.Counter;
+import com.telenav.kivakit.core.metrics.Metric;
+import com.telenav.kivakit.core.metrics.Timer;
 import com.telenav.kivakit.core.thread.RepeatingThread;
-import com.telenav.kivakit.core.thread.latches.CompletionLatch;
 import com.telenav.kivakit.core.time.Duration;
 import com.telenav.kivakit.core.time.Rate;
 import com.telenav.kivakit.core.time.RateCalculator;
+import com.telenav.kivakit.core.value.count.Count;
 import com.telenav.kivakit.core.value.count.Maximum;
 import com.telenav.kivakit.interfaces.io.Closeable;
 import com.telenav.kivakit.interfaces.io.Flushable;
@@ -38,8 +41,15 @@ import com.telenav.lexakai.annotations.associations.UmlRelation;
 
 import javax.mail.Authenticator;
 import javax.mail.Session;
+import javax.mail.Transport;
 import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
@@ -47,9 +57,16 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.language.Classes.simpleName;
 import static com.telenav.kivakit.core.time.Duration.FOREVER;
 import static com.telenav.kivakit.core.time.Duration.ONE_MINUTE;
+import static com.telenav.kivakit.core.time.Duration.ONE_SECOND;
+import static com.telenav.kivakit.core.time.Duration.ZERO_DURATION;
 import static com.telenav.kivakit.core.time.Duration.seconds;
 import static com.telenav.kivakit.core.time.Frequency.CONTINUOUSLY;
+import static com.telenav.kivakit.core.time.Stopwatch.stopwatch;
+import static com.telenav.kivakit.core.value.count.Count.count;
 import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static javax.mail.Message.RecipientType.TO;
 
 /**
@@ -62,6 +79,43 @@ import static javax.mail.Message.RecipientType.TO;
  * SMTP is currently the only protocol supported. In the future, IMAP may be added when the need arises.
  * </p>
  *
+ * <p><b>Sending</b></p>
+ *
+ * <p>
+ * Emails are sent by a number of sender threads, set with {@link #senderThreads(Count)}, which take emails from the
+ * queue in parallel. Connections to the mail server are kept open in a pool and reused for later emails, so the cost
+ * of connecting and authenticating is paid once per connection rather than once per email. There is never more than
+ * one connection for each sender thread.
+ * </p>
+ *
+ * <p><b>Retries</b></p>
+ *
+ * <p>
+ * When an email cannot be sent, it is scheduled to be retried after {@link #retryPeriod(Duration)}, up to
+ * {@link #maximumRetries(Maximum)} times. Emails waiting to be retried are held in a {@link DelayQueue} and put back
+ * in the queue when they are due, so they do not hold up other emails while they wait.
+ * </p>
+ *
+ * <p><b>Metrics</b></p>
+ *
+ * <p>
+ * When it starts, each sender registers metrics labeled with its {@link #objectName()} in the registry from
+ * {@link com.telenav.kivakit.core.vm.JavaVirtualMachineHealth#metrics()}: the number of emails sent
+ * (<i>kivakit_email_sent_total</i>), failed attempts to send an email (<i>kivakit_email_failures_total</i>), retries
+ * (<i>kivakit_email_retries_total</i>), emails that were given up on (<i>kivakit_email_abandoned_total</i>), emails
+ * discarded because the maximum send rate was exceeded (<i>kivakit_email_discarded_total</i>), the time taken to send
+ * each email (<i>kivakit_email_send_seconds</i>), and the number of emails waiting to be sent
+ * (<i>kivakit_email_queue_size</i>), waiting to be retried (<i>kivakit_email_retry_queue_size</i>) and open
+ * connections (<i>kivakit_email_connections</i>). The metrics are removed from the registry when the sender stops.
+ * </p>
+ *
+ * <p><b>Stopping</b></p>
+ *
+ * <p>
+ * {@link #stop(Duration)} waits for up to the given time for emails to be sent. Any emails that are still waiting to
+ * be sent or retried after that are abandoned with a warning, and counted in <i>kivakit_email_abandoned_total</i>.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see SmtpEmailSender
  */
@@ -101,59 +155,85 @@ public abstract class EmailSender extends BaseRepeater implements
         }
     }
 
+    /**
+     * An email waiting in the retry queue until it is due to be sent again
+     */
+    private static class Retry implements Delayed
+    {
+        /** The email to retry */
+        private final Email email;
+
+        /** The value of {@link System#nanoTime()} when the email should be retried */
+        private final long due;
+
+        Retry(Email email, Duration delay)
+        {
+            this.email = email;
+            this.due = System.nanoTime() + MILLISECONDS.toNanos(delay.milliseconds());
+        }
+
+        @Override
+        public int compareTo(Delayed that)
+        {
+            return Long.compare(getDelay(NANOSECONDS), that.getDelay(NANOSECONDS));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit)
+        {
+            return unit.convert(due - System.nanoTime(), NANOSECONDS);
+        }
+    }
+
     private volatile boolean closed;
 
     private final Configuration configuration;
 
-    private Maximum maximumRetries = maximum(16);
+    private volatile Maximum maximumRetries = maximum(16);
 
     @UmlAggregation
     private final EmailQueue queue = new EmailQueue();
 
-    private final CompletionLatch queueEmpty = new CompletionLatch();
+    /** Emails waiting to be retried */
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+
+    /** The number of emails that have been accepted and not yet sent or given up on */
+    private final AtomicInteger pending = new AtomicInteger();
 
     private final RateCalculator rate = new RateCalculator(ONE_MINUTE);
 
-    private Duration retryPeriod = seconds(30);
+    private volatile Duration retryPeriod = seconds(30);
 
     private volatile boolean running;
 
-    private boolean enabled = true;
+    private volatile boolean enabled = true;
 
-    private final RepeatingThread thread = new RepeatingThread(this, simpleName(EmailSender.class), CONTINUOUSLY)
-    {
-        @Override
-        protected void onRun()
-        {
-            var email = queue().take();
-            if (email != null)
-            {
-                email.waitForRetry(retryPeriod);
-                if (!send(email))
-                {
-                    if (email.tries().isLessThan(maximumRetries))
-                    {
-                        if (!queue().enqueue(email, seconds(5)))
-                        {
-                            warning("Unable to re-queue email");
-                        }
-                    }
-                }
-                else
-                {
-                    queue().markSent(email);
-                }
-            }
-            if (queue().isEmpty())
-            {
-                queueEmpty.threadCompleted();
-            }
-        }
+    /** The number of threads sending emails */
+    private Count senderThreads = count(4);
 
-        {
-            addListener(this);
-        }
-    };
+    /** The threads sending emails and moving emails from the retry queue back to the queue */
+    private final List<RepeatingThread> threads = new ArrayList<>();
+
+    /** The mail session, created when this sender starts */
+    private Session session;
+
+    /** Connections to the mail server */
+    private TransportPool transports;
+
+    private Counter sent;
+
+    private Counter failures;
+
+    private Counter retried;
+
+    private Counter abandoned;
+
+    private Counter discarded;
+
+    private Timer sendTime;
+
+    /** The metrics registered for this sender, which are removed when it stops */
+    private final List<Metric> registered = new ArrayList<>();
 
     protected EmailSender(Configuration configuration)
     {
@@ -185,8 +265,10 @@ public abstract class EmailSender extends BaseRepeater implements
     {
         if (!closed)
         {
+            pending.incrementAndGet();
             if (!queue().enqueue(email, seconds(5)))
             {
+                settled();
                 if (!queue().isClosed())
                 {
                     warning("Unable to add email to queue");
@@ -199,11 +281,28 @@ public abstract class EmailSender extends BaseRepeater implements
         }
     }
 
+    /**
+     * Waits for all enqueued emails, including any waiting to be retried, to be sent or given up on
+     */
     @Override
     public void flush(Duration maximumWaitTime)
     {
         trace("Flushing queue within ${debug}", maximumWaitTime);
-        queueEmpty.waitForAllThreadsToComplete();
+        var elapsed = stopwatch();
+        synchronized (pending)
+        {
+            while (pending.get() > 0 && elapsed.elapsed().isLessThan(maximumWaitTime))
+            {
+                try
+                {
+                    pending.wait(100);
+                }
+                catch (InterruptedException ignored)
+                {
+                    break;
+                }
+            }
+        }
         trace("Flushed");
     }
 
@@ -242,14 +341,58 @@ public abstract class EmailSender extends BaseRepeater implements
         return this;
     }
 
+    /**
+     * Sets the number of threads that send emails, and so the maximum number of connections to the mail server. This
+     * must be called before the sender is started.
+     */
+    public EmailSender senderThreads(Count threads)
+    {
+        senderThreads = threads;
+        return this;
+    }
+
     @Override
     @SuppressWarnings("UnusedReturnValue")
-    public boolean start()
+    public synchronized boolean start()
     {
         if (!isRunning())
         {
             running = true;
-            return thread.start();
+
+            // Register metrics for this sender,
+            var metrics = javaVirtualMachine().health().metrics();
+            var name = objectName();
+            sent = metrics.counter("kivakit_email_sent_total", "Emails sent", "sender", name);
+            failures = metrics.counter("kivakit_email_failures_total", "Failed attempts to send an email", "sender", name);
+            retried = metrics.counter("kivakit_email_retries_total", "Emails scheduled to be sent again", "sender", name);
+            abandoned = metrics.counter("kivakit_email_abandoned_total", "Emails that could not be sent", "sender", name);
+            discarded = metrics.counter("kivakit_email_discarded_total", "Emails discarded because the maximum send rate was exceeded", "sender", name);
+            sendTime = metrics.timer("kivakit_email_send_seconds", "Time taken to send an email", "sender", name);
+            registered.addAll(List.of(sent, failures, retried, abandoned, discarded, sendTime,
+                metrics.gauge("kivakit_email_queue_size", "Emails waiting to be sent", queue::size, "sender", name),
+                metrics.gauge("kivakit_email_retry_queue_size", "Emails waiting to be retried", retries::size, "sender", name),
+                metrics.gauge("kivakit_email_connections", "Open connections to the mail server", this::connections, "sender", name)));
+
+            // create a session and a pool of connections to share between sender threads,
+            session = Session.getInstance(getMailSessionProperties(), authenticator());
+            session.setDebug(debug().isDebugOn());
+            transports = new TransportPool(session, senderThreads.asInt());
+
+            // then start the sender threads
+            for (var index = 0; index < senderThreads.asInt(); index++)
+            {
+                threads.add(thread(simpleName(EmailSender.class) + "-" + index, this::sendNext));
+            }
+
+            // and the thread that moves emails from the retry queue back to the queue.
+            threads.add(thread(simpleName(EmailSender.class) + "-retries", this::retryNext));
+
+            var started = true;
+            for (var thread : threads)
+            {
+                started &= thread.start();
+            }
+            return started;
         }
         return true;
     }
@@ -266,49 +409,214 @@ public abstract class EmailSender extends BaseRepeater implements
         // Flush any remaining e-mails
         flush(maximumWaitTime);
 
-        // Stop this thread
-        thread.stop(maximumWaitTime);
+        // Stop our threads,
+        for (var thread : threads)
+        {
+            thread.stop(maximumWaitTime);
+        }
+
+        // give up on any emails that could not be sent in time,
+        abandonUnsent(maximumWaitTime);
+
+        // close any open connections,
+        if (transports != null)
+        {
+            transports.close();
+        }
+
+        // and remove our metrics from the registry.
+        var metrics = javaVirtualMachine().health().metrics();
+        for (var metric : registered)
+        {
+            metrics.remove(metric);
+        }
+        registered.clear();
     }
 
     protected abstract Properties getMailSessionProperties();
 
+    /**
+     * Gives up on any emails still waiting to be sent or retried after the sender threads have stopped
+     */
+    private void abandonUnsent(Duration maximumWaitTime)
+    {
+        // Take the emails that are waiting to be retried, whether they are due or not,
+        var unsent = new ArrayList<Email>();
+        for (var retry : retries.toArray(new Retry[0]))
+        {
+            unsent.add(retry.email);
+        }
+        retries.clear();
+
+        // and the emails that are still in the queue,
+        for (var email = queue().take(ZERO_DURATION); email != null; email = queue().take(ZERO_DURATION))
+        {
+            unsent.add(email);
+        }
+
+        // and if there are any,
+        if (!unsent.isEmpty())
+        {
+            // warn that they are being abandoned, and count them.
+            warning("Abandoning $ unsent emails that could not be sent within $", unsent.size(), maximumWaitTime);
+            if (abandoned != null)
+            {
+                abandoned.add(unsent.size());
+            }
+            for (var ignored : unsent)
+            {
+                settled();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open connections to the mail server
+     */
+    private int connections()
+    {
+        var transports = this.transports;
+        return transports == null ? 0 : transports.open();
+    }
+
+    /**
+     * Returns true if sending another email now would exceed the maximum send rate
+     */
+    private boolean isTooFast()
+    {
+        var maximum = configuration.maximumSendRate();
+        synchronized (rate)
+        {
+            rate.increment();
+            return maximum != null && rate.rate().isFasterThan(maximum);
+        }
+    }
+
     private EmailQueue queue()
     {
         return queue;
     }
 
+    /**
+     * Moves the next email that is due to be retried back to the queue
+     */
+    private void retryNext()
+    {
+        try
+        {
+            var retry = retries.poll(1, TimeUnit.SECONDS);
+            if (retry != null)
+            {
+                if (!queue().requeue(retry.email, seconds(5)))
+                {
+                    warning("Unable to re-queue email");
+                    abandoned.increment();
+                    settled();
+                }
+            }
+        }
+        catch (InterruptedException ignored)
+        {
+        }
+    }
+
     private boolean send(Email email)
     {
-        rate.increment();
-        if (rate.rate().isFasterThan(configuration.maximumSendRate()))
+        if (isTooFast())
         {
             warning("Emails are being sent at a rate greater than ${debug}. Discarding email ${debug}",
                     configuration.maximumSendRate(), email);
+            discarded.increment();
             return true;
         }
         else
         {
-            try
+            trace("Sending email $", email);
+            if (enabled)
             {
-                trace("Sending email $", email);
-                if (enabled)
+                var started = sendTime.start();
+                Transport transport = null;
+                try
                 {
-                    var session = Session.getDefaultInstance(getMailSessionProperties(), authenticator());
-                    session.setDebug(debug().isDebugOn());
-                    var transport = session.getTransport();
                     var message = new MimeMessage(session);
                     email.composeMessage(message);
-                    transport.connect();
+                    transport = transports.acquire();
                     transport.sendMessage(message, message.getRecipients(TO));
-                    transport.close();
+                    transports.release(transport);
+                    sendTime.stop(started);
+                }
+                catch (Exception e)
+                {
+                    // If sending failed, the connection may be in an unknown state, so close it.
+                    if (transport != null)
+                    {
+                        transports.discard(transport);
+                    }
+                    failures.increment();
+                    problem(e, "Cannot send email");
+                    return false;
                 }
-                return true;
             }
-            catch (Exception e)
+            sent.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Sends the next email in the queue, scheduling it to be retried if it can't be sent
+     */
+    private void sendNext()
+    {
+        var email = queue().take(ONE_SECOND);
+        if (email != null)
+        {
+            email.tried();
+            if (send(email))
             {
-                problem(e, "Cannot send email");
-                return false;
+                queue().markSent(email);
+                settled();
+            }
+            else if (email.tries().isLessThan(maximumRetries))
+            {
+                retried.increment();
+                retries.add(new Retry(email, retryPeriod));
+            }
+            else
+            {
+                warning("Giving up on email after $ tries: $", email.tries(), email);
+                abandoned.increment();
+                settled();
+            }
+        }
+    }
+
+    /**
+     * Records that an email has been sent or given up on, waking up any thread waiting in {@link #flush(Duration)}
+     * when there are no more emails left
+     */
+    private void settled()
+    {
+        if (pending.decrementAndGet() == 0)
+        {
+            synchronized (pending)
+            {
+                pending.notifyAll();
             }
         }
     }
+
+    /**
+     * Returns a thread that runs the given code continuously
+     */
+    private RepeatingThread thread(String name, Runnable code)
+    {
+        return new RepeatingThread(this, name, CONTINUOUSLY)
+        {
+            @Override
+            protected void onRun()
+            {
+                code.run();
+            }
+        };
+    }
 }
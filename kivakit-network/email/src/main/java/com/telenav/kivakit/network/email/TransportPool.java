@@ -0,0 +1,158 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.email;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.network.email.internal.lexakai.DiagramEmail;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * A pool of connected mail {@link Transport}s, so that a connection to the mail server (and any authentication) is
+ * made once and then used for many messages. A transport is checked out with {@link #acquire()}, and after a message
+ * has been sent, it is either returned to the pool with {@link #release(Transport)} or, if sending failed and the
+ * connection may be in an unknown state, closed with {@link #discard(Transport)}. Idle transports are checked with
+ * {@link Transport#isConnected()} before they are reused, so connections that the server has dropped are replaced.
+ * </p>
+ *
+ * <p>
+ * Since each sender thread holds at most one transport at a time, the number of open connections never exceeds the
+ * number of sender threads.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@UmlClassDiagram(diagram = DiagramEmail.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = UNTESTED,
+             documentation = DOCUMENTED)
+final class TransportPool
+{
+    /** True once this pool has been closed */
+    private volatile boolean closed;
+
+    /** Connected transports that are not in use */
+    private final ArrayBlockingQueue<Transport> idle;
+
+    /** The number of connected transports, in use or idle */
+    private final AtomicInteger open = new AtomicInteger();
+
+    /** The session to get transports from */
+    private final Session session;
+
+    /**
+     * @param session The mail session
+     * @param maximumIdle The maximum number of idle transports to keep open
+     */
+    TransportPool(Session session, int maximumIdle)
+    {
+        this.session = session;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, maximumIdle));
+    }
+
+    /**
+     * Returns a connected transport, reusing an idle one if there is one that is still connected
+     */
+    Transport acquire() throws MessagingException
+    {
+        // Go through the idle transports,
+        for (var transport = idle.poll(); transport != null; transport = idle.poll())
+        {
+            // and if the transport is still connected, use it,
+            if (transport.isConnected())
+            {
+                return transport;
+            }
+
+            // otherwise, close it.
+            discard(transport);
+        }
+
+        // If there are no idle transports, connect a new one.
+        var transport = session.getTransport();
+        transport.connect();
+        open.incrementAndGet();
+        return transport;
+    }
+
+    /**
+     * Closes all idle transports. Transports that are in use are closed when they are released.
+     */
+    void close()
+    {
+        closed = true;
+        for (var transport = idle.poll(); transport != null; transport = idle.poll())
+        {
+            discard(transport);
+        }
+    }
+
+    /**
+     * Closes the given transport instead of returning it to the pool
+     */
+    void discard(Transport transport)
+    {
+        open.decrementAndGet();
+        try
+        {
+            transport.close();
+        }
+        catch (MessagingException ignored)
+        {
+        }
+    }
+
+    /**
+     * Returns the number of connected transports, in use or idle
+     */
+    int open()
+    {
+        return open.get();
+    }
+
+    /**
+     * Returns the given transport to the pool, or closes it if the pool is closed or full
+     */
+    void release(Transport transport)
+    {
+        // If the pool is closed or full, close the transport,
+        if (closed || !idle.offer(transport))
+        {
+            discard(transport);
+        }
+
+        // and if the pool was closed while we were returning the transport, take it back out and close it.
+        else if (closed && idle.remove(transport))
+        {
+            discard(transport);
+        }
+    }
+}
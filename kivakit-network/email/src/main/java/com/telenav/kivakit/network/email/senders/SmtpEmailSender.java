@@ -20,6 +20,7 @@ package com.telenav.kivakit.network.email.senders;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.conversion.core.language.object.ConvertedProperty;
+import com.telenav.kivakit.conversion.core.language.primitive.IntegerConverter;
 import com.telenav.kivakit.network.core.Host;
 import com.telenav.kivakit.network.core.HostConverter;
 import com.telenav.kivakit.network.core.authentication.Password;
@@ -37,7 +38,7 @@ import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMEN
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 
 /**
- * Sends emails via SMTP using a host, username and password.
+ * Sends emails via SMTP using a host, port, username and password.
  *
  * @author jonathanl (shibo)
  */
@@ -48,7 +49,7 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 public class SmtpEmailSender extends EmailSender
 {
     /**
-     * Specifies the host, username and password to send emails via SMTP
+     * Specifies the host, port (25 by default), username and password to send emails via SMTP
      *
      * @author jonathanl (shibo)
      */
@@ -63,6 +64,8 @@ public class SmtpEmailSender extends EmailSender
 
         private Password password;
 
+        private int port = 25;
+
         public Host host()
         {
             return host;
@@ -87,6 +90,18 @@ public class SmtpEmailSender extends EmailSender
             return this;
         }
 
+        public int port()
+        {
+            return port;
+        }
+
+        @ConvertedProperty(IntegerConverter.class)
+        public Configuration port(int port)
+        {
+            this.port = port;
+            return this;
+        }
+
         public UserName username()
         {
             return username;
@@ -114,6 +129,7 @@ public class SmtpEmailSender extends EmailSender
         var properties = new Properties();
         properties.setProperty("mail.transport.protocol", "smtp");
         properties.setProperty("mail.host", configuration.host().name());
+        properties.setProperty("mail.smtp.port", Integer.toString(configuration.port()));
         var username = configuration.username();
         if (username != null)
         {
@@ -0,0 +1,258 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.email;
+
+import com.telenav.kivakit.core.metrics.Counter;
+import com.telenav.kivakit.network.email.senders.SmtpEmailSender;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.telenav.kivakit.core.time.Duration.milliseconds;
+import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.core.value.count.Count.count;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+import static com.telenav.kivakit.network.core.EmailAddress.parseEmailAddress;
+import static com.telenav.kivakit.network.core.Host.host;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+public class EmailSenderTest extends UnitTest
+{
+    /**
+     * A minimal SMTP server that accepts messages and records their subjects
+     */
+    private static class LocalSmtpServer
+    {
+        /** The number of connections made to this server */
+        final AtomicInteger connections = new AtomicInteger();
+
+        /** The subjects of messages received, in the order they arrived */
+        final List<String> subjects = new CopyOnWriteArrayList<>();
+
+        /** The number of messages to reject before accepting messages */
+        final AtomicInteger rejections = new AtomicInteger();
+
+        private final ServerSocket socket;
+
+        LocalSmtpServer() throws IOException
+        {
+            socket = new ServerSocket(0);
+            var thread = new Thread(this::accept, "LocalSmtpServer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void close() throws IOException
+        {
+            socket.close();
+        }
+
+        int port()
+        {
+            return socket.getLocalPort();
+        }
+
+        private void accept()
+        {
+            while (!socket.isClosed())
+            {
+                try
+                {
+                    var client = socket.accept();
+                    connections.incrementAndGet();
+                    var thread = new Thread(() -> converse(client), "LocalSmtpConnection");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                catch (IOException ignored)
+                {
+                }
+            }
+        }
+
+        private void converse(Socket client)
+        {
+            try (client;
+                 var in = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+                 var out = new PrintWriter(client.getOutputStream(), true, US_ASCII))
+            {
+                reply(out, "220 localhost ESMTP");
+                for (var line = in.readLine(); line != null; line = in.readLine())
+                {
+                    var command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+                    switch (command)
+                    {
+                        case "DATA" ->
+                        {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            String subject = null;
+                            for (var data = in.readLine(); data != null && !data.equals("."); data = in.readLine())
+                            {
+                                if (subject == null && data.startsWith("Subject: "))
+                                {
+                                    subject = data.substring("Subject: ".length());
+                                }
+                            }
+                            if (rejections.getAndDecrement() > 0)
+                            {
+                                reply(out, "451 Try again later");
+                            }
+                            else
+                            {
+                                subjects.add(subject);
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "QUIT" ->
+                        {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            }
+            catch (IOException ignored)
+            {
+            }
+        }
+
+        private void reply(PrintWriter out, String reply)
+        {
+            out.print(reply + "\r\n");
+            out.flush();
+        }
+    }
+
+    private LocalSmtpServer server;
+
+    @After
+    public void after() throws IOException
+    {
+        server.close();
+    }
+
+    @Before
+    public void before() throws IOException
+    {
+        server = new LocalSmtpServer();
+    }
+
+    @Test
+    public void testAbandonedOnStop()
+    {
+        server.rejections.set(100);
+
+        var sender = sender("abandoned", 1);
+        sender.retryPeriod(seconds(60));
+        sender.start();
+        var abandoned = counter("kivakit_email_abandoned_total", "abandoned");
+        for (var index = 0; index < 2; index++)
+        {
+            sender.enqueue(email("message " + index));
+        }
+        sender.stop(seconds(1));
+
+        // Emails still waiting to be retried when the sender stops are counted as abandoned,
+        ensureEqual(0, server.subjects.size());
+        ensureEqual(2L, abandoned.value());
+
+        // and the sender's metrics are removed.
+        ensure(counter("kivakit_email_abandoned_total", "abandoned") == null);
+    }
+
+    @Test
+    public void testPooledSending()
+    {
+        var sender = sender("pooled", 4);
+        sender.start();
+        var sent = counter("kivakit_email_sent_total", "pooled");
+        var failures = counter("kivakit_email_failures_total", "pooled");
+        for (var index = 0; index < 40; index++)
+        {
+            sender.enqueue(email("message " + index));
+        }
+        sender.stop(seconds(30));
+
+        ensureEqual(40, server.subjects.size());
+        ensure(server.connections.get() <= 4);
+        ensureEqual(40L, sent.value());
+        ensureEqual(0L, failures.value());
+    }
+
+    @Test
+    public void testRetry()
+    {
+        server.rejections.set(1);
+
+        var sender = sender("retry", 1);
+        sender.retryPeriod(milliseconds(500));
+        sender.start();
+        var sent = counter("kivakit_email_sent_total", "retry");
+        var failures = counter("kivakit_email_failures_total", "retry");
+        var retries = counter("kivakit_email_retries_total", "retry");
+        for (var index = 0; index < 5; index++)
+        {
+            sender.enqueue(email("message " + index));
+        }
+        sender.stop(seconds(30));
+
+        // The rejected email is sent last, after it has waited to be retried, without holding up the others
+        ensureEqual(List.of("message 1", "message 2", "message 3", "message 4", "message 0"), server.subjects);
+        ensureEqual(5L, sent.value());
+        ensureEqual(1L, failures.value());
+        ensureEqual(1L, retries.value());
+    }
+
+    private Counter counter(String name, String sender)
+    {
+        return (Counter) javaVirtualMachine().health().metrics().metric(name, "sender", sender + "-" + server.port());
+    }
+
+    private Email email(String subject)
+    {
+        var address = parseEmailAddress(this, "test@localhost.com");
+        return new Email()
+                .from(address)
+                .addRecipient(address)
+                .subject(subject)
+                .body(new EmailBody(subject));
+    }
+
+    private EmailSender sender(String name, int threads)
+    {
+        var configuration = new SmtpEmailSender.Configuration()
+                .host(host("localhost"))
+                .port(server.port());
+        var sender = listenTo(new SmtpEmailSender(configuration));
+        sender.objectName(name + "-" + server.port());
+        return sender.senderThreads(count(threads));
+    }
+}
@@ -47,7 +47,6 @@ import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMEN
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.ensure.Ensure.fail;
-import static com.telenav.kivakit.core.value.count.Count.count;
 import static com.telenav.kivakit.network.core.NetworkAccessConstraints.defaultNetworkAccessConstraints;
 import static com.telenav.kivakit.network.ftp.FtpNetworkLocation.Mode.PASSIVE;
 import static org.apache.commons.net.ftp.FTP.ASCII_FILE_TYPE;
@@ -152,7 +151,7 @@ public class FtpResource extends BaseNetworkResource
             while ((readCount = in.read(buffer)) > 0)
             {
                 out.write(buffer, 0, readCount);
-                reporter.next(count(readCount));
+                reporter.next(readCount);
             }
             reporter.end("Copied");
             out.flush();
@@ -206,8 +206,7 @@ public abstract class BaseHttpResource extends BaseNetworkResource implements Ht
     public Time lastModified()
     {
         // Wed, 21 Oct 2015 07:28:00 GMT
-        var lastModified = httpHeadRequestHeaderField("Last-Modified");
-        return new HttpDateTimeConverter(this).convert(lastModified);
+        return parseHttpTime(httpHeadRequestHeaderField("Last-Modified"));
     }
 
     /**
@@ -312,6 +311,14 @@ public abstract class BaseHttpResource extends BaseNetworkResource implements Ht
         return build(asUri());
     }
 
+    /**
+     * Returns the given HTTP date, like "Wed, 21 Oct 2015 07:28:00 GMT", as a {@link Time}
+     */
+    Time parseHttpTime(String text)
+    {
+        return new HttpDateTimeConverter(this).convert(text);
+    }
+
     /**
      * Executes the given request, reads the status code and header map
      *
@@ -0,0 +1,574 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.http;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.time.Time;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.filesystem.Folder;
+import com.telenav.kivakit.network.http.internal.lexakai.DiagramHttp;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.fail;
+import static com.telenav.kivakit.core.time.Duration.ZERO_DURATION;
+import static com.telenav.kivakit.core.time.Time.epochMilliseconds;
+import static com.telenav.kivakit.core.time.Time.now;
+import static java.net.http.HttpResponse.BodyHandlers.ofInputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A cache of HTTP GET responses, stored in a {@link Folder}. Each cached response has a body file and a metadata file
+ * holding the name of the body file, the response's <i>ETag</i> and <i>Last-Modified</i> headers, the time it was
+ * fetched and how long it stays fresh. An {@link HttpGetResource} constructed with a cache reads its content through the cache.
+ *
+ * <p><b>Freshness</b></p>
+ *
+ * <ul>
+ *     <li>A cached response is fresh for the <i>max-age</i> given in its <i>Cache-Control</i> header, or for
+ *     {@link #defaultMaximumAge(Duration)} if there is no <i>max-age</i>. Responses with <i>no-cache</i> must always
+ *     be revalidated, and responses with <i>no-store</i> are not cached at all. Each access to such a response
+ *     downloads it to a temporary file that is not reused.</li>
+ *     <li>A fresh response is served from disk without any request to the server</li>
+ *     <li>A stale response is revalidated with a conditional GET request, using <i>If-None-Match</i> and
+ *     <i>If-Modified-Since</i>. If the server answers <i>304 Not Modified</i>, the response is served from disk and its
+ *     freshness is renewed. Otherwise, the new response replaces it.</li>
+ *     <li>For the {@link #staleWhileRevalidate(Duration)} window after a response becomes stale, it is served from
+ *     disk right away, while it is revalidated in the background on a small pool of daemon threads</li>
+ *     <li>If revalidation fails because the server can't be reached or answers with a server error (5xx), a stale
+ *     response is served with a warning rather than failing. Other errors, such as <i>404 Not Found</i> or
+ *     <i>410 Gone</i>, are not hidden by a stale response.</li>
+ * </ul>
+ *
+ * <p><b>Concurrency</b></p>
+ *
+ * <p>
+ * Only one request for a given URI is in flight at a time. Other threads that need the same response wait for that
+ * request and share its result. Each new response body is written to a file of its own, and is then published by
+ * atomically replacing the metadata file, which names the body file. Readers therefore never see a partially written
+ * body, or a body with the metadata of another response. The body file that was replaced is kept for readers that
+ * may still be using it, and older body files are removed.
+ * </p>
+ *
+ * <p><b>Access</b></p>
+ *
+ * <ul>
+ *     <li>{@link #file(HttpGetResource)}</li>
+ *     <li>{@link #lastModified(HttpGetResource)}</li>
+ *     <li>{@link #open(HttpGetResource)}</li>
+ * </ul>
+ *
+ * <p><b>Settings</b></p>
+ *
+ * <ul>
+ *     <li>{@link #defaultMaximumAge(Duration)}</li>
+ *     <li>{@link #staleWhileRevalidate(Duration)}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ * @see HttpGetResource
+ */
+@UmlClassDiagram(diagram = DiagramHttp.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class HttpCache extends BaseRepeater
+{
+    /** Suffix of temporary files holding responses that can't be stored */
+    private static final String UNCACHED = ".uncached";
+
+    /** Pattern to find the max-age directive in a Cache-Control header */
+    private static final Pattern MAXIMUM_AGE = Pattern.compile("max-age\\s*=\\s*\"?(\\d+)\"?");
+
+    /** Suffix of response body files */
+    private static final String BODY = ".body";
+
+    /** Daemon threads for revalidating stale responses in the background, rather than the common fork-join pool */
+    private static final ExecutorService revalidators = revalidators();
+
+    /**
+     * Returns an HTTP cache that stores responses in the given folder
+     */
+    public static HttpCache httpCache(@NotNull Folder folder)
+    {
+        return new HttpCache(folder);
+    }
+
+    /**
+     * Returns a thread pool for revalidating responses in the background. Its threads are daemons, so they do not
+     * keep the virtual machine alive, and they exit when they have been idle for a minute.
+     */
+    private static ExecutorService revalidators()
+    {
+        var identifier = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(4, 4, 60, SECONDS, new LinkedBlockingQueue<>(), runnable ->
+        {
+            var thread = new Thread(runnable, "KivaKit-HttpCacheRevalidator-" + identifier.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The metadata for a cached response
+     *
+     * @param body The name of the file holding the response body
+     * @param etag The ETag header of the response, if any
+     * @param lastModified The Last-Modified header of the response, if any
+     * @param fetched The time the response was fetched or last revalidated, in milliseconds since the epoch
+     * @param maximumAge The time the response stays fresh after it is fetched, in milliseconds
+     */
+    private record Metadata(String body, String etag, String lastModified, long fetched, long maximumAge)
+    {
+        /**
+         * Returns how long ago this response was fetched or revalidated, in milliseconds
+         */
+        long age()
+        {
+            return now().epochMilliseconds() - fetched;
+        }
+    }
+
+    /** The folder where responses are stored */
+    private final Folder folder;
+
+    /** How long a response without a max-age stays fresh */
+    private volatile Duration defaultMaximumAge = ZERO_DURATION;
+
+    /** How long a stale response can be served while it is revalidated in the background */
+    private volatile Duration staleWhileRevalidate = ZERO_DURATION;
+
+    /** Requests in flight, by cache key */
+    private final Map<String, CompletableFuture<File>> requests = new ConcurrentHashMap<>();
+
+    /**
+     * @param folder The folder where responses should be stored
+     */
+    protected HttpCache(@NotNull Folder folder)
+    {
+        this.folder = folder.mkdirs();
+    }
+
+    /**
+     * Sets how long a response that has no max-age directive stays fresh. The default is zero, so such responses are
+     * revalidated each time they are accessed.
+     */
+    public void defaultMaximumAge(@NotNull Duration maximumAge)
+    {
+        this.defaultMaximumAge = maximumAge;
+    }
+
+    /**
+     * Returns a local file holding an up-to-date copy of the given resource's content. If the server does not allow
+     * the response to be stored, the file is a temporary copy that is not reused.
+     *
+     * @param resource The resource
+     * @return The file holding the resource's content
+     */
+    public File file(@NotNull HttpGetResource resource)
+    {
+        var key = key(resource.asUri());
+        var metadata = metadata(key);
+
+        // If we have a cached response,
+        if (metadata != null)
+        {
+            // and it is still fresh,
+            var body = body(metadata);
+            var age = metadata.age();
+            if (age < metadata.maximumAge())
+            {
+                // then serve it from disk.
+                trace("Serving fresh copy of $", resource);
+                return body;
+            }
+
+            // If it is stale, but within the stale-while-revalidate window,
+            if (age < metadata.maximumAge() + staleWhileRevalidate.milliseconds())
+            {
+                // then revalidate it in the background and serve it from disk.
+                trace("Serving stale copy of $ while revalidating", resource);
+                var request = new CompletableFuture<File>();
+                if (requests.putIfAbsent(key, request) == null)
+                {
+                    CompletableFuture.runAsync(() -> complete(request, resource, key), revalidators);
+                }
+                return body;
+            }
+        }
+
+        // Otherwise, revalidate or fetch the response, joining any request that is already in flight.
+        var request = new CompletableFuture<File>();
+        var inFlight = requests.putIfAbsent(key, request);
+        if (inFlight == null)
+        {
+            complete(request, resource, key);
+            inFlight = request;
+        }
+        try
+        {
+            return inFlight.join();
+        }
+        catch (CompletionException e)
+        {
+            return fail(e.getCause(), "Unable to fetch $", resource);
+        }
+    }
+
+    /**
+     * Returns the last modification time of the given resource, from its cached response, or null if the resource is
+     * not cached or the server didn't supply a Last-Modified header
+     */
+    public Time lastModified(@NotNull HttpGetResource resource)
+    {
+        var metadata = metadata(key(resource.asUri()));
+        return metadata == null || metadata.lastModified() == null
+            ? null
+            : resource.parseHttpTime(metadata.lastModified());
+    }
+
+    /**
+     * Opens an up-to-date copy of the given resource's content for reading. If the server does not allow the response
+     * to be stored, the temporary copy is deleted when the input stream is closed.
+     */
+    public InputStream open(@NotNull HttpGetResource resource)
+    {
+        var file = file(resource);
+        if (file.fileName().name().endsWith(UNCACHED))
+        {
+            try
+            {
+                return Files.newInputStream(file.asJavaPath(), DELETE_ON_CLOSE);
+            }
+            catch (IOException e)
+            {
+                return fail(e, "Unable to open $", file);
+            }
+        }
+        return file.onOpenForReading();
+    }
+
+    /**
+     * Sets how long after a response becomes stale it can still be served while it is revalidated in the background.
+     * The default is zero, so stale responses are always revalidated before they are served.
+     */
+    public void staleWhileRevalidate(@NotNull Duration window)
+    {
+        this.staleWhileRevalidate = window;
+    }
+
+    @Override
+    public String toString()
+    {
+        return folder.toString();
+    }
+
+    /**
+     * Returns the body file named by the given metadata
+     */
+    private File body(Metadata metadata)
+    {
+        return folder.file(metadata.body());
+    }
+
+    /**
+     * Fetches the given resource, completes the given request with the result and removes the request from the
+     * requests in flight
+     */
+    private void complete(CompletableFuture<File> request, HttpGetResource resource, String key)
+    {
+        try
+        {
+            request.complete(fetch(resource, key));
+        }
+        catch (Throwable e)
+        {
+            request.completeExceptionally(e);
+        }
+        finally
+        {
+            requests.remove(key, request);
+        }
+    }
+
+    /**
+     * Sends a GET request for the given resource, conditional on any cached response, and returns the file holding
+     * the response body
+     */
+    private File fetch(HttpGetResource resource, String key)
+    {
+        var cached = metadata(key);
+        var body = cached == null ? null : body(cached);
+        try
+        {
+            // Build a GET request for the resource, conditional on any cached response,
+            var builder = HttpRequest.newBuilder(resource.newRequest(), (name, value) -> true);
+            if (cached != null && cached.etag() != null)
+            {
+                builder.header("If-None-Match", cached.etag());
+            }
+            if (cached != null && cached.lastModified() != null)
+            {
+                builder.header("If-Modified-Since", cached.lastModified());
+            }
+
+            // send it,
+            var response = resource.newClient().send(builder.build(), ofInputStream());
+            try (var in = response.body())
+            {
+                var fetched = now().epochMilliseconds();
+                var cacheControl = response.headers().firstValue("Cache-Control").orElse("");
+
+                // and if the cached response is still valid,
+                var status = HttpStatus.httpStatus(response.statusCode());
+                if (status == HttpStatus.NOT_MODIFIED && cached != null)
+                {
+                    // renew its freshness,
+                    trace("Revalidated $", resource);
+                    var maximumAge = cacheControl.isEmpty() ? cached.maximumAge() : maximumAge(cacheControl);
+                    save(key, new Metadata(cached.body(), cached.etag(), cached.lastModified(), fetched, maximumAge));
+                    return body;
+                }
+
+                // otherwise, if we got a new response,
+                if (status.isSuccess())
+                {
+                    // and the server allows it to be stored,
+                    if (cacheControl.contains("no-store"))
+                    {
+                        trace("Not caching $ (no-store)", resource);
+                        var temporary = Files.createTempFile(folder.asJavaFile().toPath(), key, UNCACHED);
+                        temporary.toFile().deleteOnExit();
+                        Files.copy(in, temporary, REPLACE_EXISTING);
+                        return File.file(this, temporary.toFile());
+                    }
+
+                    // then write the body to a new file and publish it by saving metadata that names it.
+                    trace("Caching $", resource);
+                    var written = write(key, in);
+                    save(key, new Metadata(
+                        written.fileName().name(),
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null),
+                        fetched,
+                        maximumAge(cacheControl)));
+                    removeOldBodies(key, written, body);
+                    return written;
+                }
+
+                // If the server had an error, it may be temporary, so serve any stale response,
+                if (status.isServerError() && cached != null)
+                {
+                    warning("Unable to revalidate $ (HTTP status $), serving stale copy", resource, status);
+                    return body;
+                }
+
+                // but any other error means the cached response should not be used.
+                return fail("Unable to fetch $: HTTP status $", resource, status);
+            }
+        }
+        catch (IOException | InterruptedException e)
+        {
+            if (e instanceof InterruptedException)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            // If the server couldn't be reached and we have a stale response, serve it rather than failing.
+            if (cached != null)
+            {
+                warning(e, "Unable to revalidate $, serving stale copy", resource);
+                return body;
+            }
+            return fail(e, "Unable to fetch $", resource);
+        }
+    }
+
+    /**
+     * Returns the cache key for the given URI
+     */
+    private String key(URI uri)
+    {
+        try
+        {
+            var digest = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(UTF_8));
+            return HexFormat.of().formatHex(digest);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            return fail(e, "SHA-256 is not available");
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds that a response with the given Cache-Control header stays fresh
+     */
+    private long maximumAge(String cacheControl)
+    {
+        if (cacheControl.contains("no-cache"))
+        {
+            return 0;
+        }
+        var matcher = MAXIMUM_AGE.matcher(cacheControl);
+        return matcher.find()
+            ? Long.parseLong(matcher.group(1)) * 1_000
+            : defaultMaximumAge.milliseconds();
+    }
+
+    /**
+     * Returns the metadata for the given key, or null if there is none
+     */
+    private Metadata metadata(String key)
+    {
+        var file = metadataFile(key);
+        if (file.exists())
+        {
+            try (var in = Files.newInputStream(file.asJavaPath()))
+            {
+                var properties = new Properties();
+                properties.load(in);
+
+                // If the metadata doesn't name a body file that exists, there is no usable cached response.
+                var body = properties.getProperty("body");
+                if (body == null || !folder.file(body).exists())
+                {
+                    return null;
+                }
+                return new Metadata(
+                    body,
+                    properties.getProperty("etag"),
+                    properties.getProperty("last-modified"),
+                    Long.parseLong(properties.getProperty("fetched", "0")),
+                    Long.parseLong(properties.getProperty("maximum-age", "0")));
+            }
+            catch (Exception e)
+            {
+                warning(e, "Unable to read cache metadata: $", file);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the metadata file for the given key
+     */
+    private File metadataFile(String key)
+    {
+        return folder.file(key + ".properties");
+    }
+
+    /**
+     * Saves the given metadata for the given key
+     */
+    private void save(String key, Metadata metadata) throws IOException
+    {
+        var properties = new Properties();
+        properties.setProperty("body", metadata.body());
+        if (metadata.etag() != null)
+        {
+            properties.setProperty("etag", metadata.etag());
+        }
+        if (metadata.lastModified() != null)
+        {
+            properties.setProperty("last-modified", metadata.lastModified());
+        }
+        properties.setProperty("fetched", Long.toString(metadata.fetched()));
+        properties.setProperty("maximum-age", Long.toString(metadata.maximumAge()));
+
+        var file = metadataFile(key).asJavaPath();
+        var temporary = Files.createTempFile(file.getParent(), key, ".tmp");
+        try (var out = Files.newOutputStream(temporary))
+        {
+            properties.store(out, null);
+        }
+        Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * Removes the body files for the given key, other than the given current and previous body files. The previous
+     * body file is kept, since readers may have found it just before it was replaced.
+     */
+    private void removeOldBodies(String key, File current, File previous)
+    {
+        for (var file : folder.files(file -> file.fileName().name().startsWith(key + ".")
+            && file.fileName().name().endsWith(BODY)))
+        {
+            if (!file.equals(current) && !file.equals(previous))
+            {
+                try
+                {
+                    Files.deleteIfExists(file.asJavaPath());
+                }
+                catch (IOException e)
+                {
+                    trace("Unable to remove $", file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the given input to a new body file for the given key. The file is not used until metadata naming it is
+     * saved, so it is never seen partially written.
+     */
+    private File write(String key, InputStream in) throws IOException
+    {
+        var path = Files.createTempFile(folder.asJavaFile().toPath(), key + ".", BODY);
+        try
+        {
+            Files.copy(in, path, REPLACE_EXISTING);
+            return File.file(this, path.toFile());
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+}
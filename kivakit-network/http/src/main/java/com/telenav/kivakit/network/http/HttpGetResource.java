@@ -19,10 +19,17 @@
 package com.telenav.kivakit.network.http;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.progress.ProgressReporter;
+import com.telenav.kivakit.core.time.Time;
 import com.telenav.kivakit.network.core.NetworkAccessConstraints;
 import com.telenav.kivakit.network.core.NetworkLocation;
 import com.telenav.kivakit.network.http.internal.lexakai.DiagramHttp;
+import com.telenav.kivakit.resource.Resource;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
+import com.telenav.lexakai.annotations.associations.UmlAggregation;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.InputStream;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -32,6 +39,15 @@ import static com.telenav.kivakit.core.ensure.Ensure.ensure;
 /**
  * A resource accessed by HTTP GET at the given network location using the given access constraints.
  *
+ * <p><b>Caching</b></p>
+ *
+ * <p>
+ * If the resource is constructed with an {@link HttpCache}, its content is read through the cache. Then a fresh
+ * response is read from disk, and a stale response is revalidated with a conditional GET request. This also applies to
+ * {@link #materialized(ProgressReporter)}, which returns the cached file. Once the resource has been cached,
+ * {@link #lastModified()} uses the cached <i>Last-Modified</i> header instead of sending a HEAD request.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @UmlClassDiagram(diagram = DiagramHttp.class)
@@ -40,9 +56,54 @@ import static com.telenav.kivakit.core.ensure.Ensure.ensure;
              documentation = DOCUMENTED)
 public class HttpGetResource extends BaseHttpResource
 {
+    /** Any cache to read responses through */
+    @UmlAggregation
+    private final HttpCache cache;
+
     public HttpGetResource(NetworkLocation location, NetworkAccessConstraints constraints)
+    {
+        this(location, constraints, null);
+    }
+
+    /**
+     * @param location The location of the resource
+     * @param constraints Constraints on accessing the resource
+     * @param cache The cache to read responses through, or null to send a request each time the resource is read
+     */
+    public HttpGetResource(NetworkLocation location, NetworkAccessConstraints constraints, HttpCache cache)
     {
         super(location, constraints);
         ensure(location.port().isHttp());
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache that responses are read through, if any
+     */
+    public HttpCache cache()
+    {
+        return cache;
+    }
+
+    @Override
+    public Time lastModified()
+    {
+        // If there is a cached Last-Modified header, use it rather than sending a HEAD request.
+        var lastModified = cache == null ? null : cache.lastModified(this);
+        return lastModified == null ? super.lastModified() : lastModified;
+    }
+
+    @Override
+    public Resource materialized(@NotNull ProgressReporter reporter)
+    {
+        // If there is a cache, the cached file is the materialized resource.
+        return cache == null ? super.materialized(reporter) : cache.file(this);
+    }
+
+    @Override
+    public InputStream onOpenForReading()
+    {
+        // If there is a cache, read the resource through it.
+        return cache == null ? super.onOpenForReading() : cache.open(this);
     }
 }
@@ -9,6 +9,8 @@ import com.telenav.kivakit.resource.spi.ResourceResolver;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
@@ -61,4 +63,13 @@ public class HttpGetResourceResolver implements ResourceResolver
 
         return fail("Internal error: should not be possible");
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> schemes()
+    {
+        return Set.of("http", "https");
+    }
 }
@@ -0,0 +1,195 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.telenav.kivakit.core.progress.ProgressReporter.nullProgressReporter;
+import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.filesystem.Folder.FolderType.CLEAN_UP_ON_EXIT;
+import static com.telenav.kivakit.filesystem.Folder.temporaryFolderForProcess;
+import static com.telenav.kivakit.network.core.NetworkAccessConstraints.defaultNetworkAccessConstraints;
+import static com.telenav.kivakit.network.core.NetworkLocation.networkLocation;
+import static com.telenav.kivakit.network.http.HttpCache.httpCache;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class HttpCacheTest extends UnitTest
+{
+    /** The body served by the test server */
+    private volatile String body = "version 1";
+
+    /** The Cache-Control header sent by the test server */
+    private volatile String cacheControl = "no-cache";
+
+    /** The status the test server responds with, if it is not 200 */
+    private volatile int status = 200;
+
+    /** The number of full responses sent */
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    /** The number of requests received */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /** The number of 304 responses sent */
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private HttpServer server;
+
+    @Before
+    public void start() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data", this::serve);
+        server.start();
+    }
+
+    @After
+    public void stop()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void testFresh()
+    {
+        cacheControl = "max-age=60";
+        var cache = newCache();
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual(1, requests.get());
+    }
+
+    @Test
+    public void testNoStore()
+    {
+        cacheControl = "no-store";
+        var cache = newCache();
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual(2, downloads.get());
+        ensureEqual(0, notModified.get());
+    }
+
+    @Test
+    public void testRevalidation()
+    {
+        var cache = newCache();
+
+        // The first read downloads the resource,
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual(1, downloads.get());
+
+        // the second read is revalidated and served from disk,
+        ensureEqual("version 1", resource(cache).asString());
+        ensureEqual(1, downloads.get());
+        ensureEqual(1, notModified.get());
+
+        // and once the resource changes, it is downloaded again.
+        body = "version 2";
+        ensureEqual("version 2", resource(cache).asString());
+        ensureEqual(2, downloads.get());
+        ensureEqual("version 2", resource(cache).materialized(nullProgressReporter()).reader().asString());
+        ensureEqual(2, downloads.get());
+    }
+
+    @Test
+    public void testServerErrors()
+    {
+        var cache = newCache();
+        ensureEqual("version 1", resource(cache).asString());
+
+        // A server error serves the stale copy,
+        status = 503;
+        ensureEqual("version 1", resource(cache).asString());
+
+        // but a resource that is gone is not hidden by it.
+        status = 410;
+        ensureThrows(() -> resource(cache).asString());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws InterruptedException
+    {
+        cacheControl = "max-age=0";
+        var cache = newCache();
+        cache.staleWhileRevalidate(seconds(60));
+
+        ensureEqual("version 1", resource(cache).asString());
+        body = "version 2";
+
+        // A stale response is served right away, and revalidated in the background
+        ensureEqual("version 1", resource(cache).asString());
+        for (var wait = 0; wait < 100 && downloads.get() < 2; wait++)
+        {
+            Thread.sleep(50);
+        }
+        ensureEqual(2, downloads.get());
+    }
+
+    private HttpCache newCache()
+    {
+        var folder = temporaryFolderForProcess(CLEAN_UP_ON_EXIT).folder("http-cache-" + System.nanoTime());
+        return listenTo(httpCache(folder));
+    }
+
+    private HttpGetResource resource(HttpCache cache)
+    {
+        var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/data");
+        return listenTo(new HttpGetResource(networkLocation(this, uri), defaultNetworkAccessConstraints(), cache));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        if (status != 200)
+        {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        var body = this.body;
+        var etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+        {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+        }
+        else
+        {
+            downloads.incrementAndGet();
+            var bytes = body.getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
@@ -20,11 +20,13 @@ package com.telenav.kivakit.network.socket.server;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.time.Duration;
 import com.telenav.kivakit.core.value.count.Maximum;
 
 import java.net.BindException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
@@ -35,17 +37,20 @@ import static com.telenav.kivakit.core.thread.KivaKitThread.run;
 import static com.telenav.kivakit.core.thread.Threads.threadPool;
 import static com.telenav.kivakit.core.time.Duration.seconds;
 import static com.telenav.kivakit.core.value.count.Maximum.MAXIMUM;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Listens for client connections on a given port. Each new connection is passed to the socket {@link Consumer} passed
- * to {@link #listen(Consumer)} on an {@link ExecutorService}.
+ * to {@link #listen(Consumer)} on an {@link ExecutorService}. Listening on port zero binds to any free port, which
+ * is available from {@link #port()} once {@link #waitForListening(Duration)} returns true. Calling {@link #close()}
+ * stops listening.
  *
  * @author jonathanl (shibo)
  */
 @TypeQuality(stability = STABLE_EXTENSIBLE,
              testing = UNTESTED,
              documentation = DOCUMENTED)
-public class ConnectionListener extends BaseRepeater
+public class ConnectionListener extends BaseRepeater implements AutoCloseable
 {
     /** The port to listen on */
     private final int port;
@@ -56,6 +61,15 @@ public class ConnectionListener extends BaseRepeater
     /** The executor service to listen for connections */
     private final ExecutorService executor = threadPool("Listener");
 
+    /** True once this listener has been closed */
+    private volatile boolean closed;
+
+    /** The server socket, while listening */
+    private volatile ServerSocket serverSocket;
+
+    /** Released when the server socket first accepts connections */
+    private final CountDownLatch listening = new CountDownLatch(1);
+
     public ConnectionListener(int port)
     {
         this(port, MAXIMUM);
@@ -67,24 +81,47 @@ public class ConnectionListener extends BaseRepeater
         this.retries = retries.asInt();
     }
 
+    /**
+     * Stops listening for connections and closes the server socket
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        var serverSocket = this.serverSocket;
+        if (serverSocket != null)
+        {
+            try
+            {
+                serverSocket.close();
+            }
+            catch (Exception e)
+            {
+                warning(e, "Unable to close server socket");
+            }
+        }
+        executor.shutdown();
+    }
+
     /**
      * Listens for socket connections and calls the given listener when they occur
      *
      * @param connectionListener The socket connection listener
      */
-    @SuppressWarnings("InfiniteLoopStatement")
     public void listen(Consumer<Socket> connectionListener)
     {
         var outer = this;
         run(this, "ConnectionListener", () ->
         {
             int bindFailures = 0;
-            while (bindFailures < retries)
+            while (!closed && bindFailures < retries)
             {
                 trace("Creating server socket on port $", port);
                 try (var serverSocket = new ServerSocket(port))
                 {
-                    while (true)
+                    this.serverSocket = serverSocket;
+                    listening.countDown();
+                    while (!closed)
                     {
                         try
                         {
@@ -104,7 +141,10 @@ public class ConnectionListener extends BaseRepeater
                         }
                         catch (Exception e)
                         {
-                            warning(e, "Exception thrown while waiting for client connections");
+                            if (!closed)
+                            {
+                                warning(e, "Exception thrown while waiting for client connections");
+                            }
                         }
                     }
                 }
@@ -117,8 +157,37 @@ public class ConnectionListener extends BaseRepeater
                     }
                     warning(e, "Connection failed");
                 }
-                seconds(1).sleep();
+                if (!closed)
+                {
+                    seconds(1).sleep();
+                }
             }
         });
     }
+
+    /**
+     * Returns the port this listener is bound to, or the requested port if it is not listening
+     */
+    public int port()
+    {
+        var serverSocket = this.serverSocket;
+        return serverSocket != null && serverSocket.isBound() ? serverSocket.getLocalPort() : port;
+    }
+
+    /**
+     * Waits for this listener to start accepting connections
+     *
+     * @return True if the listener is accepting connections, false if the wait timed out
+     */
+    public boolean waitForListening(Duration maximumWait)
+    {
+        try
+        {
+            return listening.await(maximumWait.milliseconds(), MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            return false;
+        }
+    }
 }
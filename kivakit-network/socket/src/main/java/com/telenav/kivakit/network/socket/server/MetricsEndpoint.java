@@ -0,0 +1,196 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.socket.server;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.metrics.MetricsRegistry;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.network.socket.internal.lexakai.DiagramSocketServer;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.metrics.MetricsRegistry.prometheusContentType;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serves the metrics in a {@link MetricsRegistry} in the Prometheus text format, so they can be scraped over HTTP.
+ * Any GET request for <i>/</i> or <i>/metrics</i> returns the metrics as they are when the request is received. By
+ * default, the endpoint serves the metrics of the running virtual machine.
+ *
+ * <pre>
+ * var endpoint = listenTo(metricsEndpoint(9400));
+ * endpoint.start();</pre>
+ *
+ * <p><b>Creation</b></p>
+ *
+ * <ul>
+ *     <li>{@link #metricsEndpoint(int)}</li>
+ *     <li>{@link #metricsEndpoint(int, MetricsRegistry)}</li>
+ * </ul>
+ *
+ * <p><b>Serving</b></p>
+ *
+ * <ul>
+ *     <li>{@link #start()}</li>
+ *     <li>{@link #port()}</li>
+ *     <li>{@link #waitForListening(Duration)}</li>
+ *     <li>{@link #close()}</li>
+ * </ul>
+ *
+ * @author jonathanl (shibo)
+ */
+@UmlClassDiagram(diagram = DiagramSocketServer.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class MetricsEndpoint extends BaseRepeater implements AutoCloseable
+{
+    /**
+     * Returns an endpoint serving the metrics of the running virtual machine on the given port
+     *
+     * @param port The port to listen on, or zero to listen on any free port
+     */
+    public static MetricsEndpoint metricsEndpoint(int port)
+    {
+        return metricsEndpoint(port, javaVirtualMachine().health().metrics());
+    }
+
+    /**
+     * Returns an endpoint serving the given metrics on the given port
+     *
+     * @param port The port to listen on, or zero to listen on any free port
+     * @param registry The metrics to serve
+     */
+    public static MetricsEndpoint metricsEndpoint(int port, MetricsRegistry registry)
+    {
+        return new MetricsEndpoint(port, registry);
+    }
+
+    /** Listener for scrape connections */
+    private final ConnectionListener listener;
+
+    /** The metrics to serve */
+    private final MetricsRegistry registry;
+
+    protected MetricsEndpoint(int port, MetricsRegistry registry)
+    {
+        this.registry = registry;
+        this.listener = listenTo(new ConnectionListener(port));
+    }
+
+    /**
+     * Stops serving metrics
+     */
+    @Override
+    public void close()
+    {
+        listener.close();
+    }
+
+    /**
+     * Returns the port that this endpoint is listening on
+     */
+    public int port()
+    {
+        return listener.port();
+    }
+
+    /**
+     * Starts serving metrics in the background
+     */
+    public void start()
+    {
+        listener.listen(this::serve);
+    }
+
+    /**
+     * Waits for this endpoint to start accepting connections
+     *
+     * @return True if the endpoint is accepting connections, false if the wait timed out
+     */
+    public boolean waitForListening(Duration maximumWait)
+    {
+        return listener.waitForListening(maximumWait);
+    }
+
+    /**
+     * Reads a request from the given socket and writes the response
+     */
+    private void serve(Socket socket)
+    {
+        try (socket)
+        {
+            socket.setSoTimeout(10_000);
+
+            // Read the request line and skip the headers,
+            var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), ISO_8859_1));
+            var request = in.readLine();
+            var header = in.readLine();
+            while (header != null && !header.isEmpty())
+            {
+                header = in.readLine();
+            }
+
+            // then respond with the metrics if they were requested.
+            var parts = request == null ? new String[0] : request.split(" ");
+            if (parts.length < 2 || !parts[0].equals("GET"))
+            {
+                respond(socket, "405 Method Not Allowed", "text/plain; charset=utf-8", "Method not allowed\n");
+            }
+            else if (parts[1].equals("/") || parts[1].equals("/metrics"))
+            {
+                respond(socket, "200 OK", prometheusContentType(), registry.asPrometheusText());
+            }
+            else
+            {
+                respond(socket, "404 Not Found", "text/plain; charset=utf-8", "Not found\n");
+            }
+        }
+        catch (Exception e)
+        {
+            warning(e, "Unable to serve metrics");
+        }
+    }
+
+    /**
+     * Writes an HTTP response to the given socket
+     */
+    private void respond(Socket socket, String status, String contentType, String body) throws Exception
+    {
+        var content = body.getBytes(UTF_8);
+        var header = "HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Length: " + content.length + "\r\n"
+                + "Connection: close\r\n"
+                + "\r\n";
+        var out = socket.getOutputStream();
+        out.write(header.getBytes(ISO_8859_1));
+        out.write(content);
+        out.flush();
+    }
+}
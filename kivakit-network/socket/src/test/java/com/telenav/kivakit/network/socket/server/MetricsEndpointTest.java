@@ -0,0 +1,91 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.network.socket.server;
+
+import com.telenav.kivakit.core.metrics.MetricsRegistry;
+import com.telenav.kivakit.testing.UnitTest;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static com.telenav.kivakit.core.metrics.MetricsRegistry.metricsRegistry;
+import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.network.socket.server.MetricsEndpoint.metricsEndpoint;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class MetricsEndpointTest extends UnitTest
+{
+    @Test
+    public void testNotFound() throws Exception
+    {
+        try (var endpoint = start(metricsRegistry()))
+        {
+            var connection = connect(endpoint, "/other");
+            ensureEqual(404, connection.getResponseCode());
+        }
+    }
+
+    @Test
+    public void testScrape() throws Exception
+    {
+        var registry = metricsRegistry();
+        registry.counter("requests_total", "Requests", "path", "/a").add(3);
+        registry.gauge("temperature", "Temperature", () -> 21.5);
+
+        try (var endpoint = start(registry))
+        {
+            var connection = connect(endpoint, "/metrics");
+            ensureEqual(200, connection.getResponseCode());
+            ensureEqual(MetricsRegistry.prometheusContentType(), connection.getContentType());
+
+            String text;
+            try (var in = connection.getInputStream())
+            {
+                text = new String(in.readAllBytes(), UTF_8);
+            }
+            ensure(text.contains("# TYPE requests_total counter\n"));
+            ensure(text.contains("requests_total{path=\"/a\"} 3\n"));
+            ensure(text.contains("temperature 21.5\n"));
+
+            // The metrics are read again for each scrape
+            registry.counter("requests_total", "Requests", "path", "/a").increment();
+            try (var in = connect(endpoint, "/metrics").getInputStream())
+            {
+                ensure(new String(in.readAllBytes(), UTF_8).contains("requests_total{path=\"/a\"} 4\n"));
+            }
+        }
+    }
+
+    private HttpURLConnection connect(MetricsEndpoint endpoint, String path) throws Exception
+    {
+        var connection = (HttpURLConnection) new URL("http://localhost:" + endpoint.port() + path).openConnection();
+        connection.setConnectTimeout(5_000);
+        connection.setReadTimeout(5_000);
+        return connection;
+    }
+
+    private MetricsEndpoint start(MetricsRegistry registry)
+    {
+        var endpoint = listenTo(metricsEndpoint(0, registry));
+        endpoint.start();
+        ensure(endpoint.waitForListening(seconds(10)));
+        return endpoint;
+    }
+}
@@ -147,6 +147,8 @@ public class FileCache extends BaseRepeater
         var file = file(filename);
         if (!file.exists())
         {
+            // Copy the resource into the cache. An HTTP resource that has an HTTP cache reads through that cache, so it
+            // is only downloaded if the cache has no fresh copy of it. Files already in this cache are not revalidated.
             resource.safeCopyTo(file, mode, reporter);
         }
         return file;
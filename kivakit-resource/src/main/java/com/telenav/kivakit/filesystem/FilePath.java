@@ -223,7 +223,8 @@ public class FilePath extends ResourcePath
                                          @NotNull String path,
                                          @NotNull Object... arguments)
     {
-        return filePath(newResourcePath(listener, format(path, arguments), null));
+        var parsed = newResourcePath(listener, format(path, arguments), null);
+        return new FilePath(parsed, parsed.asUri());
     }
 
     public FilePath(String pathRoot, @NotNull List<String> pathElements)
@@ -255,6 +256,11 @@ public class FilePath extends ResourcePath
         super(that);
     }
 
+    protected FilePath(@NotNull ResourcePath that, URI uri)
+    {
+        super(that, uri);
+    }
+
     /**
      * Construct with scheme
      */
@@ -4,6 +4,7 @@ import com.telenav.kivakit.core.collections.list.ObjectList;
 import com.telenav.kivakit.core.collections.set.ObjectSet;
 import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.core.value.count.MutableCount;
 import com.telenav.kivakit.interfaces.comparison.Filter;
 import com.telenav.kivakit.interfaces.comparison.Matcher;
 import org.jetbrains.annotations.NotNull;
@@ -248,12 +249,12 @@ public abstract class BaseResourceList<T extends Resource> extends ObjectList<T>
      */
     public Bytes totalSize()
     {
-        var bytes = Bytes._0;
+        var bytes = new MutableCount();
         for (var resource : this)
         {
-            bytes = bytes.plus(resource.sizeInBytes());
+            bytes.plus(resource.sizeInBytes());
         }
-        return bytes;
+        return Bytes.bytes(bytes.asLong());
     }
 
     protected boolean accepts(@NotNull FileName name)
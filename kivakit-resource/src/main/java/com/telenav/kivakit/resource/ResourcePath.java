@@ -33,6 +33,8 @@ import org.jetbrains.annotations.NotNull;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -104,8 +106,38 @@ public class ResourcePath extends StringPath implements
     UriIdentified,
     ResourcePathed
 {
+    /** The largest number of parsed resource paths to cache */
+    private static final int MAXIMUM_PARSED_PATHS = 4096;
+
+    /**
+     * A cache of parsed resource paths, keyed by path string. Lookups don't lock, and when the cache is full it is
+     * cleared rather than evicting entries one at a time.
+     */
+    private static final Map<String, ResourcePath> parsedPaths = new ConcurrentHashMap<>();
+
     @NotNull
     protected static ResourcePath newResourcePath(Listener listener, @NotNull String string, URI uri)
+    {
+        // If we have parsed this string before,
+        var parsed = parsedPaths.get(string);
+        if (parsed != null && (uri == null || uri.equals(parsed.uri)))
+        {
+            // return a copy of the parsed path, which shares its elements,
+            return new ResourcePath(parsed, parsed.uri);
+        }
+
+        // otherwise, parse the string and cache the result.
+        parsed = parseUncached(string, uri);
+        if (parsedPaths.size() >= MAXIMUM_PARSED_PATHS)
+        {
+            parsedPaths.clear();
+        }
+        parsedPaths.put(string, parsed);
+        return new ResourcePath(parsed, parsed.uri);
+    }
+
+    @NotNull
+    private static ResourcePath parseUncached(@NotNull String string, URI uri)
     {
         var schemes = uriSchemes(string);
         if (uri == null)
@@ -248,12 +280,23 @@ public class ResourcePath extends StringPath implements
      * @param that The path to copy
      */
     protected ResourcePath(@NotNull ResourcePath that)
+    {
+        this(that, null);
+    }
+
+    /**
+     * Copy constructor that keeps the given {@link URI} for a copy that has the same elements as the given path
+     *
+     * @param that The path to copy
+     * @param uri The URI of the path, if any
+     */
+    protected ResourcePath(@NotNull ResourcePath that, URI uri)
     {
         super(that);
 
         schemes = that.schemes.copy();
         authority = that.authority;
-        uri = null;
+        this.uri = uri;
     }
 
     /**
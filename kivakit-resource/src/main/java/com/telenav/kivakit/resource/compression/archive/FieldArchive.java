@@ -19,12 +19,15 @@
 package com.telenav.kivakit.resource.compression.archive;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.io.IO;
 import com.telenav.kivakit.core.language.reflection.Type;
 import com.telenav.kivakit.core.language.reflection.property.IncludeProperty;
 import com.telenav.kivakit.core.language.reflection.property.Property;
 import com.telenav.kivakit.core.messaging.Repeater;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.object.Lazy;
 import com.telenav.kivakit.core.progress.ProgressReporter;
+import com.telenav.kivakit.core.progress.reporters.ProgressiveOutputStream;
 import com.telenav.kivakit.core.string.FormatProperty;
 import com.telenav.kivakit.core.string.ObjectFormatter;
 import com.telenav.kivakit.core.version.Version;
@@ -35,6 +38,7 @@ import com.telenav.kivakit.interfaces.naming.NamedObject;
 import com.telenav.kivakit.resource.Resource;
 import com.telenav.kivakit.resource.internal.lexakai.DiagramResourceArchive;
 import com.telenav.kivakit.resource.serialization.ObjectReader;
+import com.telenav.kivakit.resource.serialization.ObjectSerializer;
 import com.telenav.kivakit.resource.serialization.ObjectWriter;
 import com.telenav.kivakit.resource.serialization.SerializableObject;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
@@ -42,15 +46,27 @@ import com.telenav.lexakai.annotations.associations.UmlAggregation;
 import com.telenav.lexakai.annotations.associations.UmlRelation;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.ensure.Ensure.ensure;
 import static com.telenav.kivakit.core.language.reflection.Type.type;
+import static com.telenav.kivakit.core.object.Lazy.lazy;
+import static com.telenav.kivakit.core.path.StringPath.stringPath;
 import static com.telenav.kivakit.core.progress.ProgressReporter.nullProgressReporter;
 import static com.telenav.kivakit.core.string.CaseFormat.camelCaseToHyphenated;
 import static com.telenav.kivakit.core.string.CaseFormat.hyphenatedToCamel;
+import static com.telenav.kivakit.core.thread.Threads.shutdownAndAwaitTermination;
+import static com.telenav.kivakit.core.thread.Threads.threadPool;
 import static com.telenav.kivakit.resource.compression.archive.ZipArchive.zipArchive;
+import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA_OBJECT_TYPE;
+import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA_OBJECT_VERSION;
 
 /**
  * <p>
@@ -72,12 +88,36 @@ import static com.telenav.kivakit.resource.compression.archive.ZipArchive.zipArc
  * load object(s) from the archive, but they also set the loaded value into the property with the given field name.
  * </p>
  *
+ * <p><b>Lazy Fields</b></p>
+ *
+ * <p>
+ * Fields annotated with {@link ArchivedField#lazy()} are not loaded by {@link #loadFieldsOf(ObjectReader, NamedObject...)}.
+ * Instead, {@link #lazyFieldOf(ObjectReader, NamedObject, String)} returns a {@link Lazy} handle that loads the field
+ * (and sets it into the object) the first time {@link Lazy#get()} is called. This makes it possible to open archives of
+ * large object graphs quickly when most fields are not used. The archive must remain open until all handles that will
+ * be used have been loaded.
+ * </p>
+ *
+ * <p><b>Parallel Loading and Saving</b></p>
+ *
+ * <p>
+ * When {@link #parallel(Supplier)} is called, {@link #saveFieldsOf(ObjectWriter, NamedObject, Version)} serializes
+ * fields into separate buffers on a thread pool and then writes the buffers to the archive in field order, and
+ * {@link #loadFieldsOf(ObjectReader, NamedObject...)} reads fields on a thread pool. Serializers are not generally
+ * thread-safe (Kryo serializers are not), so each pool thread gets its own serializer from the given supplier. The
+ * {@link ObjectWriter} passed to {@link #saveFieldsOf(ObjectWriter, NamedObject, Version)} is still used to report
+ * progress as the buffers are written to the archive. {@link #sequential()} turns parallel mode off again.
+ * </p>
+ *
  * <p><b>Properties</b></p>
  *
  * <ul>
  *     <li>{@link #file()}</li>
+ *     <li>{@link #isParallel()}</li>
  *     <li>{@link #mode()}</li>
+ *     <li>{@link #parallel(Supplier)}</li>
  *     <li>{@link #progressReporter()}</li>
+ *     <li>{@link #sequential()}</li>
  *     <li>{@link #version()}</li>
  *     <li>{@link #version(Version)}</li>
  *     <li>{@link #zip()}</li>
@@ -86,6 +126,7 @@ import static com.telenav.kivakit.resource.compression.archive.ZipArchive.zipArc
  * <p><b>Loading</b></p>
  *
  * <ul>
+ *      <li>{@link #lazyFieldOf(ObjectReader, NamedObject, String)} - A handle that loads the named field on first access</li>
  *      <li>{@link #load(ObjectReader reader, NamedObject, String)} - Loads the object with the given object name and field name</li>
  *      <li>{@link #loadFieldOf(ObjectReader, NamedObject, String)} - Loads the named field into the given object</li>
  *      <li>{@link #loadFieldsOf(ObjectReader, NamedObject...)} - Loads all the fields of the given object</li>
@@ -163,12 +204,30 @@ public class FieldArchive extends BaseRepeater implements Closeable
             }
             return false;
         }
+
+        /**
+         * Returns the serialized form of this field, as it would be written by
+         * {@link ZipArchive#save(ObjectWriter, String, VersionedObject)}, or null if the field has no value
+         */
+        byte[] serialized(@NotNull ObjectWriter writer, @NotNull String entryName)
+        {
+            var value = property.get(object);
+            if (value != null)
+            {
+                var output = new ByteArrayOutputStream();
+                writer.writeObject(output, stringPath(entryName),
+                    new SerializableObject<>(new SerializableObject<>(value, version)), METADATA_OBJECT_TYPE,
+                    METADATA_OBJECT_VERSION);
+                return output.toByteArray();
+            }
+            return null;
+        }
     }
 
     /** The zip archive storing the fields */
     @FormatProperty
     @UmlAggregation(label = "writes to")
-    private ZipArchive zip;
+    private volatile ZipArchive zip;
 
     /** The version of data in this archive */
     @FormatProperty
@@ -183,6 +242,9 @@ public class FieldArchive extends BaseRepeater implements Closeable
     /** The mode for accessing the zip file */
     private final ZipArchive.AccessMode mode;
 
+    /** Supplies a serializer for each thread when loading and saving in parallel, or null to load and save sequentially */
+    private volatile Supplier<? extends ObjectSerializer> serializers;
+
     /**
      * @param file A field archive resource
      * @param mode The mode of access to this archive
@@ -219,6 +281,29 @@ public class FieldArchive extends BaseRepeater implements Closeable
         return file;
     }
 
+    /**
+     * Returns true if fields are loaded and saved in parallel
+     */
+    public boolean isParallel()
+    {
+        return serializers != null;
+    }
+
+    /**
+     * Returns a handle to the field named "[object-name].[field-name]". The field is loaded and set into the object the
+     * first time {@link Lazy#get()} is called on the handle. After that, the handle returns the same value.
+     *
+     * @param object The object whose field should be loaded
+     * @param fieldName The field to load
+     * @return A handle that loads the field on first access
+     */
+    public <T> Lazy<T> lazyFieldOf(@NotNull ObjectReader reader,
+                                   @NotNull NamedObject object,
+                                   @NotNull String fieldName)
+    {
+        return lazy(() -> loadFieldOf(reader, object, fieldName));
+    }
+
     /**
      * Loads a versioned object from the zip entry named "[object-name].[field-name]"
      */
@@ -237,9 +322,9 @@ public class FieldArchive extends BaseRepeater implements Closeable
      * @return The value of the field after attempting to load
      */
     @SuppressWarnings({ "unchecked" })
-    public synchronized <T> T loadFieldOf(@NotNull ObjectReader reader,
-                                          @NotNull NamedObject object,
-                                          @NotNull String fieldName)
+    public <T> T loadFieldOf(@NotNull ObjectReader reader,
+                             @NotNull NamedObject object,
+                             @NotNull String fieldName)
     {
         // Get the field
         Type<?> type = type(object);
@@ -291,28 +376,67 @@ public class FieldArchive extends BaseRepeater implements Closeable
         ensure(objects != null);
         ensure(objects.length > 0);
 
-        var success = true;
-
-        // Go through the objects,
-        for (var object : objects)
+        var serializers = this.serializers;
+        var executor = serializers != null ? threadPool("FieldArchive") : null;
+        var readers = serializers != null ? ThreadLocal.withInitial(serializers) : null;
+        try
         {
-            // and for each archived field
-            Type<?> type = type(object);
-            for (var field : type.properties(new ArchivedFields()).sorted())
+            // Open the zip archive on this thread, since pool threads cannot take this archive's lock while we hold it,
+            zip();
+
+            var loads = new ArrayList<Future<Object>>();
+            var success = true;
+
+            // then go through the objects,
+            for (var object : objects)
             {
-                // if it is not lazy,
-                if (!field.getter().annotation(ArchivedField.class).lazy())
+                // and for each archived field
+                Type<?> type = type(object);
+                for (var field : type.properties(new ArchivedFields()).sorted())
                 {
-                    // then load the field into the object.
-                    if (loadFieldOf(reader, object, field.name()) == null)
+                    // if it is not lazy,
+                    if (!field.getter().annotation(ArchivedField.class).lazy())
+                    {
+                        // then load the field into the object, on the thread pool with a reader for each thread
+                        // if we are loading in parallel.
+                        if (executor != null)
+                        {
+                            loads.add(executor.submit(() -> loadFieldOf(readers.get(), object, field.name())));
+                        }
+                        else if (loadFieldOf(reader, object, field.name()) == null)
+                        {
+                            success = false;
+                        }
+                    }
+                }
+            }
+
+            // Wait for any parallel loads to complete.
+            for (var load : loads)
+            {
+                try
+                {
+                    if (load.get() == null)
                     {
                         success = false;
                     }
                 }
+                catch (Exception e)
+                {
+                    problem(e, "Unable to load field");
+                    success = false;
+                }
             }
-        }
 
-        return success;
+            return success;
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                shutdownAndAwaitTermination(executor);
+            }
+        }
     }
 
     /**
@@ -336,11 +460,30 @@ public class FieldArchive extends BaseRepeater implements Closeable
         return mode;
     }
 
+    /**
+     * Loads and saves fields in parallel, using a serializer from the given supplier on each thread
+     *
+     * @param serializers Supplies a new serializer each time it is called
+     */
+    public void parallel(@NotNull Supplier<? extends ObjectSerializer> serializers)
+    {
+        ensure(serializers != null);
+        this.serializers = serializers;
+    }
+
     public ProgressReporter progressReporter()
     {
         return reporter;
     }
 
+    /**
+     * Loads and saves fields one at a time on the calling thread (the default)
+     */
+    public void sequential()
+    {
+        this.serializers = null;
+    }
+
     /**
      * Saves the given versioned object to the entry with the given name
      */
@@ -363,6 +506,13 @@ public class FieldArchive extends BaseRepeater implements Closeable
 
         this.version = version;
 
+        var serializers = this.serializers;
+        if (serializers != null)
+        {
+            saveFieldsInParallel(writer, serializers, object);
+            return;
+        }
+
         for (var field : type(object).properties(new ArchivedFields()).sorted())
         {
             try
@@ -415,7 +565,13 @@ public class FieldArchive extends BaseRepeater implements Closeable
     {
         if (zip == null)
         {
-            zip = zipArchive(this, file, mode);
+            synchronized (this)
+            {
+                if (zip == null)
+                {
+                    zip = zipArchive(this, file, mode);
+                }
+            }
         }
         return zip;
     }
@@ -425,4 +581,51 @@ public class FieldArchive extends BaseRepeater implements Closeable
     {
         return object.objectName() + "." + camelCaseToHyphenated(fieldName);
     }
+
+    /**
+     * Serializes the fields of the given object into separate buffers on a thread pool, using a writer from the given
+     * supplier for each thread, then writes the buffers to the archive in field order, reporting progress to the given
+     * writer's progress reporter
+     */
+    private void saveFieldsInParallel(@NotNull ObjectWriter writer,
+                                      @NotNull Supplier<? extends ObjectSerializer> serializers,
+                                      @NotNull NamedObject object)
+    {
+        var fields = type(object).properties(new ArchivedFields()).sorted();
+        var executor = threadPool("FieldArchive");
+        var writers = ThreadLocal.withInitial(serializers);
+        try
+        {
+            // Serialize each field on the thread pool with a writer for each thread,
+            var serialized = new ArrayList<Future<byte[]>>();
+            for (var field : fields)
+            {
+                serialized.add(executor.submit(() -> new ObjectField(object, field).serialized(writers.get(), entryName(object, field.name()))));
+            }
+
+            // then write the serialized fields to the zip archive in order, reporting progress as sequential saves do.
+            for (var index = 0; index < fields.size(); index++)
+            {
+                var field = fields.get(index);
+                try
+                {
+                    var bytes = serialized.get(index).get();
+                    if (bytes != null)
+                    {
+                        zip().saveEntry(entryName(object, field.name()),
+                            output -> IO.copy(this, new ByteArrayInputStream(bytes), new ProgressiveOutputStream(output, writer.progressReporter())));
+                        trace("Saved field $", field.name());
+                    }
+                }
+                catch (Exception e)
+                {
+                    warning(e, "Unable to save field $", field.name());
+                }
+            }
+        }
+        finally
+        {
+            shutdownAndAwaitTermination(executor);
+        }
+    }
 }
@@ -20,6 +20,7 @@ package com.telenav.kivakit.resource.compression.archive;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.io.ByteSizedOutputStream;
 import com.telenav.kivakit.core.io.IO;
 import com.telenav.kivakit.core.io.Nio;
 import com.telenav.kivakit.core.messaging.Listener;
@@ -32,9 +33,11 @@ import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.core.value.count.MutableCount;
 import com.telenav.kivakit.core.version.VersionedObject;
 import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.filesystem.Folder;
 import com.telenav.kivakit.interfaces.code.Callback;
 import com.telenav.kivakit.interfaces.io.Closeable;
 import com.telenav.kivakit.resource.Resource;
+import com.telenav.kivakit.resource.internal.jfr.ZipArchiveEvent;
 import com.telenav.kivakit.resource.internal.lexakai.DiagramResourceArchive;
 import com.telenav.kivakit.resource.serialization.ObjectReader;
 import com.telenav.kivakit.resource.serialization.ObjectWriter;
@@ -50,10 +53,16 @@ import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import java.util.zip.ZipFile;
 
@@ -62,16 +71,21 @@ import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTE
 import static com.telenav.kivakit.annotations.code.quality.Testing.TESTING_NOT_NEEDED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.code.UncheckedCode.unchecked;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
 import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
 import static com.telenav.kivakit.core.ensure.Ensure.fail;
+import static com.telenav.kivakit.core.ensure.Ensure.illegalState;
 import static com.telenav.kivakit.core.io.IO.flush;
 import static com.telenav.kivakit.core.path.StringPath.stringPath;
 import static com.telenav.kivakit.core.progress.ProgressReporter.nullProgressReporter;
 import static com.telenav.kivakit.core.progress.reporters.BroadcastingProgressReporter.progressReporter;
+import static com.telenav.kivakit.core.thread.Threads.shutdownAndAwaitTermination;
+import static com.telenav.kivakit.core.thread.Threads.threadPool;
 import static com.telenav.kivakit.core.value.count.Bytes.bytes;
 import static com.telenav.kivakit.resource.compression.archive.ZipArchive.AccessMode.READ;
 import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA_OBJECT_TYPE;
 import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA_OBJECT_VERSION;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  * A wrapper around the JDK zip filesystem that makes it easier to use. A {@link ZipArchive} can be created with
@@ -102,8 +116,15 @@ import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA
  *     <li>{@link #entry(String)}</li>
  *     <li>{@link #iterator()}</li>
  *     <li>{@link #loadVersionedObject(ObjectReader, String)} - Loads the object from the named entry using the given object reader</li>
+ *     <li>{@link #extractTo(Folder)} - Extracts all entries into the given folder in parallel</li>
  * </ul>
  *
+ * <p>
+ * When an archive is opened for reading, the paths of its entries are indexed once, so {@link #entry(String)},
+ * {@link #entries(Pattern)} and {@link #iterator()} do not walk the zip filesystem. The index never changes, and
+ * reading does not lock the archive, so any number of threads can read different entries at the same time.
+ * </p>
+ *
  * <p><b>Properties</b></p>
  *
  * <ul>
@@ -116,7 +137,7 @@ import static com.telenav.kivakit.resource.serialization.ObjectMetadata.METADATA
  *
  * <p>
  * Files can be added to the archive with {@link #add(Collection, ProgressReporter)}. To do this, the zip file must be
- * opened in {@link AccessMode#WRITE}.
+ * opened in {@link AccessMode#WRITE}. Files are compressed into the archive in parallel.
  * </p>
  *
  * <ul>
@@ -165,10 +186,11 @@ public final class ZipArchive extends BaseRepeater implements
         {
             if (file.exists())
             {
-                var zip = zipArchive(listener, file, READ);
-                if (zip != null)
+                // Open the zip filesystem directly, so we don't index the archive's entries.
+                var filesystem = filesystem(listener, file, READ);
+                if (filesystem != null)
                 {
-                    zip.close();
+                    Nio.close(listener, filesystem);
                     return true;
                 }
             }
@@ -197,7 +219,7 @@ public final class ZipArchive extends BaseRepeater implements
             var filesystem = filesystem(listener, file, mode);
             if (filesystem != null)
             {
-                return new ZipArchive(filesystem, file);
+                return new ZipArchive(filesystem, file, mode);
             }
         }
         return null;
@@ -222,20 +244,26 @@ public final class ZipArchive extends BaseRepeater implements
     private final File zipFile;
 
     /** The Java zip filesystem */
-    private FileSystem filesystem;
+    private volatile FileSystem filesystem;
+
+    /** The entry paths in a readable archive, by absolute path name, or null if the archive is writable */
+    private final Map<String, Path> index;
 
     /**
      * @param filesystem The zip filesystem
      * @param zipFile The zip file to access
+     * @param mode The access mode
      */
     private ZipArchive(@NotNull FileSystem filesystem,
-                       @NotNull File zipFile)
+                       @NotNull File zipFile,
+                       @NotNull AccessMode mode)
     {
         ensureNotNull(filesystem);
         ensureNotNull(zipFile);
 
         this.zipFile = zipFile.materialized(progressReporter(this));
         this.filesystem = filesystem;
+        this.index = mode == READ ? index(filesystem) : null;
     }
 
     /**
@@ -255,10 +283,28 @@ public final class ZipArchive extends BaseRepeater implements
     public void add(@NotNull Collection<File> files,
                     @NotNull ProgressReporter reporter)
     {
-        for (var file : files)
+        // Compress each file into the archive on a thread pool, reporting progress as each one finishes.
+        var executor = threadPool("ZipArchive");
+        try
         {
-            save(file.fileName().name(), file);
-            reporter.next();
+            var futures = new ArrayList<Future<?>>();
+            for (var file : files)
+            {
+                futures.add(executor.submit(() -> save(file.fileName().name(), file)));
+            }
+            for (var future : futures)
+            {
+                future.get();
+                reporter.next();
+            }
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            fail(e, "Unable to add files to $", this);
+        }
+        finally
+        {
+            shutdownAndAwaitTermination(executor);
         }
     }
 
@@ -281,11 +327,12 @@ public final class ZipArchive extends BaseRepeater implements
     public List<ZipEntry> entries(@NotNull Pattern compile)
     {
         var entries = new ArrayList<ZipEntry>();
-        for (var entry : this)
+        for (var path : paths())
         {
-            if (compile.matcher(entry.path().fileName().name()).matches())
+            var name = path.getFileName();
+            if (name != null && compile.matcher(name.toString()).matches())
             {
-                entries.add(entry);
+                entries.add(new ZipEntry(this, filesystem, path));
             }
         }
         return entries;
@@ -297,8 +344,20 @@ public final class ZipArchive extends BaseRepeater implements
      *
      * @return The entry, if any, for the given name
      */
-    public synchronized ZipEntry entry(@NotNull String pathname)
+    public ZipEntry entry(@NotNull String pathname)
     {
+        // If the archive is readable, look up the entry in the index,
+        var filesystem = this.filesystem;
+        if (index != null)
+        {
+            var indexed = index.get(pathname.startsWith("/") ? pathname : "/" + pathname);
+            if (indexed != null)
+            {
+                return new ZipEntry(this, filesystem, indexed);
+            }
+        }
+
+        // otherwise, get the path from the filesystem.
         var path = unchecked(() -> filesystem.getPath(pathname)).orNull();
         if (path != null)
         {
@@ -308,6 +367,61 @@ public final class ZipArchive extends BaseRepeater implements
         return null;
     }
 
+    /**
+     * Extracts all entries in this archive into the given folder
+     */
+    public void extractTo(@NotNull Folder folder)
+    {
+        extractTo(folder, nullProgressReporter());
+    }
+
+    /**
+     * Extracts all entries in this archive into the given folder, in parallel, calling the progress reporter as each
+     * entry is extracted
+     *
+     * @param folder The folder to extract to
+     * @param reporter The progress reporter to call as each entry is extracted
+     */
+    public void extractTo(@NotNull Folder folder, @NotNull ProgressReporter reporter)
+    {
+        var root = folder.mkdirs().asJavaFile().toPath().toAbsolutePath().normalize();
+        var executor = threadPool("ZipArchive");
+        try
+        {
+            // Copy each entry to the folder on a thread pool,
+            var futures = new ArrayList<Future<?>>();
+            for (var path : paths())
+            {
+                futures.add(executor.submit(() ->
+                {
+                    // making sure that the entry can't be written outside the folder,
+                    var target = root.resolve(path.toString().substring(1)).normalize();
+                    ensure(target.startsWith(root), "Zip entry is outside of extraction folder: $", path);
+
+                    // then copy the entry.
+                    Files.createDirectories(target.getParent());
+                    Files.copy(path, target, REPLACE_EXISTING);
+                    return null;
+                }));
+            }
+
+            // and report progress as each one finishes.
+            for (var future : futures)
+            {
+                future.get();
+                reporter.next();
+            }
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            fail(e, "Unable to extract $ to $", this, folder);
+        }
+        finally
+        {
+            shutdownAndAwaitTermination(executor);
+        }
+    }
+
     /**
      * Returns the zip file for this archive, if any
      */
@@ -323,9 +437,9 @@ public final class ZipArchive extends BaseRepeater implements
     @Override
     public Iterator<ZipEntry> iterator()
     {
-        var files = unchecked(() -> Files.walk(filesystem.getPath("/"))).orNull();
-        return files == null ? null : files
-            .filter(path -> !Files.isDirectory(path))
+        var filesystem = this.filesystem;
+        return paths()
+            .stream()
             .map(path -> new ZipEntry(this, filesystem, path))
             .iterator();
     }
@@ -336,18 +450,33 @@ public final class ZipArchive extends BaseRepeater implements
      * @param reader The object reader
      * @param entryName The zip file entry to read
      */
-    public synchronized <T> VersionedObject<T> loadVersionedObject(@NotNull ObjectReader reader,
-                                                                   @NotNull String entryName)
+    public <T> VersionedObject<T> loadVersionedObject(@NotNull ObjectReader reader,
+                                                      @NotNull String entryName)
     {
         try
         {
             var entry = listenTo(entry(entryName));
             if (entry != null)
             {
+                var event = new ZipArchiveEvent();
+                event.begin();
                 try (var input = new ProgressiveInputStream(entry.openForReading(reader.progressReporter()), reader.progressReporter()))
                 {
                     return reader.readObject(input, stringPath(entryName), METADATA_OBJECT_TYPE, METADATA_OBJECT_VERSION);
                 }
+                finally
+                {
+                    // Record the read, with the entry's compressed size, whether or not the object could be read
+                    event.end();
+                    if (event.shouldCommit())
+                    {
+                        event.archive = toString();
+                        event.entry = entryName;
+                        event.operation = "read";
+                        event.bytes = entry.sizeInBytes().asLong();
+                        event.commit();
+                    }
+                }
             }
         }
         catch (Exception e)
@@ -415,11 +544,27 @@ public final class ZipArchive extends BaseRepeater implements
             var entry = listenTo(entry(entryName));
             if (entry != null)
             {
-                try (var output = entry.openForWriting())
+                // Write to the entry, wrapping the stream to count bytes only when the event will be recorded,
+                var event = new ZipArchiveEvent();
+                event.begin();
+                try (var output = event.isEnabled()
+                    ? new ByteSizedOutputStream(entry.openForWriting())
+                    : entry.openForWriting())
                 {
                     onWrite.call(output);
+                    event.bytes = output instanceof ByteSizedOutputStream counted ? counted.sizeInBytes().asLong() : 0;
                 }
                 entry.close();
+
+                // and record the write.
+                event.end();
+                if (event.shouldCommit())
+                {
+                    event.archive = toString();
+                    event.entry = entryName;
+                    event.operation = "write";
+                    event.commit();
+                }
             }
         }
         catch (IOException e)
@@ -448,6 +593,46 @@ public final class ZipArchive extends BaseRepeater implements
         return zipFile.path().toString();
     }
 
+    /**
+     * Returns the paths of the entries in this archive, from the index if the archive is readable
+     */
+    private Collection<Path> paths()
+    {
+        return index != null ? index.values() : walk(filesystem);
+    }
+
+    /**
+     * Returns the paths of all entries in the given zip filesystem, by absolute path name
+     */
+    private static Map<String, Path> index(FileSystem filesystem)
+    {
+        var index = new LinkedHashMap<String, Path>();
+        for (var path : walk(filesystem))
+        {
+            index.put(path.toString(), path);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Returns the paths of all the entries in the given filesystem
+     *
+     * @throws IllegalStateException If the entries cannot be listed, rather than returning a partial list
+     */
+    private static List<Path> walk(FileSystem filesystem)
+    {
+        try (var paths = Files.walk(filesystem.getPath("/")))
+        {
+            return paths
+                .filter(path -> !Files.isDirectory(path))
+                .toList();
+        }
+        catch (IOException e)
+        {
+            return illegalState(e, "Unable to list the entries in $", filesystem);
+        }
+    }
+
     private static FileSystem filesystem(@NotNull Listener listener,
                                          @NotNull File file,
                                          @NotNull AccessMode mode)
@@ -0,0 +1,731 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.compression.codecs;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.core.value.count.Count;
+import com.telenav.kivakit.resource.compression.Codec;
+import com.telenav.kivakit.resource.internal.lexakai.DiagramResourceCompression;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.UNSTABLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+import static com.telenav.kivakit.core.thread.Threads.shutdownAndAwaitTermination;
+import static com.telenav.kivakit.core.thread.Threads.threadPool;
+import static com.telenav.kivakit.core.value.count.Bytes.kilobytes;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+
+/**
+ * Codec for gzip compression that compresses blocks of data in parallel, in the style of <i>pigz</i>.
+ *
+ * <p><b>Compression</b></p>
+ *
+ * <p>
+ * Data written to a compressed stream is divided into blocks, which are compressed independently by a pool of worker
+ * threads. Each compressed block is written as a complete gzip member, in the order the data was written, so the
+ * output is a standard multi-member gzip stream which can be read by {@link GzipCodec}, <i>gunzip</i> or any other
+ * gzip reader. Because blocks are compressed independently, the output is slightly larger than the output of
+ * {@link GzipCodec}.
+ * </p>
+ *
+ * <ul>
+ *     <li>{@link #withBlockSize(Bytes)} - The amount of data compressed by each task</li>
+ *     <li>{@link #withLevel(int)} - The {@link Deflater} compression level, from 0 to 9</li>
+ *     <li>{@link #withThreads(Count)} - The number of threads compressing blocks for each stream</li>
+ * </ul>
+ *
+ * <p><b>Decompression</b></p>
+ *
+ * <p>
+ * Decompressed streams read single or multi-member gzip streams on the calling thread.
+ * </p>
+ *
+ * <p><b>Pooling</b></p>
+ *
+ * <p>
+ * Each {@link Deflater} and {@link Inflater} holds native memory, so instead of being created for each block or
+ * stream, they are kept in pools shared by all instances of this codec.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ * @see GzipCodec
+ */
+@UmlClassDiagram(diagram = DiagramResourceCompression.class)
+@TypeQuality(stability = UNSTABLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class ParallelGzipCodec implements Codec
+{
+    /** The maximum number of deflaters or inflaters to keep in each pool */
+    private static final int MAXIMUM_POOLED = 64;
+
+    /** Pools of deflaters that produce raw deflate data, one for each compression level */
+    private static final Pool<?>[] deflaters = new Pool<?>[11];
+
+    static
+    {
+        for (var index = 0; index < deflaters.length; index++)
+        {
+            deflaters[index] = new Pool<Deflater>();
+        }
+    }
+
+    /** Pool of inflaters that read raw deflate data */
+    private static final Pool<Inflater> inflaters = new Pool<>();
+
+    /** Gzip member header: magic number, deflate method, no flags, no time, no extra flags, unknown OS */
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * Returns a parallel gzip codec with a block size of 128K, default compression and one thread per processor
+     */
+    public static ParallelGzipCodec parallelGzipCodec()
+    {
+        return new ParallelGzipCodec();
+    }
+
+    /** The amount of data compressed as a single gzip member */
+    private Bytes blockSize = kilobytes(128);
+
+    /** The deflater compression level */
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    /** The number of threads compressing blocks for each stream */
+    private Count threads = javaVirtualMachine().processors();
+
+    protected ParallelGzipCodec()
+    {
+    }
+
+    protected ParallelGzipCodec(ParallelGzipCodec that)
+    {
+        this.blockSize = that.blockSize;
+        this.level = that.level;
+        this.threads = that.threads;
+    }
+
+    /**
+     * Returns the amount of data compressed as a single gzip member
+     */
+    public Bytes blockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream compressed(@NotNull OutputStream out)
+    {
+        return new ParallelGzipOutputStream(out);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream decompressed(@NotNull InputStream in)
+    {
+        return new GzipInputStream(in);
+    }
+
+    /**
+     * Returns the deflater compression level
+     */
+    public int level()
+    {
+        return level;
+    }
+
+    /**
+     * Returns the number of threads compressing blocks for each stream
+     */
+    public Count threads()
+    {
+        return threads;
+    }
+
+    /**
+     * Returns a copy of this codec that compresses blocks of the given size
+     */
+    public ParallelGzipCodec withBlockSize(Bytes blockSize)
+    {
+        ensure(blockSize.isGreaterThan(Bytes._0) && blockSize.asLong() <= Integer.MAX_VALUE,
+            "Invalid block size: $", blockSize);
+        var copy = copy();
+        copy.blockSize = blockSize;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this codec that compresses at the given {@link Deflater} level
+     */
+    public ParallelGzipCodec withLevel(int level)
+    {
+        ensure(level == Deflater.DEFAULT_COMPRESSION || (level >= 0 && level <= 9), "Invalid compression level: $", level);
+        var copy = copy();
+        copy.level = level;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this codec that compresses each stream with the given number of threads
+     */
+    public ParallelGzipCodec withThreads(Count threads)
+    {
+        ensure(threads.isGreaterThan(Count._0), "Invalid thread count: $", threads);
+        var copy = copy();
+        copy.threads = threads;
+        return copy;
+    }
+
+    private ParallelGzipCodec copy()
+    {
+        return new ParallelGzipCodec(this);
+    }
+
+    /**
+     * Returns the pool of deflaters for the given compression level
+     */
+    @SuppressWarnings("unchecked")
+    private static Pool<Deflater> deflaters(int level)
+    {
+        return (Pool<Deflater>) deflaters[level + 1];
+    }
+
+    /**
+     * Writes the given value as four little-endian bytes
+     */
+    private static void writeInt(ByteArrayOutputStream out, long value)
+    {
+        out.write((int) (value & 0xff));
+        out.write((int) ((value >> 8) & 0xff));
+        out.write((int) ((value >> 16) & 0xff));
+        out.write((int) ((value >> 24) & 0xff));
+    }
+
+    /**
+     * Reads a single or multi-member gzip stream with a pooled {@link Inflater}
+     */
+    private static class GzipInputStream extends InputStream
+    {
+        /** Checksum of the data in the current member */
+        private final CRC32 crc = new CRC32();
+
+        /** The compressed stream */
+        private final InputStream in;
+
+        /** Buffer of compressed data */
+        private final byte[] buffer = new byte[64 * 1024];
+
+        /** The offset of the next unused byte in the buffer */
+        private int bufferStart;
+
+        /** The offset after the last byte in the buffer */
+        private int bufferEnd;
+
+        /** True once the last member has been read */
+        private boolean done;
+
+        /** The inflater for this stream, or null if the stream is closed */
+        private Inflater inflater;
+
+        /** True once the header of the first member has been read */
+        private boolean started;
+
+        /** The number of bytes in the current member */
+        private long size;
+
+        /** Buffer for single-byte reads */
+        private final byte[] single = new byte[1];
+
+        GzipInputStream(InputStream in)
+        {
+            this.in = in;
+            this.inflater = inflaters.take(() -> new Inflater(true));
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (inflater != null)
+            {
+                inflaters.release(inflater, Inflater::reset, Inflater::end);
+                inflater = null;
+            }
+            in.close();
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            return read(single, 0, 1) == 1 ? single[0] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte @NotNull [] data, int offset, int length) throws IOException
+        {
+            if (inflater == null)
+            {
+                throw new IOException("Stream closed");
+            }
+
+            // If this is the first read, read the header of the first member, which must be there,
+            if (!started)
+            {
+                started = true;
+                if (!readHeader())
+                {
+                    throw new EOFException("Empty gzip stream");
+                }
+            }
+
+            while (!done && length > 0)
+            {
+                try
+                {
+                    // inflate as much data as we can,
+                    var inflated = inflater.inflate(data, offset, length);
+                    if (inflated > 0)
+                    {
+                        crc.update(data, offset, inflated);
+                        size += inflated;
+                        return inflated;
+                    }
+
+                    // and if the member is finished,
+                    if (inflater.finished())
+                    {
+                        // give back the unused input, check the trailer, and go on to any next member,
+                        bufferStart = bufferEnd - inflater.getRemaining();
+                        readTrailer();
+                        if (!readHeader())
+                        {
+                            done = true;
+                        }
+                    }
+                    else if (inflater.needsInput())
+                    {
+                        // otherwise, give the inflater more data.
+                        if (bufferStart == bufferEnd && fill() < 0)
+                        {
+                            throw new EOFException("Unexpected end of gzip stream");
+                        }
+                        inflater.setInput(buffer, bufferStart, bufferEnd - bufferStart);
+                        bufferStart = bufferEnd;
+                    }
+                    else
+                    {
+                        throw new ZipException("Inflater requires a dictionary");
+                    }
+                }
+                catch (DataFormatException e)
+                {
+                    throw new ZipException(e.getMessage());
+                }
+            }
+
+            return done ? -1 : 0;
+        }
+
+        /**
+         * Reads more data into the buffer if it is empty
+         *
+         * @return The number of bytes read, or -1 at the end of the stream
+         */
+        private int fill() throws IOException
+        {
+            var read = in.read(buffer, 0, buffer.length);
+            bufferStart = 0;
+            bufferEnd = Math.max(0, read);
+            return read;
+        }
+
+        /**
+         * Returns the next byte of compressed data, or -1 at the end of the stream
+         */
+        private int readByte() throws IOException
+        {
+            if (bufferStart == bufferEnd && fill() <= 0)
+            {
+                return -1;
+            }
+            return buffer[bufferStart++] & 0xff;
+        }
+
+        /**
+         * Reads the header of the next member, if there is one
+         *
+         * @return False if the stream has ended
+         */
+        private boolean readHeader() throws IOException
+        {
+            // If the stream has ended, there are no more members,
+            var first = readByte();
+            if (first < 0)
+            {
+                return false;
+            }
+
+            // otherwise, check the magic number and compression method,
+            if (first != 0x1f || requireByte() != 0x8b || requireByte() != 8)
+            {
+                throw new ZipException("Not in gzip format");
+            }
+
+            // then skip the modification time, extra flags and operating system,
+            var flags = requireByte();
+            skip(6);
+
+            // along with any optional fields.
+            if ((flags & 4) != 0)
+            {
+                skip(requireByte() | (requireByte() << 8));
+            }
+            if ((flags & 8) != 0)
+            {
+                skipString();
+            }
+            if ((flags & 16) != 0)
+            {
+                skipString();
+            }
+            if ((flags & 2) != 0)
+            {
+                skip(2);
+            }
+
+            // Get ready to inflate the new member.
+            inflater.reset();
+            crc.reset();
+            size = 0;
+            return true;
+        }
+
+        private long readInt() throws IOException
+        {
+            return requireByte()
+                | ((long) requireByte() << 8)
+                | ((long) requireByte() << 16)
+                | ((long) requireByte() << 24);
+        }
+
+        /**
+         * Reads the trailer of a member and checks its checksum and size
+         */
+        private void readTrailer() throws IOException
+        {
+            if (readInt() != crc.getValue())
+            {
+                throw new ZipException("Corrupt gzip stream: CRC mismatch");
+            }
+            if (readInt() != (size & 0xffffffffL))
+            {
+                throw new ZipException("Corrupt gzip stream: size mismatch");
+            }
+        }
+
+        private int requireByte() throws IOException
+        {
+            var value = readByte();
+            if (value < 0)
+            {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+            return value;
+        }
+
+        private void skip(int count) throws IOException
+        {
+            for (var index = 0; index < count; index++)
+            {
+                requireByte();
+            }
+        }
+
+        private void skipString() throws IOException
+        {
+            while (requireByte() != 0)
+            {
+                // Skip to the terminating zero
+            }
+        }
+    }
+
+    /**
+     * Divides the data written to it into blocks, compresses each block as a gzip member on a thread pool, and writes
+     * the members in order to the underlying stream
+     */
+    private class ParallelGzipOutputStream extends OutputStream
+    {
+        /** The block currently being filled */
+        private byte[] block;
+
+        /** The number of bytes in the current block */
+        private int blockLength;
+
+        /** True once the stream has been closed */
+        private boolean closed;
+
+        /** The thread pool compressing blocks, created when the first block is submitted */
+        private ExecutorService executor;
+
+        /** The underlying stream */
+        private final OutputStream out;
+
+        /** The blocks being compressed, in the order they were written */
+        private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        /** Buffer for single-byte writes */
+        private final byte[] single = new byte[1];
+
+        /** True if any member has been written */
+        private boolean wroteMember;
+
+        ParallelGzipOutputStream(OutputStream out)
+        {
+            this.out = out;
+            this.block = new byte[blockSize.asInt()];
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (!closed)
+            {
+                closed = true;
+                try
+                {
+                    // Compress the last block, or an empty member if nothing was written,
+                    if (blockLength > 0 || (!wroteMember && pending.isEmpty()))
+                    {
+                        submit();
+                    }
+
+                    // then write out all the blocks.
+                    while (!pending.isEmpty())
+                    {
+                        writeNext();
+                    }
+                    out.flush();
+                }
+                finally
+                {
+                    if (executor != null)
+                    {
+                        shutdownAndAwaitTermination(executor);
+                    }
+                    out.close();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            // Compress any partial block and write out all compressed blocks.
+            if (blockLength > 0)
+            {
+                submit();
+            }
+            while (!pending.isEmpty())
+            {
+                writeNext();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void write(int value) throws IOException
+        {
+            single[0] = (byte) value;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte @NotNull [] data, int offset, int length) throws IOException
+        {
+            if (closed)
+            {
+                throw new IOException("Stream closed");
+            }
+
+            while (length > 0)
+            {
+                // Copy as much data as will fit into the current block,
+                var copy = Math.min(length, block.length - blockLength);
+                System.arraycopy(data, offset, block, blockLength, copy);
+                blockLength += copy;
+                offset += copy;
+                length -= copy;
+
+                // and if the block is full, compress it.
+                if (blockLength == block.length)
+                {
+                    submit();
+                }
+            }
+        }
+
+        /**
+         * Compresses the given data as a complete gzip member with a pooled deflater
+         */
+        private byte[] compress(byte[] data, int length)
+        {
+            var pool = deflaters(level);
+            var deflater = pool.take(() -> new Deflater(level, true));
+            try
+            {
+                deflater.setInput(data, 0, length);
+                deflater.finish();
+
+                var member = new ByteArrayOutputStream(length / 2 + 64);
+                member.write(HEADER, 0, HEADER.length);
+                var buffer = new byte[Math.min(64 * 1024, Math.max(length, 64))];
+                while (!deflater.finished())
+                {
+                    var deflated = deflater.deflate(buffer);
+                    member.write(buffer, 0, deflated);
+                }
+
+                var crc = new CRC32();
+                crc.update(data, 0, length);
+                writeInt(member, crc.getValue());
+                writeInt(member, length);
+                return member.toByteArray();
+            }
+            finally
+            {
+                pool.release(deflater, Deflater::reset, Deflater::end);
+            }
+        }
+
+        /**
+         * Submits the current block for compression, first writing out finished blocks if too many are pending
+         */
+        private void submit() throws IOException
+        {
+            if (executor == null)
+            {
+                executor = threadPool("Gzip", threads);
+            }
+
+            // Limit the number of blocks held in memory,
+            while (pending.size() >= threads.asInt() * 2)
+            {
+                writeNext();
+            }
+
+            // then compress the block on the pool and start a new block.
+            var data = block;
+            var length = blockLength;
+            pending.addLast(executor.submit(() -> compress(data, length)));
+            block = new byte[blockSize.asInt()];
+            blockLength = 0;
+        }
+
+        /**
+         * Waits for the oldest pending block to be compressed and writes it out
+         */
+        private void writeNext() throws IOException
+        {
+            try
+            {
+                out.write(pending.removeFirst().get());
+                wroteMember = true;
+            }
+            catch (InterruptedException e)
+            {
+                throw new InterruptedIOException("Interrupted while compressing");
+            }
+            catch (ExecutionException e)
+            {
+                throw new IOException("Unable to compress block", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * A bounded pool of objects that hold native resources
+     */
+    private static class Pool<T>
+    {
+        /** The number of objects in the pool */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /** The pooled objects */
+        private final ConcurrentLinkedQueue<T> objects = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Returns an object from the pool, or a new object if the pool is empty
+         */
+        T take(Supplier<T> factory)
+        {
+            var object = objects.poll();
+            if (object == null)
+            {
+                return factory.get();
+            }
+            size.decrementAndGet();
+            return object;
+        }
+
+        /**
+         * Resets the given object and returns it to the pool, or disposes of it if the pool is full
+         */
+        void release(T object, Consumer<T> reset, Consumer<T> dispose)
+        {
+            if (size.incrementAndGet() <= MAXIMUM_POOLED)
+            {
+                reset.accept(object);
+                objects.add(object);
+            }
+            else
+            {
+                size.decrementAndGet();
+                dispose.accept(object);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for a resource copied by
+ * {@link com.telenav.kivakit.resource.reading.ReadableResource#copyTo(com.telenav.kivakit.resource.writing.WritableResource,
+ * com.telenav.kivakit.resource.WriteMode, com.telenav.kivakit.resource.CloseMode,
+ * com.telenav.kivakit.core.progress.ProgressReporter)}.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.ResourceCopy")
+@Label("Resource Copy")
+@Category({ "KivaKit", "Resources" })
+@Description("A resource copied to another resource")
+@Enabled(false)
+@StackTrace(false)
+public final class ResourceCopyEvent extends Event
+{
+    @Label("Source")
+    public String source;
+
+    @Label("Target")
+    public String target;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
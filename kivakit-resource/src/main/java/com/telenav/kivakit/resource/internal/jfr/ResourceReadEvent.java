@@ -0,0 +1,142 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for a resource that was opened for reading. The event lasts from when the resource is opened
+ * until its input stream is closed, and it records the time taken to open the resource and the number of bytes read.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.ResourceRead")
+@Label("Resource Read")
+@Category({ "KivaKit", "Resources" })
+@Description("A resource opened for reading, from opening until its input stream is closed")
+@Enabled(false)
+@StackTrace(false)
+public final class ResourceReadEvent extends Event
+{
+    @Label("Resource")
+    public String resource;
+
+    @Label("Open Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long openTime;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    /** The time at which the resource started opening */
+    private transient long opening;
+
+    /**
+     * Returns the given input stream, which will commit this event when it is closed if the event is enabled
+     *
+     * @param resource The resource being read
+     * @param in The input stream for the resource
+     */
+    public InputStream opened(Object resource, InputStream in)
+    {
+        if (!isEnabled() || in == null)
+        {
+            return in;
+        }
+        var event = this;
+        this.resource = String.valueOf(resource);
+        this.openTime = System.nanoTime() - opening;
+        return new FilterInputStream(in)
+        {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException
+            {
+                super.close();
+                if (!closed)
+                {
+                    closed = true;
+                    event.end();
+                    event.commit();
+                }
+            }
+
+            @Override
+            public int read() throws IOException
+            {
+                var value = super.read();
+                if (value >= 0)
+                {
+                    bytes++;
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException
+            {
+                var read = super.read(buffer, offset, length);
+                if (read > 0)
+                {
+                    bytes += read;
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long count) throws IOException
+            {
+                var skipped = super.skip(count);
+                bytes += skipped;
+                return skipped;
+            }
+        };
+    }
+
+    /**
+     * Starts this event as a resource is being opened
+     */
+    public ResourceReadEvent opening()
+    {
+        begin();
+        if (isEnabled())
+        {
+            opening = System.nanoTime();
+        }
+        return this;
+    }
+}
@@ -0,0 +1,64 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for an object read from or written to a resource by an
+ * {@link com.telenav.kivakit.resource.serialization.ObjectReader} or
+ * {@link com.telenav.kivakit.resource.serialization.ObjectWriter}.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.Serialization")
+@Label("Serialization")
+@Category({ "KivaKit", "Resources" })
+@Description("An object read from or written to a resource by a serializer")
+@Enabled(false)
+@StackTrace(false)
+public final class SerializationEvent extends Event
+{
+    @Label("Serializer")
+    public String serializer;
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Object Type")
+    public String type;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,60 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Flight recorder event for an entry read from or written to a
+ * {@link com.telenav.kivakit.resource.compression.archive.ZipArchive}.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@Name("kivakit.ZipArchive")
+@Label("Zip Archive")
+@Category({ "KivaKit", "Resources" })
+@Description("An entry read from or written to a zip archive")
+@Enabled(false)
+@StackTrace(false)
+public final class ZipArchiveEvent extends Event
+{
+    @Label("Archive")
+    public String archive;
+
+    @Label("Entry")
+    public String entry;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
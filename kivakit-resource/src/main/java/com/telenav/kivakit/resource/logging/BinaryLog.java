@@ -0,0 +1,278 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.resource.logging;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.logs.BaseLog;
+import com.telenav.kivakit.core.logging.logs.binary.BinaryLogReader;
+import com.telenav.kivakit.core.logging.logs.binary.BinaryLogWriter;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.resource.internal.lexakai.DiagramResource;
+import com.telenav.kivakit.resource.logging.FileLog.Rollover;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+import com.telenav.lexakai.annotations.visibility.UmlExcludeMember;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
+import static com.telenav.kivakit.core.logging.logs.binary.BinaryLogWriter.binaryLogWriter;
+import static com.telenav.kivakit.core.messaging.Listener.consoleListener;
+import static com.telenav.kivakit.core.value.count.Bytes.megabytes;
+import static com.telenav.kivakit.core.value.count.Bytes.parseBytes;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A log that writes entries to rolling segment files in the compact binary form of {@link BinaryLogWriter}, without
+ * formatting them. Formatting is deferred until the log is read, which makes logging much cheaper, and the binary
+ * entries are much smaller than their text. Segments are named in the same way as {@link FileLog} segments, and each
+ * segment has its own table of interned strings, so it can be decoded by itself with {@link BinaryLogReader}, or on
+ * the command line with <i>BinaryLogDecoderApplication</i> in kivakit-application.
+ *
+ * <p><b>Configuration</b></p>
+ *
+ * <p>
+ * Binary logs are created by {@link com.telenav.kivakit.core.logging.loggers.LogServiceLogger} with the name
+ * <i>Binary</i> and these properties:
+ * </p>
+ *
+ * <ul>
+ *     <li><i>file=/var/log/server.kvlog</i> - The log file that segment names are derived from (required)</li>
+ *     <li><i>rollover=none|hourly|daily</i> - When to start a new segment, aside from when a segment is full (default none)</li>
+ *     <li><i>maximum-size=50M</i> - The size at which a segment is full (default 50M)</li>
+ * </ul>
+ *
+ * <pre>
+ * -DKIVAKIT_LOG="Binary file=/var/log/server.kvlog rollover=daily"</pre>
+ *
+ * @author jonathanl (shibo)
+ * @see BinaryLogWriter
+ * @see BinaryLogReader
+ */
+@UmlClassDiagram(diagram = DiagramResource.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class BinaryLog extends BaseLog
+{
+    /** The log file that segment names are derived from */
+    private Path file;
+
+    /** The size at which a segment is full */
+    private Bytes maximumSize = megabytes(50);
+
+    /** When to start a new segment */
+    private Rollover rollover = Rollover.NONE;
+
+    /** The time at which the current segment should be rolled over, in milliseconds since the epoch */
+    private long rolloverAt = Long.MAX_VALUE;
+
+    /** The number of segments this log has started */
+    private int segments;
+
+    /** The writer for the current segment, or null if there is none */
+    private BinaryLogWriter writer;
+
+    /**
+     * Closes the current segment. The next entry starts a new segment.
+     */
+    @Override
+    public synchronized void closeOutput()
+    {
+        if (writer != null)
+        {
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
+            {
+                problem(e, "Unable to close binary log segment");
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    public void configure(VariableMap<String> properties)
+    {
+        var file = properties.get("file");
+        ensureNotNull(file, "The binary log requires a file=<path> property");
+        file(File.parseFile(consoleListener(), file));
+
+        var rollover = properties.get("rollover");
+        if (rollover != null)
+        {
+            rollover(Rollover.valueOf(rollover.toUpperCase()));
+        }
+
+        var maximumSize = properties.get("maximum-size");
+        if (maximumSize != null)
+        {
+            maximumSize(parseBytes(consoleListener(), maximumSize));
+        }
+    }
+
+    /**
+     * Sets the log file that segment names are derived from
+     */
+    public synchronized BinaryLog file(File file)
+    {
+        closeOutput();
+        this.file = file.asJavaPath().toAbsolutePath();
+        return this;
+    }
+
+    /**
+     * Writes everything logged so far to disk
+     */
+    @Override
+    @UmlExcludeMember
+    public void flush(Duration maximumWaitTime)
+    {
+        super.flush(maximumWaitTime);
+        synchronized (this)
+        {
+            if (writer != null)
+            {
+                try
+                {
+                    writer.flush();
+                }
+                catch (IOException e)
+                {
+                    problem(e, "Unable to flush binary log segment");
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the size at which a segment is full
+     */
+    public synchronized BinaryLog maximumSize(Bytes maximumSize)
+    {
+        this.maximumSize = ensureNotNull(maximumSize);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    public String name()
+    {
+        return "Binary";
+    }
+
+    /**
+     * Sets when to start a new segment, aside from when a segment is full
+     */
+    public synchronized BinaryLog rollover(Rollover rollover)
+    {
+        this.rollover = ensureNotNull(rollover);
+        this.rolloverAt = writer == null ? Long.MAX_VALUE : LogSegments.rolloverTime(rollover, System.currentTimeMillis());
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    public void stop(Duration wait)
+    {
+        super.stop(wait);
+        closeOutput();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    protected synchronized void onLog(LogEntry entry)
+    {
+        ensureNotNull(file, "No file was configured for the binary log");
+
+        // If there's no segment yet, or the segment is full, or it's time to roll over,
+        var now = System.currentTimeMillis();
+        if (writer == null || writer.bytesWritten() >= maximumSize.asLong() || now >= rolloverAt)
+        {
+            // start a new segment,
+            startSegment(now);
+        }
+
+        // and write the entry to it.
+        try
+        {
+            writer.write(entry);
+        }
+        catch (IOException e)
+        {
+            problem(e, "Unable to write to binary log segment");
+        }
+    }
+
+    /**
+     * Closes any current segment and starts a new one
+     */
+    private void startSegment(long now)
+    {
+        closeOutput();
+        try
+        {
+            Files.createDirectories(file.getParent());
+            while (writer == null)
+            {
+                try
+                {
+                    var segment = LogSegments.segment(file, now, ++segments);
+                    writer = binaryLogWriter(new BufferedOutputStream(Files.newOutputStream(segment, CREATE_NEW, WRITE), 64 * 1024));
+                }
+                catch (FileAlreadyExistsException ignored)
+                {
+                    // Skip any name that another log for the same file has already used
+                }
+            }
+            rolloverAt = LogSegments.rolloverTime(rollover, now);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Unable to start binary log segment for " + file, e);
+        }
+    }
+}
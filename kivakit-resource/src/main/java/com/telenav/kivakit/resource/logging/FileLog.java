@@ -0,0 +1,483 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.resource.logging;
+
+import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.collections.map.VariableMap;
+import com.telenav.kivakit.core.logging.LogEntry;
+import com.telenav.kivakit.core.logging.logs.text.BaseTextLog;
+import com.telenav.kivakit.core.time.Duration;
+import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.resource.Extension;
+import com.telenav.kivakit.resource.compression.Codec;
+import com.telenav.kivakit.resource.internal.lexakai.DiagramResource;
+import com.telenav.lexakai.annotations.UmlClassDiagram;
+import com.telenav.lexakai.annotations.visibility.UmlExcludeMember;
+import org.jetbrains.annotations.MustBeInvokedByOverriders;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
+import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
+import static com.telenav.kivakit.annotations.code.quality.Testing.TESTED;
+import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
+import static com.telenav.kivakit.core.ensure.Ensure.illegalArgument;
+import static com.telenav.kivakit.core.messaging.Listener.consoleListener;
+import static com.telenav.kivakit.core.value.count.Bytes.megabytes;
+import static com.telenav.kivakit.core.value.count.Bytes.parseBytes;
+import static com.telenav.kivakit.resource.Extension.GZIP;
+import static java.nio.charset.CodingErrorAction.REPLACE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A text log that writes to a series of rolling segment files. Each segment is pre-allocated and mapped into memory
+ * when it is created, and entries are encoded directly into the mapping, so writing an entry does not make a system
+ * call. When a segment is full, or when the time comes to roll over, the segment is closed and a new one is started.
+ * Closed segments are compressed in the background with a {@link Codec}.
+ *
+ * <p><b>Segments</b></p>
+ *
+ * <p>
+ * For the log file <i>/var/log/server.txt</i>, segments are named like
+ * <i>/var/log/server-2021.06.14_13.05.22-000001.txt</i>, so that they sort in the order they were written. When a
+ * segment is compressed with the default gzip codec, it becomes <i>server-2021.06.14_13.05.22-000001.txt.gz</i>.
+ * Segments are durable as soon as an entry is written to them, since the operating system writes the pages of a
+ * mapped file to disk even if the process exits unexpectedly. A segment left by a process that did not close it is
+ * trimmed and compressed the next time a log with the same file is opened. Each log holds a file lock on the segment
+ * it is writing, so recovery only touches segments that no other log or process is writing to.
+ * {@link #flush(Duration)} forces the current segment to disk.
+ * </p>
+ *
+ * <p><b>Configuration</b></p>
+ *
+ * <p>
+ * File logs are created by {@link com.telenav.kivakit.core.logging.loggers.LogServiceLogger} with the name
+ * <i>File</i> and these properties, in addition to those accepted by {@link BaseTextLog}:
+ * </p>
+ *
+ * <ul>
+ *     <li><i>file=/var/log/server.txt</i> - The log file that segment names are derived from (required)</li>
+ *     <li><i>rollover=none|hourly|daily</i> - When to start a new segment, aside from when a segment is full (default none)</li>
+ *     <li><i>maximum-size=50M</i> - The size of each segment (default 50M)</li>
+ *     <li><i>compression=gzip|none</i> - How to compress closed segments (default gzip)</li>
+ * </ul>
+ *
+ * <pre>
+ * -DKIVAKIT_LOG="File file=/var/log/server.txt rollover=daily maximum-size=100M"</pre>
+ *
+ * <p>
+ * The same options can be set in code with {@link #file(File)}, {@link #rollover(Rollover)},
+ * {@link #maximumSize(Bytes)} and {@link #compression(Codec, Extension)}.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+@UmlClassDiagram(diagram = DiagramResource.class)
+@TypeQuality(stability = STABLE_EXTENSIBLE,
+             testing = TESTED,
+             documentation = DOCUMENTED)
+public class FileLog extends BaseTextLog
+{
+    /** Compresses closed segments in the background, on a daemon thread so the VM can exit while compressing */
+    private static final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable ->
+    {
+        var thread = new Thread(runnable, "KivaKit-FileLog-Compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * When to start a new segment
+     */
+    public enum Rollover
+    {
+        /** Start a new segment only when the current segment is full */
+        NONE,
+
+        /** Start a new segment at the beginning of each hour */
+        HOURLY,
+
+        /** Start a new segment at the beginning of each day */
+        DAILY
+    }
+
+    /** The codec to compress closed segments with, or null if they should not be compressed */
+    private Codec codec = GZIP.codec();
+
+    /** The extension of compressed segments */
+    private Extension compressedExtension = GZIP;
+
+    /** Encodes entries into segments */
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+            .onMalformedInput(REPLACE)
+            .onUnmappableCharacter(REPLACE);
+
+    /** The log file that segment names are derived from */
+    private Path file;
+
+    /** The size of each segment */
+    private Bytes maximumSize = megabytes(50);
+
+    /** True if segments left by an earlier process have been recovered */
+    private boolean recovered;
+
+    /** When to start a new segment */
+    private Rollover rollover = Rollover.NONE;
+
+    /** The time at which the current segment should be rolled over, in milliseconds since the epoch */
+    private long rolloverAt = Long.MAX_VALUE;
+
+    /** The segment being written to, or null if there is none */
+    private LogSegment segment;
+
+    /** The number of segments this log has started */
+    private int segments;
+
+    /**
+     * Closes the current segment, compressing it in the background. The next entry starts a new segment.
+     */
+    @Override
+    public synchronized void closeOutput()
+    {
+        closeSegment();
+    }
+
+    /**
+     * Sets the codec that closed segments are compressed with and the extension to add to their names, or turns off
+     * compression if the codec is null
+     */
+    public synchronized FileLog compression(Codec codec, Extension extension)
+    {
+        this.codec = codec;
+        this.compressedExtension = extension;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    @MustBeInvokedByOverriders
+    public void configure(VariableMap<String> properties)
+    {
+        super.configure(properties);
+
+        var file = properties.get("file");
+        ensureNotNull(file, "The file log requires a file=<path> property");
+        file(File.parseFile(consoleListener(), file));
+
+        var rollover = properties.get("rollover");
+        if (rollover != null)
+        {
+            rollover(Rollover.valueOf(rollover.toUpperCase()));
+        }
+
+        var maximumSize = properties.get("maximum-size");
+        if (maximumSize != null)
+        {
+            maximumSize(parseBytes(consoleListener(), maximumSize));
+        }
+
+        var compression = properties.get("compression");
+        if (compression != null)
+        {
+            switch (compression.toLowerCase())
+            {
+                case "gzip" -> compression(GZIP.codec(), GZIP);
+                case "none" -> compression(null, null);
+                default -> illegalArgument("Unsupported file log compression: $", compression);
+            }
+        }
+    }
+
+    /**
+     * Sets the log file that segment names are derived from
+     */
+    public synchronized FileLog file(File file)
+    {
+        closeSegment();
+        this.file = file.asJavaPath().toAbsolutePath();
+        this.recovered = false;
+        return this;
+    }
+
+    /**
+     * Writes everything logged so far to disk
+     */
+    @Override
+    @UmlExcludeMember
+    public void flush(Duration maximumWaitTime)
+    {
+        super.flush(maximumWaitTime);
+        synchronized (this)
+        {
+            if (segment != null)
+            {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Sets the size of each segment
+     */
+    public synchronized FileLog maximumSize(Bytes maximumSize)
+    {
+        this.maximumSize = ensureNotNull(maximumSize);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    public String name()
+    {
+        return "File";
+    }
+
+    /**
+     * Sets when to start a new segment, aside from when a segment is full
+     */
+    public synchronized FileLog rollover(Rollover rollover)
+    {
+        this.rollover = ensureNotNull(rollover);
+        this.rolloverAt = segment == null ? Long.MAX_VALUE : LogSegments.rolloverTime(rollover, System.currentTimeMillis());
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    public void stop(Duration wait)
+    {
+        super.stop(wait);
+        closeOutput();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @UmlExcludeMember
+    protected synchronized void onLog(LogEntry entry)
+    {
+        ensureNotNull(file, "No file was configured for the file log");
+
+        var text = CharBuffer.wrap(formatted(entry));
+
+        // If there's no segment yet, or it's time to roll over,
+        var now = System.currentTimeMillis();
+        if (segment == null || now >= rolloverAt)
+        {
+            // start a new segment.
+            startSegment(now, text.length());
+        }
+
+        // If the entry doesn't fit in the current segment,
+        if (!segment.append(text, encoder))
+        {
+            // start a new segment that is large enough for it,
+            startSegment(now, text.length());
+
+            // and append it there.
+            segment.append(text, encoder);
+        }
+    }
+
+    /**
+     * Closes the current segment, if any, and schedules it to be compressed
+     */
+    private void closeSegment()
+    {
+        if (segment != null)
+        {
+            var closing = segment;
+            segment = null;
+            try
+            {
+                var length = closing.close();
+                closed(closing.path(), length);
+            }
+            catch (IOException e)
+            {
+                problem(e, "Unable to close log segment: $", closing.path());
+            }
+        }
+    }
+
+    /**
+     * Compresses the given closed segment in the background, or deletes it if it is empty
+     */
+    private void closed(Path path, long length) throws IOException
+    {
+        if (length == 0)
+        {
+            Files.deleteIfExists(path);
+        }
+        else if (codec != null)
+        {
+            var codec = this.codec;
+            var extension = compressedExtension;
+            compressor.execute(() -> compress(path, length, codec, extension));
+        }
+    }
+
+    /**
+     * Compresses the first length bytes of the given segment into a file with the given extension, then deletes the
+     * segment
+     */
+    private void compress(Path path, long length, Codec codec, Extension extension)
+    {
+        var compressed = path.resolveSibling(path.getFileName() + extension.toString());
+        var temporary = path.resolveSibling(compressed.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(path, READ, WRITE))
+        {
+            // If another log or process has locked the segment, it is compressing it, so leave it alone,
+            if (!LogSegment.tryLock(channel))
+            {
+                return;
+            }
+
+            // otherwise, write the compressed segment to a temporary file, reading through the locked channel (which
+            // stays open, and locked, until the segment has been deleted),
+            var in = Channels.newInputStream(channel);
+            try (var out = codec.compressed(Files.newOutputStream(temporary)))
+            {
+                var buffer = new byte[64 * 1024];
+                var remaining = length;
+                while (remaining > 0)
+                {
+                    var read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0)
+                    {
+                        break;
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+
+            // then move it into place, so a compressed segment is never partially written, and remove the segment.
+            Files.move(temporary, compressed, REPLACE_EXISTING, ATOMIC_MOVE);
+            Files.delete(path);
+        }
+        catch (NoSuchFileException ignored)
+        {
+            // Another log or process compressed the segment first.
+        }
+        catch (Exception e)
+        {
+            problem(e, "Unable to compress log segment: $", path);
+        }
+    }
+
+    /**
+     * Trims and compresses any segments of this log's file left by a process that did not close them
+     */
+    private void recover() throws IOException
+    {
+        try (var files = Files.list(file.getParent()))
+        {
+            for (var path : files.toList())
+            {
+                if (LogSegments.isSegment(file, path) && Files.isRegularFile(path))
+                {
+                    // Trim the segment while holding its lock, skipping segments that are still being written,
+                    long length;
+                    try (var channel = FileChannel.open(path, READ, WRITE))
+                    {
+                        if (!LogSegment.tryLock(channel))
+                        {
+                            continue;
+                        }
+                        length = LogSegment.trim(channel);
+                    }
+                    catch (NoSuchFileException ignored)
+                    {
+                        continue;
+                    }
+
+                    // then compress it.
+                    closed(path, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes any current segment and starts a new one
+     *
+     * @param now The current time
+     * @param characters The number of characters in the entry that will be written to the segment first
+     */
+    private void startSegment(long now, int characters)
+    {
+        closeSegment();
+        try
+        {
+            // If we haven't already, recover segments left by an earlier process,
+            Files.createDirectories(file.getParent());
+            if (!recovered)
+            {
+                recovered = true;
+                recover();
+            }
+
+            // then create a segment large enough for the maximum size in bytes of the entry,
+            var capacity = Math.max(maximumSize.asLong(), 4L * characters + 1);
+            while (segment == null)
+            {
+                try
+                {
+                    segment = LogSegment.logSegment(LogSegments.segment(file, now, ++segments), capacity);
+                }
+                catch (FileAlreadyExistsException ignored)
+                {
+                    // skipping any name that another log for the same file has already used.
+                }
+            }
+            rolloverAt = LogSegments.rolloverTime(rollover, now);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Unable to start log segment for " + file, e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.resource.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Path;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * A log file of fixed capacity that is mapped into memory when it is created. Appending an entry encodes it directly
+ * into the mapped buffer, so no system call is made for each entry, and the operating system writes the pages to disk
+ * in the background, even if the process exits without closing the segment. When the segment is closed, the file is
+ * truncated to the length that was written. A segment that was never closed has unwritten zero bytes at the end,
+ * which can be removed with {@link #trim(FileChannel)}.
+ * </p>
+ *
+ * <p>
+ * The writer of a segment holds an exclusive lock on it from before it is mapped until it is closed, so another log or
+ * another process can tell that the segment is live with {@link #tryLock(FileChannel)} and leave it alone.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ * @see FileLog
+ */
+final class LogSegment
+{
+    /**
+     * Creates a new segment file at the given path with the given capacity in bytes
+     */
+    static LogSegment logSegment(Path path, long capacity) throws IOException
+    {
+        var channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        try
+        {
+            // Lock the segment while it is still empty, before mapping extends it to its capacity,
+            channel.lock();
+
+            // then map it into memory.
+            return new LogSegment(path, channel, channel.map(READ_WRITE, 0, capacity));
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the zero bytes from the end of a segment that was not closed. The caller must hold a lock on the segment.
+     *
+     * @return The length of the segment
+     */
+    static long trim(FileChannel channel) throws IOException
+    {
+        // Go backwards through the file a block at a time,
+        var block = ByteBuffer.allocate(64 * 1024);
+        var end = channel.size();
+        while (end > 0)
+        {
+            // reading each block,
+            var start = Math.max(0, end - block.capacity());
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining() && channel.read(block, start + block.position()) >= 0)
+            {
+            }
+
+            // and looking for the last byte that isn't zero.
+            var at = block.position() - 1;
+            while (at >= 0 && block.get(at) == 0)
+            {
+                at--;
+            }
+            if (at >= 0)
+            {
+                end = start + at + 1;
+                break;
+            }
+            end = start;
+        }
+
+        channel.truncate(end);
+        return end;
+    }
+
+    /**
+     * Locks the segment open in the given channel, if it is not empty and no other log or process is writing to it
+     *
+     * @return True if the segment was locked, false if it is live or not yet mapped
+     */
+    static boolean tryLock(FileChannel channel) throws IOException
+    {
+        // A segment is locked by its writer before it is mapped, so if it is empty it may be about to be mapped,
+        if (channel.size() == 0)
+        {
+            return false;
+        }
+        try
+        {
+            // and otherwise it is live if another process holds its lock,
+            return channel.tryLock() != null;
+        }
+        catch (OverlappingFileLockException e)
+        {
+            // or another log in this process does.
+            return false;
+        }
+    }
+
+    /** The mapped contents of the segment file */
+    private final MappedByteBuffer buffer;
+
+    /** The channel for the segment file */
+    private final FileChannel channel;
+
+    /** The path to the segment file */
+    private final Path path;
+
+    private LogSegment(Path path, FileChannel channel, MappedByteBuffer buffer)
+    {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Appends the given text and a newline to this segment
+     *
+     * @return True if the text was appended, false if there is not enough room left in this segment
+     */
+    boolean append(CharBuffer text, CharsetEncoder encoder)
+    {
+        // Encode the text directly into the mapped buffer,
+        var start = buffer.position();
+        encoder.reset();
+        if (encoder.encode(text, buffer, true).isOverflow()
+                || encoder.flush(buffer).isOverflow()
+                || !buffer.hasRemaining())
+        {
+            // and if it didn't fit, undo the partial write.
+            buffer.position(start);
+            text.rewind();
+            return false;
+        }
+
+        buffer.put((byte) '\n');
+        return true;
+    }
+
+    /**
+     * Writes this segment to disk, truncates it to the length that was written and closes it
+     *
+     * @return The length of this segment
+     */
+    long close() throws IOException
+    {
+        var length = length();
+        try
+        {
+            buffer.force();
+            channel.truncate(length);
+        }
+        catch (IOException ignored)
+        {
+            // Some operating systems do not allow a mapped file to be truncated. The zero bytes at the end of the
+            // file will be removed when it is compressed, or by trim() when the log is next opened.
+        }
+        finally
+        {
+            channel.close();
+        }
+        return length;
+    }
+
+    /**
+     * Forces any changes to this segment to be written to disk
+     */
+    void force()
+    {
+        buffer.force();
+    }
+
+    /**
+     * Returns the number of bytes that have been written to this segment
+     */
+    long length()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * Returns the path to this segment's file
+     */
+    Path path()
+    {
+        return path;
+    }
+}
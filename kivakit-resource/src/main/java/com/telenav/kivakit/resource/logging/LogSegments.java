@@ -0,0 +1,111 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+package com.telenav.kivakit.resource.logging;
+
+import com.telenav.kivakit.resource.logging.FileLog.Rollover;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * Names the segments of a log file, and determines when they roll over. For the log file <i>/var/log/server.txt</i>,
+ * segments are named like <i>/var/log/server-2021.06.14_13.05.22-000001.txt</i>, so that they sort in the order
+ * they were written.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+final class LogSegments
+{
+    /** The time at which a segment was started, as it appears in the segment's name */
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyy.MM.dd_HH.mm.ss");
+
+    /** The part of a segment's name after the prefix and before the suffix, as written by {@link #segment(Path, long, int)} */
+    private static final String SEGMENT_STAMP = "\\d{4}\\.\\d{2}\\.\\d{2}_\\d{2}\\.\\d{2}\\.\\d{2}-\\d{6,}";
+
+    /**
+     * Returns true if the given path is a segment of the given log file. Only names with exactly the form written by
+     * {@link #segment(Path, long, int)} match, so the segments of <i>server-errors.txt</i> are not segments of
+     * <i>server.txt</i>.
+     */
+    static boolean isSegment(Path file, Path path)
+    {
+        return Pattern.matches(Pattern.quote(prefix(file)) + SEGMENT_STAMP + Pattern.quote(suffix(file)),
+                path.getFileName().toString());
+    }
+
+    /**
+     * Returns the time at which a segment started at the given time should roll over
+     */
+    static long rolloverTime(Rollover rollover, long now)
+    {
+        var time = Instant.ofEpochMilli(now).atZone(ZoneId.systemDefault());
+        return switch (rollover)
+            {
+                case NONE -> Long.MAX_VALUE;
+                case HOURLY -> time.truncatedTo(HOURS).plusHours(1).toInstant().toEpochMilli();
+                case DAILY -> time.truncatedTo(DAYS).plusDays(1).toInstant().toEpochMilli();
+            };
+    }
+
+    /**
+     * Returns the path of the segment of the given log file with the given start time and index
+     */
+    static Path segment(Path file, long started, int index)
+    {
+        return file.resolveSibling(prefix(file)
+                + SEGMENT_TIME.format(Instant.ofEpochMilli(started).atZone(ZoneId.systemDefault()))
+                + String.format("-%06d", index)
+                + suffix(file));
+    }
+
+    /**
+     * Returns the start of the names of the given file's segments, such as "server-" for the file "server.txt"
+     */
+    private static String prefix(Path file)
+    {
+        var name = file.getFileName().toString();
+        var dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "-";
+    }
+
+    /**
+     * Returns the end of the names of the given file's segments, such as ".txt" for the file "server.txt"
+     */
+    private static String suffix(Path file)
+    {
+        var name = file.getFileName().toString();
+        var dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot) : "";
+    }
+
+    private LogSegments()
+    {
+    }
+}
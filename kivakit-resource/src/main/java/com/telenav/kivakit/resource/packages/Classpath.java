@@ -3,17 +3,22 @@ package com.telenav.kivakit.resource.packages;
 import com.google.common.reflect.ClassPath;
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.list.ObjectList;
-import com.telenav.kivakit.core.collections.set.ObjectSet;
 import com.telenav.kivakit.core.language.packaging.PackageReference;
 import com.telenav.kivakit.core.messaging.Listener;
 import com.telenav.kivakit.core.object.Lazy;
+import com.telenav.kivakit.filesystem.File;
+import com.telenav.kivakit.resource.writing.WritableResource;
 import io.github.classgraph.ClassGraph;
 
+import java.util.LinkedHashSet;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.UNSTABLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.object.Lazy.lazy;
 import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
+import static com.telenav.kivakit.core.vm.Properties.systemPropertyOrEnvironmentVariable;
+import static com.telenav.kivakit.resource.packages.ClasspathIndex.classpathIndex;
 import static com.telenav.kivakit.resource.packages.ClasspathResource.classpathResource;
 import static com.telenav.kivakit.resource.packages.ClasspathResourceFolder.classpathResourceFolder;
 import static java.util.regex.Pattern.compile;
@@ -36,6 +41,17 @@ import static java.util.regex.Pattern.compile;
  *     <li>{@link #nestedResources(Listener, PackageReference)} - All resources under the given package</li>
  * </ul>
  *
+ * <p><b>Indexing</b></p>
+ *
+ * <p>
+ * The classpath is scanned once, and the resources found are kept in an immutable index by package, so lookups do not
+ * lock or search the whole classpath. Scanning a large classpath can take a while, so the index can also be saved at
+ * build time with {@link #saveIndex(Listener, WritableResource)}. If the system property or environment variable
+ * KIVAKIT_CLASSPATH_INDEX names a saved index file, it is loaded at startup instead of scanning. An index is ignored
+ * if it was saved with a different classpath. A saved index only holds resources in classpath entries on disk, so
+ * resources in JDK modules and other places that a scan would find are not found when an index is loaded.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see ClasspathResourceFolder
  * @see ClasspathResource
@@ -52,45 +68,37 @@ public class Classpath
     /**
      * Get the singleton instance of this class
      */
-    public synchronized static Classpath classpath()
+    public static Classpath classpath()
     {
         return classpath.get();
     }
 
-    /** All resource folders on the classpath */
-    private final ObjectSet<ClasspathResourceFolder> resourceFolders = new ObjectSet<>();
-
-    /** All resources on the classpath */
-    private final ObjectList<ClasspathResource> resources = new ObjectList<>();
-
-    private boolean scanned;
+    /** The index of resources on the classpath, or null if the classpath has not been scanned yet */
+    private volatile ClasspathIndex index;
 
     /**
      * Returns all resource folders on the classpath
      */
-    public synchronized ObjectList<ClasspathResourceFolder> allResourceFolders(Listener listener)
+    public ObjectList<ClasspathResourceFolder> allResourceFolders(Listener listener)
     {
-        scan(listener);
-        return resourceFolders.asList();
+        return index(listener).allResourceFolders();
     }
 
     /**
      * Returns the set of all non-class resources on the class path, as supplied by Guava's {@link ClassPath} facility.
      */
-    public synchronized ObjectList<ClasspathResource> allResources(Listener listener)
+    public ObjectList<ClasspathResource> allResources(Listener listener)
     {
-        scan(listener);
-        return resources;
+        return index(listener).allResources();
     }
 
     /**
      * Returns all resource folders on the classpath
      */
-    public synchronized ObjectList<ClasspathResourceFolder> nestedResourceFolders(Listener listener,
-                                                                                  PackageReference under)
+    public ObjectList<ClasspathResourceFolder> nestedResourceFolders(Listener listener,
+                                                                     PackageReference under)
     {
-        scan(listener);
-        return resourceFolders.asList().matching(folder -> folder.packageReference().startsWith(under));
+        return index(listener).nestedResourceFolders(under);
     }
 
     /**
@@ -99,9 +107,9 @@ public class Classpath
      * @param under The package to look under
      * @return The list of resources
      */
-    public synchronized ObjectList<ClasspathResource> nestedResources(Listener listener, PackageReference under)
+    public ObjectList<ClasspathResource> nestedResources(Listener listener, PackageReference under)
     {
-        return allResources(listener).matching(resource -> resource.packageReference().startsWith(under));
+        return index(listener).nestedResources(under);
     }
 
     /**
@@ -110,10 +118,9 @@ public class Classpath
      * @param in The package
      * @return The list of resources
      */
-    public synchronized ObjectList<ClasspathResourceFolder> resourceFoldersIn(Listener listener, PackageReference in)
+    public ObjectList<ClasspathResourceFolder> resourceFoldersIn(Listener listener, PackageReference in)
     {
-        return allResourceFolders(listener).matching(resource -> resource.packageReference().startsWith(in)
-            && resource.packageReference().size() == in.size() + 1);
+        return index(listener).resourceFoldersIn(in);
     }
 
     /**
@@ -122,43 +129,93 @@ public class Classpath
      * @param in The package
      * @return The list of resources
      */
-    public synchronized ObjectList<ClasspathResource> resourcesIn(Listener listener, PackageReference in)
+    public ObjectList<ClasspathResource> resourcesIn(Listener listener, PackageReference in)
     {
-        return allResources(listener).matching(resource -> resource.packageReference().equals(in));
+        return index(listener).resourcesIn(in);
     }
 
-    private synchronized void scan(Listener listener)
+    /**
+     * Saves an index of the classpath to the given resource. If KIVAKIT_CLASSPATH_INDEX names the saved resource when
+     * an application is run with the same classpath, the index will be loaded instead of scanning the classpath.
+     * Resource folders that are not in classpath entries on disk, like folders in JDK modules, are not saved.
+     */
+    public void saveIndex(Listener listener, WritableResource resource)
     {
-        if (!scanned)
+        index(listener).save(listener, resource);
+    }
+
+    /**
+     * Returns the index of the classpath, loading or scanning the classpath if this is the first call
+     */
+    private ClasspathIndex index(Listener listener)
+    {
+        var index = this.index;
+        if (index == null)
         {
-            try (var scan = new ClassGraph().scan(javaVirtualMachine().processors().asInt()))
+            synchronized (this)
             {
-                scan.getResourcesMatchingPattern(compile("^.*(?<!\\.class)$")).forEach(at ->
+                index = this.index;
+                if (index == null)
                 {
-                    // Get the resource folder,
-                    var folder = classpathResourceFolder(listener, at);
-                    if (folder != null)
+                    index = load(listener);
+                    if (index == null)
                     {
-                        // and the resource inside it,
-                        var resource = classpathResource(listener, at);
-                        if (resource != null)
-                        {
-                            // set the parent folder of the resource,
-                            resource.parent(folder);
-
-                            // then add the resource to the list of resources,
-                            resources.add(resource);
-
-                            // and to the folder,
-                            folder.add(resource);
-
-                            // and finally add the folder to the list of folders.
-                            resourceFolders.add(folder);
-                        }
+                        index = scan(listener);
                     }
-                });
+                    this.index = index;
+                }
             }
         }
-        scanned = true;
+        return index;
+    }
+
+    /**
+     * Returns any index file named by KIVAKIT_CLASSPATH_INDEX
+     */
+    private ClasspathIndex load(Listener listener)
+    {
+        var path = systemPropertyOrEnvironmentVariable("KIVAKIT_CLASSPATH_INDEX");
+        if (path != null)
+        {
+            var file = File.parseFile(listener, path);
+            if (file != null && file.exists())
+            {
+                return ClasspathIndex.load(listener, file.reader().readLines());
+            }
+            listener.warning("Classpath index not found: $", path);
+        }
+        return null;
+    }
+
+    private ClasspathIndex scan(Listener listener)
+    {
+        var resourceFolders = new LinkedHashSet<ClasspathResourceFolder>();
+        try (var scan = new ClassGraph().scan(javaVirtualMachine().processors().asInt()))
+        {
+            scan.getResourcesMatchingPattern(compile("^.*(?<!\\.class)$")).forEach(at ->
+            {
+                // Get the resource folder,
+                var folder = classpathResourceFolder(listener, at);
+                if (folder != null)
+                {
+                    // and the resource inside it,
+                    var resource = classpathResource(listener, at);
+                    if (resource != null)
+                    {
+                        // set the parent folder of the resource,
+                        resource.parent(folder);
+
+                        // then add the resource to the folder,
+                        folder.add(resource);
+
+                        // and add the folder to the set of folders.
+                        resourceFolders.add(folder);
+                    }
+                }
+            });
+        }
+
+        // Finally, index the folders by package.
+        return classpathIndex(resourceFolders);
     }
 }
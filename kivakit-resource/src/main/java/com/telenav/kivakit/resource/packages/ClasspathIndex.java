@@ -0,0 +1,397 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.packages;
+
+import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.language.packaging.PackageReference;
+import com.telenav.kivakit.core.messaging.Listener;
+import com.telenav.kivakit.core.path.StringPath;
+import com.telenav.kivakit.resource.writing.WritableResource;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import static com.telenav.kivakit.core.collections.list.ObjectList.list;
+import static com.telenav.kivakit.core.path.StringPath.stringPath;
+import static com.telenav.kivakit.core.time.Time.epochMilliseconds;
+import static com.telenav.kivakit.core.value.count.Bytes.bytes;
+import static com.telenav.kivakit.resource.packages.ClasspathResourceFolder.classpathResourceFolder;
+
+/**
+ * An immutable index of the resources and resource folders on the classpath, keyed by package. Each lookup is a hash
+ * lookup, followed by a walk of the subpackages for nested lookups, so no lookup scans the whole classpath, and since
+ * the index never changes after it is built, lookups do not need to lock.
+ *
+ * <p><b>Index Files</b></p>
+ *
+ * <p>
+ * An index can be saved with {@link #save(Listener, WritableResource)} and loaded with {@link #load(Listener, List)}.
+ * Resources are saved by the name of their classpath entry (the file name of a JAR, or the last few elements of the
+ * path to a folder) and their path within the entry, so an index saved at build time can be loaded on another machine,
+ * where the entries are in different places. The saved index records the names of the entries on the classpath, and
+ * it is only loaded when the current classpath has the same entries.
+ * </p>
+ *
+ * <p>
+ * Only resource folders in classpath entries on disk are saved. Folders that are found by scanning but have no such
+ * entry, like folders in JDK modules, are left out with a warning, so lookups against a loaded index do not find the
+ * resources in them.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ * @see Classpath
+ */
+final class ClasspathIndex
+{
+    /** Header line identifying an index file */
+    private static final String HEADER = "# KivaKit classpath index";
+
+    /**
+     * Returns an index of the given resource folders
+     */
+    static ClasspathIndex classpathIndex(Collection<ClasspathResourceFolder> folders)
+    {
+        return new ClasspathIndex(folders);
+    }
+
+    /**
+     * Loads the index in the given lines, as written by {@link #save(Listener, WritableResource)}
+     *
+     * @param listener The listener to call with any problems
+     * @param lines The lines of the index file
+     * @return The index, or null if the index could not be loaded or was created for a different classpath
+     */
+    static ClasspathIndex load(Listener listener, List<String> lines)
+    {
+        if (lines.size() < 2 || !lines.get(0).equals(HEADER))
+        {
+            listener.warning("Not a classpath index");
+            return null;
+        }
+        var entries = classpathEntries();
+        if (entries == null || !lines.get(1).equals(entriesLine(entries.keySet())))
+        {
+            listener.warning("Classpath index was created for a different classpath");
+            return null;
+        }
+
+        try
+        {
+            var folders = new LinkedHashSet<ClasspathResourceFolder>();
+            var added = new HashSet<ClasspathResource>();
+            for (var index = 2; index < lines.size(); index++)
+            {
+                var line = lines.get(index);
+                if (!line.isBlank())
+                {
+                    // Parse the classpath entry, package path, file name, size, creation and modification times,
+                    var columns = line.split("\t");
+                    var root = entries.get(columns[0]);
+                    var packagePath = PackagePath.packagePath(path(columns[1]));
+
+                    // get the folder for the package,
+                    var folder = classpathResourceFolder(root, packagePath);
+
+                    // and add the resource to it, if it is not already there.
+                    var resource = new ClasspathResource()
+                        .packageReference(PackageReference.packageReference(packagePath))
+                        .uri(resourceUri(root, columns[1].isEmpty() ? columns[2] : columns[1] + "/" + columns[2]))
+                        .size(bytes(Long.parseLong(columns[3])))
+                        .created(epochMilliseconds(Long.parseLong(columns[4])))
+                        .lastModified(epochMilliseconds(Long.parseLong(columns[5])))
+                        .parent(folder);
+                    if (added.add(resource))
+                    {
+                        folder.add(resource);
+                    }
+                    folders.add(folder);
+                }
+            }
+            return classpathIndex(folders);
+        }
+        catch (Exception e)
+        {
+            listener.problem(e, "Unable to load classpath index");
+            return null;
+        }
+    }
+
+    /**
+     * Adds any values to the given list
+     */
+    private static <T> void addAll(ObjectList<T> list, ObjectList<T> values)
+    {
+        if (values != null)
+        {
+            list.addAll(values);
+        }
+    }
+
+    /**
+     * Returns the entries on the classpath, by name, or null if two entries have the same name
+     */
+    private static Map<String, URI> classpathEntries()
+    {
+        var entries = new HashMap<String, URI>();
+        for (var entry : System.getProperty("java.class.path").split(File.pathSeparator))
+        {
+            if (!entry.isBlank())
+            {
+                var uri = Path.of(entry).toAbsolutePath().toUri();
+                if (entries.put(entryName(uri), uri) != null)
+                {
+                    return null;
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the line of an index file that lists the names of the classpath entries the index was created from
+     */
+    private static String entriesLine(Set<String> names)
+    {
+        return "entries\t" + String.join("\t", new TreeSet<>(names));
+    }
+
+    /**
+     * Returns the name of the given classpath entry, which is the file name of a JAR, or the last three elements of
+     * the path to a folder, like <i>kivakit-core/target/classes</i>
+     */
+    private static String entryName(URI entry)
+    {
+        var path = Path.of(entry);
+        if (!Files.isDirectory(path) || path.getNameCount() < 3)
+        {
+            return path.getFileName().toString();
+        }
+        return path.subpath(path.getNameCount() - 3, path.getNameCount()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Returns the key for the given package
+     */
+    private static String key(StringPath path)
+    {
+        return String.join(".", path.elements());
+    }
+
+    /**
+     * Returns the URI of the resource at the given path in the given classpath entry. JAR resource URIs are written as
+     * <i>jar:file:/path!/resource</i>, as a classpath scan gives them, so the URIs of loaded resources are the same as
+     * the URIs of scanned resources.
+     */
+    private static URI resourceUri(URI entry, String path) throws URISyntaxException
+    {
+        var encoded = new URI(null, null, path, null).getRawPath();
+        return Path.of(entry).toString().endsWith(".jar")
+            ? URI.create("jar:file:" + entry.getRawPath() + "!/" + encoded)
+            : entry.resolve(encoded);
+    }
+
+    /**
+     * Returns the given path to a package, with elements separated by '/'
+     */
+    private static StringPath path(String path)
+    {
+        var elements = new ArrayList<String>();
+        for (var element : path.split("/"))
+        {
+            if (!element.isEmpty())
+            {
+                elements.add(element);
+            }
+        }
+        return stringPath(elements);
+    }
+
+    /** The keys of the subpackages of each package that contain resources, directly or indirectly */
+    private final Map<String, Set<String>> childPackages = new HashMap<>();
+
+    /** The resource folders for each package, one for each classpath element that has the package */
+    private final Map<String, ObjectList<ClasspathResourceFolder>> folders = new HashMap<>();
+
+    /** The resources in each package */
+    private final Map<String, ObjectList<ClasspathResource>> resources = new HashMap<>();
+
+    /** All resources on the classpath */
+    private final ObjectList<ClasspathResource> allResources = new ObjectList<>();
+
+    /** All resource folders on the classpath */
+    private final ObjectList<ClasspathResourceFolder> allFolders = new ObjectList<>();
+
+    private ClasspathIndex(Collection<ClasspathResourceFolder> folders)
+    {
+        for (var folder : folders)
+        {
+            // Add the folder and its resources under the folder's package,
+            var reference = folder.packageReference();
+            var key = key(reference);
+            this.folders.computeIfAbsent(key, ignored -> new ObjectList<>()).add(folder);
+            this.resources.computeIfAbsent(key, ignored -> new ObjectList<>()).addAll(folder.resources());
+            allFolders.add(folder);
+            allResources.addAll(folder.resources());
+
+            // then link the package to its parent packages, until we reach a package that is already linked.
+            for (var at = reference; !at.isEmpty(); at = at.parent())
+            {
+                var parent = key(at.parent());
+                var children = childPackages.computeIfAbsent(parent, ignored -> new LinkedHashSet<>());
+                if (!children.add(key(at)))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all resource folders on the classpath
+     */
+    ObjectList<ClasspathResourceFolder> allResourceFolders()
+    {
+        return list(allFolders);
+    }
+
+    /**
+     * Returns all resources on the classpath
+     */
+    ObjectList<ClasspathResource> allResources()
+    {
+        return list(allResources);
+    }
+
+    /**
+     * Returns the resource folders for the given package and all of its subpackages
+     */
+    ObjectList<ClasspathResourceFolder> nestedResourceFolders(PackageReference under)
+    {
+        var nested = new ObjectList<ClasspathResourceFolder>();
+        visit(key(under), key -> addAll(nested, folders.get(key)));
+        return nested;
+    }
+
+    /**
+     * Returns the resources in the given package and all of its subpackages
+     */
+    ObjectList<ClasspathResource> nestedResources(PackageReference under)
+    {
+        var nested = new ObjectList<ClasspathResource>();
+        visit(key(under), key -> addAll(nested, resources.get(key)));
+        return nested;
+    }
+
+    /**
+     * Returns the resource folders for the immediate subpackages of the given package
+     */
+    ObjectList<ClasspathResourceFolder> resourceFoldersIn(PackageReference in)
+    {
+        var folders = new ObjectList<ClasspathResourceFolder>();
+        var children = childPackages.get(key(in));
+        if (children != null)
+        {
+            for (var child : children)
+            {
+                addAll(folders, this.folders.get(child));
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * Returns the resources in the given package
+     */
+    ObjectList<ClasspathResource> resourcesIn(PackageReference in)
+    {
+        var resources = new ObjectList<ClasspathResource>();
+        addAll(resources, this.resources.get(key(in)));
+        return resources;
+    }
+
+    /**
+     * Saves this index to the given resource, so it can be loaded with {@link #load(Listener, List)}
+     */
+    void save(Listener listener, WritableResource resource)
+    {
+        var skipped = 0;
+        try (var out = resource.printWriter())
+        {
+            out.println(HEADER);
+            var entries = classpathEntries();
+            out.println(entriesLine(entries == null ? Set.of() : entries.keySet()));
+            for (var folder : allFolders)
+            {
+                // Skip any folder that isn't in a classpath entry, such as a folder in a JDK module,
+                var root = folder.classpathRoot();
+                if (entries == null || !"file".equals(root.getScheme()) || !entries.containsKey(entryName(root)))
+                {
+                    skipped++;
+                    continue;
+                }
+
+                // and save the resources in the folder.
+                var entry = entryName(root);
+                var packagePath = String.join("/", folder.packagePath().elements());
+                for (var at : folder.resources())
+                {
+                    out.println(entry
+                        + "\t" + packagePath
+                        + "\t" + at.fileName()
+                        + "\t" + at.size().asLong()
+                        + "\t" + at.created().epochMilliseconds()
+                        + "\t" + at.lastModified().epochMilliseconds());
+                }
+            }
+        }
+        if (skipped > 0)
+        {
+            listener.warning("Classpath index leaves out $ resource folders that are not in classpath entries on disk", skipped);
+        }
+    }
+
+    /**
+     * Calls the given visitor with the given package and then each of its subpackages
+     */
+    private void visit(String key, Consumer<String> visitor)
+    {
+        visitor.accept(key);
+        var children = childPackages.get(key);
+        if (children != null)
+        {
+            for (var child : children)
+            {
+                visit(child, visitor);
+            }
+        }
+    }
+}
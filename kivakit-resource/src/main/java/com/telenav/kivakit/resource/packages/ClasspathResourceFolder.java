@@ -9,6 +9,7 @@ import com.telenav.kivakit.core.string.ObjectFormatter;
 import com.telenav.kivakit.filesystem.Folder;
 import io.github.classgraph.Resource;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemAlreadyExistsException;
@@ -47,38 +48,13 @@ public class ClasspathResourceFolder
      */
     public static synchronized ClasspathResourceFolder classpathResourceFolder(Listener listener, Resource resource)
     {
-        // Get the URI to this resource's classpath element,
-        var uri = resource.getClasspathElementURI();
-
         try
         {
-            // the path to the resource within that element,
+            // Get the path to the resource within its classpath element,
             var path = parseStringPath(listener, resource.getPath(), "/");
 
             // and return the corresponding folder.
-            var packagePath = PackagePath.packagePath(path.withoutLast());
-            var key = uri + "::" + packagePath;
-            var folder = folders.get(key);
-            if (folder == null)
-            {
-                folder = new ClasspathResourceFolder();
-                folder.classpathRoot = uri;
-                folder.packagePath = packagePath;
-                if (uri.getPath().endsWith(".jar"))
-                {
-                    uri = URI.create("jar:" + uri);
-                    try
-                    {
-                        folder.filesystem = FileSystems.newFileSystem(uri, new HashMap<>());
-                    }
-                    catch (FileSystemAlreadyExistsException ignored)
-                    {
-                        folder.filesystem = FileSystems.getFileSystem(uri);
-                    }
-                }
-                folders.put(key, folder);
-            }
-            return folder;
+            return classpathResourceFolder(resource.getClasspathElementURI(), PackagePath.packagePath(path.withoutLast()));
         }
         catch (Exception e)
         {
@@ -87,6 +63,42 @@ public class ClasspathResourceFolder
         return null;
     }
 
+    /**
+     * Returns the {@link ClasspathResourceFolder} for the given package in the given classpath element, mounting the
+     * element's filesystem if it is a JAR
+     *
+     * @param classpathRoot The URI of the classpath element
+     * @param packagePath The path to the folder within the classpath element
+     * @return The resource folder
+     */
+    static synchronized ClasspathResourceFolder classpathResourceFolder(URI classpathRoot,
+                                                                        PackagePath packagePath) throws IOException
+    {
+        var uri = classpathRoot;
+        var key = uri + "::" + packagePath;
+        var folder = folders.get(key);
+        if (folder == null)
+        {
+            folder = new ClasspathResourceFolder();
+            folder.classpathRoot = uri;
+            folder.packagePath = packagePath;
+            if (uri.getPath().endsWith(".jar"))
+            {
+                uri = URI.create("jar:" + uri);
+                try
+                {
+                    folder.filesystem = FileSystems.newFileSystem(uri, new HashMap<>());
+                }
+                catch (FileSystemAlreadyExistsException ignored)
+                {
+                    folder.filesystem = FileSystems.getFileSystem(uri);
+                }
+            }
+            folders.put(key, folder);
+        }
+        return folder;
+    }
+
     /** A list of the resources in this folder */
     private final ObjectList<ClasspathResource> resources = list();
 
@@ -120,9 +120,8 @@ public class PackageResource extends BaseReadableResource
                                                   @NotNull StringPath resourcePath)
     {
         // Search the classpath for the given package and filename
-        var found = classpath().allResources(listener).findFirst(resource ->
-            resource.packageReference().equals(PackageReference.packageReference(resourcePath.withoutLast()))
-                && resource.fileName().name().equals(resourcePath.last()));
+        var found = classpath().resourcesIn(listener, PackageReference.packageReference(resourcePath.withoutLast()))
+            .findFirst(resource -> resource.fileName().name().equals(resourcePath.last()));
 
         // and if the resource was found,
         if (found != null)
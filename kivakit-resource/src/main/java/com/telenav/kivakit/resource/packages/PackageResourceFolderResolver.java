@@ -11,6 +11,8 @@ import com.telenav.kivakit.resource.spi.ResourceFolderResolver;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
@@ -48,4 +50,13 @@ public class PackageResourceFolderResolver implements ResourceFolderResolver
         var filepath = parseFilePath(this, stripLeading(identifier.identifier(), SCHEME));
         return packageForPath(throwingListener(), packagePath(filepath));
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> schemes()
+    {
+        return Set.of("classpath");
+    }
 }
@@ -8,6 +8,8 @@ import com.telenav.kivakit.resource.spi.ResourceResolver;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.UNSTABLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
@@ -55,4 +57,13 @@ public class PackageResourceResolver implements ResourceResolver
         problem("Could not resolve resource: $", identifier);
         return null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> schemes()
+    {
+        return Set.of("classpath");
+    }
 }
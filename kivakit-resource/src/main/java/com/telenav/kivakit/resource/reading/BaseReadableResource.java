@@ -19,13 +19,13 @@
 package com.telenav.kivakit.resource.reading;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.io.ByteSizedOutputStream;
 import com.telenav.kivakit.core.io.IO;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
 import com.telenav.kivakit.core.object.Lazy;
 import com.telenav.kivakit.core.progress.ProgressReporter;
 import com.telenav.kivakit.core.progress.reporters.ProgressiveInputStream;
 import com.telenav.kivakit.filesystem.File;
-import com.telenav.kivakit.filesystem.FilePath;
 import com.telenav.kivakit.filesystem.Folder;
 import com.telenav.kivakit.resource.CloseMode;
 import com.telenav.kivakit.resource.Resource;
@@ -33,31 +33,46 @@ import com.telenav.kivakit.resource.ResourcePath;
 import com.telenav.kivakit.resource.WriteMode;
 import com.telenav.kivakit.resource.compression.Codec;
 import com.telenav.kivakit.resource.compression.codecs.NullCodec;
+import com.telenav.kivakit.resource.internal.jfr.ResourceCopyEvent;
+import com.telenav.kivakit.resource.internal.jfr.ResourceReadEvent;
 import com.telenav.kivakit.resource.internal.lexakai.DiagramFileSystemFile;
 import com.telenav.kivakit.resource.internal.lexakai.DiagramResource;
 import com.telenav.kivakit.resource.writing.WritableResource;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.ensure.Ensure.ensure;
+import static com.telenav.kivakit.core.ensure.Ensure.fail;
 import static com.telenav.kivakit.core.ensure.Ensure.unsupported;
 import static com.telenav.kivakit.core.io.IO.copy;
 import static com.telenav.kivakit.core.io.IO.copyAndClose;
 import static com.telenav.kivakit.core.object.Lazy.lazy;
+import static com.telenav.kivakit.core.os.OperatingSystem.operatingSystem;
 import static com.telenav.kivakit.core.time.Time.now;
 import static com.telenav.kivakit.filesystem.File.parseFile;
 import static com.telenav.kivakit.filesystem.Folder.FolderType.CLEAN_UP_ON_EXIT;
+import static com.telenav.kivakit.filesystem.Folder.parseFolder;
 import static com.telenav.kivakit.filesystem.Folder.temporaryFolderForProcess;
 import static com.telenav.kivakit.resource.CloseMode.CLOSE;
 import static com.telenav.kivakit.resource.ResourcePath.resourcePath;
 import static com.telenav.kivakit.resource.WriteMode.OVERWRITE;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Objects.hash;
 
 /**
@@ -68,6 +83,32 @@ import static java.util.Objects.hash;
  * </ul>
  * <p>
  * All other methods are documented in the {@link Resource} superinterface.
+ *
+ * <p><b>Materialization</b></p>
+ *
+ * <p>
+ * Remote and packaged resources are materialized by {@link #materialized(ProgressReporter)} by copying them to a cache
+ * folder. By default, this is a temporary folder for the process, but the cache can be shared by several processes by
+ * setting the system property or environment variable <i>KIVAKIT_MATERIALIZATION_FOLDER</i> to a folder path.
+ * </p>
+ *
+ * <ul>
+ *     <li>If the resource has already been materialized, the copy is returned without locking</li>
+ *     <li>Only one copy of a given resource is made at a time in a process. Other threads that materialize the same
+ *     resource, through any resource object, wait for that copy and share its result</li>
+ *     <li>Copies are made while holding an advisory {@link FileChannel} lock on a <i>.lock</i> file next to the cached
+ *     file, so processes that share the cache folder do not copy the same resource at the same time. The lock file is
+ *     removed once the copy exists</li>
+ *     <li>Copies in a shared folder are named by the last modification time of the resource, and its size if that is
+ *     known, as well as its path, so a resource that has changed is copied again rather than read from a stale copy.
+ *     Finding the last modification time may take a request to a server, such as an HTTP HEAD request, once for each
+ *     resource object. A resource whose last modification time is not known is copied to the temporary folder for
+ *     the process instead, so its copy is never reused by other processes.</li>
+ *     <li>Copies in the temporary folder for the process are named by path alone, and are reused for as long as the
+ *     process runs</li>
+ *     <li>{@link #dematerialize()} only removes copies from the temporary folder for the process, since copies in a
+ *     shared folder may be in use by other processes</li>
+ * </ul>
  */
 @UmlClassDiagram(diagram = DiagramResource.class)
 @UmlClassDiagram(diagram = DiagramFileSystemFile.class)
@@ -77,11 +118,16 @@ import static java.util.Objects.hash;
 public abstract class BaseReadableResource extends BaseRepeater implements Resource
 {
     /**
-     * The temporary cache folder for storing materialized files
+     * The folder for materialized files that are only used by this process
      */
-    private static final Lazy<Folder> cacheFolder = lazy(() ->
+    private static final Lazy<Folder> processCacheFolder = lazy(() ->
         temporaryFolderForProcess(CLEAN_UP_ON_EXIT).ensureExists());
 
+    /**
+     * Materializations in progress in this process, by cache file path
+     */
+    private static final Map<String, CompletableFuture<File>> materializing = new ConcurrentHashMap<>();
+
     /**
      * Character mapping (default is UTF-8)
      */
@@ -95,7 +141,7 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
     /**
      * Local copy if the resource is cached from a remote location
      */
-    private File materialized;
+    private volatile File materialized;
 
     /**
      * StringPath to resource
@@ -171,17 +217,35 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
         // If we can copy from this resource to the given resource in this mode,
         writeMode.ensureAllowed(this, target);
 
-        // copy the resource stream (which might involve compression or decompression or both).
+        // open the streams, wrapping the output to count the bytes copied only when the copy event is enabled,
+        var event = new ResourceCopyEvent();
+        event.begin();
         var input = openForReading(reporter);
         var output = target.openForWriting(writeMode);
-        if (closeMode == CLOSE)
+        var counted = event.isEnabled() ? new ByteSizedOutputStream(output) : null;
+        if (counted != null)
         {
-            ensure(copyAndClose(this, input, output), "Unable to copy ($) $ => $", writeMode, this, target);
+            output = counted;
         }
-        else
+
+        // copy the resource stream (which might involve compression or decompression or both),
+        var success = closeMode == CLOSE
+            ? copyAndClose(this, input, output)
+            : copy(this, input, output);
+
+        // record the copy,
+        event.end();
+        if (event.shouldCommit())
         {
-            ensure(copy(this, input, output), "Unable to copy ($) $ => $", writeMode, this, target);
+            event.source = toString();
+            event.target = target.toString();
+            event.bytes = counted == null ? 0 : counted.sizeInBytes().asLong();
+            event.success = success;
+            event.commit();
         }
+
+        // and fail if the copy failed.
+        ensure(success, "Unable to copy ($) $ => $", writeMode, this, target);
     }
 
     @Override
@@ -191,25 +255,28 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
     }
 
     /**
-     * Remove any materialized local copy if this is a remote resource that's been cached
+     * Remove any materialized local copy if this is a remote resource that's been cached. Copies in a shared cache
+     * folder are left in place, since other processes may be reading them.
      */
     @Override
     public void dematerialize()
     {
-        synchronized (uniqueIdentifier())
+        var materialized = this.materialized;
+        if (materialized != null && !materialized.parent().equals(processCacheFolder.get()))
+        {
+            this.materialized = null;
+        }
+        else if (materialized != null && materialized.exists())
         {
-            if (materialized != null && materialized.exists())
+            try
             {
-                try
-                {
-                    materialized.delete();
-                    trace("Dematerialized ${debug} from local cache", materialized);
-                    materialized = null;
-                }
-                catch (Exception e)
-                {
-                    warning("Unable to dematerialize $", materialized);
-                }
+                materialized.delete();
+                trace("Dematerialized ${debug} from local cache", materialized);
+                this.materialized = null;
+            }
+            catch (Exception e)
+            {
+                warning("Unable to dematerialize $", materialized);
             }
         }
     }
@@ -261,34 +328,67 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
     @Override
     public Resource materialized(@NotNull ProgressReporter reporter)
     {
-        synchronized (uniqueIdentifier())
+        // If this resource is local, it doesn't need to be materialized,
+        if (!isRemote() && !isPackaged())
         {
-            if (isRemote() || isPackaged())
+            return this;
+        }
+
+        // and if it has already been materialized, return the copy without locking.
+        var materialized = this.materialized;
+        if (materialized != null)
+        {
+            return materialized;
+        }
+
+        // If another resource object or process has already made a copy, use it,
+        var cached = cacheFile();
+        if (!cached.exists())
+        {
+            // otherwise, start copying the resource, unless another thread in this process is already copying it,
+            var key = cached.path().asAbsolute().toString();
+            var copy = new CompletableFuture<File>();
+            var inFlight = materializing.putIfAbsent(key, copy);
+            if (inFlight == null)
             {
-                if (materialized == null)
+                try
                 {
-                    var cached = cacheFile();
-                    if (!cached.exists())
-                    {
-                        cached.parent().ensureExists();
-                        var start = now();
-                        trace("Materializing $ to $", this, cached.path().asAbsolute());
-                        safeCopyTo(cached, OVERWRITE, reporter);
-                        trace("Materialized ${debug} ($) from ${debug} in ${debug}", cached.path().asAbsolute(),
-                            cached.sizeInBytes(), this, start.elapsedSince());
-                    }
-                    materialized = cached;
+                    copy.complete(materialize(cached, reporter));
+                }
+                catch (Throwable e)
+                {
+                    // (errors must complete the copy as well, or threads waiting for it would wait forever)
+                    copy.completeExceptionally(e);
+                    throw e;
+                }
+                finally
+                {
+                    materializing.remove(key, copy);
+                }
+            }
+            else
+            {
+                // in which case, wait for that copy to finish.
+                try
+                {
+                    cached = inFlight.join();
+                }
+                catch (CompletionException e)
+                {
+                    return fail(e.getCause(), "Unable to materialize $", this);
                 }
-                return materialized;
             }
-            return this;
         }
+
+        this.materialized = cached;
+        return cached;
     }
 
     @Override
     public InputStream openForReading(@NotNull ProgressReporter reporter)
     {
         // Open the input stream,
+        var event = new ResourceReadEvent().opening();
         var in = onOpenForReading();
         if (in == null)
         {
@@ -303,8 +403,8 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
         reporter.start(fileName().name());
         reporter.steps(sizeInBytes());
 
-        // and return a progressive input which will call the reporter.
-        return new ProgressiveInputStream(decompressed, reporter);
+        // and return a progressive input which will call the reporter (and record a flight recorder event if need be).
+        return new ProgressiveInputStream(event.opened(this, decompressed), reporter);
     }
 
     @Override
@@ -329,18 +429,101 @@ public abstract class BaseReadableResource extends BaseRepeater implements Resou
     private File cacheFile()
     {
         // Flatten path being cached into a long filename by turning all file system meta characters
-        // into underscores.
-        // For example, "a/b/c.txt" becomes "a_b_c.txt"
-        return parseFile(this, cacheFolder.get() + "/" + path().toString().replaceAll("[/:]", "_"));
+        // into underscores. For example, "a/b/c.txt" becomes "a_b_c.txt".
+        var name = path().toString().replaceAll("[/:]", "_");
+
+        // If there is a folder shared with other processes, and the version of this resource is known,
+        var shared = sharedCacheFolder();
+        if (shared != null)
+        {
+            var version = version();
+            if (version != null)
+            {
+                // prefix the name with the version, so a changed resource is copied again. For example, "a_b_c.txt"
+                // becomes "1634800000000-1024_a_b_c.txt".
+                return parseFile(this, shared + "/" + version + "_" + name);
+            }
+        }
+
+        // Otherwise, the copy is only used by this process.
+        return parseFile(this, processCacheFolder.get() + "/" + name);
+    }
+
+    /**
+     * Deletes the given lock file. This is safe once the cached copy exists, because any process that acquires a lock
+     * on the file afterward will find the copy and not make another one.
+     */
+    private void deleteLockFile(Path lockFile)
+    {
+        try
+        {
+            Files.deleteIfExists(lockFile);
+        }
+        catch (IOException e)
+        {
+            trace("Unable to remove lock file $", lockFile);
+        }
+    }
+
+    /**
+     * Copies this resource to the given cache file while holding an advisory lock on the cache file, so that other
+     * processes sharing the cache folder do not copy it at the same time
+     */
+    private File materialize(File cached, ProgressReporter reporter)
+    {
+        cached.parent().ensureExists();
+        var lockFile = Path.of(cached.path().asAbsolute() + ".lock");
+        try (var channel = FileChannel.open(lockFile, CREATE, WRITE); var ignored = channel.lock())
+        {
+            // If another process did not make a copy while we were waiting for the lock,
+            if (!cached.exists())
+            {
+                // then copy the resource to the cache.
+                var start = now();
+                trace("Materializing $ to $", this, cached.path().asAbsolute());
+                safeCopyTo(cached, OVERWRITE, reporter);
+                trace("Materialized ${debug} ($) from ${debug} in ${debug}", cached.path().asAbsolute(),
+                    cached.sizeInBytes(), this, start.elapsedSince());
+            }
+
+            // Now that the copy exists, the lock file is no longer needed.
+            deleteLockFile(lockFile);
+            return cached;
+        }
+        catch (IOException e)
+        {
+            return fail(e, "Unable to lock $ to materialize $", lockFile, this);
+        }
     }
 
-    private String uniqueIdentifier()
+    /**
+     * Returns any folder for materialized files that is shared with other processes, or null if there is none
+     */
+    private Folder sharedCacheFolder()
     {
-        var path = path();
-        if (path instanceof FilePath filepath)
+        var shared = operatingSystem().systemPropertyOrEnvironmentVariable("KIVAKIT_MATERIALIZATION_FOLDER");
+        return shared == null ? null : parseFolder(shared).ensureExists();
+    }
+
+    /**
+     * Returns the version of this resource, made from its last modification time and any known size, or null if its
+     * last modification time is not known
+     */
+    private String version()
+    {
+        try
+        {
+            var lastModified = lastModified();
+            if (lastModified != null)
+            {
+                var size = sizeInBytes();
+                return lastModified.epochMilliseconds() + (size == null ? "" : "-" + size.asLong());
+            }
+        }
+        catch (Exception e)
         {
-            return filepath.asAbsolute().toString();
+            trace("Unable to find the version of $: $", this, e.getMessage());
         }
-        return path().toString();
+        return null;
     }
 }
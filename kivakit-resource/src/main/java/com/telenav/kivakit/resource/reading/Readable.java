@@ -23,6 +23,7 @@ import com.telenav.kivakit.core.progress.ProgressReporter;
 import com.telenav.kivakit.core.progress.reporters.ProgressiveInputStream;
 import com.telenav.kivakit.core.value.count.ByteSized;
 import com.telenav.kivakit.core.value.count.Bytes;
+import com.telenav.kivakit.resource.internal.jfr.ResourceReadEvent;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.InputStream;
@@ -101,7 +102,8 @@ public interface Readable extends ByteSized
      */
     default InputStream openForReading()
     {
-        return buffer(onOpenForReading());
+        var event = new ResourceReadEvent().opening();
+        return event.opened(this, buffer(onOpenForReading()));
     }
 
     /**
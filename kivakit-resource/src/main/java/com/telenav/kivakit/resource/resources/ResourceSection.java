@@ -32,19 +32,34 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.nio.channels.Channels;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.ensure.Ensure.ensureNotNull;
-import static com.telenav.kivakit.core.io.IO.skip;
 import static com.telenav.kivakit.core.value.count.Bytes.bytes;
+import static java.lang.Math.min;
+import static java.nio.file.StandardOpenOption.READ;
 
 /**
  * A portion of a resource from one offset into the resource to another.
  *
+ * <p>
+ * Sections of {@link File}s are read with positional reads on a {@link FileChannel}, so opening a section does not
+ * read the bytes before it. All open sections of the same file share one channel, which is closed when the last
+ * section reading the file is closed. Positional reads do not change the position of the channel, so any number of
+ * threads can read sections of the same file at the same time. If a thread is interrupted while reading, NIO closes the
+ * shared channel, so it is reopened for the other sections, which go on reading. Sections of other resources are read
+ * by skipping to the start of the section in the parent resource.
+ * </p>
+ *
  * @author jonathanl (shibo)
  */
 @UmlClassDiagram(diagram = DiagramResourceType.class)
@@ -110,50 +125,42 @@ public class ResourceSection extends BaseReadableResource
     /**
      * {@inheritDoc}
      */
-    @SuppressWarnings("resource")
     @Override
     public InputStream onOpenForReading()
     {
-        InputStream in;
-        if (parentResource instanceof File)
-        {
-            try
-            {
-                var randomAccessFile = new RandomAccessFile(parentResource.asJavaFile(), "r");
-                in = Channels.newInputStream(randomAccessFile.getChannel());
-                randomAccessFile.seek(startOffset);
-            }
-            catch (Exception e)
-            {
-                throw new RuntimeException(e);
-            }
-        }
-        else
+        try
         {
-            in = parentResource.openForReading();
-            skip(this, in, startOffset);
-        }
-
-        return new InputStream()
-        {
-            private long offset = startOffset;
-
-            @Override
-            public void close()
+            // If the parent resource is a file,
+            if (parentResource instanceof File)
             {
-                IO.close(ResourceSection.this, in);
+                // read the section with positional reads on the shared channel for the file,
+                var path = parentResource.asJavaFile().toPath();
+                return new SectionInputStream(SharedChannel.open(path), startOffset, endOffset);
             }
 
-            @Override
-            public int read() throws IOException
+            // otherwise, skip to the start of the section in the parent resource.
+            var in = parentResource.openForReading();
+            var skip = startOffset;
+            while (skip > 0)
             {
-                if (offset++ < endOffset)
+                var skipped = in.skip(skip);
+                if (skipped <= 0)
                 {
-                    return in.read();
+                    // If the stream can't skip, read a byte to find out if it has ended,
+                    if (in.read() < 0)
+                    {
+                        break;
+                    }
+                    skipped = 1;
                 }
-                return -1;
+                skip -= skipped;
             }
-        };
+            return new SectionInputStream(in, startOffset, endOffset);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Unable to open " + this, e);
+        }
     }
 
     /**
@@ -171,4 +178,210 @@ public class ResourceSection extends BaseReadableResource
         return "[ResourceSection resource = " + parentResource + ", start = " + startOffset + ", end = "
             + endOffset + "]";
     }
+
+    /**
+     * An open {@link FileChannel} shared by all open sections of a file, which is closed when the last section is
+     * closed
+     */
+    private static class SharedChannel
+    {
+        /** The open channels by file path */
+        private static final Map<Path, SharedChannel> channels = new HashMap<>();
+
+        /**
+         * Returns the shared channel for the given file, opening it if necessary
+         */
+        static synchronized SharedChannel open(Path path) throws IOException
+        {
+            var shared = channels.get(path);
+            if (shared == null)
+            {
+                shared = new SharedChannel(path, FileChannel.open(path, READ));
+                channels.put(path, shared);
+            }
+            shared.references++;
+            return shared;
+        }
+
+        /** The open channel, which is replaced if an interrupted read closes it */
+        private volatile FileChannel channel;
+
+        /** The path to the file */
+        private final Path path;
+
+        /** The number of open sections using the channel */
+        private int references;
+
+        private SharedChannel(Path path, FileChannel channel)
+        {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * Releases this channel, closing it if no other section is using it
+         */
+        void close() throws IOException
+        {
+            synchronized (SharedChannel.class)
+            {
+                if (--references == 0)
+                {
+                    channels.remove(path);
+                    channel.close();
+                }
+            }
+        }
+
+        /**
+         * Reads into the given buffer from the given position in the file, without changing the channel's position. If
+         * the channel has been closed by an interrupted read in another thread, it is reopened and the read is tried
+         * again.
+         */
+        int read(ByteBuffer buffer, long position) throws IOException
+        {
+            var start = buffer.position();
+            while (true)
+            {
+                var channel = this.channel;
+                try
+                {
+                    return channel.read(buffer, position);
+                }
+                catch (ClosedByInterruptException e)
+                {
+                    // If this thread was interrupted, reopen the channel for other sections and give up,
+                    reopen(channel);
+                    throw e;
+                }
+                catch (ClosedChannelException e)
+                {
+                    // otherwise another thread was interrupted, so reopen the channel and try again.
+                    reopen(channel);
+                    buffer.position(start);
+                }
+            }
+        }
+
+        /**
+         * Replaces the given closed channel with a new one, unless another thread has already done so
+         */
+        private void reopen(FileChannel closed) throws IOException
+        {
+            synchronized (SharedChannel.class)
+            {
+                if (channel == closed && references > 0)
+                {
+                    channel = FileChannel.open(path, READ);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the bytes of a section, either with positional reads on a shared channel, or from a stream that has been
+     * positioned at the start of the section
+     */
+    private class SectionInputStream extends InputStream
+    {
+        /** The shared channel to read from, if the parent is a file */
+        private SharedChannel channel;
+
+        /** The end offset of the section, exclusive */
+        private final long end;
+
+        /** The stream to read from, if the parent is not a file */
+        private InputStream in;
+
+        /** The offset of the next byte to read */
+        private long offset;
+
+        /** Buffer for single-byte reads */
+        private final byte[] single = new byte[1];
+
+        SectionInputStream(SharedChannel channel, long start, long end)
+        {
+            this.channel = channel;
+            this.offset = start;
+            this.end = end;
+        }
+
+        SectionInputStream(InputStream in, long start, long end)
+        {
+            this.in = in;
+            this.offset = start;
+            this.end = end;
+        }
+
+        @Override
+        public int available()
+        {
+            return (int) min(Integer.MAX_VALUE, end - offset);
+        }
+
+        @Override
+        public synchronized void close() throws IOException
+        {
+            if (channel != null)
+            {
+                channel.close();
+                channel = null;
+            }
+            if (in != null)
+            {
+                IO.close(ResourceSection.this, in);
+                in = null;
+            }
+        }
+
+        @Override
+        public synchronized int read() throws IOException
+        {
+            return read(single, 0, 1) == 1 ? single[0] & 0xff : -1;
+        }
+
+        @Override
+        public synchronized int read(byte @NotNull [] buffer, int at, int length) throws IOException
+        {
+            if (channel == null && in == null)
+            {
+                throw new IOException("Stream closed");
+            }
+
+            // If we are at the end of the section, we are done,
+            if (offset >= end)
+            {
+                return -1;
+            }
+
+            // otherwise, read no more than the rest of the section,
+            var size = (int) min(length, end - offset);
+            if (size == 0)
+            {
+                return 0;
+            }
+            var read = channel != null
+                ? channel.read(ByteBuffer.wrap(buffer, at, size), offset)
+                : in.read(buffer, at, size);
+
+            // and advance past the bytes we read.
+            if (read > 0)
+            {
+                offset += read;
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized long skip(long count) throws IOException
+        {
+            // Skip no more than the rest of the section,
+            var skip = min(Math.max(0, count), end - offset);
+
+            // which is free with positional reads, but has to be passed on to a stream.
+            var skipped = channel != null ? skip : in.skip(skip);
+            offset += skipped;
+            return skipped;
+        }
+    }
 }
@@ -8,6 +8,7 @@ import com.telenav.kivakit.resource.spi.ResourceResolver;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -56,4 +57,13 @@ public class ResourceSectionResolver implements ResourceResolver
         problem("Could not resolve resource: $", identifier);
         return null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> schemes()
+    {
+        return Set.of("section");
+    }
 }
@@ -6,6 +6,7 @@ import com.telenav.kivakit.core.path.StringPath;
 import com.telenav.kivakit.core.progress.ProgressReporter;
 import com.telenav.kivakit.core.progress.reporters.ProgressiveInputStream;
 import com.telenav.kivakit.resource.Resource;
+import com.telenav.kivakit.resource.internal.jfr.SerializationEvent;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -65,6 +66,8 @@ public interface ObjectReader extends RepeaterMixin
                                                  Class<T> type,
                                                  ObjectMetadata... metadata)
     {
+        var event = new SerializationEvent();
+        event.begin();
         try (var input = resource.openForReading())
         {
             return readObject(input, resource.path(), type, metadata);
@@ -74,6 +77,21 @@ public interface ObjectReader extends RepeaterMixin
             problem("Unable to read object from: $", resource);
             return null;
         }
+        finally
+        {
+            // Record the read, looking up the resource's size (which may touch the file system) only for a committed event
+            event.end();
+            if (event.shouldCommit())
+            {
+                var size = resource.sizeInBytes();
+                event.serializer = getClass().getSimpleName();
+                event.resource = resource.path().toString();
+                event.operation = "read";
+                event.type = type == null ? null : type.getName();
+                event.bytes = size == null ? 0 : size.asLong();
+                event.commit();
+            }
+        }
     }
 
     /**
@@ -1,11 +1,13 @@
 package com.telenav.kivakit.resource.serialization;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
+import com.telenav.kivakit.core.io.ByteSizedOutputStream;
 import com.telenav.kivakit.core.language.trait.TryTrait;
 import com.telenav.kivakit.core.messaging.repeaters.RepeaterMixin;
 import com.telenav.kivakit.core.path.StringPath;
 import com.telenav.kivakit.core.progress.ProgressReporter;
 import com.telenav.kivakit.core.progress.reporters.ProgressiveOutputStream;
+import com.telenav.kivakit.resource.internal.jfr.SerializationEvent;
 import com.telenav.kivakit.resource.writing.WritableResource;
 import org.jetbrains.annotations.NotNull;
 
@@ -48,10 +50,28 @@ public interface ObjectWriter extends
                                  @NotNull SerializableObject<T> object,
                                  ObjectMetadata... metadata)
     {
+        var event = new SerializationEvent();
+        event.begin();
         tryCatchThrow(() ->
         {
-            var output = new ProgressiveOutputStream(resource.openForWriting(), progressReporter());
+            // Open the resource, counting the bytes written only when the serialization event is enabled,
+            var counted = event.isEnabled() ? new ByteSizedOutputStream(resource.openForWriting()) : null;
+            var output = new ProgressiveOutputStream(counted != null ? counted : resource.openForWriting(), progressReporter());
+
+            // write the object,
             writeObject(output, resource.path(), object, metadata);
+
+            // and record the write.
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.serializer = getClass().getSimpleName();
+                event.resource = resource.path().toString();
+                event.operation = "write";
+                event.type = object.object().getClass().getName();
+                event.bytes = counted == null ? 0 : counted.sizeInBytes().asLong();
+                event.commit();
+            }
         }, "Unable to write to $: $", resource, object.object().getClass().getSimpleName());
     }
 
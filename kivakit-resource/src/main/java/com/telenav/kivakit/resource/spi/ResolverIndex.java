@@ -0,0 +1,126 @@
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// © 2011-2021 Telenav, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.telenav.kivakit.resource.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * <b>Not public API</b>
+ *
+ * <p>
+ * An immutable index of the resolvers of a given type found by {@link ServiceLoader}, keyed by the URI schemes they
+ * handle. Resolvers that declare no schemes are fallbacks, which are asked about every identifier, after any resolvers
+ * for the identifier's scheme. The index is built once, and since it never changes, lookups do not lock.
+ * </p>
+ *
+ * <p>
+ * The index holds {@link ServiceLoader.Provider}s rather than resolvers, so that each resolution gets its own resolver
+ * instance, which can have its own listeners.
+ * </p>
+ *
+ * @author jonathanl (shibo)
+ */
+final class ResolverIndex<Resolver>
+{
+    /**
+     * Returns an index of the resolvers of the given type on the classpath
+     *
+     * @param type The type of resolver
+     * @param schemes Function that returns the schemes handled by a resolver
+     */
+    static <Resolver> ResolverIndex<Resolver> resolverIndex(Class<Resolver> type,
+                                                            Function<Resolver, Set<String>> schemes)
+    {
+        return new ResolverIndex<>(type, schemes);
+    }
+
+    /**
+     * Returns the scheme of the given identifier, in lower case, or null if it has no scheme. Single letters are not
+     * considered schemes, since they are likely to be Windows drive letters.
+     */
+    static String scheme(String identifier)
+    {
+        var colon = identifier.indexOf(':');
+        if (colon < 2 || !Character.isLetter(identifier.charAt(0)))
+        {
+            return null;
+        }
+        for (var index = 1; index < colon; index++)
+        {
+            var at = identifier.charAt(index);
+            if (!Character.isLetterOrDigit(at) && at != '+' && at != '-' && at != '.')
+            {
+                return null;
+            }
+        }
+        return identifier.substring(0, colon).toLowerCase();
+    }
+
+    /** The resolvers for each scheme, followed by the fallback resolvers */
+    private final Map<String, List<ServiceLoader.Provider<Resolver>>> resolvers = new HashMap<>();
+
+    /** Resolvers that don't declare any scheme */
+    private final List<ServiceLoader.Provider<Resolver>> fallbacks = new ArrayList<>();
+
+    private ResolverIndex(Class<Resolver> type, Function<Resolver, Set<String>> schemes)
+    {
+        // Go through the resolvers on the classpath in order,
+        var specific = new HashMap<String, List<ServiceLoader.Provider<Resolver>>>();
+        ServiceLoader.load(type).stream().forEach(provider ->
+        {
+            // and index each one under the schemes it declares,
+            var declared = schemes.apply(provider.get());
+            for (var scheme : declared)
+            {
+                specific.computeIfAbsent(scheme.toLowerCase(), ignored -> new ArrayList<>()).add(provider);
+            }
+
+            // or add it to the fallbacks if it declares none.
+            if (declared.isEmpty())
+            {
+                fallbacks.add(provider);
+            }
+        });
+
+        // Then follow the resolvers for each scheme with the fallbacks.
+        specific.forEach((scheme, providers) ->
+        {
+            providers.addAll(fallbacks);
+            resolvers.put(scheme, unmodifiableList(providers));
+        });
+    }
+
+    /**
+     * Returns the resolvers to try, in order, for the given identifier
+     */
+    List<ServiceLoader.Provider<Resolver>> resolvers(String identifier)
+    {
+        var scheme = scheme(identifier);
+        var providers = scheme == null ? null : resolvers.get(scheme);
+        return providers == null ? unmodifiableList(fallbacks) : providers;
+    }
+}
@@ -30,6 +30,7 @@ import com.telenav.lexakai.annotations.associations.UmlRelation;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ServiceLoader;
+import java.util.Set;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE;
 import static com.telenav.kivakit.annotations.code.quality.Audience.AUDIENCE_SERVICE_PROVIDER_INTERFACE;
@@ -64,4 +65,14 @@ public interface ResourceFolderResolver extends RepeaterMixin
      */
     @UmlRelation(label = "creates")
     ResourceFolder<?> resolve(@NotNull ResourceFolderIdentifier identifier);
+
+    /**
+     * Returns the URI schemes, without colons, of the identifiers this resolver accepts, like "classpath" or "http". A
+     * resolver is only asked about identifiers with one of its schemes. The default is no schemes, which means the
+     * resolver is asked about all identifiers, after any resolvers that declare the identifier's scheme.
+     */
+    default Set<String> schemes()
+    {
+        return Set.of();
+    }
 }
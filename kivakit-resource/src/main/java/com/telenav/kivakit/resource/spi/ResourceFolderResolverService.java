@@ -19,7 +19,6 @@
 package com.telenav.kivakit.resource.spi;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
-import com.telenav.kivakit.core.collections.list.ObjectList;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
 import com.telenav.kivakit.resource.ResourceFolder;
 import com.telenav.kivakit.resource.ResourceFolderIdentifier;
@@ -34,15 +33,18 @@ import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTE
 import static com.telenav.kivakit.annotations.code.quality.Audience.AUDIENCE_INTERNAL;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
+import static com.telenav.kivakit.resource.spi.ResolverIndex.resolverIndex;
 
 /**
  * <b>Not public API</b>
  * <p>
- * {@link #resolveResourceFolder(ResourceFolderIdentifier)} iterates through implementations of the
- * {@link ResourceFolderResolver} interface provided by Java's {@link ServiceLoader} and resolves
- * {@link ResourceFolderIdentifier}s by calling {@link ResourceFolderResolver#accepts(ResourceFolderIdentifier)} until
- * it reaches a resolver that recognizes the identifier. It then returns the resolved resource with
- * {@link ResourceFolderResolver#resolve(ResourceFolderIdentifier)}.
+ * {@link #resolveResourceFolder(ResourceFolderIdentifier)} looks up the implementations of the
+ * {@link ResourceFolderResolver} interface provided by Java's {@link ServiceLoader} for the scheme of the identifier,
+ * as declared by {@link ResourceFolderResolver#schemes()}, followed by any resolvers that declare no scheme. It calls
+ * {@link ResourceFolderResolver#accepts(ResourceFolderIdentifier)} on each until it reaches a resolver that recognizes
+ * the identifier. It then returns the resolved resource with
+ * {@link ResourceFolderResolver#resolve(ResourceFolderIdentifier)}. The resolvers are indexed once, and since the
+ * index never changes, resolution does not lock.
  *
  * <p><b>Access</b></p>
  *
@@ -66,8 +68,9 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
              audience = AUDIENCE_INTERNAL)
 public class ResourceFolderResolverService extends BaseRepeater
 {
+    /** The index of resource folder resolvers on the classpath, built on first use */
     @UmlAggregation
-    private static ObjectList<ResourceFolderResolver> resolvers;
+    private static volatile ResolverIndex<ResourceFolderResolver> resolvers;
 
     /**
      * Returns an instance of this class
@@ -85,11 +88,12 @@ public class ResourceFolderResolverService extends BaseRepeater
      */
     public ResourceFolder<?> resolveResourceFolder(@NotNull ResourceFolderIdentifier identifier)
     {
-        for (var factory : resourceFolderResolvers())
+        for (var provider : resourceFolderResolvers().resolvers(identifier.identifier()))
         {
-            if (factory.accepts(identifier))
+            var resolver = listenTo(provider.get());
+            if (resolver.accepts(identifier))
             {
-                return factory.resolve(identifier);
+                return resolver.resolve(identifier);
             }
         }
 
@@ -98,19 +102,21 @@ public class ResourceFolderResolverService extends BaseRepeater
     }
 
     /**
-     * Locates all {@link ResourceFolderResolver}s on the classpath using {@link ServiceLoader}.
-     *
-     * @return The list of all resource folder resolvers
+     * Returns the index of {@link ResourceFolderResolver}s on the classpath, building it on first use
      */
-    private synchronized ObjectList<ResourceFolderResolver> resourceFolderResolvers()
+    private ResolverIndex<ResourceFolderResolver> resourceFolderResolvers()
     {
+        var resolvers = ResourceFolderResolverService.resolvers;
         if (resolvers == null)
         {
-            resolvers = new ObjectList<>();
-            for (var resolver : ServiceLoader.load(ResourceFolderResolver.class))
+            synchronized (ResourceFolderResolverService.class)
             {
-                trace("Loaded resource folder resolver: ${class}", resolver.getClass());
-                resolvers.add(resolver);
+                resolvers = ResourceFolderResolverService.resolvers;
+                if (resolvers == null)
+                {
+                    trace("Indexing resource folder resolvers");
+                    ResourceFolderResolverService.resolvers = resolvers = resolverIndex(ResourceFolderResolver.class, ResourceFolderResolver::schemes);
+                }
             }
         }
         return resolvers;
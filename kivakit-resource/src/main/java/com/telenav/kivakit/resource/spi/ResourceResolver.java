@@ -28,6 +28,8 @@ import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.associations.UmlRelation;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE;
 import static com.telenav.kivakit.annotations.code.quality.Audience.AUDIENCE_SERVICE_PROVIDER_INTERFACE;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
@@ -60,4 +62,14 @@ public interface ResourceResolver extends RepeaterMixin
      */
     @UmlRelation(label = "creates")
     Resource resolve(@NotNull ResourceIdentifier identifier);
+
+    /**
+     * Returns the URI schemes, without colons, of the identifiers this resolver accepts, like "classpath" or "http". A
+     * resolver is only asked about identifiers with one of its schemes. The default is no schemes, which means the
+     * resolver is asked about all identifiers, after any resolvers that declare the identifier's scheme.
+     */
+    default Set<String> schemes()
+    {
+        return Set.of();
+    }
 }
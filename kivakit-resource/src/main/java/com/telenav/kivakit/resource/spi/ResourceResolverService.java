@@ -19,9 +19,10 @@
 package com.telenav.kivakit.resource.spi;
 
 import com.telenav.kivakit.annotations.code.quality.TypeQuality;
-import com.telenav.kivakit.core.collections.list.ObjectList;
+import com.telenav.kivakit.core.collections.map.CacheMap;
 import com.telenav.kivakit.core.messaging.Listener;
 import com.telenav.kivakit.core.messaging.repeaters.BaseRepeater;
+import com.telenav.kivakit.core.value.count.Maximum;
 import com.telenav.kivakit.resource.Resource;
 import com.telenav.kivakit.resource.ResourceIdentifier;
 import com.telenav.kivakit.resource.ResourcePath;
@@ -30,12 +31,18 @@ import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.associations.UmlAggregation;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ServiceLoader;
 
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Audience.AUDIENCE_INTERNAL;
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
+import static com.telenav.kivakit.core.os.OperatingSystem.operatingSystem;
+import static com.telenav.kivakit.core.value.count.Maximum.maximum;
+import static com.telenav.kivakit.resource.spi.ResolverIndex.resolverIndex;
+import static com.telenav.kivakit.resource.spi.ResolverIndex.scheme;
 
 /**
  * <b>Not public API</b>
@@ -48,10 +55,24 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
  * </p>
  *
  * <p>
- * The method {@link #resolveResource(ResourceIdentifier)} iterates through implementations of the
- * {@link ResourceResolver} interface located by Java's {@link ServiceLoader}, until a resolver is found that can accept
- * the identifier, as determined by {@link ResourceResolver#accepts(ResourceIdentifier)}. This resolver is then used to
- * resolve the resource with {@link ResourceResolver#resolve(ResourceIdentifier)}.
+ * The {@link ResourceResolver}s on the classpath are located once, with Java's {@link ServiceLoader}, and indexed by
+ * the URI schemes they declare with {@link ResourceResolver#schemes()}. The method
+ * {@link #resolveResource(ResourceIdentifier)} looks up the resolvers for the identifier's scheme, followed by any
+ * resolvers that declare no scheme, and resolves the resource with the first resolver that accepts the identifier, as
+ * determined by {@link ResourceResolver#accepts(ResourceIdentifier)}. Since the index never changes after it is
+ * built, resolution does not lock.
+ * </p>
+ *
+ * <p><b>Resolution Cache</b></p>
+ *
+ * <p>
+ * Resources on the classpath (<i>classpath:</i>) do not change while the process is running, so they can be cached by
+ * identifier. Resolving the same identifier again then returns the same resource without calling a resolver. The
+ * cache is off by default. It can be turned on by setting the system property or environment variable
+ * <i>KIVAKIT_RESOLUTION_CACHE_SIZE</i> to the maximum number of resources to cache, or by calling
+ * {@link #resolutionCacheSize(Maximum)}. The cache is split into stripes by identifier, each with its own lock, so
+ * threads resolving different identifiers rarely wait for each other. Cached resources are shared by everyone who
+ * resolves them, so callers should not add listeners to them.
  * </p>
  *
  * <p><b>Access</b></p>
@@ -66,6 +87,12 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
  *     <li>{@link #resolveResource(ResourceIdentifier)}</li>
  * </ul>
  *
+ * <p><b>Caching</b></p>
+ *
+ * <ul>
+ *     <li>{@link #resolutionCacheSize(Maximum)}</li>
+ * </ul>
+ *
  * @author jonathanl (shibo)
  */
 @SuppressWarnings("unused")
@@ -76,6 +103,28 @@ import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
              audience = AUDIENCE_INTERNAL)
 public class ResourceResolverService extends BaseRepeater
 {
+    /** The scheme of resources that do not change while the process is running, so they can be cached */
+    private static final String IMMUTABLE_SCHEME = "classpath";
+
+    /** The largest number of stripes in the resolution cache */
+    private static final int STRIPES = 16;
+
+    /** The index of resource resolvers on the classpath, built on first use */
+    @UmlAggregation
+    private static volatile ResolverIndex<ResourceResolver> resolvers;
+
+    /** Stripes of resolved classpath resources, by identifier, or null if resources are not cached */
+    private static volatile List<CacheMap<String, Resource>> resolved = resolutionCache(initialResolutionCacheSize());
+
+    /**
+     * Sets the maximum number of classpath resources to cache. A maximum of zero turns caching off. Any resources
+     * already cached are discarded.
+     */
+    public static void resolutionCacheSize(Maximum maximum)
+    {
+        resolved = resolutionCache(maximum);
+    }
+
     /**
      * Returns an instance of this class
      */
@@ -84,31 +133,120 @@ public class ResourceResolverService extends BaseRepeater
         return new ResourceResolverService();
     }
 
-    /** The resource resolvers to try when resolving a resource */
-    @UmlAggregation
-    private ObjectList<ResourceResolver> resolvers;
+    /**
+     * Returns any cached resource for the given identifier
+     */
+    private static Resource cached(String identifier)
+    {
+        var stripe = stripe(identifier);
+        if (stripe != null)
+        {
+            synchronized (stripe)
+            {
+                return stripe.get(identifier);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the given resource to the cache, if there is one
+     */
+    private static void cache(String identifier, Resource resource)
+    {
+        var stripe = stripe(identifier);
+        if (stripe != null)
+        {
+            synchronized (stripe)
+            {
+                stripe.put(identifier, resource);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache size given by <i>KIVAKIT_RESOLUTION_CACHE_SIZE</i>, or zero if it is not set
+     */
+    private static Maximum initialResolutionCacheSize()
+    {
+        var size = operatingSystem().systemPropertyOrEnvironmentVariable("KIVAKIT_RESOLUTION_CACHE_SIZE");
+        return maximum(size == null ? 0 : Long.parseLong(size.trim()));
+    }
+
+    /**
+     * Returns the stripes of a cache of the given size, or null if the size is zero
+     */
+    private static List<CacheMap<String, Resource>> resolutionCache(Maximum maximum)
+    {
+        var size = maximum.asLong();
+        if (size <= 0)
+        {
+            return null;
+        }
+
+        // Split the cache into as many stripes as there can be, up to the maximum, with the same share of the size
+        // (plus one, since a cache map evicts its eldest entry when it reaches its maximum size).
+        var count = (int) Math.min(STRIPES, size);
+        var stripes = new ArrayList<CacheMap<String, Resource>>(count);
+        for (var index = 0; index < count; index++)
+        {
+            stripes.add(new CacheMap<>(maximum((size + count - 1) / count + 1)));
+        }
+        return List.copyOf(stripes);
+    }
+
+    /**
+     * Returns the stripe of the resolution cache for the given identifier, or null if resources are not cached
+     */
+    private static CacheMap<String, Resource> stripe(String identifier)
+    {
+        var stripes = resolved;
+        return stripes == null ? null : stripes.get(Math.floorMod(identifier.hashCode(), stripes.size()));
+    }
 
     private ResourceResolverService()
     {
     }
 
     /**
-     * Resolves the given {@link ResourceIdentifier} to a {@link Resource} by using {@link ServiceLoader} to locate
-     * {@link ResourceResolver}s. The method {@link ResourceResolver#accepts(ResourceIdentifier)} is called on each
-     * resolver until a resolver is found that can accept the identifier. Then this resolver is used to resolve the
-     * identifier into a resource.
+     * Resolves the given {@link ResourceIdentifier} to a {@link Resource}. The resolvers for the identifier's scheme
+     * are tried first, followed by resolvers that declare no scheme. The method
+     * {@link ResourceResolver#accepts(ResourceIdentifier)} is called on each resolver until a resolver is found that
+     * can accept the identifier. Then this resolver is used to resolve the identifier into a resource.
      *
      * @param identifier The resource identifier to resolve
      * @return The resolved resource
      */
     public Resource resolveResource(@NotNull ResourceIdentifier identifier)
     {
-        for (var resolver : resourceResolvers())
+        // If the identifier has an immutable scheme,
+        var text = identifier.identifier();
+        var cacheable = IMMUTABLE_SCHEME.equals(scheme(text));
+        if (cacheable)
+        {
+            // and we have already resolved it, return the resource we resolved before.
+            var resource = cached(text);
+            if (resource != null)
+            {
+                return resource;
+            }
+        }
+
+        // Otherwise, go through the resolvers for the identifier,
+        for (var provider : resourceResolvers().resolvers(text))
         {
+            // and if the resolver accepts the identifier,
+            var resolver = listenTo(provider.get());
             trace("Checking $ against $", identifier, resolver.objectName());
             if (resolver.accepts(identifier))
             {
-                return resolver.resolve(identifier);
+                // resolve it, caching the resource if we can.
+                var resource = resolver.resolve(identifier);
+                if (cacheable && resource != null)
+                {
+                    cache(text, resource);
+                }
+                return resource;
             }
         }
 
@@ -117,22 +255,23 @@ public class ResourceResolverService extends BaseRepeater
     }
 
     /**
-     * Locates all {@link ResourceResolver}s on the classpath using {@link ServiceLoader}.
-     *
-     * @return The list of all resource resolvers
+     * Returns the index of {@link ResourceResolver}s on the classpath, building it on first use
      */
-    private synchronized ObjectList<ResourceResolver> resourceResolvers()
+    private ResolverIndex<ResourceResolver> resourceResolvers()
     {
+        var resolvers = ResourceResolverService.resolvers;
         if (resolvers == null)
         {
-            resolvers = new ObjectList<>();
-            for (var service : ServiceLoader.load(ResourceResolver.class))
+            synchronized (ResourceResolverService.class)
             {
-                trace("Loaded resource resolver: ${class}", service.getClass());
-                resolvers.add(listenTo(service));
+                resolvers = ResourceResolverService.resolvers;
+                if (resolvers == null)
+                {
+                    trace("Indexing resource resolvers");
+                    ResourceResolverService.resolvers = resolvers = resolverIndex(ResourceResolver.class, ResourceResolver::schemes);
+                }
             }
         }
-
         return resolvers;
     }
 }
@@ -74,6 +74,14 @@ import static com.telenav.kivakit.settings.SettingsStore.AccessMode.SAVE;
  *     <li>{@link #onUnload()} - Unloads all settings from this store (but does not remove them from persistent storage)</li>
  * </ul>
  *
+ * <p><b>Concurrency</b></p>
+ *
+ * <p>
+ * The in-memory index is immutable. Methods that change the store build a new index and publish it when they are done,
+ * so {@link #lookup(SettingsObjectIdentifier)}, {@link #objects()} and {@link #iterator()} do not lock, and they see
+ * the previous settings while a load, reload or save is in progress.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see SettingsStore
  * @see Deployment
@@ -88,13 +96,16 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
     JavaTrait
 {
     /** True if settings have been loaded into this store */
-    private boolean loaded;
+    private volatile boolean loaded;
 
-    /** Map to get settings entries by identifier */
-    private final Map<SettingsObjectIdentifier, SettingsObject> objects = new HashMap<>();
+    /**
+     * Immutable map to get settings entries by identifier. Changes to the store build a new map and publish it here, so
+     * lookups never wait for a load, reload or save
+     */
+    private volatile Map<SettingsObjectIdentifier, SettingsObject> objects = Map.of();
 
     /** Store to propagate changes to */
-    private SettingsStore propagateChangesTo;
+    private volatile SettingsStore propagateChangesTo;
 
     /** True while this store is reloading */
     private boolean reloading;
@@ -110,21 +121,9 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
         ensure(supports(ADD));
         ensureNotNull(settings);
 
-        globalRegistry().register(settings.object(), settings.identifier().instance());
-
-        // then walk up the class hierarchy of the object,
-        var instance = settings.identifier().instance();
-        for (var at = (Class<?>) settings.object().getClass(); !at.equals(Object.class); at = at.getSuperclass())
-        {
-            // add the interfaces of the object,
-            for (var in : at.getInterfaces())
-            {
-                internalPut(new SettingsObject(settings.object(), in, instance));
-            }
-
-            // and the class itself.
-            internalPut(new SettingsObject(settings.object(), at, instance));
-        }
+        var objects = new HashMap<>(this.objects);
+        index(objects, settings);
+        publish(objects);
         return true;
     }
 
@@ -136,7 +135,7 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
     {
         ensure(supports(CLEAR));
 
-        objects.clear();
+        publish(Map.of());
         onUnload();
         loaded = false;
     }
@@ -156,10 +155,10 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
 
     @NotNull
     @Override
-    public synchronized Iterator<Object> iterator()
+    public Iterator<Object> iterator()
     {
         maybeLoad();
-        return set(objects())
+        return set(objects.values())
             .stream()
             .map(SettingsObject::object)
             .iterator();
@@ -169,17 +168,26 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
      * {@inheritDoc}
      */
     @Override
-    public final synchronized ObjectSet<SettingsObject> load()
+    public final ObjectSet<SettingsObject> load()
     {
         ensure(supports(LOAD));
 
-        // If we are the first thread to call load(),
+        // If settings have not been loaded yet,
         if (!loaded)
         {
-            // load settings by calling the subclass.
-            trace("Loading settings from: $", name());
-            onLoad().forEach(this::add);
-            loaded = true;
+            synchronized (this)
+            {
+                // and no other thread loaded them while we were waiting,
+                if (!loaded)
+                {
+                    // load settings by calling the subclass, then publish them all at once.
+                    trace("Loading settings from: $", name());
+                    var objects = new HashMap<>(this.objects);
+                    onLoad().forEach(settings -> index(objects, settings));
+                    publish(objects);
+                    loaded = true;
+                }
+            }
         }
 
         return set(objects.values());
@@ -192,7 +200,7 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
      * @return Any settings object for the given identifier
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T lookup(SettingsObjectIdentifier identifier)
+    public <T> T lookup(SettingsObjectIdentifier identifier)
     {
         maybeLoad();
 
@@ -214,20 +222,20 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
      * Gets a <b>copy</b> of the {@link SettingsObject}s indexed in this store, loading them if need be
      */
     @Override
-    public synchronized ObjectSet<SettingsObject> objects()
+    public ObjectSet<SettingsObject> objects()
     {
         maybeLoad();
 
         return set(objects.values());
     }
 
-    public synchronized SettingsStore propagateChangesTo()
+    public SettingsStore propagateChangesTo()
     {
         return propagateChangesTo;
     }
 
     @Override
-    public synchronized void propagateChangesTo(SettingsStore store)
+    public void propagateChangesTo(SettingsStore store)
     {
         propagateChangesTo = store;
     }
@@ -235,23 +243,36 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
     /**
      * <p><b>ServiceProvider API</b></p>
      * <p>
-     * Forces this settings store to reload
+     * Forces this settings store to reload. The new settings are loaded into a separate index, which replaces the
+     * current index when it is complete, so lookups continue to see the old settings until then.
      */
     public synchronized void reload()
     {
+        ensure(supports(LOAD));
+
         if (!reloading)
         {
             reloading = true;
-            clearRegistry();
-            load();
-            reloading = false;
+            try
+            {
+                trace("Reloading settings from: $", name());
+                onUnload();
+                var objects = new HashMap<SettingsObjectIdentifier, SettingsObject>();
+                onLoad().forEach(settings -> index(objects, settings));
+                publish(objects);
+                loaded = true;
+            }
+            finally
+            {
+                reloading = false;
+            }
         }
     }
 
     /**
-     * Adds the given settings object to the in-memory index for this store. The object (from
-     * {@link SettingsObject#object()}) is indexed under its class and all implemented interfaces. It is also indexed
-     * under all superclasses and superinterfaces.
+     * Removes the given settings object from the in-memory index for this store. The object (from
+     * {@link SettingsObject#object()}) is removed from under its class and all implemented interfaces, as well as all
+     * superclasses and superinterfaces.
      */
     @Override
     public synchronized boolean remove(SettingsObject settings)
@@ -259,22 +280,24 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
         ensure(supports(ADD));
         ensureNotNull(settings);
 
-        // Remove the object to the global lookup registry
+        // Remove the object from the global lookup registry
         unregister(settings.object(), settings.identifier().instance());
 
         // then walk up the class hierarchy of the object,
+        var objects = new HashMap<>(this.objects);
         var instance = settings.identifier().instance();
         for (var at = (Class<?>) settings.object().getClass(); !at.equals(Object.class); at = at.getSuperclass())
         {
-            // add the interfaces of the object,
+            // remove the interfaces of the object,
             for (var in : at.getInterfaces())
             {
-                internalRemove(new SettingsObject(settings.object(), in, instance));
+                objects.remove(new SettingsObject(settings.object(), in, instance).identifier());
             }
 
             // and the class itself.
-            internalPut(new SettingsObject(settings.object(), at, instance));
+            objects.remove(new SettingsObject(settings.object(), at, instance).identifier());
         }
+        publish(objects);
         return true;
     }
 
@@ -324,17 +347,32 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
     {
     }
 
-    private synchronized void internalPut(SettingsObject settings)
+    /**
+     * Registers the given settings object with the global registry and adds it to the given index under its class,
+     * superclasses and interfaces
+     */
+    private void index(Map<SettingsObjectIdentifier, SettingsObject> objects, SettingsObject settings)
     {
-        objects.put(settings.identifier(), settings);
-    }
+        ensureNotNull(settings);
 
-    private synchronized void internalRemove(SettingsObject settings)
-    {
-        objects.remove(settings.identifier());
+        globalRegistry().register(settings.object(), settings.identifier().instance());
+
+        // then walk up the class hierarchy of the object,
+        var instance = settings.identifier().instance();
+        for (var at = (Class<?>) settings.object().getClass(); !at.equals(Object.class); at = at.getSuperclass())
+        {
+            // add the interfaces of the object,
+            for (var in : at.getInterfaces())
+            {
+                put(objects, new SettingsObject(settings.object(), in, instance));
+            }
+
+            // and the class itself.
+            put(objects, new SettingsObject(settings.object(), at, instance));
+        }
     }
 
-    private synchronized void maybeLoad()
+    private void maybeLoad()
     {
         // If we can load this store,
         if (supports(LOAD))
@@ -343,4 +381,17 @@ public abstract class BaseSettingsStore extends BaseRepeater implements
             load();
         }
     }
+
+    /**
+     * Publishes an immutable copy of the given index to readers
+     */
+    private void publish(Map<SettingsObjectIdentifier, SettingsObject> objects)
+    {
+        this.objects = Map.copyOf(objects);
+    }
+
+    private void put(Map<SettingsObjectIdentifier, SettingsObject> objects, SettingsObject settings)
+    {
+        objects.put(settings.identifier(), settings);
+    }
 }
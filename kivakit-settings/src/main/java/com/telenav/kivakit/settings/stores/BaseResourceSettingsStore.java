@@ -121,10 +121,9 @@ public abstract class BaseResourceSettingsStore extends BaseSettingsStore implem
      * @param resource The resource to read
      * @return The {@link SettingsObject}
      */
-    protected synchronized SettingsObject read(Resource resource)
+    protected SettingsObject read(Resource resource)
     {
-        var reader = require(ObjectSerializerRegistry.class, ObjectSerializerRegistry::new)
-            .serializer(resource.extension());
+        var reader = serializers().serializer(resource.extension());
         if (reader != null)
         {
             var object = reader.readObject(resource, METADATA_OBJECT_TYPE, METADATA_OBJECT_INSTANCE);
@@ -139,4 +138,13 @@ public abstract class BaseResourceSettingsStore extends BaseSettingsStore implem
         }
         return null;
     }
+
+    /**
+     * Returns the object serializer registry, creating and registering it if there isn't one yet. This is synchronized
+     * so that settings read in parallel share a single registry.
+     */
+    protected synchronized ObjectSerializerRegistry serializers()
+    {
+        return require(ObjectSerializerRegistry.class, ObjectSerializerRegistry::new);
+    }
 }
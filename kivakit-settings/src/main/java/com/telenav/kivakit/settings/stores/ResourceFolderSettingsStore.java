@@ -22,8 +22,12 @@ import com.telenav.kivakit.annotations.code.quality.TypeQuality;
 import com.telenav.kivakit.core.collections.set.ObjectSet;
 import com.telenav.kivakit.core.messaging.Listener;
 import com.telenav.kivakit.core.registry.Registry;
+import com.telenav.kivakit.core.time.Time;
+import com.telenav.kivakit.core.value.count.Bytes;
 import com.telenav.kivakit.filesystem.Folder;
+import com.telenav.kivakit.resource.Resource;
 import com.telenav.kivakit.resource.ResourceFolder;
+import com.telenav.kivakit.resource.resources.DataResource;
 import com.telenav.kivakit.resource.serialization.ObjectSerializer;
 import com.telenav.kivakit.resource.serialization.ObjectSerializerRegistry;
 import com.telenav.kivakit.settings.SettingsObject;
@@ -33,16 +37,28 @@ import com.telenav.kivakit.settings.internal.lexakai.DiagramSettings;
 import com.telenav.lexakai.annotations.UmlClassDiagram;
 import com.telenav.lexakai.annotations.visibility.UmlExcludeMember;
 
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
 import static com.telenav.kivakit.annotations.code.quality.Documentation.DOCUMENTED;
 import static com.telenav.kivakit.annotations.code.quality.Stability.STABLE_EXTENSIBLE;
 import static com.telenav.kivakit.annotations.code.quality.Testing.UNTESTED;
 import static com.telenav.kivakit.core.collections.set.ObjectSet.set;
 import static com.telenav.kivakit.core.ensure.Ensure.unsupported;
 import static com.telenav.kivakit.core.string.Formatter.format;
+import static com.telenav.kivakit.core.thread.Threads.shutdownAndAwaitTermination;
+import static com.telenav.kivakit.core.thread.Threads.threadPool;
+import static com.telenav.kivakit.core.value.count.Count.count;
+import static com.telenav.kivakit.core.vm.JavaVirtualMachine.javaVirtualMachine;
 import static com.telenav.kivakit.settings.SettingsStore.AccessMode.DELETE;
 import static com.telenav.kivakit.settings.SettingsStore.AccessMode.ADD;
 import static com.telenav.kivakit.settings.SettingsStore.AccessMode.LOAD;
 import static com.telenav.kivakit.settings.SettingsStore.AccessMode.CLEAR;
+import static java.lang.Math.min;
 
 /**
  * <p>
@@ -57,6 +73,16 @@ import static com.telenav.kivakit.settings.SettingsStore.AccessMode.CLEAR;
  * found in the global {@link Registry}.
  * </p>
  *
+ * <p><b>Loading</b></p>
+ *
+ * <p>
+ * Settings files are read in parallel, with up to one thread per processor. Each file is fingerprinted by its size,
+ * last-modified time and a hash of its contents, and the settings object read from it is kept with the fingerprint.
+ * When the store is reloaded, files with the same size and last-modified time are not read again. Files with a new
+ * size or time are read and hashed, and only files whose contents have changed are deserialized again, from the bytes
+ * that were hashed. A load is all or nothing: if any file cannot be loaded, the settings from the last load are kept.
+ * </p>
+ *
  * @author jonathanl (shibo)
  * @see BaseResourceSettingsStore
  * @see ObjectSerializerRegistry
@@ -74,6 +100,9 @@ public class ResourceFolderSettingsStore extends BaseResourceSettingsStore
     /** The folder containing .properties files defining settings objects */
     private final ResourceFolder<?> folder;
 
+    /** The settings loaded from each resource, by resource path, with the fingerprint of the resource */
+    private Map<String, LoadedSettings> loaded = Map.of();
+
     /**
      * @param folder The folder containing files specifying settings objects
      */
@@ -109,26 +138,68 @@ public class ResourceFolderSettingsStore extends BaseResourceSettingsStore
     @UmlExcludeMember
     public synchronized ObjectSet<SettingsObject> onLoad()
     {
-        var objects = new ObjectSet<SettingsObject>();
-
-        var serializers = require(ObjectSerializerRegistry.class, ObjectSerializerRegistry::new);
+        var serializers = serializers();
         if (serializers.serializers().isEmpty())
         {
             problem("Cannot load settings: no registered object serializers for $", this);
             return set();
         }
 
-        // Go through resources in the folder
+        // Go through resources in the folder, selecting those that have a serializer for their extension,
+        var resources = new ArrayList<Resource>();
         for (var resource : folder.resources())
         {
-            // get any serializer for the file extension,
-            var serializer = serializers.serializer(resource.extension());
-            if (serializer != null)
+            if (serializers.serializer(resource.extension()) != null)
             {
-                objects.addIfNotNull(read(resource));
+                resources.add(resource);
             }
         }
 
+        // then load the settings in each resource, reusing unchanged settings from the last load.
+        var loaded = new ConcurrentHashMap<String, LoadedSettings>();
+        var objects = new ObjectSet<SettingsObject>();
+        var threads = min(resources.size(), javaVirtualMachine().processors().asInt());
+        try
+        {
+            if (threads <= 1)
+            {
+                for (var resource : resources)
+                {
+                    objects.addIfNotNull(load(resource, loaded));
+                }
+            }
+            else
+            {
+                var executor = threadPool("SettingsLoader", count(threads));
+                try
+                {
+                    var futures = new ArrayList<Future<SettingsObject>>();
+                    for (var resource : resources)
+                    {
+                        futures.add(executor.submit(() -> load(resource, loaded)));
+                    }
+                    for (var future : futures)
+                    {
+                        objects.addIfNotNull(future.get());
+                    }
+                }
+                finally
+                {
+                    shutdownAndAwaitTermination(executor);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            // If any resource could not be loaded, keep the settings from the last load.
+            problem(e, "Unable to load settings from $", this);
+            var previous = new ObjectSet<SettingsObject>();
+            this.loaded.values().forEach(settings -> previous.add(settings.settings()));
+            return previous;
+        }
+
+        // Settings from resources that have been removed are dropped from the cache.
+        this.loaded = loaded;
         return objects;
     }
 
@@ -149,4 +220,88 @@ public class ResourceFolderSettingsStore extends BaseResourceSettingsStore
     {
         return unsupported();
     }
+
+    /**
+     * Returns a hash of the given bytes
+     */
+    private String hash(byte[] bytes)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }
+        catch (Exception e)
+        {
+            problem(e, "Unable to hash settings");
+            return null;
+        }
+    }
+
+    /**
+     * Loads the settings in the given resource, adding them to the given map of loaded settings. If the resource has
+     * not changed since the last load, the settings from the last load are returned without reading the resource.
+     *
+     * @param resource The settings resource
+     * @param loaded The settings loaded so far
+     * @return The settings object, or null if it could not be read
+     */
+    private SettingsObject load(Resource resource, Map<String, LoadedSettings> loaded)
+    {
+        var path = resource.path().asString();
+        var previous = this.loaded.get(path);
+        var lastModified = resource.lastModified();
+        var size = resource.sizeInBytes();
+
+        // If the resource has the same size and modification time as when it was last loaded,
+        if (previous != null && previous.fingerprint().isSame(lastModified, size))
+        {
+            // use the settings we already have.
+            loaded.put(path, previous);
+            return previous.settings();
+        }
+
+        // If the contents of the resource are the same as when it was last loaded,
+        var bytes = resource.reader().readBytes();
+        var fingerprint = new Fingerprint(lastModified, size, hash(bytes));
+        if (previous != null && fingerprint.hash() != null && fingerprint.hash().equals(previous.fingerprint().hash()))
+        {
+            // use the settings we already have, under the new fingerprint.
+            loaded.put(path, new LoadedSettings(fingerprint, previous.settings()));
+            return previous.settings();
+        }
+
+        // Otherwise, read the settings object from the bytes we hashed.
+        trace("Reading settings from: $", resource);
+        var settings = read(new DataResource(resource.path(), bytes));
+        if (settings != null)
+        {
+            loaded.put(path, new LoadedSettings(fingerprint, settings));
+        }
+        return settings;
+    }
+
+    /**
+     * Identifies the contents of a settings resource
+     *
+     * @param lastModified The time the resource was last modified
+     * @param size The size of the resource
+     * @param hash A hash of the contents of the resource
+     */
+    private record Fingerprint(Time lastModified, Bytes size, String hash)
+    {
+        boolean isSame(Time lastModified, Bytes size)
+        {
+            return this.lastModified != null
+                && this.lastModified.equals(lastModified)
+                && this.size != null
+                && this.size.equals(size);
+        }
+    }
+
+    /**
+     * A settings object and the fingerprint of the resource it was read from
+     */
+    private record LoadedSettings(Fingerprint fingerprint, SettingsObject settings)
+    {
+    }
 }
@@ -17,10 +17,12 @@ package com.telenav.kivakit.settings;///////////////////////////////////////////
 ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
 import com.telenav.kivakit.core.registry.InstanceIdentifier;
+import com.telenav.kivakit.filesystem.Folder;
 import com.telenav.kivakit.resource.packages.PackageTrait;
 import com.telenav.kivakit.serialization.gson.GsonSerializationProject;
 import com.telenav.kivakit.serialization.gson.KivaKitCoreGsonFactory;
 import com.telenav.kivakit.serialization.properties.PropertiesSerializationProject;
+import com.telenav.kivakit.settings.SettingsObject.SettingsObjectIdentifier;
 import com.telenav.kivakit.settings.stores.ResourceFolderSettingsStore;
 import com.telenav.kivakit.testing.UnitTest;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +32,8 @@ import org.junit.Test;
 import static com.telenav.kivakit.core.registry.InstanceIdentifier.instanceIdentifier;
 import static com.telenav.kivakit.core.time.Duration.ONE_MINUTE;
 import static com.telenav.kivakit.core.time.Duration.seconds;
+import static com.telenav.kivakit.filesystem.Folder.FolderType.CLEAN_UP_ON_EXIT;
+import static com.telenav.kivakit.resource.FileName.fileName;
 import static com.telenav.kivakit.settings.SettingsRegistry.settingsFor;
 
 public class SettingsRegistryTest extends UnitTest implements PackageTrait
@@ -151,6 +155,36 @@ public class SettingsRegistryTest extends UnitTest implements PackageTrait
         }
     }
 
+    @Test
+    public void testReload()
+    {
+        // Write settings files to a temporary folder
+        var folder = Folder.temporaryFolderForProcess(CLEAN_UP_ON_EXIT).temporaryFolder(fileName("settings"));
+        var server = folder.file("ServerSettings.properties");
+        server.writer().saveText("class = com.telenav.kivakit.settings.ServerSettings\nport = 7000\ntimeout = 1 minute\n");
+        folder.file("ClientSettings.json").writer().saveText(packageResource("ClientSettings.json").reader().asString());
+
+        // and load them.
+        var store = listenTo(new ResourceFolderSettingsStore(this, folder));
+        ServerSettings before = store.lookup(new SettingsObjectIdentifier(ServerSettings.class));
+        ClientSettings client = store.lookup(new SettingsObjectIdentifier(ClientSettings.class, SERVER1));
+        ensureEqual(7000, before.port());
+        ensureEqual(9999, client.port());
+
+        // Reloading unchanged files should not read them again,
+        store.reload();
+        ensure(before == store.lookup(new SettingsObjectIdentifier(ServerSettings.class)));
+
+        // but a changed file should be read again.
+        server.writer().saveText("class = com.telenav.kivakit.settings.ServerSettings\nport = 8000\ntimeout = 1 minute\n");
+        server.lastModified(server.lastModified().plus(ONE_MINUTE));
+        store.reload();
+        ServerSettings after = store.lookup(new SettingsObjectIdentifier(ServerSettings.class));
+        ensureEqual(8000, after.port());
+
+        folder.clearAllAndDelete();
+    }
+
     @NotNull
     private SettingsRegistry globalSettings()
     {